@@ -0,0 +1,141 @@
+package com.serenegiant.collections;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free LIFO stack (Treiber stack) for object pools.
+ * Every #push allocates one small node, nodes are never reused
+ * so ABA problem does not occur.
+ * null values are not allowed.
+ * @param <V>
+ */
+public class LockFreeStack<V> {
+
+	private static final class Node<V> {
+		@NonNull
+		private final V value;
+		@Nullable
+		private Node<V> next;
+
+		private Node(@NonNull final V value) {
+			this.value = value;
+		}
+	}
+
+	private final AtomicReference<Node<V>> mHead = new AtomicReference<Node<V>>();
+	private final AtomicInteger mSize = new AtomicInteger();
+
+	/**
+	 * push specific value on the top of this stack
+	 * @param value
+	 * @throws NullPointerException
+	 */
+	public void push(@NonNull final V value) throws NullPointerException {
+		if (value == null) throw new NullPointerException();
+		final Node<V> node = new Node<V>(value);
+		for ( ; ; ) {
+			final Node<V> head = mHead.get();
+			node.next = head;
+			if (mHead.compareAndSet(head, node)) {
+				mSize.incrementAndGet();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * push specific value only if the size of this stack is less than maxSize
+	 * the size limit is not strict under contention
+	 * @param value
+	 * @param maxSize
+	 * @return true if value was pushed
+	 */
+	public boolean offer(@NonNull final V value, final int maxSize) {
+		if (mSize.get() < maxSize) {
+			push(value);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * remove and return the value on the top of this stack
+	 * @return null if this stack is empty
+	 */
+	@Nullable
+	public V pop() {
+		for ( ; ; ) {
+			final Node<V> head = mHead.get();
+			if (head == null) {
+				return null;
+			}
+			if (mHead.compareAndSet(head, head.next)) {
+				mSize.decrementAndGet();
+				return head.value;
+			}
+		}
+	}
+
+	/**
+	 * return the value on the top of this stack without removing it
+	 * @return null if this stack is empty
+	 */
+	@Nullable
+	public V peek() {
+		final Node<V> head = mHead.get();
+		return head != null ? head.value : null;
+	}
+
+	public boolean isEmpty() {
+		return mHead.get() == null;
+	}
+
+	/**
+	 * return number of values,
+	 * this may be temporarily inaccurate while other threads push/pop values
+	 * @return
+	 */
+	public int size() {
+		return Math.max(mSize.get(), 0);
+	}
+
+	/**
+	 * remove all values atomically
+	 * @return removed values, from top to bottom
+	 */
+	@NonNull
+	public List<V> clear() {
+		Node<V> node = mHead.getAndSet(null);
+		final List<V> result = new ArrayList<V>();
+		while (node != null) {
+			result.add(node.value);
+			node = node.next;
+		}
+		mSize.addAndGet(-result.size());
+		return result;
+	}
+}
@@ -30,6 +30,11 @@ import java.util.ListIterator;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * List guarded by single ReentrantReadWriteLock
+ * use SnapshotList for read-mostly use like listener sets
+ * @param <V>
+ */
 public class ReentrantReadWriteList<V> implements List<V> {
 	private final ReentrantReadWriteLock mSensorLock = new ReentrantReadWriteLock();
 	private final Lock mReadLock = mSensorLock.readLock();
@@ -30,6 +30,13 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  *  See the License for the specific language governing permissions and
  *  limitations under the License.
 */
+/**
+ * Map guarded by single ReentrantReadWriteLock
+ * use StripedReadWriteMap when many threads access this concurrently
+ * (it has the same public methods but not the protected locking hooks)
+ * @param <K>
+ * @param <V>
+ */
 public class ReentrantReadWriteMap<K, V> {
 	private final ReentrantReadWriteLock mSensorLock = new ReentrantReadWriteLock();
 	private final Lock mReadLock = mSensorLock.readLock();
@@ -0,0 +1,92 @@
+package com.serenegiant.collections;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Copy-on-write replacement of ReentrantReadWriteList for read-mostly use like listener sets.
+ * Reads never lock and iterators work on an immutable snapshot,
+ * so it is safe to modify this list while iterating it
+ * (ex. remove listener from its callback).
+ * Every modification copies whole underlying array,
+ * use ReentrantReadWriteList if modification is frequent.
+ * @param <V>
+ */
+public class SnapshotList<V> extends CopyOnWriteArrayList<V> {
+	private static final long serialVersionUID = -4125936021593405682L;
+
+	public SnapshotList() {
+		super();
+	}
+
+	public SnapshotList(@NonNull final Collection<? extends V> collection) {
+		super(collection);
+	}
+
+	/**
+	 * same as #get except this returns null instead of throwing IndexOutOfBoundsException
+	 * @param ix
+	 * @return
+	 */
+	@Nullable
+	public V tryGet(final int ix) {
+		try {
+			return ix >= 0 ? get(ix) : null;
+		} catch (final IndexOutOfBoundsException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * remove last value
+	 * if other thread adds values concurrently, this may remove the value
+	 * that was the last one when this method was called
+	 * @return removed value or null if this list is empty
+	 */
+	@Nullable
+	public V removeLast() {
+		for ( ; ; ) {
+			final int n = size();
+			if (n == 0) {
+				return null;
+			}
+			try {
+				return remove(n - 1);
+			} catch (final IndexOutOfBoundsException e) {
+				// other thread removed value, retry
+			}
+		}
+	}
+
+	/**
+	 * return unmodifiable view of this list,
+	 * iterating it works on the snapshot at the time of starting iteration
+	 * @return
+	 */
+	@NonNull
+	public Collection<V> values() {
+		return Collections.unmodifiableCollection(this);
+	}
+}
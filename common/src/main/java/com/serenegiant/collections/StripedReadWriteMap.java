@@ -0,0 +1,352 @@
+package com.serenegiant.collections;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Drop-in replacement of ReentrantReadWriteMap that splits key/value pairs
+ * into multiple stripes, each of them is a HashMap guarded by its own ReentrantReadWriteLock.
+ * Accesses to keys in different stripes never contend with each other.
+ * #keys, #values and #entrySet lock only one stripe at a time,
+ * so they return a weakly consistent copy instead of an atomic snapshot of whole map.
+ * Only public methods are compatible with ReentrantReadWriteMap.
+ * Protected hooks of ReentrantReadWriteMap that lock or expose the whole map
+ * (#readLock, #readUnlock, #writeLock, #writeUnlock, #valuesLocked, #keysLocked
+ * and #mapLocked) are not provided because there is no single lock nor map here,
+ * subclasses depending on them should keep using ReentrantReadWriteMap.
+ * @param <K>
+ * @param <V>
+ */
+public class StripedReadWriteMap<K, V> {
+	private static final int DEFAULT_STRIPES = 16;
+	private static final int MAX_STRIPES = 1 << 16;
+
+	private static final class Stripe<K, V> {
+		private final ReentrantReadWriteLock mLock = new ReentrantReadWriteLock();
+		private final Lock mReadLock = mLock.readLock();
+		private final Lock mWriteLock = mLock.writeLock();
+		private final Map<K, V> mMap = new HashMap<K, V>();
+	}
+
+	@NonNull
+	private final Stripe<K, V>[] mStripes;
+	private final int mMask;
+
+	/**
+	 * constructor with default number of stripes
+	 */
+	public StripedReadWriteMap() {
+		this(DEFAULT_STRIPES);
+	}
+
+	/**
+	 * constructor
+	 * @param concurrencyLevel estimated number of concurrently accessing threads,
+	 * 		number of stripes is rounded up to power of 2
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public StripedReadWriteMap(final int concurrencyLevel) {
+		int n = 1;
+		while ((n < concurrencyLevel) && (n < MAX_STRIPES)) {
+			n <<= 1;
+		}
+		mStripes = new Stripe[n];
+		for (int i = 0; i < n; i++) {
+			mStripes[i] = new Stripe<K, V>();
+		}
+		mMask = n - 1;
+	}
+
+	/**
+	 * return number of stripes
+	 * @return
+	 */
+	public int getStripeCount() {
+		return mStripes.length;
+	}
+
+	@Nullable
+	public V get(@NonNull final K key) {
+		final Stripe<K, V> stripe = stripeFor(key);
+		stripe.mReadLock.lock();
+		try {
+			return stripe.mMap.get(key);
+		} finally {
+			stripe.mReadLock.unlock();
+		}
+	}
+
+	@Nullable
+	public V tryGet(@NonNull final K key) {
+		final Stripe<K, V> stripe = stripeFor(key);
+		if (stripe.mReadLock.tryLock()) {
+			try {
+				return stripe.mMap.get(key);
+			} finally {
+				stripe.mReadLock.unlock();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * put specific value into this map
+	 * @param key
+	 * @param value
+	 * @return the previous value associated with key or null if no value mapped.
+	 */
+	public V put(@NonNull final K key, @NonNull final V value) {
+		final Stripe<K, V> stripe = stripeFor(key);
+		stripe.mWriteLock.lock();
+		try {
+			return stripe.mMap.put(key, value);
+		} finally {
+			stripe.mWriteLock.unlock();
+		}
+	}
+
+	/**
+	 * If the specified key is not already associated with a value (or is mapped to null)
+	 * associates it with the given value and returns null, else returns the current value.
+	 * @param key
+	 * @param value
+	 * @return
+	 */
+	public V putIfAbsent(final K key, final V value) {
+		final Stripe<K, V> stripe = stripeFor(key);
+		stripe.mWriteLock.lock();
+		try {
+			final V v = stripe.mMap.get(key);
+			if (v == null) {
+				stripe.mMap.put(key, value);
+			}
+			return v;
+		} finally {
+			stripe.mWriteLock.unlock();
+		}
+	}
+
+	public void putAll(@NonNull final Map<? extends K, ? extends V> map) {
+		for (final Map.Entry<? extends K, ? extends V> entry: map.entrySet()) {
+			put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	public V remove(@NonNull final K key) {
+		final Stripe<K, V> stripe = stripeFor(key);
+		stripe.mWriteLock.lock();
+		try {
+			return stripe.mMap.remove(key);
+		} finally {
+			stripe.mWriteLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the entry for the specified key only if it is currently mapped to the specified value.
+	 * @param key
+	 * @param value
+	 * @return specific removed value or null if no mapping existed
+	 */
+	public V remove(@NonNull final K key, final V value) {
+		final Stripe<K, V> stripe = stripeFor(key);
+		stripe.mWriteLock.lock();
+		try {
+			if (stripe.mMap.containsKey(key) && isEquals(stripe.mMap.get(key), value)) {
+				return stripe.mMap.remove(key);
+			}
+			return null;
+		} finally {
+			stripe.mWriteLock.unlock();
+		}
+	}
+
+	/**
+	 * remove all key/value pairs and return removed values
+	 * @return
+	 */
+	public Collection<V> removeAll() {
+		final Collection<V> result = new ArrayList<V>();
+		for (final Stripe<K, V> stripe: mStripes) {
+			stripe.mWriteLock.lock();
+			try {
+				result.addAll(stripe.mMap.values());
+				stripe.mMap.clear();
+			} finally {
+				stripe.mWriteLock.unlock();
+			}
+		}
+		return result;
+	}
+
+	public void clear() {
+		for (final Stripe<K, V> stripe: mStripes) {
+			stripe.mWriteLock.lock();
+			try {
+				stripe.mMap.clear();
+			} finally {
+				stripe.mWriteLock.unlock();
+			}
+		}
+	}
+
+	public int size() {
+		int result = 0;
+		for (final Stripe<K, V> stripe: mStripes) {
+			stripe.mReadLock.lock();
+			try {
+				result += stripe.mMap.size();
+			} finally {
+				stripe.mReadLock.unlock();
+			}
+		}
+		return result;
+	}
+
+	public boolean containsKey(final K key) {
+		final Stripe<K, V> stripe = stripeFor(key);
+		stripe.mReadLock.lock();
+		try {
+			return stripe.mMap.containsKey(key);
+		} finally {
+			stripe.mReadLock.unlock();
+		}
+	}
+
+	public boolean containsValue(final Object value) {
+		for (final Stripe<K, V> stripe: mStripes) {
+			stripe.mReadLock.lock();
+			try {
+				if (stripe.mMap.containsValue(value)) {
+					return true;
+				}
+			} finally {
+				stripe.mReadLock.unlock();
+			}
+		}
+		return false;
+	}
+
+	public V getOrDefault(final K key, @Nullable final V defaultValue) {
+		final Stripe<K, V> stripe = stripeFor(key);
+		stripe.mReadLock.lock();
+		try {
+			final V v = stripe.mMap.get(key);
+			return (v != null) || stripe.mMap.containsKey(key) ? v : defaultValue;
+		} finally {
+			stripe.mReadLock.unlock();
+		}
+	}
+
+	public boolean isEmpty() {
+		for (final Stripe<K, V> stripe: mStripes) {
+			stripe.mReadLock.lock();
+			try {
+				if (!stripe.mMap.isEmpty()) {
+					return false;
+				}
+			} finally {
+				stripe.mReadLock.unlock();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * return copy of keys
+	 * @return
+	 */
+	@NonNull
+	public Collection<K> keys() {
+		final Collection<K> result = new ArrayList<K>();
+		for (final Stripe<K, V> stripe: mStripes) {
+			stripe.mReadLock.lock();
+			try {
+				result.addAll(stripe.mMap.keySet());
+			} finally {
+				stripe.mReadLock.unlock();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * return copy of mapped values
+	 * @return
+	 */
+	@NonNull
+	public Collection<V> values() {
+		final Collection<V> result = new ArrayList<V>();
+		for (final Stripe<K, V> stripe: mStripes) {
+			stripe.mReadLock.lock();
+			try {
+				result.addAll(stripe.mMap.values());
+			} finally {
+				stripe.mReadLock.unlock();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * return copy of entries
+	 * @return
+	 */
+	@NonNull
+	public Set<Map.Entry<K, V>> entrySet() {
+		final Set<Map.Entry<K, V>> result = new HashSet<>();
+		for (final Stripe<K, V> stripe: mStripes) {
+			stripe.mReadLock.lock();
+			try {
+				for (final Map.Entry<K, V> entry: stripe.mMap.entrySet()) {
+					result.add(new AbstractMap.SimpleImmutableEntry<K, V>(entry));
+				}
+			} finally {
+				stripe.mReadLock.unlock();
+			}
+		}
+		return result;
+	}
+
+//================================================================================
+	private static final boolean isEquals(final Object a, final Object b) {
+		return (a == b) || (a != null && a.equals(b));
+	}
+
+	@NonNull
+	private Stripe<K, V> stripeFor(@Nullable final Object key) {
+		int h = key != null ? key.hashCode() : 0;
+		// spread higher bits because HashMap in each stripe uses lower bits
+		h ^= (h >>> 16);
+		h *= 0x9e3779b9;
+		return mStripes[(h >>> 16) & mMask];
+	}
+}
@@ -22,6 +22,8 @@ import android.annotation.SuppressLint;
 import android.database.Cursor;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
+
 
 public final class CursorHelper {
 	//	private static final boolean DEBUG = false;	// FIXME 実働時にはfalseにすること
@@ -102,6 +104,27 @@ public final class CursorHelper {
 		return result;
 	}
 	
+	/**
+	 * 複数のカラム名に対応するカラムインデックスをまとめて取得する
+	 * 同じCursorから複数行を読み込む時はCursorReaderを使うかこの戻り値を使うと
+	 * 行毎にカラム名を探索しなくて済む
+	 *
+	 * @param cursor
+	 * @param columnNames
+	 * @return カラムが存在しない要素は-1
+	 */
+	@NonNull
+	public static int[] getColumnIndices(@NonNull final Cursor cursor,
+		@NonNull final String... columnNames) {
+
+		final int n = columnNames.length;
+		final int[] result = new int[n];
+		for (int i = 0; i < n; i++) {
+			result[i] = cursor.getColumnIndex(columnNames[i]);
+		}
+		return result;
+	}
+
 	/**
 	 * カラム名"_id"から値を読み取り指定したidと一致するpositionを探す。見つからなければ-1を返す
 	 *
@@ -114,10 +137,11 @@ public final class CursorHelper {
 		if (cursor != null) {
 			savedPosition = cursor.getPosition();
 			try {
-				if (cursor.moveToFirst()) {
+				final int idColumn = cursor.getColumnIndex("_id");
+				if ((idColumn >= 0) && cursor.moveToFirst()) {
 					long rowId;
 					do {
-						rowId = CursorHelper.getLong(cursor, "_id", 0);
+						rowId = cursor.getLong(idColumn);
 						if (rowId == requestID) {
 							position = cursor.getPosition();
 							break;
@@ -0,0 +1,210 @@
+package com.serenegiant.db;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * カラムインデックスをキャッシュしてCursorから値を読み込むためのヘルパークラス
+ * CursorHelper#getXXXは呼び出し毎にCursor#getColumnIndexOrThrowで
+ * カラム名を線形探索するが、CursorReaderはCursorをセットした時に
+ * 1回だけカラムインデックスを解決して、以降はスロット番号(コンストラクタで
+ * 指定したカラム名の配列のインデックス)で値を読み込む。
+ * 存在しないカラムのスロットはデフォルト値を返す。
+ * スレッドセーフではないので同じCursorを使うスレッドからのみ呼び出すこと
+ */
+public class CursorReader {
+//	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
+//	private static final String TAG = CursorReader.class.getSimpleName();
+
+	/**
+	 * #read/#readRowsで1行分の値をオブジェクトへ読み込むためのインターフェース
+	 * @param <T>
+	 */
+	public interface RowMapper<T> {
+		/**
+		 * 現在の行の値を読み込む
+		 * @param reader
+		 * @param reuse 再利用するオブジェクト, nullなら新たに生成すること
+		 * @return 値を読み込んだオブジェクト
+		 */
+		@NonNull
+		public T map(@NonNull final CursorReader reader, @Nullable final T reuse);
+	}
+
+	@NonNull
+	private final String[] mColumnNames;
+	/**
+	 * スロット番号に対応するカラムインデックス, カラムが無ければ-1
+	 */
+	@NonNull
+	private final int[] mColumnIndices;
+	@Nullable
+	private Cursor mCursor;
+
+	/**
+	 * コンストラクタ
+	 * @param columnNames 読み込むカラム名, 配列のインデックスがスロット番号になる
+	 */
+	public CursorReader(@NonNull final String... columnNames) {
+		mColumnNames = columnNames.clone();
+		mColumnIndices = new int[columnNames.length];
+		for (int i = 0; i < mColumnIndices.length; i++) {
+			mColumnIndices[i] = -1;
+		}
+	}
+
+	/**
+	 * Cursorをセットしてカラムインデックスを解決する
+	 * 前回と同じCursorの時は何もしない
+	 * @param cursor
+	 * @return
+	 */
+	@NonNull
+	public CursorReader bind(@Nullable final Cursor cursor) {
+		if (cursor != mCursor) {
+			mCursor = cursor;
+			final int n = mColumnNames.length;
+			for (int i = 0; i < n; i++) {
+				mColumnIndices[i] = cursor != null
+					? cursor.getColumnIndex(mColumnNames[i]) : -1;
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * セットされているCursorを取得
+	 * @return
+	 */
+	@Nullable
+	public Cursor getCursor() {
+		return mCursor;
+	}
+
+	/**
+	 * スロット数を取得
+	 * @return
+	 */
+	public int getSlotCount() {
+		return mColumnNames.length;
+	}
+
+	/**
+	 * スロットに対応するカラムインデックスを取得
+	 * @param slot
+	 * @return カラムが無ければ-1
+	 */
+	public int getColumnIndex(final int slot) {
+		return mColumnIndices[slot];
+	}
+
+	/**
+	 * スロットに対応するカラムが存在するかどうか
+	 * @param slot
+	 * @return
+	 */
+	public boolean has(final int slot) {
+		return (mCursor != null) && (mColumnIndices[slot] >= 0);
+	}
+
+	/**
+	 * スロットに対応するカラムの値がnullかどうか
+	 * カラムが無い時もtrueを返す
+	 * @param slot
+	 * @return
+	 */
+	public boolean isNull(final int slot) {
+		return !has(slot) || mCursor.isNull(mColumnIndices[slot]);
+	}
+
+	@Nullable
+	public String getString(final int slot, @Nullable final String defaultValue) {
+		return has(slot) ? mCursor.getString(mColumnIndices[slot]) : defaultValue;
+	}
+
+	public int getInt(final int slot, final int defaultValue) {
+		return has(slot) ? mCursor.getInt(mColumnIndices[slot]) : defaultValue;
+	}
+
+	public short getShort(final int slot, final short defaultValue) {
+		return has(slot) ? mCursor.getShort(mColumnIndices[slot]) : defaultValue;
+	}
+
+	public long getLong(final int slot, final long defaultValue) {
+		return has(slot) ? mCursor.getLong(mColumnIndices[slot]) : defaultValue;
+	}
+
+	public float getFloat(final int slot, final float defaultValue) {
+		return has(slot) ? mCursor.getFloat(mColumnIndices[slot]) : defaultValue;
+	}
+
+	public double getDouble(final int slot, final double defaultValue) {
+		return has(slot) ? mCursor.getDouble(mColumnIndices[slot]) : defaultValue;
+	}
+
+	@Nullable
+	public byte[] getBlob(final int slot, @Nullable final byte[] defaultValue) {
+		return has(slot) ? mCursor.getBlob(mColumnIndices[slot]) : defaultValue;
+	}
+
+	/**
+	 * 指定したpositionへ移動してその行の値を読み込む
+	 * @param position
+	 * @param mapper
+	 * @param reuse 再利用するオブジェクト
+	 * @param <T>
+	 * @return 指定したpositionへ移動できなければnull
+	 */
+	@Nullable
+	public <T> T read(final int position,
+		@NonNull final RowMapper<T> mapper, @Nullable final T reuse) {
+
+		if ((mCursor != null) && mCursor.moveToPosition(position)) {
+			return mapper.map(this, reuse);
+		}
+		return null;
+	}
+
+	/**
+	 * 指定したpositionから連続する複数行の値を読み込む
+	 * holdersの各要素は再利用され、nullの要素はRowMapperで生成したオブジェクトに置き換える
+	 * @param position 読み込みを開始する行
+	 * @param mapper
+	 * @param holders 読み込み先
+	 * @param <T>
+	 * @return 読み込んだ行数
+	 */
+	public <T> int readRows(final int position,
+		@NonNull final RowMapper<T> mapper, @NonNull final T[] holders) {
+
+		int result = 0;
+		if ((mCursor != null) && mCursor.moveToPosition(position)) {
+			final int n = holders.length;
+			do {
+				holders[result] = mapper.map(this, holders[result]);
+				result++;
+			} while ((result < n) && mCursor.moveToNext());
+		}
+		return result;
+	}
+}
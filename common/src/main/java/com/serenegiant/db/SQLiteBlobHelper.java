@@ -19,6 +19,7 @@ package com.serenegiant.db;
  */
 
 import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteStatement;
 import android.graphics.Bitmap;
 import androidx.annotation.NonNull;
@@ -28,6 +29,7 @@ import com.serenegiant.graphics.BitmapHelper;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 
 public class SQLiteBlobHelper {
 //	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
@@ -43,26 +45,31 @@ public class SQLiteBlobHelper {
 	 */
 	public static byte[] floatArrayToByteArray(
 		@NonNull final float[] array, final int offset, final int num) {
-		
-		final ByteBuffer buf = ByteBuffer.allocate(num * Float.SIZE / 8);
-		buf.order(ByteOrder.nativeOrder());
-		final int n8 = num % 8 + offset;
-		final int n = offset + num;
-		for (int i = offset; i < n8; i++) buf.putFloat(array[i]);
-		for (int i = n8; i < n; i += 8) {
-			buf.putFloat(array[i]);
-			buf.putFloat(array[i + 1]);
-			buf.putFloat(array[i + 2]);
-			buf.putFloat(array[i + 3]);
-			buf.putFloat(array[i + 4]);
-			buf.putFloat(array[i + 5]);
-			buf.putFloat(array[i + 6]);
-			buf.putFloat(array[i + 7]);
-		}
-		buf.flip();
-		return buf.array();
+
+		return floatArrayToByteArray(array, offset, num, null);
 	}
-	
+
+	/**
+	 * float[]をbyte[]に変換して返す
+	 * dstの長さが変換後のバイト数と同じならdstへ書き込んで返す
+	 *
+	 * @param array
+	 * @param offset
+	 * @param num
+	 * @param dst 再利用するbyte[], nullまたは長さが異なる時は新たに生成する
+	 * @return
+	 */
+	public static byte[] floatArrayToByteArray(
+		@NonNull final float[] array, final int offset, final int num,
+		@Nullable final byte[] dst) {
+
+		final int bytes = num * Float.SIZE / 8;
+		final byte[] result = (dst != null) && (dst.length == bytes) ? dst : new byte[bytes];
+		ByteBuffer.wrap(result).order(ByteOrder.nativeOrder())
+			.asFloatBuffer().put(array, offset, num);
+		return result;
+	}
+
 	/**
 	 * byte[]をfloat[]に変換して返す
 	 *
@@ -72,24 +79,27 @@ public class SQLiteBlobHelper {
 	@Nullable
 	public static float[] byteArrayToFloatArray(
 		@Nullable final byte[] bytes) {
-		
+
+		return byteArrayToFloatArray(bytes, null);
+	}
+
+	/**
+	 * byte[]をfloat[]に変換して返す
+	 * dstの長さが変換後の要素数と同じならdstへ書き込んで返す
+	 *
+	 * @param bytes
+	 * @param dst 再利用するfloat[], nullまたは長さが異なる時は新たに生成する
+	 * @return
+	 */
+	@Nullable
+	public static float[] byteArrayToFloatArray(
+		@Nullable final byte[] bytes, @Nullable final float[] dst) {
+
 		if ((bytes == null) || (bytes.length < Float.SIZE / 8)) return null;
-		final ByteBuffer tmp = ByteBuffer.wrap(bytes);
-		tmp.order(ByteOrder.nativeOrder());
-		final int n = tmp.limit() / (Float.SIZE / 8);    // nはfloatの配列とみなした時の要素数
-		final float[] array = new float[n];
-		final int n8 = n % 8;
-		for (int i = 0; i < n8; i++) array[i] = tmp.getFloat();
-		for (int i = n8; i < n; i += 8) {
-			array[i] = tmp.getFloat();
-			array[i + 1] = tmp.getFloat();
-			array[i + 2] = tmp.getFloat();
-			array[i + 3] = tmp.getFloat();
-			array[i + 4] = tmp.getFloat();
-			array[i + 5] = tmp.getFloat();
-			array[i + 6] = tmp.getFloat();
-			array[i + 7] = tmp.getFloat();
-		}
+		final int n = bytes.length / (Float.SIZE / 8);    // nはfloatの配列とみなした時の要素数
+		final float[] array = (dst != null) && (dst.length == n) ? dst : new float[n];
+		ByteBuffer.wrap(bytes, 0, n * (Float.SIZE / 8)).order(ByteOrder.nativeOrder())
+			.asFloatBuffer().get(array);
 		return array;
 	}
 	
@@ -103,26 +113,31 @@ public class SQLiteBlobHelper {
 	 */
 	public static byte[] doubleArrayToByteArray(
 		@NonNull final double[] array, final int offset, final int num) {
-		
-		final ByteBuffer buf = ByteBuffer.allocate(num * Double.SIZE / 8);
-		buf.order(ByteOrder.nativeOrder());
-		final int n8 = num % 8 + offset;
-		final int n = offset + num;
-		for (int i = offset; i < n8; i++) buf.putDouble(array[i]);
-		for (int i = n8; i < n; i += 8) {
-			buf.putDouble(array[i]);
-			buf.putDouble(array[i + 1]);
-			buf.putDouble(array[i + 2]);
-			buf.putDouble(array[i + 3]);
-			buf.putDouble(array[i + 4]);
-			buf.putDouble(array[i + 5]);
-			buf.putDouble(array[i + 6]);
-			buf.putDouble(array[i + 7]);
-		}
-		buf.flip();
-		return buf.array();
+
+		return doubleArrayToByteArray(array, offset, num, null);
 	}
-	
+
+	/**
+	 * double[]をbyte[]に変換して返す
+	 * dstの長さが変換後のバイト数と同じならdstへ書き込んで返す
+	 *
+	 * @param array
+	 * @param offset
+	 * @param num
+	 * @param dst 再利用するbyte[], nullまたは長さが異なる時は新たに生成する
+	 * @return
+	 */
+	public static byte[] doubleArrayToByteArray(
+		@NonNull final double[] array, final int offset, final int num,
+		@Nullable final byte[] dst) {
+
+		final int bytes = num * Double.SIZE / 8;
+		final byte[] result = (dst != null) && (dst.length == bytes) ? dst : new byte[bytes];
+		ByteBuffer.wrap(result).order(ByteOrder.nativeOrder())
+			.asDoubleBuffer().put(array, offset, num);
+		return result;
+	}
+
 	/**
 	 * byte[]をdouble[]に変換して返す
 	 *
@@ -132,29 +147,32 @@ public class SQLiteBlobHelper {
 	@Nullable
 	public static double[] byteArrayToDoubleArray(
 		@Nullable final byte[] bytes) {
-		
+
+		return byteArrayToDoubleArray(bytes, null);
+	}
+
+	/**
+	 * byte[]をdouble[]に変換して返す
+	 * dstの長さが変換後の要素数と同じならdstへ書き込んで返す
+	 *
+	 * @param bytes
+	 * @param dst 再利用するdouble[], nullまたは長さが異なる時は新たに生成する
+	 * @return
+	 */
+	@Nullable
+	public static double[] byteArrayToDoubleArray(
+		@Nullable final byte[] bytes, @Nullable final double[] dst) {
+
 		if ((bytes == null) || (bytes.length < Double.SIZE / 8)) return null;
-		final ByteBuffer tmp = ByteBuffer.wrap(bytes);
-		tmp.order(ByteOrder.nativeOrder());
-		final int n = tmp.limit() / (Double.SIZE / 8);    // nはdoubleの配列とみなした時の要素数
-		final double[] array = new double[n];
-		final int n8 = n % 8;
-		for (int i = 0; i < n8; i++) array[i] = tmp.getDouble();
-		for (int i = n8; i < n; i += 8) {
-			array[i] = tmp.getDouble();
-			array[i + 1] = tmp.getDouble();
-			array[i + 2] = tmp.getDouble();
-			array[i + 3] = tmp.getDouble();
-			array[i + 4] = tmp.getDouble();
-			array[i + 5] = tmp.getDouble();
-			array[i + 6] = tmp.getDouble();
-			array[i + 7] = tmp.getDouble();
-		}
+		final int n = bytes.length / (Double.SIZE / 8);    // nはdoubleの配列とみなした時の要素数
+		final double[] array = (dst != null) && (dst.length == n) ? dst : new double[n];
+		ByteBuffer.wrap(bytes, 0, n * (Double.SIZE / 8)).order(ByteOrder.nativeOrder())
+			.asDoubleBuffer().get(array);
 		return array;
 	}
 	
 	/**
-	 * double[]をbyte[]に変換して返す
+	 * int[]をbyte[]に変換して返す
 	 *
 	 * @param array
 	 * @param offset
@@ -163,26 +181,31 @@ public class SQLiteBlobHelper {
 	 */
 	public static byte[] intArrayToByteArray(
 		@NonNull final int[] array, final int offset, final int num) {
-		
-		final ByteBuffer buf = ByteBuffer.allocate(num * Integer.SIZE / 8);
-		buf.order(ByteOrder.nativeOrder());
-		final int n8 = num % 8 + offset;
-		final int n = offset + num;
-		for (int i = offset; i < n8; i++) buf.putInt(array[i]);
-		for (int i = n8; i < n; i += 8) {
-			buf.putInt(array[i]);
-			buf.putInt(array[i + 1]);
-			buf.putInt(array[i + 2]);
-			buf.putInt(array[i + 3]);
-			buf.putInt(array[i + 4]);
-			buf.putInt(array[i + 5]);
-			buf.putInt(array[i + 6]);
-			buf.putInt(array[i + 7]);
-		}
-		buf.flip();
-		return buf.array();
+
+		return intArrayToByteArray(array, offset, num, null);
 	}
-	
+
+	/**
+	 * int[]をbyte[]に変換して返す
+	 * dstの長さが変換後のバイト数と同じならdstへ書き込んで返す
+	 *
+	 * @param array
+	 * @param offset
+	 * @param num
+	 * @param dst 再利用するbyte[], nullまたは長さが異なる時は新たに生成する
+	 * @return
+	 */
+	public static byte[] intArrayToByteArray(
+		@NonNull final int[] array, final int offset, final int num,
+		@Nullable final byte[] dst) {
+
+		final int bytes = num * Integer.SIZE / 8;
+		final byte[] result = (dst != null) && (dst.length == bytes) ? dst : new byte[bytes];
+		ByteBuffer.wrap(result).order(ByteOrder.nativeOrder())
+			.asIntBuffer().put(array, offset, num);
+		return result;
+	}
+
 	/**
 	 * byte[]をint[]に変換して返す
 	 *
@@ -192,24 +215,27 @@ public class SQLiteBlobHelper {
 	@Nullable
 	public static int[] byteArrayToIntArray(
 		@Nullable final byte[] bytes) {
-		
+
+		return byteArrayToIntArray(bytes, null);
+	}
+
+	/**
+	 * byte[]をint[]に変換して返す
+	 * dstの長さが変換後の要素数と同じならdstへ書き込んで返す
+	 *
+	 * @param bytes
+	 * @param dst 再利用するint[], nullまたは長さが異なる時は新たに生成する
+	 * @return
+	 */
+	@Nullable
+	public static int[] byteArrayToIntArray(
+		@Nullable final byte[] bytes, @Nullable final int[] dst) {
+
 		if ((bytes == null) || (bytes.length < Integer.SIZE / 8)) return null;
-		final ByteBuffer tmp = ByteBuffer.wrap(bytes);
-		tmp.order(ByteOrder.nativeOrder());
-		final int n = tmp.limit() / (Integer.SIZE / 8);    // nはintの配列とみなした時の要素数
-		final int[] array = new int[n];
-		final int n8 = n % 8;
-		for (int i = 0; i < n8; i++) array[i] = tmp.getInt();
-		for (int i = n8; i < n; i += 8) {
-			array[i] = tmp.getInt();
-			array[i + 1] = tmp.getInt();
-			array[i + 2] = tmp.getInt();
-			array[i + 3] = tmp.getInt();
-			array[i + 4] = tmp.getInt();
-			array[i + 5] = tmp.getInt();
-			array[i + 6] = tmp.getInt();
-			array[i + 7] = tmp.getInt();
-		}
+		final int n = bytes.length / (Integer.SIZE / 8);    // nはintの配列とみなした時の要素数
+		final int[] array = (dst != null) && (dst.length == n) ? dst : new int[n];
+		ByteBuffer.wrap(bytes, 0, n * (Integer.SIZE / 8)).order(ByteOrder.nativeOrder())
+			.asIntBuffer().get(array);
 		return array;
 	}
 	
@@ -223,26 +249,31 @@ public class SQLiteBlobHelper {
 	 */
 	public static byte[] shortArrayToByteArray(
 		@NonNull final short[] array, final int offset, final int num) {
-		
-		final ByteBuffer buf = ByteBuffer.allocate(num * Short.SIZE / 8);
-		buf.order(ByteOrder.nativeOrder());
-		final int n8 = num % 8 + offset;
-		final int n = offset + num;
-		for (int i = offset; i < n8; i++) buf.putShort(array[i]);
-		for (int i = n8; i < n; i += 8) {
-			buf.putShort(array[i]);
-			buf.putShort(array[i + 1]);
-			buf.putShort(array[i + 2]);
-			buf.putShort(array[i + 3]);
-			buf.putShort(array[i + 4]);
-			buf.putShort(array[i + 5]);
-			buf.putShort(array[i + 6]);
-			buf.putShort(array[i + 7]);
-		}
-		buf.flip();
-		return buf.array();
+
+		return shortArrayToByteArray(array, offset, num, null);
 	}
-	
+
+	/**
+	 * short[]をbyte[]に変換して返す
+	 * dstの長さが変換後のバイト数と同じならdstへ書き込んで返す
+	 *
+	 * @param array
+	 * @param offset
+	 * @param num
+	 * @param dst 再利用するbyte[], nullまたは長さが異なる時は新たに生成する
+	 * @return
+	 */
+	public static byte[] shortArrayToByteArray(
+		@NonNull final short[] array, final int offset, final int num,
+		@Nullable final byte[] dst) {
+
+		final int bytes = num * Short.SIZE / 8;
+		final byte[] result = (dst != null) && (dst.length == bytes) ? dst : new byte[bytes];
+		ByteBuffer.wrap(result).order(ByteOrder.nativeOrder())
+			.asShortBuffer().put(array, offset, num);
+		return result;
+	}
+
 	/**
 	 * byte[]をshort[]に変換して返す
 	 *
@@ -252,25 +283,28 @@ public class SQLiteBlobHelper {
 	@Nullable
 	public static short[] byteArrayToShortArray(
 		@Nullable final byte[] bytes) {
-		
+
+		return byteArrayToShortArray(bytes, null);
+	}
+
+	/**
+	 * byte[]をshort[]に変換して返す
+	 * dstの長さが変換後の要素数と同じならdstへ書き込んで返す
+	 *
+	 * @param bytes
+	 * @param dst 再利用するshort[], nullまたは長さが異なる時は新たに生成する
+	 * @return
+	 */
+	@Nullable
+	public static short[] byteArrayToShortArray(
+		@Nullable final byte[] bytes, @Nullable final short[] dst) {
+
 		if ((bytes == null) || (bytes.length < Short.SIZE / 8)) return null;
-		final ByteBuffer tmp = ByteBuffer.wrap(bytes);
-		tmp.order(ByteOrder.nativeOrder());
-		final int n = tmp.limit() / (Short.SIZE / 8);    // nはshortの配列とみなした時の要素数
-		final short[] buf = new short[n];
-		final int n8 = n % 8;
-		for (int i = 0; i < n8; i++) buf[i] = tmp.getShort();
-		for (int i = n8; i < n; i += 8) {
-			buf[i] = tmp.getShort();
-			buf[i + 1] = tmp.getShort();
-			buf[i + 2] = tmp.getShort();
-			buf[i + 3] = tmp.getShort();
-			buf[i + 4] = tmp.getShort();
-			buf[i + 5] = tmp.getShort();
-			buf[i + 6] = tmp.getShort();
-			buf[i + 7] = tmp.getShort();
-		}
-		return buf;
+		final int n = bytes.length / (Short.SIZE / 8);    // nはshortの配列とみなした時の要素数
+		final short[] array = (dst != null) && (dst.length == n) ? dst : new short[n];
+		ByteBuffer.wrap(bytes, 0, n * (Short.SIZE / 8)).order(ByteOrder.nativeOrder())
+			.asShortBuffer().get(array);
+		return array;
 	}
 	
 	/**
@@ -284,25 +318,30 @@ public class SQLiteBlobHelper {
 	public static byte[] longArrayToByteArray(
 		@NonNull final long[] array, final int offset, final int num) {
 
-		final ByteBuffer buf = ByteBuffer.allocate(num * Long.SIZE / 8);
-		buf.order(ByteOrder.nativeOrder());
-		final int n8 = num % 8 + offset;
-		final int n = offset + num;
-		for (int i = offset; i < n8; i++) buf.putLong(array[i]);
-		for (int i = n8; i < n; i += 8) {
-			buf.putLong(array[i]);
-			buf.putLong(array[i + 1]);
-			buf.putLong(array[i + 2]);
-			buf.putLong(array[i + 3]);
-			buf.putLong(array[i + 4]);
-			buf.putLong(array[i + 5]);
-			buf.putLong(array[i + 6]);
-			buf.putLong(array[i + 7]);
-		}
-		buf.flip();
-		return buf.array();
+		return longArrayToByteArray(array, offset, num, null);
 	}
-	
+
+	/**
+	 * long[]をbyte[]に変換して返す
+	 * dstの長さが変換後のバイト数と同じならdstへ書き込んで返す
+	 *
+	 * @param array
+	 * @param offset
+	 * @param num
+	 * @param dst 再利用するbyte[], nullまたは長さが異なる時は新たに生成する
+	 * @return
+	 */
+	public static byte[] longArrayToByteArray(
+		@NonNull final long[] array, final int offset, final int num,
+		@Nullable final byte[] dst) {
+
+		final int bytes = num * Long.SIZE / 8;
+		final byte[] result = (dst != null) && (dst.length == bytes) ? dst : new byte[bytes];
+		ByteBuffer.wrap(result).order(ByteOrder.nativeOrder())
+			.asLongBuffer().put(array, offset, num);
+		return result;
+	}
+
 	/**
 	 * byte[]をlong[]に変換して返す
 	 *
@@ -313,26 +352,281 @@ public class SQLiteBlobHelper {
 	public static long[] byteArrayToLongArray(
 		@Nullable final byte[] bytes) {
 
+		return byteArrayToLongArray(bytes, null);
+	}
+
+	/**
+	 * byte[]をlong[]に変換して返す
+	 * dstの長さが変換後の要素数と同じならdstへ書き込んで返す
+	 *
+	 * @param bytes
+	 * @param dst 再利用するlong[], nullまたは長さが異なる時は新たに生成する
+	 * @return
+	 */
+	@Nullable
+	public static long[] byteArrayToLongArray(
+		@Nullable final byte[] bytes, @Nullable final long[] dst) {
+
 		if ((bytes == null) || (bytes.length < Long.SIZE / 8)) return null;
-		final ByteBuffer tmp = ByteBuffer.wrap(bytes);
-		tmp.order(ByteOrder.nativeOrder());
-		final int n = tmp.limit() / (Long.SIZE / 8);    // nはlongの配列とみなした時の要素数
-		final long[] array = new long[n];
-		final int n8 = n % 8;
-		for (int i = 0; i < n8; i++) array[i] = tmp.getLong();
-		for (int i = n8; i < n; i += 8) {
-			array[i] = tmp.getLong();
-			array[i + 1] = tmp.getLong();
-			array[i + 2] = tmp.getLong();
-			array[i + 3] = tmp.getLong();
-			array[i + 4] = tmp.getLong();
-			array[i + 5] = tmp.getLong();
-			array[i + 6] = tmp.getLong();
-			array[i + 7] = tmp.getLong();
-		}
+		final int n = bytes.length / (Long.SIZE / 8);    // nはlongの配列とみなした時の要素数
+		final long[] array = (dst != null) && (dst.length == n) ? dst : new long[n];
+		ByteBuffer.wrap(bytes, 0, n * (Long.SIZE / 8)).order(ByteOrder.nativeOrder())
+			.asLongBuffer().get(array);
 		return array;
 	}
 	
+	/**
+	 * int[]を差分+ZigZag+可変長整数で圧縮したbyte[]に変換して返す
+	 * 隣り合う値の差が小さい(単調増加するIDやタイムスタンプ等)ほど小さくなる
+	 * 先頭に要素数を可変長整数で書き込む
+	 *
+	 * @param array
+	 * @param offset
+	 * @param num
+	 * @return
+	 */
+	public static byte[] intArrayToCompactByteArray(
+		@NonNull final int[] array, final int offset, final int num) {
+
+		// 1要素は最大5バイト
+		final byte[] work = new byte[5 + num * 5];
+		int pos = putVarLong(work, 0, num);
+		int prev = 0;
+		final int n = offset + num;
+		for (int i = offset; i < n; i++) {
+			final int delta = array[i] - prev;
+			pos = putVarLong(work, pos, ((delta << 1) ^ (delta >> 31)) & 0xffffffffL);
+			prev = array[i];
+		}
+		return Arrays.copyOf(work, pos);
+	}
+
+	/**
+	 * #intArrayToCompactByteArrayで変換したbyte[]をint[]に変換して返す
+	 *
+	 * @param bytes
+	 * @return
+	 * @throws IllegalArgumentException 不正なデータの時
+	 */
+	@Nullable
+	public static int[] compactByteArrayToIntArray(
+		@Nullable final byte[] bytes) throws IllegalArgumentException {
+
+		if ((bytes == null) || (bytes.length == 0)) return null;
+		final int[] pos = new int[1];
+		final int n = (int)getVarLong(bytes, pos);
+		if ((n < 0) || (n > bytes.length)) {
+			throw new IllegalArgumentException("invalid data");
+		}
+		final int[] result = new int[n];
+		int prev = 0;
+		for (int i = 0; i < n; i++) {
+			final int v = (int)getVarLong(bytes, pos);
+			prev += (v >>> 1) ^ -(v & 1);
+			result[i] = prev;
+		}
+		return result;
+	}
+
+	/**
+	 * long[]を差分+ZigZag+可変長整数で圧縮したbyte[]に変換して返す
+	 * 先頭に要素数を可変長整数で書き込む
+	 *
+	 * @param array
+	 * @param offset
+	 * @param num
+	 * @return
+	 */
+	public static byte[] longArrayToCompactByteArray(
+		@NonNull final long[] array, final int offset, final int num) {
+
+		// 1要素は最大10バイト
+		final byte[] work = new byte[5 + num * 10];
+		int pos = putVarLong(work, 0, num);
+		long prev = 0;
+		final int n = offset + num;
+		for (int i = offset; i < n; i++) {
+			final long delta = array[i] - prev;
+			pos = putVarLong(work, pos, (delta << 1) ^ (delta >> 63));
+			prev = array[i];
+		}
+		return Arrays.copyOf(work, pos);
+	}
+
+	/**
+	 * #longArrayToCompactByteArrayで変換したbyte[]をlong[]に変換して返す
+	 *
+	 * @param bytes
+	 * @return
+	 * @throws IllegalArgumentException 不正なデータの時
+	 */
+	@Nullable
+	public static long[] compactByteArrayToLongArray(
+		@Nullable final byte[] bytes) throws IllegalArgumentException {
+
+		if ((bytes == null) || (bytes.length == 0)) return null;
+		final int[] pos = new int[1];
+		final int n = (int)getVarLong(bytes, pos);
+		if ((n < 0) || (n > bytes.length)) {
+			throw new IllegalArgumentException("invalid data");
+		}
+		final long[] result = new long[n];
+		long prev = 0;
+		for (int i = 0; i < n; i++) {
+			final long v = getVarLong(bytes, pos);
+			prev += (v >>> 1) ^ -(v & 1);
+			result[i] = prev;
+		}
+		return result;
+	}
+
+	/**
+	 * float[]を半精度浮動小数点(float16)のbyte[]に変換して返す
+	 * 精度は10ビット(有効数字約3桁)、範囲は±65504まで
+	 * 範囲外の値は無限大、小さすぎる値は0になる
+	 *
+	 * @param array
+	 * @param offset
+	 * @param num
+	 * @return
+	 */
+	public static byte[] floatArrayToHalfByteArray(
+		@NonNull final float[] array, final int offset, final int num) {
+
+		final short[] halfs = new short[num];
+		for (int i = 0; i < num; i++) {
+			halfs[i] = toHalf(array[offset + i]);
+		}
+		return shortArrayToByteArray(halfs, 0, num);
+	}
+
+	/**
+	 * #floatArrayToHalfByteArrayで変換したbyte[]をfloat[]に変換して返す
+	 *
+	 * @param bytes
+	 * @return
+	 */
+	@Nullable
+	public static float[] halfByteArrayToFloatArray(
+		@Nullable final byte[] bytes) {
+
+		final short[] halfs = byteArrayToShortArray(bytes);
+		if (halfs == null) return null;
+		final int n = halfs.length;
+		final float[] result = new float[n];
+		for (int i = 0; i < n; i++) {
+			result[i] = toFloat(halfs[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * 可変長整数(LEB128)を書き込む
+	 * @param dst
+	 * @param pos
+	 * @param value 符号無しとして扱う
+	 * @return 書き込んだ後の位置
+	 */
+	private static int putVarLong(@NonNull final byte[] dst, int pos, long value) {
+		while ((value & ~0x7fL) != 0) {
+			dst[pos++] = (byte)((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		dst[pos++] = (byte)value;
+		return pos;
+	}
+
+	/**
+	 * 可変長整数(LEB128)を読み込む
+	 * @param src
+	 * @param pos 読み込み位置, 読み込んだ後の位置に更新する
+	 * @return
+	 * @throws IllegalArgumentException 途中で終わっている時
+	 */
+	private static long getVarLong(@NonNull final byte[] src, @NonNull final int[] pos)
+		throws IllegalArgumentException {
+
+		long result = 0;
+		int ix = pos[0];
+		for (int shift = 0; shift < 64; shift += 7) {
+			if (ix >= src.length) {
+				throw new IllegalArgumentException("invalid data");
+			}
+			final int b = src[ix++];
+			result |= (long)(b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				pos[0] = ix;
+				return result;
+			}
+		}
+		throw new IllegalArgumentException("invalid data");
+	}
+
+	/**
+	 * floatを半精度浮動小数点へ変換する(最近接偶数丸め)
+	 * @param value
+	 * @return
+	 */
+	private static short toHalf(final float value) {
+		final int bits = Float.floatToRawIntBits(value);
+		final int sign = (bits >>> 16) & 0x8000;
+		final int abs = bits & 0x7fffffff;
+		if (abs >= 0x7f800000) {
+			// 無限大またはNaN
+			return (short)(sign | 0x7c00 | (abs > 0x7f800000 ? 0x200 : 0));
+		}
+		if (abs >= 0x477ff000) {
+			// 半精度の最大値を超えるので無限大
+			return (short)(sign | 0x7c00);
+		}
+		if (abs < 0x38800000) {
+			// 非正規化数または0
+			if (abs < 0x33000000) {
+				return (short)sign;
+			}
+			final int exp = abs >>> 23;
+			final int mantissa = (abs & 0x7fffff) | 0x800000;
+			final int shift = 126 - exp;
+			final int half = mantissa >>> shift;
+			final int rem = mantissa & ((1 << shift) - 1);
+			final int mid = 1 << (shift - 1);
+			final int rounded = (rem > mid) || ((rem == mid) && ((half & 1) != 0)) ? half + 1 : half;
+			return (short)(sign | rounded);
+		}
+		// 正規化数, 仮数部の下位13ビットを最近接偶数丸めする
+		final int rounded = abs + 0xfff + ((abs >>> 13) & 1);
+		return (short)(sign | ((rounded - 0x38000000) >>> 13));
+	}
+
+	/**
+	 * 半精度浮動小数点をfloatへ変換する
+	 * @param half
+	 * @return
+	 */
+	private static float toFloat(final short half) {
+		final int h = half & 0xffff;
+		final int sign = (h & 0x8000) << 16;
+		final int exp = (h >>> 10) & 0x1f;
+		int mantissa = h & 0x3ff;
+		final int bits;
+		if (exp == 0x1f) {
+			bits = sign | 0x7f800000 | (mantissa << 13);
+		} else if (exp != 0) {
+			bits = sign | ((exp + 112) << 23) | (mantissa << 13);
+		} else if (mantissa != 0) {
+			// 非正規化数
+			int e = 113;
+			while ((mantissa & 0x400) == 0) {
+				mantissa <<= 1;
+				e--;
+			}
+			bits = sign | (e << 23) | ((mantissa & 0x3ff) << 13);
+		} else {
+			bits = sign;
+		}
+		return Float.intBitsToFloat(bits);
+	}
+
 	/**
 	 * SQLiteStatement#bindBlobのヘルパーメソッド。floatの配列をbyteの配列に変換して割り付ける
 	 *
@@ -484,6 +778,23 @@ public class SQLiteBlobHelper {
 		stat.bindBlob(index, BitmapHelper.BitmapToByteArray(bitmap));
 	}
 	
+	/**
+	 * Cursor#getBlobのヘルパーメソッド。getBlobの返り値をfloatの配列として変換して返す
+	 * dstの長さが要素数と同じならdstへ書き込んで返すので
+	 * 同じ長さの配列を繰り返し読み込む時に配列を再利用できる
+	 *
+	 * @param cursor
+	 * @param columnIndex
+	 * @param dst
+	 * @return float[]
+	 */
+	@Nullable
+	public static float[] getBlobFloatArray(@NonNull final Cursor cursor,
+		final int columnIndex, @Nullable final float[] dst) {
+
+		return byteArrayToFloatArray(cursor.getBlob(columnIndex), dst);
+	}
+	
 	/**
 	 * Cursor#getBlobのヘルパーメソッド。getBlobの返り値をfloatの配列として変換して返す
 	 *
@@ -514,6 +825,22 @@ public class SQLiteBlobHelper {
 		return result;
 	}
 	
+	/**
+	 * Cursor#getBlobのヘルパーメソッド。getBlobの返り値をdoubleの配列として変換して返す
+	 * dstの長さが要素数と同じならdstへ書き込んで返す
+	 *
+	 * @param cursor
+	 * @param columnIndex
+	 * @param dst
+	 * @return double[]
+	 */
+	@Nullable
+	public static double[] getBlobDoubleArray(@NonNull final Cursor cursor,
+		final int columnIndex, @Nullable final double[] dst) {
+
+		return byteArrayToDoubleArray(cursor.getBlob(columnIndex), dst);
+	}
+	
 	/**
 	 * Cursor#getBlobのヘルパーメソッド。getBlobの返り値をdoubleの配列として変換して返す
 	 *
@@ -565,6 +892,22 @@ public class SQLiteBlobHelper {
 		return result;
 	}
 	
+	/**
+	 * Cursor#getBlobのヘルパーメソッド。getBlobの返り値をintの配列として変換して返す
+	 * dstの長さが要素数と同じならdstへ書き込んで返す
+	 *
+	 * @param cursor
+	 * @param columnIndex
+	 * @param dst
+	 * @return int[]
+	 */
+	@Nullable
+	public static int[] getBlobIntArray(@NonNull final Cursor cursor,
+		final int columnIndex, @Nullable final int[] dst) {
+
+		return byteArrayToIntArray(cursor.getBlob(columnIndex), dst);
+	}
+	
 	/**
 	 * Cursor#getBlobのヘルパーメソッド。getBlobの返り値をintの配列として変換して返す
 	 *
@@ -595,6 +938,22 @@ public class SQLiteBlobHelper {
 		return result;
 	}
 	
+	/**
+	 * Cursor#getBlobのヘルパーメソッド。getBlobの返り値をshortの配列として変換して返す
+	 * dstの長さが要素数と同じならdstへ書き込んで返す
+	 *
+	 * @param cursor
+	 * @param columnIndex
+	 * @param dst
+	 * @return short[]
+	 */
+	@Nullable
+	public static short[] getBlobShortArray(@NonNull final Cursor cursor,
+		final int columnIndex, @Nullable final short[] dst) {
+
+		return byteArrayToShortArray(cursor.getBlob(columnIndex), dst);
+	}
+	
 	/**
 	 * Cursor#getBlobのヘルパーメソッド。getBlobの返り値をshortの配列として変換して返す
 	 *
@@ -625,6 +984,22 @@ public class SQLiteBlobHelper {
 		return result;
 	}
 	
+	/**
+	 * Cursor#getBlobのヘルパーメソッド。getBlobの返り値をlongの配列として変換して返す
+	 * dstの長さが要素数と同じならdstへ書き込んで返す
+	 *
+	 * @param cursor
+	 * @param columnIndex
+	 * @param dst
+	 * @return long[]
+	 */
+	@Nullable
+	public static long[] getBlobLongArray(@NonNull final Cursor cursor,
+		final int columnIndex, @Nullable final long[] dst) {
+
+		return byteArrayToLongArray(cursor.getBlob(columnIndex), dst);
+	}
+	
 	/**
 	 * Cursor#getBlobのヘルパーメソッド。getBlobの返り値をlongの配列として変換して返す
 	 *
@@ -746,4 +1121,49 @@ public class SQLiteBlobHelper {
 		return BitmapHelper.asBitmapStrictSize(
 			getBlob(cursor, columnName, null), requestWidth, requestHeight);
 	}
+
+	/**
+	 * #executeBatchで各行の値を割り付けるためのコールバックインターフェース
+	 */
+	public interface StatementBinder {
+		/**
+		 * row行目の値を割り付ける
+		 * 呼び出し前にSQLiteStatement#clearBindingsを呼んでいる
+		 * @param stat
+		 * @param row
+		 */
+		public void bind(@NonNull final SQLiteStatement stat, final int row);
+	}
+
+	/**
+	 * コンパイル済みのSQLiteStatementを使って複数行をまとめて挿入する
+	 * 1行毎にトランザクションを発行しないように全体を1つのトランザクション内で実行する
+	 * 途中で例外が発生した時はロールバックする
+	 *
+	 * @param db
+	 * @param stat dbからコンパイルしたINSERT文
+	 * @param rows 挿入する行数
+	 * @param binder
+	 * @return 挿入できた行数
+	 */
+	public static int executeBatch(@NonNull final SQLiteDatabase db,
+		@NonNull final SQLiteStatement stat, final int rows,
+		@NonNull final StatementBinder binder) {
+
+		int result = 0;
+		db.beginTransaction();
+		try {
+			for (int i = 0; i < rows; i++) {
+				stat.clearBindings();
+				binder.bind(stat, i);
+				if (stat.executeInsert() != -1) {
+					result++;
+				}
+			}
+			db.setTransactionSuccessful();
+		} finally {
+			db.endTransaction();
+		}
+		return result;
+	}
 }
@@ -26,6 +26,9 @@ import android.util.Log;
 import android.util.SparseArray;
 import android.view.Choreographer;
 
+import com.serenegiant.metrics.Metrics;
+import com.serenegiant.metrics.MetricsSink;
+import com.serenegiant.utils.FpsCounter;
 import com.serenegiant.utils.HandlerThreadHandler;
 import com.serenegiant.utils.ThreadUtils;
 
@@ -38,7 +41,24 @@ public abstract class AbstractDistributeTask {
 	private static final boolean DEBUG = false;	// set false on production
 	private static final String TAG = AbstractDistributeTask.class.getSimpleName();
 
-	private static final int REQUEST_DRAW = 1;
+	/**
+	 * 計測値の名前: 分配描画の区間
+	 */
+	public static final String METRIC_DRAW_SECTION = "AbstractDistributeTask#handleDraw";
+	/**
+	 * 計測値の名前: 分配描画の処理時間[ナノ秒]
+	 */
+	public static final String METRIC_DRAW_TIME = "glutils.distribute.draw_time";
+	/**
+	 * 計測値の名前: 描画要求から分配描画が終わるまでの時間[ナノ秒]
+	 */
+	public static final String METRIC_FRAME_LATENCY = "glutils.distribute.frame_latency";
+	/**
+	 * 計測値の名前: 分配描画したフレーム数
+	 */
+	public static final String METRIC_FRAMES = "glutils.distribute.frames";
+
+	/*package*/ static final int REQUEST_DRAW = 1;
 	private static final int REQUEST_UPDATE_SIZE = 2;
 	private static final int REQUEST_ADD_SURFACE = 3;
 	private static final int REQUEST_REMOVE_SURFACE = 4;
@@ -64,8 +84,17 @@ public abstract class AbstractDistributeTask {
 	private int mRotation = 0;
 	private volatile boolean isFirstFrameRendered;
 	private volatile boolean mHasNewFrame;
+	/**
+	 * 最初の未描画の描画要求の時刻[ナノ秒], 計測していなければ0
+	 */
+	private volatile long mFrameRequestedNs;
 	private volatile boolean mReleased;
 	protected GLDrawer2D mDrawer;
+	/**
+	 * 分配描画したフレームのフレームレート/フレーム間隔計測用
+	 */
+	@NonNull
+	private final FpsCounter mFpsCounter = new FpsCounter();
 
 	/**
 	 * コンストラクタ
@@ -110,6 +139,9 @@ public abstract class AbstractDistributeTask {
 	 * 描画要求する
 	 */
 	public void requestFrame() {
+		if (mFrameRequestedNs == 0) {
+			mFrameRequestedNs = Metrics.startTimer();
+		}
 		mHasNewFrame = isFirstFrameRendered = true;
 		if (!mEnableVSync) {
 			// vsync同期しないときはここで描画要求する
@@ -299,6 +331,16 @@ public abstract class AbstractDistributeTask {
 		}
 	}
 
+	/**
+	 * 分配描画したフレームのフレームレート/フレーム間隔計測用のFpsCounterを取得
+	 * FPSを更新するにはFpsCounter#updateを定期的に呼び出すこと
+	 * @return
+	 */
+	@NonNull
+	public FpsCounter getFpsCounter() {
+		return mFpsCounter;
+	}
+
 	/**
 	 * リサイズ
 	 * @param width
@@ -475,24 +517,36 @@ public abstract class AbstractDistributeTask {
 		}
 
 		if (isFirstFrameRendered) {
+			final MetricsSink section = Metrics.beginSection(METRIC_DRAW_SECTION);
 			try {
-				makeCurrent();
-				if (mHasNewFrame) {
-					mHasNewFrame = false;
-					handleUpdateTexture();
-					if (isGLES3()) {
-						GLES30.glFlush();
-					} else {
-						GLES20.glFlush();
+				final long start = Metrics.startTimer();
+				try {
+					makeCurrent();
+					if (mHasNewFrame) {
+						mHasNewFrame = false;
+						handleUpdateTexture();
+						if (isGLES3()) {
+							GLES30.glFlush();
+						} else {
+							GLES20.glFlush();
+						}
+						ThreadUtils.NoThrowSleep(0, 0);
 					}
-					ThreadUtils.NoThrowSleep(0, 0);
+				} catch (final Exception e) {
+					Log.e(TAG, "handleDraw:thread id =" + Thread.currentThread().getId(), e);
+					offer(REQUEST_RECREATE_MASTER_SURFACE);
+					return;
 				}
-			} catch (final Exception e) {
-				Log.e(TAG, "handleDraw:thread id =" + Thread.currentThread().getId(), e);
-				offer(REQUEST_RECREATE_MASTER_SURFACE);
-				return;
+				handleDrawTargets(getTexId(), getTexMatrix());
+				mFpsCounter.count();
+				Metrics.stopTimer(METRIC_DRAW_TIME, start);
+				final long requested = mFrameRequestedNs;
+				mFrameRequestedNs = 0;
+				Metrics.stopTimer(METRIC_FRAME_LATENCY, requested);
+				Metrics.count(METRIC_FRAMES, 1);
+			} finally {
+				Metrics.endSection(section);
 			}
-			handleDrawTargets(getTexId(), getTexMatrix());
 		}
 
 		// Egl保持用のSurfaceへ描画しないとデッドロックする端末対策
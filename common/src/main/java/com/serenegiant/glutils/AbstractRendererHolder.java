@@ -19,13 +19,11 @@ package com.serenegiant.glutils;
 */
 
 import android.annotation.SuppressLint;
-import android.annotation.TargetApi;
 import android.graphics.Bitmap;
 import android.graphics.SurfaceTexture;
 import android.opengl.GLES20;
 import android.opengl.GLES30;
 import android.opengl.Matrix;
-import android.os.Build;
 import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -34,7 +32,10 @@ import androidx.annotation.WorkerThread;
 import android.util.Log;
 import android.view.Surface;
 
+import com.serenegiant.glutils.es3.GLPixelReader;
+import com.serenegiant.metrics.Metrics;
 import com.serenegiant.system.BuildCheck;
+import com.serenegiant.utils.Pool;
 
 import java.io.BufferedOutputStream;
 import java.io.FileNotFoundException;
@@ -43,14 +44,38 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import static com.serenegiant.glutils.ShaderConst.GL_TEXTURE_EXTERNAL_OES;
 
-public abstract class AbstractRendererHolder implements IRendererHolder {
+public abstract class AbstractRendererHolder implements IBurstCaptureRendererHolder {
 	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
 	private static final String TAG = AbstractRendererHolder.class.getSimpleName();
 	private static final String RENDERER_THREAD_NAME = "RendererHolder";
 	private static final String CAPTURE_THREAD_NAME = "CaptureTask";
+	private static final String ENCODER_THREAD_NAME = "CaptureEncoder";
+	/**
+	 * 静止画キャプチャ用のビットマッププール内に保持する最大数
+	 */
+	private static final int MAX_POOLED_BITMAPS = 4;
+	/**
+	 * PBOの読み込み完了待ち中の最大待機時間[ミリ秒]
+	 */
+	private static final long PENDING_WAIT_MS = 3;
+	/**
+	 * 計測値の名前: 静止画キャプチャの1フレームあたりの処理時間[ナノ秒]
+	 */
+	public static final String METRIC_CAPTURE_TIME = "glutils.holder.capture_time";
+	/**
+	 * 計測値の名前: PBOの読み込み完了待ちのフレーム数
+	 */
+	public static final String METRIC_CAPTURE_PENDING = "glutils.holder.capture_pending";
 
 	protected final Object mSync = new Object();
 	@Nullable
@@ -58,12 +83,36 @@ public abstract class AbstractRendererHolder implements IRendererHolder {
 	private final int mMaxClientVersion;
 	private volatile boolean isRunning;
 
-	private OutputStream mCaptureStream;
-	@StillCaptureFormat
-	private int mCaptureFormat;
-	@IntRange(from = 1L,to = 99L)
-	private int mCaptureCompression = DEFAULT_CAPTURE_COMPRESSION;
-	private OnCapturedListener mOnCapturedListener;
+	/**
+	 * 実行中の静止画撮影要求, mSyncで保護する
+	 */
+	@Nullable
+	private CaptureRequest mCaptureRequest;
+	/**
+	 * 映像が更新された回数, mSyncで保護する
+	 */
+	private long mFrameCounter;
+	/**
+	 * キャプチャした映像のエンコード用Executor
+	 */
+	@NonNull
+	private final ExecutorService mEncoder;
+	/**
+	 * キャプチャ用のビットマッププール
+	 */
+	@NonNull
+	private final Pool<Bitmap> mBitmapPool
+		= new Pool<Bitmap>(0, MAX_POOLED_BITMAPS, Integer.MAX_VALUE) {
+		@Nullable
+		@Override
+		protected Bitmap createObject(@Nullable final Object... args) {
+			if ((args != null) && (args.length >= 2)) {
+				return Bitmap.createBitmap((Integer)args[0], (Integer)args[1],
+					Bitmap.Config.ARGB_8888);
+			}
+			return null;
+		}
+	};
 	protected final BaseRendererTask mRendererTask;
 
 	/**
@@ -84,6 +133,18 @@ public abstract class AbstractRendererHolder implements IRendererHolder {
 
 		mCallback = callback;
 		mMaxClientVersion = maxClientVersion;
+		mEncoder = new ThreadPoolExecutor(1, 1,
+			0L, TimeUnit.MILLISECONDS,
+			new LinkedBlockingQueue<Runnable>(),
+			new ThreadFactory() {
+				@Override
+				public Thread newThread(@NonNull final Runnable r) {
+					final Thread t = new Thread(r, ENCODER_THREAD_NAME);
+					// releaseし忘れた時にプロセスの終了を妨げないようにする
+					t.setDaemon(true);
+					return t;
+				}
+			});
 		mRendererTask = createRendererTask(width, height,
 			maxClientVersion, sharedContext, flags, enableVSync);
 		mRendererTask.start(RENDERER_THREAD_NAME);
@@ -342,20 +403,48 @@ public abstract class AbstractRendererHolder implements IRendererHolder {
 		@IntRange(from = 1L,to = 99L) final int captureCompression,
 		@Nullable final OnCapturedListener listener) throws IllegalStateException {
 
+		requestCapture(new CaptureRequest(out, captureFormat, captureCompression, listener));
+		if (DEBUG) Log.v(TAG, "captureStill:終了");
+	}
+
+	/**
+	 * 静止画を連続撮影する
+	 * 撮影完了を待機せずにすぐに返る
+	 * @param n 撮影するフレーム数
+	 * @param intervalMs 撮影間隔[ミリ秒], 0以下なら映像が更新される毎に撮影する
+	 * @param listener
+	 */
+	@Override
+	public void captureStill(@IntRange(from = 1L) final int n,
+		final long intervalMs,
+		@NonNull final OnBurstCapturedListener listener)
+			throws IllegalStateException {
+
+		if (DEBUG) Log.v(TAG, "captureStill:n=" + n + ",intervalMs=" + intervalMs);
+		if (n <= 0) {
+			throw new IllegalArgumentException("number of frames should be positive");
+		}
+		requestCapture(new CaptureRequest(n, intervalMs, listener));
+	}
+
+	/**
+	 * 静止画撮影要求をキャプチャスレッドへ渡す
+	 * @param request
+	 * @throws IllegalStateException
+	 */
+	private void requestCapture(@NonNull final CaptureRequest request)
+		throws IllegalStateException {
+
 		synchronized (mSync) {
 			if (!isRunning) {
 				throw new IllegalStateException("already released?");
 			}
-			if (mCaptureStream != null) {
+			if (mCaptureRequest != null) {
 				throw new IllegalStateException("already run still capturing now");
 			}
-			mCaptureStream = out;
-			mCaptureFormat = captureFormat;
-			mCaptureCompression = captureCompression;
-			mOnCapturedListener = listener;
+			mCaptureRequest = request;
 			mSync.notifyAll();
 		}
-		if (DEBUG) Log.v(TAG, "captureStill:終了");
 	}
 
 	/**
@@ -453,6 +542,7 @@ public abstract class AbstractRendererHolder implements IRendererHolder {
 //		if (DEBUG) Log.v(TAG, "notifyCapture:");
 		synchronized (mSync) {
 			// キャプチャタスクに映像が更新されたことを通知
+			mFrameCounter++;
 			mSync.notify();
 		}
 	}
@@ -539,6 +629,8 @@ public abstract class AbstractRendererHolder implements IRendererHolder {
 					return handleRequest(request, arg1, arg2, obj);
 				}
 			};
+			// 描画要求は最新の1つだけ処理すれば良いのでキュー内でまとめる
+			mEglTask.setCoalescing(REQUEST_DRAW, true);
 		}
 
 		@Override
@@ -812,14 +904,209 @@ public abstract class AbstractRendererHolder implements IRendererHolder {
 	protected void setupCaptureDrawer(final GLDrawer2D drawer) {
 	}
 	
+	/**
+	 * 静止画撮影要求
+	 * 1回の静止画撮影(OutputStreamへ出力)または連続撮影(Bitmapをコールバック)を保持する
+	 */
+	private static class CaptureRequest {
+		@Nullable
+		private final OutputStream mOut;
+		@StillCaptureFormat
+		private final int mFormat;
+		private final int mCompression;
+		@Nullable
+		private final OnCapturedListener mListener;
+		@Nullable
+		private final OnBurstCapturedListener mBurstListener;
+		private final int mNumFrames;
+		private final long mIntervalNs;
+		// 以下はキャプチャスレッドからのみアクセスする
+		/**
+		 * キャプチャ要求したフレーム数
+		 */
+		private int mRequested;
+		/**
+		 * エンコードスレッドへ渡したフレーム数
+		 */
+		private int mDispatched;
+		private long mLastFrame = -1;
+		private long mNextCaptureNs;
+		// 以下はエンコードスレッドからのみアクセスする
+		/**
+		 * キャプチャできたフレーム数
+		 */
+		private int mCaptured;
+
+		/**
+		 * コンストラクタ
+		 * 1回の静止画撮影用
+		 * @param out
+		 * @param format
+		 * @param compression
+		 * @param listener
+		 */
+		private CaptureRequest(@NonNull final OutputStream out,
+			@StillCaptureFormat final int format, final int compression,
+			@Nullable final OnCapturedListener listener) {
+
+			mOut = out;
+			mFormat = format;
+			mCompression = ((compression <= 0) || (compression >= 100)) ? 90 : compression;
+			mListener = listener;
+			mBurstListener = null;
+			mNumFrames = 1;
+			mIntervalNs = 0;
+		}
+
+		/**
+		 * コンストラクタ
+		 * 連続撮影用
+		 * @param n
+		 * @param intervalMs
+		 * @param listener
+		 */
+		private CaptureRequest(final int n, final long intervalMs,
+			@NonNull final OnBurstCapturedListener listener) {
+
+			mOut = null;
+			mFormat = OUTPUT_FORMAT_JPEG;
+			mCompression = DEFAULT_CAPTURE_COMPRESSION;
+			mListener = null;
+			mBurstListener = listener;
+			mNumFrames = n;
+			mIntervalNs = intervalMs > 0 ? TimeUnit.MILLISECONDS.toNanos(intervalMs) : 0;
+		}
+
+		/**
+		 * 次のフレームをキャプチャするタイミングかどうか
+		 * 最初のフレームは要求直後にキャプチャ、以降は映像が更新されて撮影間隔が経過した時
+		 * @param frameCounter
+		 * @param nowNs
+		 * @return
+		 */
+		private boolean isTimeToCapture(final long frameCounter, final long nowNs) {
+			return (mRequested < mNumFrames)
+				&& ((mRequested == 0)
+					|| ((frameCounter != mLastFrame) && (nowNs >= mNextCaptureNs)));
+		}
+
+		/**
+		 * 次のキャプチャタイミングまでの待機時間[ミリ秒]
+		 * @param frameCounter
+		 * @param nowNs
+		 * @return 0なら映像が更新されるまで待機する
+		 */
+		private long waitTimeMs(final long frameCounter, final long nowNs) {
+			if ((frameCounter == mLastFrame) || (nowNs >= mNextCaptureNs)) {
+				return 0;
+			}
+			return Math.max(1, TimeUnit.NANOSECONDS.toMillis(mNextCaptureNs - nowNs));
+		}
+
+		/**
+		 * キャプチャスレッドでフレームを読み込んだ時の処理
+		 * @param frameCounter
+		 */
+		private void onRequested(final long frameCounter) {
+			mRequested++;
+			mLastFrame = frameCounter;
+			mNextCaptureNs = System.nanoTime() + mIntervalNs;
+		}
+
+		/**
+		 * エンコードスレッドでキャプチャした映像を処理する
+		 * @param parent
+		 * @param index
+		 * @param bitmap 読み込みに失敗した時はnull
+		 */
+		@WorkerThread
+		private void handleCaptured(@NonNull final IRendererHolder parent,
+			final int index, @Nullable final Bitmap bitmap) {
+
+			if (mOut != null) {
+				try {
+					try {
+						if (bitmap != null) {
+							bitmap.compress(getCaptureFormat(mFormat), mCompression, mOut);
+							mOut.flush();
+							mCaptured++;
+						}
+					} finally {
+						mOut.close();
+					}
+				} catch (final IOException e) {
+					Log.w(TAG, "failed to save file", e);
+				}
+			} else if ((mBurstListener != null) && (bitmap != null)) {
+				mCaptured++;
+				try {
+					mBurstListener.onCaptured(parent, index, bitmap);
+				} catch (final Exception e) {
+					if (DEBUG) Log.w(TAG, e);
+				}
+			}
+		}
+
+		/**
+		 * エンコードスレッドで撮影終了時の処理
+		 * @param parent
+		 */
+		@WorkerThread
+		private void handleFinished(@NonNull final IRendererHolder parent) {
+			try {
+				if (mListener != null) {
+					mListener.onCaptured(parent, mCaptured > 0);
+				}
+				if (mBurstListener != null) {
+					mBurstListener.onFinished(parent, mCaptured);
+				}
+			} catch (final Exception e) {
+				if (DEBUG) Log.w(TAG, e);
+			}
+		}
+	}
+
+	/**
+	 * キャプチャ用のビットマップをプールから取得する
+	 * @param width
+	 * @param height
+	 * @return
+	 */
+	@NonNull
+	private Bitmap obtainBitmap(final int width, final int height) {
+		Bitmap result = mBitmapPool.obtain(width, height);
+		if ((result != null)
+			&& (result.isRecycled()
+				|| (result.getWidth() != width) || (result.getHeight() != height))) {
+			// サイズが変わったので破棄する
+			result.recycle();
+			result = null;
+		}
+		if (result == null) {
+			result = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+		}
+		return result;
+	}
+
 	/**
 	 * 静止画を非同期でキャプチャするためのRunnable
+	 * GL|ES3が使える時はPBOのダブルバッファリングでglReadPixelsを非同期に行う。
+	 * 読み込んだ映像のエンコード(圧縮)はエンコード用スレッドで行うので
+	 * キャプチャスレッドはエンコード完了を待たずに次のフレームを処理できる
 	 */
 	private final Runnable mCaptureTask = new Runnable() {
 		private GLContext mContext;
 		private ISurface captureSurface;
 		private GLDrawer2D drawer;
+		@Nullable
+		private GLPixelReader mPixelReader;
+		private ByteBuffer buf;
+		private int width = -1, height = -1;
 		private final float[] mMvpMatrix = new float[16];
+		/**
+		 * PBOへ読み込み要求したが未処理のキャプチャ要求
+		 */
+		private final LinkedList<CaptureRequest> mPending = new LinkedList<>();
 
     	@Override
 		public void run() {
@@ -834,24 +1121,31 @@ public abstract class AbstractRendererHolder implements IRendererHolder {
 					}
 				}
 			}
-			if (isRunning) {
-				init();
-				try {
-					if (mContext.isOES3()) {
-						captureLoopGLES3();
-					} else {
-						captureLoopGLES2();
+			try {
+				if (isRunning) {
+					init();
+					try {
+						captureLoop();
+					} catch (final Exception e) {
+						Log.w(TAG, e);
+					} finally {
+						// release resources
+						release();
 					}
-				} catch (final Exception e) {
-					Log.w(TAG, e);
-				} finally {
-					// release resources
-					release();
 				}
+			} finally {
+				mEncoder.execute(new Runnable() {
+					@Override
+					public void run() {
+						mBitmapPool.clear();
+					}
+				});
+				mEncoder.shutdown();
 			}
 //			if (DEBUG) Log.v(TAG, "captureTask finished");
 		}
 
+		@SuppressLint("NewApi")
 		private final void init() {
 			mContext = new GLContext(mRendererTask.getGLContext());
 			mContext.initialize();
@@ -860,193 +1154,209 @@ public abstract class AbstractRendererHolder implements IRendererHolder {
 			Matrix.setIdentityM(mMvpMatrix, 0);
 			drawer = GLDrawer2D.create(mContext.isOES3(), true);
 			setupCaptureDrawer(drawer);
+			if (mContext.isGLES3()) {
+				mPixelReader = new GLPixelReader();
+			}
 		}
 
-		private final void captureLoopGLES2() {
-			int width = -1, height = -1;
-			ByteBuffer buf = null;
-			int captureCompression = DEFAULT_CAPTURE_COMPRESSION;
+		@SuppressLint("NewApi")
+		private final void captureLoop() {
 //			if (DEBUG) Log.v(TAG, "captureTask loop");
 			for (; isRunning ;) {
+				// 読み込みが完了しているPBOを処理する
+				while (!mPending.isEmpty() && mPixelReader.isReady(0)) {
+					handlePending();
+				}
+				final CaptureRequest request;
+				final long frame;
 				synchronized (mSync) {
-					if (mCaptureStream == null) {
+					request = mCaptureRequest;
+					frame = mFrameCounter;
+					final long now = System.nanoTime();
+					if ((request == null) || !request.isTimeToCapture(frame, now)) {
+						// 静止画撮影要求または映像の更新を待機
+						long waitMs = (request != null) ? request.waitTimeMs(frame, now) : 0;
+						if (!mPending.isEmpty()) {
+							waitMs = (waitMs > 0) ? Math.min(waitMs, PENDING_WAIT_MS) : PENDING_WAIT_MS;
+						}
 						try {
-							mSync.wait();
+							if (waitMs > 0) {
+								mSync.wait(waitMs);
+							} else {
+								mSync.wait();
+							}
 						} catch (final InterruptedException e) {
 							break;
 						}
-						if (mCaptureStream != null) {
-//							if (DEBUG) Log.i(TAG, "静止画撮影要求を受け取った");
-							captureCompression = mCaptureCompression;
-							if ((captureCompression <= 0) || (captureCompression >= 100)) {
-								captureCompression = 90;
-							}
-						} else {
-							// 起床されたけどmCaptureStreamがnullだった
-							continue;
-						}
+						continue;
 					}
-					if (DEBUG) Log.v(TAG, "#captureLoopGLES2:start capture");
-					boolean success = false;
-					if ((buf == null)
-						|| (width != mRendererTask.width())
-						|| (height != mRendererTask.height())) {
-
-						width = mRendererTask.width();
-						height = mRendererTask.height();
-						buf = ByteBuffer.allocateDirect(width * height * 4);
-				    	buf.order(ByteOrder.LITTLE_ENDIAN);
-				    	if (captureSurface != null) {
-				    		captureSurface.release();
-				    		captureSurface = null;
-				    	}
-				    	captureSurface = mContext.getEgl().createOffscreen(width, height);
+				}
+				capture(request, frame);
+			}	// end of for (; isRunning ;)
+			// 未処理のPBOを処理する
+			while (!mPending.isEmpty()) {
+				handlePending();
+			}
+			synchronized (mSync) {
+				final CaptureRequest request = mCaptureRequest;
+				mCaptureRequest = null;
+				if (request != null) {
+					// 撮影途中で終了した
+					for (; request.mDispatched < request.mNumFrames; ) {
+						dispatch(request, null);
 					}
-					if (isRunning && (width > 0) && (height > 0)) {
-						GLUtils.setMirror(mMvpMatrix, mRendererTask.mirror());
-						mMvpMatrix[5] *= -1.0f;	// flip up-side down
-						drawer.setMvpMatrix(mMvpMatrix, 0);
+				}
+				mSync.notifyAll();
+			}
+		}
+
+		/**
+		 * 1フレームキャプチャする
+		 * GL|ES3の時はPBOへの読み込み要求のみ行い読み込み完了を待たない
+		 * @param request
+		 * @param frame
+		 */
+		@SuppressLint("NewApi")
+		private final void capture(@NonNull final CaptureRequest request, final long frame) {
+			if (DEBUG) Log.v(TAG, "#capture:start capture");
+			final long start = Metrics.startTimer();
+			final int w = mRendererTask.width();
+			final int h = mRendererTask.height();
+			if ((captureSurface == null) || (w != width) || (h != height)) {
+				// サイズが変わる前に読み込み待ちのPBOを処理する
+				while (!mPending.isEmpty()) {
+					handlePending();
+				}
+				width = w;
+				height = h;
+		    	if (captureSurface != null) {
+		    		captureSurface.release();
+		    		captureSurface = null;
+		    	}
+				if ((width > 0) && (height > 0)) {
+			    	captureSurface = mContext.getEgl().createOffscreen(width, height);
+					if (mPixelReader != null) {
 						captureSurface.makeCurrent();
-						drawer.draw(mRendererTask.mTexId, mRendererTask.mTexMatrix, 0);
-						captureSurface.swap();
-				        buf.clear();
-				        GLES20.glReadPixels(0, 0, width, height,
-				        	GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, buf);
-//				        if (DEBUG) Log.v(TAG, "save pixels to file:" + captureFile);
-				        final Bitmap.CompressFormat compressFormat
-				        	= getCaptureFormat(mCaptureFormat);
-						try {
-					        try {
-					            final Bitmap bmp = Bitmap.createBitmap(
-					            	width, height, Bitmap.Config.ARGB_8888);
-						        buf.clear();
-					            bmp.copyPixelsFromBuffer(buf);
-					            bmp.compress(compressFormat, captureCompression, mCaptureStream);
-					            bmp.recycle();
-								mCaptureStream.flush();
-								success = true;
-					        } finally {
-					            mCaptureStream.close();
-					        }
-						} catch (final IOException e) {
-							Log.w(TAG, "failed to save file", e);
-						}
-					} else if (isRunning) {
-						Log.w(TAG, "#captureLoopGLES3:unexpectedly width/height is zero");
+						mPixelReader.resize(width, height);
+					} else {
+						buf = ByteBuffer.allocateDirect(width * height * 4);
+						buf.order(ByteOrder.LITTLE_ENDIAN);
 					}
-					if (DEBUG) Log.i(TAG, "#captureLoopGLES2:静止画撮影終了");
-					mCaptureStream = null;
-					if (mOnCapturedListener != null) {
-						try {
-							mOnCapturedListener.onCaptured(AbstractRendererHolder.this, success);
-						} catch (final Exception e) {
-							if (DEBUG) Log.w(TAG, e);
-						}
+				}
+			}
+			request.onRequested(frame);
+			if (isRunning && (width > 0) && (height > 0)) {
+				GLUtils.setMirror(mMvpMatrix, mRendererTask.mirror());
+				mMvpMatrix[5] *= -1.0f;	// flip up-side down
+				drawer.setMvpMatrix(mMvpMatrix, 0);
+				captureSurface.makeCurrent();
+				drawer.draw(mRendererTask.mTexId, mRendererTask.mTexMatrix, 0);
+				captureSurface.swap();
+				if (mPixelReader != null) {
+					if (mPixelReader.isFull()) {
+						// 空いているPBOが無いので一番古いPBOの読み込み完了を待つ
+						handlePending();
+					}
+					if (mPixelReader.readPixels()) {
+						mPending.addLast(request);
+					} else {
+						dispatch(request, null);
+					}
+				} else {
+			        buf.clear();
+			        GLES20.glReadPixels(0, 0, width, height,
+			        	GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, buf);
+					buf.clear();
+					dispatch(request, buf);
+				}
+			} else {
+				if (isRunning) {
+					Log.w(TAG, "#capture:unexpectedly width/height is zero");
+				}
+				dispatch(request, null);
+			}
+			Metrics.stopTimer(METRIC_CAPTURE_TIME, start);
+			Metrics.gauge(METRIC_CAPTURE_PENDING, mPending.size());
+			if (request.mRequested >= request.mNumFrames) {
+				if (DEBUG) Log.i(TAG, "#capture:静止画撮影終了");
+				synchronized (mSync) {
+					if (mCaptureRequest == request) {
+						mCaptureRequest = null;
 					}
-					mOnCapturedListener = null;
 					mSync.notifyAll();
-				}	// end of synchronized (mSync)
-			}	// end of for (; isRunning ;)
-			synchronized (mSync) {
-				mSync.notifyAll();
+				}
 			}
 		}
 
-		@TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
-		private final void captureLoopGLES3() {
-			int width = -1, height = -1;
-			ByteBuffer buf = null;
-			int captureCompression = 90;
-//			if (DEBUG) Log.v(TAG, "captureTask loop");
-			for (; isRunning ;) {
-				synchronized (mSync) {
-					if (mCaptureStream == null) {
+		/**
+		 * 一番古い読み込み待ちのPBOを処理する
+		 * 読み込みが完了していなければ完了するまでブロックする
+		 */
+		@SuppressLint("NewApi")
+		private final void handlePending() {
+			final CaptureRequest request = mPending.removeFirst();
+			final ByteBuffer pixels = mPixelReader.map();
+			try {
+				dispatch(request, pixels);
+			} finally {
+				if (pixels != null) {
+					mPixelReader.unmap();
+				}
+			}
+		}
+
+		/**
+		 * 読み込んだ映像をビットマップへコピーしてエンコード用スレッドへ渡す
+		 * @param request
+		 * @param pixels 読み込みに失敗した時はnull
+		 */
+		private final void dispatch(@NonNull final CaptureRequest request,
+			@Nullable final ByteBuffer pixels) {
+
+			final int index = request.mDispatched++;
+			final boolean isLast = request.mDispatched >= request.mNumFrames;
+			Bitmap bitmap = null;
+			if ((pixels != null) && (width > 0) && (height > 0)) {
+				bitmap = obtainBitmap(width, height);
+				pixels.clear();
+				bitmap.copyPixelsFromBuffer(pixels);
+			}
+			final Bitmap captured = bitmap;
+			try {
+				mEncoder.execute(new Runnable() {
+					@Override
+					public void run() {
 						try {
-							mSync.wait();
-						} catch (final InterruptedException e) {
-							break;
-						}
-						if (mCaptureStream != null) {
-//							if (DEBUG) Log.i(TAG, "静止画撮影要求を受け取った");
-							captureCompression = mCaptureCompression;
-							if ((captureCompression <= 0) || (captureCompression >= 100)) {
-								captureCompression = 90;
+							request.handleCaptured(AbstractRendererHolder.this, index, captured);
+						} finally {
+							if (captured != null) {
+								mBitmapPool.recycle(captured);
 							}
-						} else {
-							// 起床されたけどmCaptureStreamがnullだった
-							continue;
-						}
-					}
-					if (DEBUG) Log.v(TAG, "#captureLoopGLES3:start capture");
-					boolean success = false;
-					if ((buf == null)
-						|| (width != mRendererTask.width())
-						|| (height != mRendererTask.height())) {
-
-						width = mRendererTask.width();
-						height = mRendererTask.height();
-						buf = ByteBuffer.allocateDirect(width * height * 4);
-				    	buf.order(ByteOrder.LITTLE_ENDIAN);
-				    	if (captureSurface != null) {
-				    		captureSurface.release();
-				    		captureSurface = null;
-				    	}
-				    	captureSurface = mContext.getEgl().createOffscreen(width, height);
-					}
-					if (isRunning && (width > 0) && (height > 0)) {
-						GLUtils.setMirror(mMvpMatrix, mRendererTask.mirror());
-						mMvpMatrix[5] *= -1.0f;	// flip up-side down
-						drawer.setMvpMatrix(mMvpMatrix, 0);
-						captureSurface.makeCurrent();
-						drawer.draw(mRendererTask.mTexId, mRendererTask.mTexMatrix, 0);
-						captureSurface.swap();
-				        buf.clear();
-						// FIXME これはGL|ES3のPBOとglMapBufferRange/glUnmapBufferを使うように変更する
-				        GLES30.glReadPixels(0, 0, width, height,
-							GLES30.GL_RGBA, GLES30.GL_UNSIGNED_BYTE, buf);
-//				        if (DEBUG) Log.v(TAG, "save pixels to file:" + captureFile);
-						final Bitmap.CompressFormat compressFormat
-							= getCaptureFormat(mCaptureFormat);
-						try {
-					        try {
-					            final Bitmap bmp = Bitmap.createBitmap(
-					            	width, height, Bitmap.Config.ARGB_8888);
-						        buf.clear();
-					            bmp.copyPixelsFromBuffer(buf);
-					            bmp.compress(compressFormat, captureCompression, mCaptureStream);
-					            bmp.recycle();
-								mCaptureStream.flush();
-								success = true;
-					        } finally {
-					            mCaptureStream.close();
-					        }
-						} catch (final IOException e) {
-							Log.w(TAG, "failed to save file", e);
 						}
-					} else if (isRunning) {
-						Log.w(TAG, "#captureLoopGLES3:unexpectedly width/height is zero");
-					}
-					if (DEBUG) Log.i(TAG, "#captureLoopGLES3:静止画撮影終了");
-					mCaptureStream = null;
-					if (mOnCapturedListener != null) {
-						try {
-							mOnCapturedListener.onCaptured(AbstractRendererHolder.this, success);
-						} catch (final Exception e) {
-							if (DEBUG) Log.w(TAG, e);
+						if (isLast) {
+							request.handleFinished(AbstractRendererHolder.this);
 						}
 					}
-					mOnCapturedListener = null;
-					mSync.notifyAll();
-				}	// end of synchronized (mSync)
-			}	// end of for (; isRunning ;)
-			synchronized (mSync) {
-				mSync.notifyAll();
+				});
+			} catch (final RejectedExecutionException e) {
+				// エンコード用スレッドが終了していてもリスナーへ終了を通知する
+				Log.w(TAG, e);
+				if (captured != null) {
+					captured.recycle();
+				}
+				if (isLast) {
+					request.handleFinished(AbstractRendererHolder.this);
+				}
 			}
 		}
 
 		private final void release() {
 			if (captureSurface != null) {
 				captureSurface.makeCurrent();
+				if (mPixelReader != null) {
+					mPixelReader.release();
+					mPixelReader = null;
+				}
 				captureSurface.release();
 				captureSurface = null;
 			}
@@ -0,0 +1,68 @@
+package com.serenegiant.glutils;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+
+/**
+ * 連続撮影(バースト撮影)に対応した分配描画インターフェース
+ * IRendererHolderを実装している既存のクラスに影響しないように別インターフェースにする
+ */
+public interface IBurstCaptureRendererHolder extends IRendererHolder {
+
+	/**
+	 * 連続撮影(バースト撮影)時のコールバックリスナー
+	 * いずれも静止画のエンコード用スレッド上で呼ばれる
+	 */
+	public interface OnBurstCapturedListener {
+		/**
+		 * 1フレームキャプチャした時
+		 * bitmapはコールバックから戻った後に再利用されるので
+		 * コールバック外で使う場合にはコピーすること
+		 * @param rendererHolder
+		 * @param index 何フレーム目か, 0始まり
+		 * @param bitmap
+		 */
+		public void onCaptured(@NonNull final IRendererHolder rendererHolder,
+			final int index, @NonNull final Bitmap bitmap);
+		/**
+		 * 連続撮影が終了した時
+		 * @param rendererHolder
+		 * @param numCaptured キャプチャできたフレーム数
+		 */
+		public void onFinished(@NonNull final IRendererHolder rendererHolder,
+			final int numCaptured);
+	}
+
+	/**
+	 * 静止画を連続撮影する
+	 * 撮影完了を待機せずにすぐに返る
+	 * キャプチャ結果はlistenerへ非同期で渡される
+	 * @param n 撮影するフレーム数
+	 * @param intervalMs 撮影間隔[ミリ秒], 0以下なら映像が更新される毎に撮影する
+	 * @param listener
+	 */
+	public void captureStill(@IntRange(from = 1L) final int n,
+		final long intervalMs,
+		@NonNull final OnBurstCapturedListener listener)
+			throws IllegalStateException;
+}
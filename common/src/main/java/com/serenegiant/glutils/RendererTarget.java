@@ -22,13 +22,15 @@ import android.opengl.GLES20;
 import android.opengl.Matrix;
 
 import com.serenegiant.system.Time;
+import com.serenegiant.utils.FpsCounter;
+import com.serenegiant.utils.IFpsCounterProvider;
 
 import androidx.annotation.NonNull;
 
 /**
  * 同じ内容のクラスだったからEffectRendererHolder/RendererHolderのインナークラスを外に出した
  */
-public class RendererTarget implements IRendererTarget {
+public class RendererTarget implements IRendererTarget, IFpsCounterProvider {
 
 	/**
 	 * ファクトリーメソッド
@@ -52,6 +54,9 @@ public class RendererTarget implements IRendererTarget {
 	private ISurface mTargetSurface;
 	private final float[] mMvpMatrix = new float[16];
 	private volatile boolean mEnable = true;
+	/** 描画先毎のフレームレート/フレーム間隔計測用 */
+	@NonNull
+	private final FpsCounter mFpsCounter = new FpsCounter();
 
 	/**
 	 * コンストラクタ, ファクトリーメソッドの使用を強制するためprivate
@@ -149,9 +154,21 @@ public class RendererTarget implements IRendererTarget {
 			GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT);
 			doDraw(drawer, textId, texMatrix, mMvpMatrix);
 			mTargetSurface.swap();
+			mFpsCounter.count();
 		}
 	}
 
+	/**
+	 * 描画先へ描画したフレームのフレームレート/フレーム間隔計測用のFpsCounterを取得
+	 * RendererTargetHasWaitで間引いたフレームはカウントしない
+	 * @return
+	 */
+	@NonNull
+	@Override
+	public FpsCounter getFpsCounter() {
+		return mFpsCounter;
+	}
+
 	/**
 	 * Drawの描画処理の実体
 	 * サーフェースのmakeCurrent/swap処理は上位で実行
@@ -242,6 +259,7 @@ public class RendererTarget implements IRendererTarget {
 			super(egl, surface);
 			mIntervalsNs = 1000000000L / maxFps;
 			mNextDraw = Time.nanoTime() + mIntervalsNs;
+			getFpsCounter().setExpectedFps(maxFps);
 		}
 
 		/**
@@ -224,6 +224,7 @@ public class StaticTextureSource {
 			mVideoWidth = width;
 			mVideoHeight = height;
 			mIntervalsNs = fps <= 0 ? 100000000L : (long)(1000000000L / fps);
+			setCoalescing(REQUEST_DRAW, true);
 		}
 
 		/**
@@ -0,0 +1,276 @@
+package com.serenegiant.glutils.es3;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import android.opengl.GLES30;
+import android.os.Build;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.annotation.WorkerThread;
+
+/**
+ * OpenGL|ES3のピクセルバッファーオブジェクト(PBO)を使って
+ * 非同期にglReadPixelsするためのヘルパークラス
+ * 複数のPBOをリングバッファーとして使い、glReadPixelsの完了はフェンスで確認する。
+ * 全てのメソッドはこのインスタンスを生成したGLコンテキストのスレッド上で呼び出すこと
+ */
+@RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN_MR2)
+public class GLPixelReader {
+	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
+	private static final String TAG = GLPixelReader.class.getSimpleName();
+
+	/**
+	 * デフォルトのPBOの数(ダブルバッファリング)
+	 */
+	public static final int DEFAULT_NUM_BUFFERS = 2;
+
+	private final int mNumBuffers;
+	private final int[] mBufIds;
+	private final long[] mFences;
+	private int mWidth, mHeight;
+	private int mBufSize;
+	/**
+	 * 次に書き込むPBOのインデックス
+	 */
+	private int mHead;
+	/**
+	 * 読み込み待ちのPBOの数
+	 */
+	private int mPending;
+	/**
+	 * 現在マップしているPBOのインデックス, マップしていなければ-1
+	 */
+	private int mMapped = -1;
+
+	/**
+	 * コンストラクタ
+	 * PBOの数はDEFAULT_NUM_BUFFERS
+	 */
+	@WorkerThread
+	public GLPixelReader() {
+		this(DEFAULT_NUM_BUFFERS);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param numBuffers PBOの数, 1以上
+	 */
+	@WorkerThread
+	public GLPixelReader(final int numBuffers) {
+		mNumBuffers = numBuffers > 0 ? numBuffers : DEFAULT_NUM_BUFFERS;
+		mBufIds = new int[mNumBuffers];
+		mFences = new long[mNumBuffers];
+	}
+
+	/**
+	 * 関係するリソースを破棄する
+	 */
+	@WorkerThread
+	public void release() {
+		releaseBuffers();
+	}
+
+	/**
+	 * 読み込むサイズを設定する
+	 * サイズが変わった場合には読み込み待ちのPBOは破棄される
+	 * @param width
+	 * @param height
+	 */
+	@WorkerThread
+	public void resize(final int width, final int height) {
+		if ((mWidth != width) || (mHeight != height) || (mBufIds[0] == 0)) {
+			if (DEBUG) Log.v(TAG, String.format("resize:(%dx%d)", width, height));
+			releaseBuffers();
+			mWidth = width;
+			mHeight = height;
+			mBufSize = width * height * 4;
+			if (mBufSize > 0) {
+				GLES30.glGenBuffers(mNumBuffers, mBufIds, 0);
+				GLHelper.checkGlError("glGenBuffers");
+				for (int i = 0; i < mNumBuffers; i++) {
+					GLES30.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, mBufIds[i]);
+					GLES30.glBufferData(GLES30.GL_PIXEL_PACK_BUFFER,
+						mBufSize, null, GLES30.GL_STREAM_READ);
+					GLHelper.checkGlError("glBufferData");
+				}
+				GLES30.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, 0);
+			}
+		}
+	}
+
+	public int width() {
+		return mWidth;
+	}
+
+	public int height() {
+		return mHeight;
+	}
+
+	/**
+	 * 読み込み待ちのPBOの数
+	 * @return
+	 */
+	public int pendingCount() {
+		return mPending;
+	}
+
+	/**
+	 * 全てのPBOが読み込み待ちになっているかどうか
+	 * trueの時は#readPixelsを呼ぶ前に#map/#unmapで一番古いPBOを読み込まないといけない
+	 * @return
+	 */
+	public boolean isFull() {
+		return mPending >= mNumBuffers;
+	}
+
+	/**
+	 * 現在のフレームバッファーの内容を次のPBOへ非同期で読み込む
+	 * この呼び出しはGPUの処理完了を待たずにすぐに返る
+	 * @return 読み込み要求できればtrue, 全てのPBOが読み込み待ちまたは未初期化ならfalse
+	 */
+	@WorkerThread
+	public boolean readPixels() {
+		if (isFull() || (mBufSize <= 0)) {
+			return false;
+		}
+		final int ix = mHead;
+		GLES30.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, mBufIds[ix]);
+		GLES30.glReadPixels(0, 0, mWidth, mHeight,
+			GLES30.GL_RGBA, GLES30.GL_UNSIGNED_BYTE, 0);
+		GLES30.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, 0);
+		if (mFences[ix] != 0) {
+			GLES30.glDeleteSync(mFences[ix]);
+		}
+		mFences[ix] = GLES30.glFenceSync(GLES30.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+		GLES30.glFlush();
+		mHead = (ix + 1) % mNumBuffers;
+		mPending++;
+		return true;
+	}
+
+	/**
+	 * 一番古い読み込み待ちのPBOの読み込みが完了しているかどうか
+	 * @param timeoutNs 完了を待つ最大時間[ナノ秒], 0なら待たない
+	 * @return
+	 */
+	@WorkerThread
+	public boolean isReady(final long timeoutNs) {
+		if (mPending <= 0) {
+			return false;
+		}
+		final int ix = tail();
+		if (mFences[ix] == 0) {
+			return true;
+		}
+		final int result = GLES30.glClientWaitSync(mFences[ix],
+			GLES30.GL_SYNC_FLUSH_COMMANDS_BIT, timeoutNs);
+		return (result == GLES30.GL_ALREADY_SIGNALED)
+			|| (result == GLES30.GL_CONDITION_SATISFIED)
+			|| (result == GLES30.GL_WAIT_FAILED);	// 待機に失敗した時はマップ時にドライバーが同期する
+	}
+
+	/**
+	 * 一番古い読み込み待ちのPBOをマップして読み込み専用のByteBufferとして返す
+	 * 読み込みが完了していなければ完了するまでブロックする。
+	 * 返したByteBufferは#unmapを呼ぶまでの間のみ有効
+	 * @return 読み込み待ちのPBOが無ければnull
+	 */
+	@WorkerThread
+	@Nullable
+	public ByteBuffer map() {
+		if ((mPending <= 0) || (mMapped >= 0)) {
+			return null;
+		}
+		final int ix = tail();
+		if (mFences[ix] != 0) {
+			GLES30.glDeleteSync(mFences[ix]);
+			mFences[ix] = 0;
+		}
+		GLES30.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, mBufIds[ix]);
+		final ByteBuffer result = (ByteBuffer)GLES30.glMapBufferRange(
+			GLES30.GL_PIXEL_PACK_BUFFER, 0, mBufSize, GLES30.GL_MAP_READ_BIT);
+		if (result != null) {
+			result.order(ByteOrder.LITTLE_ENDIAN);
+			mMapped = ix;
+		} else {
+			GLHelper.checkGlError("glMapBufferRange");
+			GLES30.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, 0);
+			// マップできなかったので読み込み済みとして扱う
+			mPending--;
+		}
+		return result;
+	}
+
+	/**
+	 * #mapでマップしたPBOのマップを解除して次の読み込みに使えるようにする
+	 */
+	@WorkerThread
+	public void unmap() {
+		if (mMapped >= 0) {
+			GLES30.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, mBufIds[mMapped]);
+			GLES30.glUnmapBuffer(GLES30.GL_PIXEL_PACK_BUFFER);
+			GLES30.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, 0);
+			mMapped = -1;
+			mPending--;
+		}
+	}
+
+	/**
+	 * 一番古い読み込み待ちのPBOのインデックス
+	 * @return
+	 */
+	private int tail() {
+		return (mHead - mPending + mNumBuffers) % mNumBuffers;
+	}
+
+	@WorkerThread
+	private void releaseBuffers() {
+		unmap();
+		for (int i = 0; i < mNumBuffers; i++) {
+			if (mFences[i] != 0) {
+				GLES30.glDeleteSync(mFences[i]);
+				mFences[i] = 0;
+			}
+		}
+		if (mBufIds[0] != 0) {
+			GLES30.glDeleteBuffers(mNumBuffers, mBufIds, 0);
+			for (int i = 0; i < mNumBuffers; i++) {
+				mBufIds[i] = 0;
+			}
+		}
+		mHead = mPending = 0;
+		mWidth = mHeight = mBufSize = 0;
+	}
+
+	@NonNull
+	@Override
+	public String toString() {
+		return "GLPixelReader{" +
+			"numBuffers=" + mNumBuffers +
+			", size=(" + mWidth + "x" + mHeight + ")" +
+			", pending=" + mPending +
+			'}';
+	}
+}
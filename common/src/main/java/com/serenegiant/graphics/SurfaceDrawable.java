@@ -141,6 +141,8 @@ public class SurfaceDrawable extends Drawable {
 				return handleRequest(request, arg1, arg2, obj);
 			}
 		};
+		// 未処理の描画要求があれば積み増さない
+		mEglTask.setCoalescing(REQUEST_DRAW, true);
 		mBitmap = Bitmap.createBitmap(imageWidth, imageHeight, Bitmap.Config.ARGB_8888);
 		mWorkBuffer = ByteBuffer.allocateDirect(imageWidth * imageHeight * 4);
 		new Thread(mEglTask, TAG).start();
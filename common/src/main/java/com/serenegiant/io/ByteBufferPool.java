@@ -0,0 +1,255 @@
+package com.serenegiant.io;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * サイズクラス(2のべき乗)毎にダイレクトByteBufferを再利用するためのプール
+ * 受信データのように毎回サイズが異なるバッファーを確保・破棄する時のGC負荷を下げるために使う
+ * 最大サイズクラスより大きいバッファーはプールせずに毎回確保する
+ */
+public class ByteBufferPool {
+	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
+	private static final String TAG = ByteBufferPool.class.getSimpleName();
+
+	/**
+	 * 最小サイズクラスのバイト数の2を底とする対数(256バイト)
+	 */
+	private static final int MIN_SHIFT = 8;
+	/**
+	 * 最大サイズクラスのバイト数の2を底とする対数の上限(1GB)
+	 */
+	private static final int MAX_SHIFT = 30;
+	/**
+	 * デフォルトの最大サイズクラスのバイト数の2を底とする対数(4MB)
+	 */
+	private static final int DEFAULT_MAX_SHIFT = 22;
+	/**
+	 * デフォルトのサイズクラス毎にプール内へ保持するバッファーの最大数
+	 */
+	private static final int DEFAULT_MAX_NUM_IN_POOL = 8;
+
+	private static ByteBufferPool sDefault;
+
+	/**
+	 * アプリ全体で共有するデフォルトのByteBufferPoolを取得する
+	 * @return
+	 */
+	@NonNull
+	public static synchronized ByteBufferPool getDefault() {
+		if (sDefault == null) {
+			sDefault = new ByteBufferPool();
+		}
+		return sDefault;
+	}
+
+	/**
+	 * ByteBufferPoolから貸し出したByteBuffer
+	 * 参照カウントが0になった時にプールへ返却される
+	 * #release後に#bufferで取得したByteBufferへアクセスしてはいけない
+	 */
+	public static class Lease {
+		@NonNull
+		private final ByteBufferPool mPool;
+		@NonNull
+		private final ByteBuffer mBuffer;
+		private final AtomicInteger mRefCount = new AtomicInteger(1);
+
+		private Lease(@NonNull final ByteBufferPool pool, @NonNull final ByteBuffer buffer) {
+			mPool = pool;
+			mBuffer = buffer;
+		}
+
+		/**
+		 * 貸し出しているByteBufferを取得する
+		 * @return
+		 */
+		@NonNull
+		public ByteBuffer buffer() {
+			return mBuffer;
+		}
+
+		/**
+		 * 参照カウントを増やす
+		 * 別スレッドへ受け渡す時など複数箇所で使う時に呼ぶ
+		 * @return
+		 * @throws IllegalStateException 既にプールへ返却済みの時
+		 */
+		@NonNull
+		public Lease retain() {
+			for ( ; ; ) {
+				final int count = mRefCount.get();
+				if (count <= 0) {
+					throw new IllegalStateException("already released");
+				}
+				if (mRefCount.compareAndSet(count, count + 1)) {
+					return this;
+				}
+			}
+		}
+
+		/**
+		 * 参照カウントを減らす
+		 * 参照カウントが0になればByteBufferをプールへ返却する
+		 */
+		public void release() {
+			final int count = mRefCount.decrementAndGet();
+			if (count == 0) {
+				mPool.recycle(mBuffer);
+			} else if (count < 0) {
+				throw new IllegalStateException("already released");
+			}
+		}
+
+		@NonNull
+		@Override
+		public String toString() {
+			return "Lease{" +
+				"buffer=" + mBuffer +
+				", refCount=" + mRefCount.get() +
+				'}';
+		}
+	}
+
+	private final int mMaxShift;
+	private final int mMaxNumInPool;
+	/**
+	 * サイズクラス毎のプール
+	 */
+	private final List<List<ByteBuffer>> mPools;
+
+	/**
+	 * コンストラクタ
+	 * 最大サイズクラスは4MB, サイズクラス毎に最大8個までプールする
+	 */
+	public ByteBufferPool() {
+		this(1 << DEFAULT_MAX_SHIFT, DEFAULT_MAX_NUM_IN_POOL);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param maxPooledBytes プールする最大バイト数, これより大きいバッファーはプールしない
+	 * @param maxNumInPool サイズクラス毎にプール内に保持できる最大数
+	 */
+	public ByteBufferPool(final int maxPooledBytes, final int maxNumInPool) {
+		mMaxShift = Math.min(MAX_SHIFT, Math.max(MIN_SHIFT, shiftOf(maxPooledBytes)));
+		mMaxNumInPool = maxNumInPool;
+		final int n = mMaxShift - MIN_SHIFT + 1;
+		mPools = new ArrayList<List<ByteBuffer>>(n);
+		for (int i = 0; i < n; i++) {
+			mPools.add(new ArrayList<ByteBuffer>());
+		}
+	}
+
+	/**
+	 * 指定したバイト数以上の容量のダイレクトByteBufferを取得する
+	 * position=0, limit=size, ビッグエンディアンにセットして返す
+	 * 使い終わったら#recycleでプールへ返却すること
+	 * @param size
+	 * @return
+	 */
+	@NonNull
+	public ByteBuffer obtain(final int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("negative size," + size);
+		}
+		final int shift = shiftOf(size);
+		ByteBuffer result = null;
+		if (shift <= mMaxShift) {
+			final List<ByteBuffer> pool = mPools.get(shift - MIN_SHIFT);
+			synchronized (pool) {
+				if (!pool.isEmpty()) {
+					result = pool.remove(pool.size() - 1);
+				}
+			}
+			if (result == null) {
+				result = ByteBuffer.allocateDirect(1 << shift);
+			}
+		} else {
+			result = ByteBuffer.allocateDirect(size);
+		}
+		result.clear();
+		result.limit(size);
+		result.order(ByteOrder.BIG_ENDIAN);
+		return result;
+	}
+
+	/**
+	 * 指定したバイト数以上の容量のダイレクトByteBufferを参照カウント付きで貸し出す
+	 * 使い終わったらLease#releaseを呼ぶこと
+	 * @param size
+	 * @return
+	 */
+	@NonNull
+	public Lease lease(final int size) {
+		return new Lease(this, obtain(size));
+	}
+
+	/**
+	 * #obtainで取得したByteBufferをプールへ返却する
+	 * サイズクラスと一致しないByteBufferやプールが一杯の時は破棄する
+	 * @param buffer
+	 */
+	public void recycle(@Nullable final ByteBuffer buffer) {
+		if ((buffer == null) || !buffer.isDirect() || buffer.isReadOnly()) return;
+		final int capacity = buffer.capacity();
+		final int shift = shiftOf(capacity);
+		if ((capacity == (1 << shift)) && (shift <= mMaxShift)) {
+			final List<ByteBuffer> pool = mPools.get(shift - MIN_SHIFT);
+			synchronized (pool) {
+				if (pool.size() < mMaxNumInPool) {
+					pool.add(buffer);
+				}
+			}
+		}
+	}
+
+	/**
+	 * プールを空にする
+	 */
+	public void clear() {
+		for (final List<ByteBuffer> pool: mPools) {
+			synchronized (pool) {
+				pool.clear();
+			}
+		}
+	}
+
+	/**
+	 * 指定したバイト数を保持できるサイズクラスの2を底とする対数
+	 * @param size
+	 * @return
+	 */
+	private static int shiftOf(final int size) {
+		if (size <= (1 << MIN_SHIFT)) {
+			return MIN_SHIFT;
+		} else if (size > (1 << MAX_SHIFT)) {
+			return MAX_SHIFT + 1;
+		}
+		return 32 - Integer.numberOfLeadingZeros(size - 1);
+	}
+}
@@ -21,16 +21,14 @@ package com.serenegiant.io;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.CharBuffer;
-import java.nio.DoubleBuffer;
-import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
-import java.nio.LongBuffer;
-import java.nio.ShortBuffer;
 import java.nio.channels.ByteChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 
 /**
@@ -39,10 +37,42 @@ import java.nio.charset.Charset;
 public class ChannelHelper {
 	private static final Charset UTF8 = Charset.forName("UTF-8");
 
+	/**
+	 * 文字列・配列・ByteBufferとして読み込むデータの最大バイト数のデフォルト値
+	 */
+	public static final int DEFAULT_MAX_LENGTH_BYTES = 64 * 1024 * 1024;
+
+	/**
+	 * 文字列・配列・ByteBufferとして読み込むデータの最大バイト数
+	 * 不正なデータや悪意のある相手から受け取った長さのまま確保しないようにする
+	 */
+	private static volatile int sMaxLengthBytes = DEFAULT_MAX_LENGTH_BYTES;
+
 	private ChannelHelper() {
 		// インスタンス化をエラーにするためにデフォルトコンストラクタをprivateに
 	}
 
+	/**
+	 * 文字列・配列・ByteBufferとして読み込むデータの最大バイト数を設定する
+	 * これを超える長さを読み込んだ時はバッファを確保せずにIOExceptionを投げる
+	 * @param maxBytes 1以上
+	 * @throws IllegalArgumentException
+	 */
+	public static void setMaxLengthBytes(final int maxBytes) {
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException("maxBytes should be positive," + maxBytes);
+		}
+		sMaxLengthBytes = maxBytes;
+	}
+
+	/**
+	 * 文字列・配列・ByteBufferとして読み込むデータの最大バイト数を取得する
+	 * @return
+	 */
+	public static int getMaxLengthBytes() {
+		return sMaxLengthBytes;
+	}
+
 	/**
 	 * ByteChannelからbooleanを読み込む
 	 * @param channel
@@ -67,9 +97,8 @@ public class ChannelHelper {
 		@Nullable final ByteBuffer work) throws IOException {
 		
 		final ByteBuffer buf = checkBuffer(work, 1);
-		final int readBytes = channel.read(buf);
-		if (readBytes != 1) throw new IOException();
-		buf.clear();
+		readFully(channel, buf);
+		buf.flip();
 		return buf.get() != 0;
 	}
 	
@@ -95,9 +124,8 @@ public class ChannelHelper {
 		@Nullable final ByteBuffer work) throws IOException {
 		
 		final ByteBuffer buf = checkBuffer(work, 1);
-		final int readBytes = channel.read(buf);
-		if (readBytes != 1) throw new IOException();
-		buf.clear();
+		readFully(channel, buf);
+		buf.flip();
 		return buf.get();
 	}
 
@@ -124,9 +152,8 @@ public class ChannelHelper {
 		@Nullable final ByteBuffer work) throws IOException {
 		
 		final ByteBuffer buf = checkBuffer(work, 2);
-		final int readBytes = channel.read(buf);
-		if (readBytes != 2) throw new IOException();
-		buf.clear();
+		readFully(channel, buf);
+		buf.flip();
 		return buf.getChar();
 	}
 
@@ -153,9 +180,8 @@ public class ChannelHelper {
 		@Nullable final ByteBuffer work) throws IOException {
 		
 		final ByteBuffer buf = checkBuffer(work, 2);
-		final int readBytes = channel.read(buf);
-		if (readBytes != 2) throw new IOException();
-		buf.clear();
+		readFully(channel, buf);
+		buf.flip();
 		return buf.getShort();
 	}
 
@@ -182,9 +208,8 @@ public class ChannelHelper {
 		@Nullable final ByteBuffer work) throws IOException {
 		
 		final ByteBuffer buf = checkBuffer(work, 4);
-		final int readBytes = channel.read(buf);
-		if (readBytes != 4) throw new IOException();
-		buf.clear();
+		readFully(channel, buf);
+		buf.flip();
 		return buf.getInt();
 	}
 
@@ -211,9 +236,8 @@ public class ChannelHelper {
 		@Nullable final ByteBuffer work) throws IOException {
 		
 		final ByteBuffer buf = checkBuffer(work, 8);
-		final int readBytes = channel.read(buf);
-		if (readBytes != 8) throw new IOException();
-		buf.clear();
+		readFully(channel, buf);
+		buf.flip();
 		return buf.getLong();
 	}
 
@@ -226,11 +250,7 @@ public class ChannelHelper {
 	public static float readFloat(@NonNull final ByteChannel channel)
 		throws IOException {
 		
-		final ByteBuffer buf = ByteBuffer.allocate(4);
-		final int readBytes = channel.read(buf);
-		if (readBytes != 4) throw new IOException();
-		buf.clear();
-		return buf.getFloat();
+		return readFloat(channel, null);
 	}
 	
 	/**
@@ -243,9 +263,8 @@ public class ChannelHelper {
 		@Nullable final ByteBuffer work) throws IOException {
 		
 		final ByteBuffer buf = checkBuffer(work, 4);
-		final int readBytes = channel.read(buf);
-		if (readBytes != 4) throw new IOException();
-		buf.clear();
+		readFully(channel, buf);
+		buf.flip();
 		return buf.getFloat();
 	}
 
@@ -271,9 +290,8 @@ public class ChannelHelper {
 		@Nullable final ByteBuffer work) throws IOException {
 
 		final ByteBuffer buf = checkBuffer(work, 8);
-		final int readBytes = channel.read(buf);
-		if (readBytes != 8) throw new IOException();
-		buf.clear();
+		readFully(channel, buf);
+		buf.flip();
 		return buf.getDouble();
 	}
 	
@@ -286,11 +304,9 @@ public class ChannelHelper {
 	public static String readString(@NonNull final ByteChannel channel)
 		throws IOException {
 		
-		final int bytes = readInt(channel);
+		final int bytes = readLength(channel, 1);
 		final byte[] buf = new byte[bytes];
-		final ByteBuffer b = ByteBuffer.wrap(buf);
-		final int readBytes = channel.read(b);
-		if (readBytes != bytes) throw new IOException();
+		readFully(channel, ByteBuffer.wrap(buf));
 		return new String(buf, UTF8);
 	}
 	
@@ -303,16 +319,18 @@ public class ChannelHelper {
 	public static boolean[] readBooleanArray(@NonNull final ByteChannel channel)
 		throws IOException {
 		
-		final int n = readInt(channel);
-		final ByteBuffer buf = ByteBuffer.allocate(n);
-		final int readBytes = channel.read(buf);
-		if (readBytes != n) throw new IOException();
-		buf.clear();
-		final boolean[] result = new boolean[n];
-		for (int i = 0; i < n; i++) {
-			result[i] = buf.get() != 0;
+		final int n = readLength(channel, 1);
+		final ByteBufferPool pool = ByteBufferPool.getDefault();
+		final ByteBuffer buf = readArray(channel, pool, n);
+		try {
+			final boolean[] result = new boolean[n];
+			for (int i = 0; i < n; i++) {
+				result[i] = buf.get() != 0;
+			}
+			return result;
+		} finally {
+			pool.recycle(buf);
 		}
-		return result;
 	}
 	
 	/**
@@ -324,11 +342,9 @@ public class ChannelHelper {
 	public static byte[] readByteArray(@NonNull final ByteChannel channel)
 		throws IOException {
 		
-		final int n = readInt(channel);
+		final int n = readLength(channel, 1);
 		final byte[] result = new byte[n];
-		final ByteBuffer buf = ByteBuffer.wrap(result);
-		final int readBytes = channel.read(buf);
-		if (readBytes != n) throw new IOException();
+		readFully(channel, ByteBuffer.wrap(result));
 		return result;
 	}
 	
@@ -341,18 +357,15 @@ public class ChannelHelper {
 	public static char[] readCharArray(@NonNull final ByteChannel channel)
 		throws IOException {
 		
-		final int n = readInt(channel);
-		final ByteBuffer buf = ByteBuffer.allocate(n * 2).order(ByteOrder.BIG_ENDIAN);
-		final int readBytes = channel.read(buf);
-		if (readBytes != n * 2) throw new IOException();
-		buf.clear();
-		final CharBuffer result = buf.asCharBuffer();
-		if (result.hasArray()) {
-			return result.array();
-		}  else {
-			final char[] b = new char[n];
-			result.get(b);
-			return b;
+		final int n = readLength(channel, 2);
+		final ByteBufferPool pool = ByteBufferPool.getDefault();
+		final ByteBuffer buf = readArray(channel, pool, n * 2);
+		try {
+			final char[] result = new char[n];
+			buf.asCharBuffer().get(result);
+			return result;
+		} finally {
+			pool.recycle(buf);
 		}
 	}
 	
@@ -365,18 +378,15 @@ public class ChannelHelper {
 	public static short[] readShortArray(@NonNull final ByteChannel channel)
 		throws IOException {
 		
-		final int n = readInt(channel);
-		final ByteBuffer buf = ByteBuffer.allocate(n * 2).order(ByteOrder.BIG_ENDIAN);
-		final int readBytes = channel.read(buf);
-		if (readBytes != n * 2) throw new IOException();
-		buf.clear();
-		final ShortBuffer result = buf.asShortBuffer();
-		if (result.hasArray()) {
-			return result.array();
-		}  else {
-			final short[] b = new short[n];
-			result.get(b);
-			return b;
+		final int n = readLength(channel, 2);
+		final ByteBufferPool pool = ByteBufferPool.getDefault();
+		final ByteBuffer buf = readArray(channel, pool, n * 2);
+		try {
+			final short[] result = new short[n];
+			buf.asShortBuffer().get(result);
+			return result;
+		} finally {
+			pool.recycle(buf);
 		}
 	}
 	
@@ -389,18 +399,15 @@ public class ChannelHelper {
 	public static int[] readIntArray(@NonNull final ByteChannel channel)
 		throws IOException {
 		
-		final int n = readInt(channel);
-		final ByteBuffer buf = ByteBuffer.allocate(n * 4).order(ByteOrder.BIG_ENDIAN);
-		final int readBytes = channel.read(buf);
-		if (readBytes != n * 4) throw new IOException();
-		buf.clear();
-		final IntBuffer result = buf.asIntBuffer();
-		if (result.hasArray()) {
-			return result.array();
-		}  else {
-			final int[] b = new int[n];
-			result.get(b);
-			return b;
+		final int n = readLength(channel, 4);
+		final ByteBufferPool pool = ByteBufferPool.getDefault();
+		final ByteBuffer buf = readArray(channel, pool, n * 4);
+		try {
+			final int[] result = new int[n];
+			buf.asIntBuffer().get(result);
+			return result;
+		} finally {
+			pool.recycle(buf);
 		}
 	}
 	
@@ -413,18 +420,15 @@ public class ChannelHelper {
 	public static long[] readLongArray(@NonNull final ByteChannel channel)
 		throws IOException {
 		
-		final int n = readInt(channel);
-		final ByteBuffer buf = ByteBuffer.allocate(n * 8).order(ByteOrder.BIG_ENDIAN);
-		final int readBytes = channel.read(buf);
-		if (readBytes != n * 8) throw new IOException();
-		buf.clear();
-		final LongBuffer result = buf.asLongBuffer();
-		if (result.hasArray()) {
-			return result.array();
-		}  else {
-			final long[] b = new long[n];
-			result.get(b);
-			return b;
+		final int n = readLength(channel, 8);
+		final ByteBufferPool pool = ByteBufferPool.getDefault();
+		final ByteBuffer buf = readArray(channel, pool, n * 8);
+		try {
+			final long[] result = new long[n];
+			buf.asLongBuffer().get(result);
+			return result;
+		} finally {
+			pool.recycle(buf);
 		}
 	}
 	
@@ -437,18 +441,15 @@ public class ChannelHelper {
 	public static float[] readFloatArray(@NonNull final ByteChannel channel)
 		throws IOException {
 		
-		final int n = readInt(channel);
-		final ByteBuffer buf = ByteBuffer.allocate(n * 4).order(ByteOrder.BIG_ENDIAN);
-		final int readBytes = channel.read(buf);
-		if (readBytes != n * 4) throw new IOException();
-		buf.clear();
-		final FloatBuffer result = buf.asFloatBuffer();
-		if (result.hasArray()) {
-			return result.array();
-		}  else {
-			final float[] b = new float[n];
-			result.get(b);
-			return b;
+		final int n = readLength(channel, 4);
+		final ByteBufferPool pool = ByteBufferPool.getDefault();
+		final ByteBuffer buf = readArray(channel, pool, n * 4);
+		try {
+			final float[] result = new float[n];
+			buf.asFloatBuffer().get(result);
+			return result;
+		} finally {
+			pool.recycle(buf);
 		}
 	}
 	
@@ -461,18 +462,15 @@ public class ChannelHelper {
 	public static double[] readDoubleArray(@NonNull final ByteChannel channel)
 		throws IOException {
 		
-		final int n = readInt(channel);
-		final ByteBuffer buf = ByteBuffer.allocate(n * 8).order(ByteOrder.BIG_ENDIAN);
-		final int readBytes = channel.read(buf);
-		if (readBytes != n * 8) throw new IOException();
-		buf.clear();
-		final DoubleBuffer result = buf.asDoubleBuffer();
-		if (result.hasArray()) {
-			return result.array();
-		}  else {
-			final double[] b = new double[n];
-			result.get(b);
-			return b;
+		final int n = readLength(channel, 8);
+		final ByteBufferPool pool = ByteBufferPool.getDefault();
+		final ByteBuffer buf = readArray(channel, pool, n * 8);
+		try {
+			final double[] result = new double[n];
+			buf.asDoubleBuffer().get(result);
+			return result;
+		} finally {
+			pool.recycle(buf);
 		}
 	}
 	
@@ -518,7 +516,7 @@ public class ChannelHelper {
 		@Nullable final ByteBuffer readBuf, final boolean canReAllocate)
 			throws IOException {
 		
-		final int n = readInt(channel);
+		final int n = readLength(channel, 1);
 		final int pos = readBuf != null ? readBuf.position() : 0;
 		ByteBuffer buf = readBuf;
 		if ((buf == null) || (buf.remaining() < n)) {
@@ -537,13 +535,97 @@ public class ChannelHelper {
 			}
 		}
 		buf.limit(pos + n);
-		final int readBytes = channel.read(buf);
-		if (readBytes != n) throw new IOException();
+		readFully(channel, buf);
 		buf.position(pos);
 		buf.limit(pos + n);
 		return buf;
 	}
 	
+	/**
+	 * ByteChannelからByteBufferを読み込む
+	 * 読み込み先のByteBufferは指定したByteBufferPoolから貸し出す
+	 * 使い終わったらByteBufferPool.Lease#releaseを呼ぶこと
+	 * @param channel
+	 * @param pool
+	 * @return position=0, limitをデータの最後にセットしたByteBufferを保持するLease
+	 * @throws IOException
+	 */
+	@NonNull
+	public static ByteBufferPool.Lease readByteBuffer(@NonNull final ByteChannel channel,
+		@NonNull final ByteBufferPool pool) throws IOException {
+
+		final int n = readLength(channel, 1);
+		final ByteBufferPool.Lease result = pool.lease(n);
+		try {
+			readFully(channel, result.buffer());
+		} catch (final IOException e) {
+			result.release();
+			throw e;
+		}
+		result.buffer().flip();
+		return result;
+	}
+
+	/**
+	 * ByteBufferのremaining分を全て読み込む
+	 * 1回で読み込めなかった時は全て読み込めるまで繰り返す
+	 * ノンブロッキングモードのチャネルに使うとビジーループになるので注意
+	 * @param channel
+	 * @param buf
+	 * @throws EOFException 全て読み込む前にストリームの終端に達した時
+	 * @throws IOException
+	 */
+	public static void readFully(@NonNull final ReadableByteChannel channel,
+		@NonNull final ByteBuffer buf) throws IOException {
+
+		for (; buf.hasRemaining() ;) {
+			if (channel.read(buf) < 0) {
+				throw new EOFException();
+			}
+		}
+	}
+
+	/**
+	 * 配列等の要素数を読み込む
+	 * @param channel
+	 * @param elementBytes 1要素あたりのバイト数
+	 * @return
+	 * @throws IOException 要素数が負または合計バイト数が#getMaxLengthBytesを超える時
+	 */
+	private static int readLength(@NonNull final ByteChannel channel,
+		final int elementBytes) throws IOException {
+
+		final int n = readInt(channel);
+		if ((n < 0) || ((long)n * elementBytes > sMaxLengthBytes)) {
+			throw new IOException("unexpected data length," + n);
+		}
+		return n;
+	}
+
+	/**
+	 * 配列の読み込み用に一時バッファーをByteBufferPoolから取得して指定したバイト数を読み込む
+	 * 使い終わったらByteBufferPool#recycleでプールへ返却すること
+	 * @param channel
+	 * @param pool
+	 * @param bytes
+	 * @return 読み込み用にflipしたByteBuffer
+	 * @throws IOException
+	 */
+	@NonNull
+	private static ByteBuffer readArray(@NonNull final ByteChannel channel,
+		@NonNull final ByteBufferPool pool, final int bytes) throws IOException {
+
+		final ByteBuffer buf = pool.obtain(bytes);
+		try {
+			readFully(channel, buf);
+		} catch (final IOException e) {
+			pool.recycle(buf);
+			throw e;
+		}
+		buf.flip();
+		return buf;
+	}
+
 	/**
 	 * ByteChannelへ書き込む
 	 * @param channel
@@ -570,7 +652,7 @@ public class ChannelHelper {
 		final ByteBuffer buf = checkBuffer(work, 1);
 		buf.put((byte)(value ? 1 : 0));
 		buf.flip();
-		channel.write(buf);
+		writeFully(channel, buf);
 	}
 
 	/**
@@ -599,7 +681,7 @@ public class ChannelHelper {
 		final ByteBuffer buf = checkBuffer(work, 1);
 		buf.put(value);
 		buf.flip();
-		channel.write(buf);
+		writeFully(channel, buf);
 	}
 
 	/**
@@ -628,7 +710,7 @@ public class ChannelHelper {
 		final ByteBuffer buf = checkBuffer(work, 2);
 		buf.putChar(value);
 		buf.flip();
-		channel.write(buf);
+		writeFully(channel, buf);
 	}
 
 	/**
@@ -657,7 +739,7 @@ public class ChannelHelper {
 		final ByteBuffer buf = checkBuffer(work, 2);
 		buf.putShort(value);
 		buf.flip();
-		channel.write(buf);
+		writeFully(channel, buf);
 	}
 
 	/**
@@ -686,7 +768,7 @@ public class ChannelHelper {
 		final ByteBuffer buf = checkBuffer(work, 4);
 		buf.putInt(value);
 		buf.flip();
-		channel.write(buf);
+		writeFully(channel, buf);
 	}
 
 	/**
@@ -715,7 +797,7 @@ public class ChannelHelper {
 		final ByteBuffer buf = checkBuffer(work, 8);
 		buf.putLong(value);
 		buf.flip();
-		channel.write(buf);
+		writeFully(channel, buf);
 	}
 
 	/**
@@ -744,7 +826,7 @@ public class ChannelHelper {
 		final ByteBuffer buf = checkBuffer(work, 4);
 		buf.putFloat(value);
 		buf.flip();
-		channel.write(buf);
+		writeFully(channel, buf);
 	}
 
 	/**
@@ -773,7 +855,7 @@ public class ChannelHelper {
 		final ByteBuffer buf = checkBuffer(work, 8);
 		buf.putDouble(value);
 		buf.flip();
-		channel.write(buf);
+		writeFully(channel, buf);
 	}
 
 	/**
@@ -785,9 +867,7 @@ public class ChannelHelper {
 	public static void write(@NonNull final ByteChannel channel,
 		@NonNull final String value) throws IOException {
 		
-		final byte[] buf = value.getBytes(UTF8);
-		write(channel, buf.length);
-		channel.write(ByteBuffer.wrap(buf));
+		write(channel, value.getBytes(UTF8));
 	}
 
 	/**
@@ -814,13 +894,13 @@ public class ChannelHelper {
 		@Nullable final ByteBuffer work) throws IOException {
 		
 		final int n = value.length;
-		write(channel, n, work);
-		final ByteBuffer buf = checkBuffer(work, n);
+		final ByteBuffer buf = checkBuffer(work, 4 + n);
+		buf.putInt(n);
 		for (int i = 0; i < n; i++) {
 			buf.put((byte)(value[i] ? 1 : 0));
 		}
 		buf.flip();
-		channel.write(buf);
+		writeFully(channel, buf);
 	}
 
 	/**
@@ -832,8 +912,10 @@ public class ChannelHelper {
 	public static void write(@NonNull final ByteChannel channel,
 		@NonNull final byte[] value) throws IOException {
 		
-		write(channel, value.length);
-		channel.write(ByteBuffer.wrap(value));
+		final ByteBuffer header = checkBuffer(null, 4);
+		header.putInt(value.length);
+		header.flip();
+		writeFully(channel, header, ByteBuffer.wrap(value));
 	}
 	
 	/**
@@ -860,13 +942,12 @@ public class ChannelHelper {
 		@Nullable final ByteBuffer work) throws IOException {
 		
 		final int n = value.length;
-		write(channel, n, work);
-		final ByteBuffer buf = checkBuffer(work, n * 2);
-		for (int i = 0; i < n; i++) {
-			buf.putChar(value[i]);
-		}
+		final ByteBuffer buf = checkBuffer(work, 4 + n * 2);
+		buf.putInt(n);
+		buf.asCharBuffer().put(value);
+		buf.position(buf.limit());
 		buf.flip();
-		channel.write(buf);
+		writeFully(channel, buf);
 	}
 
 	/**
@@ -893,13 +974,12 @@ public class ChannelHelper {
 		@Nullable final ByteBuffer work) throws IOException {
 		
 		final int n = value.length;
-		write(channel, n, work);
-		final ByteBuffer buf = checkBuffer(work, n * 2);
-		for (int i = 0; i < n; i++) {
-			buf.putShort(value[i]);
-		}
+		final ByteBuffer buf = checkBuffer(work, 4 + n * 2);
+		buf.putInt(n);
+		buf.asShortBuffer().put(value);
+		buf.position(buf.limit());
 		buf.flip();
-		channel.write(buf);
+		writeFully(channel, buf);
 	}
 
 	/**
@@ -926,13 +1006,12 @@ public class ChannelHelper {
 		@Nullable final ByteBuffer work) throws IOException {
 		
 		final int n = value.length;
-		write(channel, n, work);
-		final ByteBuffer buf = checkBuffer(work, n * 4);
-		for (int i = 0; i < n; i++) {
-			buf.putInt(value[i]);
-		}
+		final ByteBuffer buf = checkBuffer(work, 4 + n * 4);
+		buf.putInt(n);
+		buf.asIntBuffer().put(value);
+		buf.position(buf.limit());
 		buf.flip();
-		channel.write(buf);
+		writeFully(channel, buf);
 	}
 
 	/**
@@ -959,13 +1038,12 @@ public class ChannelHelper {
 		@Nullable final ByteBuffer work) throws IOException {
 		
 		final int n = value.length;
-		write(channel, n, work);
-		final ByteBuffer buf = checkBuffer(work, n * 8);
-		for (int i = 0; i < n; i++) {
-			buf.putLong(value[i]);
-		}
+		final ByteBuffer buf = checkBuffer(work, 4 + n * 8);
+		buf.putInt(n);
+		buf.asLongBuffer().put(value);
+		buf.position(buf.limit());
 		buf.flip();
-		channel.write(buf);
+		writeFully(channel, buf);
 	}
 
 	/**
@@ -992,13 +1070,12 @@ public class ChannelHelper {
 		@Nullable final ByteBuffer work) throws IOException {
 		
 		final int n = value.length;
-		write(channel, n, work);
-		final ByteBuffer buf = checkBuffer(work, n * 4);
-		for (int i = 0; i < n; i++) {
-			buf.putFloat(value[i]);
-		}
+		final ByteBuffer buf = checkBuffer(work, 4 + n * 4);
+		buf.putInt(n);
+		buf.asFloatBuffer().put(value);
+		buf.position(buf.limit());
 		buf.flip();
-		channel.write(buf);
+		writeFully(channel, buf);
 	}
 
 	/**
@@ -1025,13 +1102,12 @@ public class ChannelHelper {
 		@Nullable final ByteBuffer work) throws IOException {
 		
 		final int n = value.length;
-		write(channel, n, work);
-		final ByteBuffer buf = checkBuffer(work, n * 8);
-		for (int i = 0; i < n; i++) {
-			buf.putDouble(value[i]);
-		}
+		final ByteBuffer buf = checkBuffer(work, 4 + n * 8);
+		buf.putInt(n);
+		buf.asDoubleBuffer().put(value);
+		buf.position(buf.limit());
 		buf.flip();
-		channel.write(buf);
+		writeFully(channel, buf);
 	}
 
 	/**
@@ -1043,8 +1119,65 @@ public class ChannelHelper {
 	public static void write(@NonNull final ByteChannel channel,
 		@NonNull final ByteBuffer value) throws IOException {
 		
-		write(channel, value.remaining());
-		channel.write(value);
+		final ByteBuffer header = checkBuffer(null, 4);
+		header.putInt(value.remaining());
+		header.flip();
+		writeFully(channel, header, value);
+	}
+
+	/**
+	 * ByteBufferの内容を全てWritableByteChannelへ書き込む
+	 * 1回で書き込めなかった時は全て書き込めるまで繰り返す
+	 * ノンブロッキングモードのチャネルに使うとビジーループになるので注意
+	 * @param channel
+	 * @param buf
+	 * @throws IOException
+	 */
+	public static void writeFully(@NonNull final WritableByteChannel channel,
+		@NonNull final ByteBuffer buf) throws IOException {
+
+		for (; buf.hasRemaining() ;) {
+			if (channel.write(buf) < 0) {
+				throw new IOException("failed to write");
+			}
+		}
+	}
+
+	/**
+	 * 複数のByteBufferの内容を全てWritableByteChannelへ書き込む
+	 * GatheringByteChannelの時はまとめて書き込むので
+	 * ヘッダーとペイロードを1回のシステムコールで送信できる
+	 * ノンブロッキングモードのチャネルに使うとビジーループになるので注意
+	 * @param channel
+	 * @param bufs
+	 * @return 書き込んだバイト数
+	 * @throws IOException
+	 */
+	public static long writeFully(@NonNull final WritableByteChannel channel,
+		@NonNull final ByteBuffer... bufs) throws IOException {
+
+		long result = 0;
+		if (channel instanceof GatheringByteChannel) {
+			final GatheringByteChannel ch = (GatheringByteChannel)channel;
+			int offset = 0;
+			for (; offset < bufs.length ;) {
+				if (bufs[offset].hasRemaining()) {
+					final long bytes = ch.write(bufs, offset, bufs.length - offset);
+					if (bytes < 0) {
+						throw new IOException("failed to write");
+					}
+					result += bytes;
+				} else {
+					offset++;
+				}
+			}
+		} else {
+			for (final ByteBuffer buf: bufs) {
+				result += buf.remaining();
+				writeFully(channel, buf);
+			}
+		}
+		return result;
 	}
 	
 	/**
@@ -14,7 +14,6 @@ package com.serenegiant.io;
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-import java.io.BufferedInputStream;
 import java.io.BufferedWriter;
 import java.io.Closeable;
 import java.io.EOFException;
@@ -22,28 +21,35 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StringWriter;
 import java.io.Writer;
-import java.lang.reflect.Array;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 /**
  ******************************************************************************
  * Taken from the JB source code, can be found in:
@@ -93,6 +99,14 @@ import java.util.concurrent.TimeUnit;
  * an error occurs while writing a cache value, the edit will fail silently.
  * Callers should handle other problems by catching {@code IOException} and
  * responding appropriately.
+ *
+ * <p>Unlike the original implementation this cache does not serialize every
+ * operation on the cache instance. Entries live in a concurrent map and
+ * edits, commits and removals lock only the stripe that owns the key, while
+ * {@link #get} takes no lock at all and validates the files it opened
+ * against the entry's stamp instead. Journal records are queued and appended
+ * in batches by a background writer; {@link #edit} waits only until its own
+ * DIRTY record has reached the file, so concurrent editors share one write.
  */
 public final class DiskLruCache implements Closeable {
     static final String JOURNAL_FILE = "journal";
@@ -105,7 +119,13 @@ public final class DiskLruCache implements Closeable {
     private static final String REMOVE = "REMOVE";
     private static final String READ = "READ";
     private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
     private static final int IO_BUFFER_SIZE = 8 * 1024;
+    /** Number of locks that edits are striped over, must be a power of two. */
+    private static final int LOCK_STRIPES = 32;
+    /** Number of queued READ records that triggers a journal write on its own. */
+    private static final int READ_BATCH_SIZE = 256;
+    private static final int REDUNDANT_OP_COMPACT_THRESHOLD = 2000;
     /*
      * This cache uses a journal file named "journal". A typical journal file
      * looks like this:
@@ -144,6 +164,12 @@ public final class DiskLruCache implements Closeable {
      * occasionally be compacted by dropping redundant lines. A temporary file named
      * "journal.tmp" will be used during compaction; that file should be deleted if
      * it exists when the cache is opened.
+     *
+     * DIRTY, CLEAN and REMOVE records are appended while the lock of the key's
+     * stripe is held, so records of the same key reach the journal in the order
+     * the state changed. READ records are queued without any lock and may be
+     * written out of order; they only move an existing entry in the LRU order
+     * and a READ of an unknown key is ignored when the journal is replayed.
      */
     private final File directory;
     private final File journalFile;
@@ -151,34 +177,43 @@ public final class DiskLruCache implements Closeable {
     private final int appVersion;
     private final long maxSize;
     private final int valueCount;
-    private long size = 0;
-    private Writer journalWriter;
-    private final LinkedHashMap<String, Entry> lruEntries
-            = new LinkedHashMap<String, Entry>(0, 0.75f, true);
-    private int redundantOpCount;
+    private final AtomicLong size = new AtomicLong();
+    private final ConcurrentHashMap<String, Entry> lruEntries
+            = new ConcurrentHashMap<String, Entry>();
+    /** Source of the access order used for LRU eviction. */
+    private final AtomicLong accessCounter = new AtomicLong();
+    private final AtomicInteger redundantOpCount = new AtomicInteger();
     /**
      * To differentiate between old and current snapshots, each entry is given
      * a sequence number each time an edit is committed. A snapshot is stale if
      * its sequence number is not equal to its entry's sequence number.
      */
-    private long nextSequenceNumber = 0;
-    /* From java.util.Arrays */
-    @SuppressWarnings("unchecked")
-    private static <T> T[] copyOfRange(T[] original, int start, int end) {
-        final int originalLength = original.length; // For exception priority compatibility.
-        if (start > end) {
-            throw new IllegalArgumentException();
-        }
-        if (start < 0 || start > originalLength) {
-            throw new ArrayIndexOutOfBoundsException();
-        }
-        final int resultLength = end - start;
-        final int copyLength = Math.min(resultLength, originalLength - start);
-        final T[] result = (T[]) Array
-                .newInstance(original.getClass().getComponentType(), resultLength);
-        System.arraycopy(original, start, result, 0, copyLength);
-        return result;
-    }
+    private final AtomicLong nextSequenceNumber = new AtomicLong();
+    /** Guards the editor, lengths and stamp of the entries whose keys hash to it. */
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    /** Serializes eviction, journal compaction and close. */
+    private final Object cleanupLock = new Object();
+    private volatile boolean closed;
+    /*
+     * Journal state. pendingJournal, the tickets and flushScheduled are guarded
+     * by journalLock. journalIoLock serializes writing a batch with rebuilding
+     * the journal; it is always taken before journalLock.
+     */
+    private final Object journalLock = new Object();
+    private final Object journalIoLock = new Object();
+    private OutputStream journalOut;
+    private final StringBuilder pendingJournal = new StringBuilder();
+    private final ConcurrentLinkedQueue<String> pendingReads
+            = new ConcurrentLinkedQueue<String>();
+    private final AtomicInteger pendingReadCount = new AtomicInteger();
+    /** Ticket of the last record appended to pendingJournal. */
+    private long appendedTicket;
+    /** Ticket of the last record that reached the journal file. */
+    private long writtenTicket;
+    private boolean flushScheduled;
+    /** Set when a batch could not be written; forces a journal rebuild. */
+    private volatile boolean journalError;
+    private final AtomicBoolean cleanupScheduled = new AtomicBoolean();
     /**
      * Returns the remainder of 'reader' as a string, closing it when done.
      */
@@ -254,21 +289,33 @@ public final class DiskLruCache implements Closeable {
     /** This cache uses a single background thread to evict entries. */
     private final ExecutorService executorService = new ThreadPoolExecutor(0, 1,
             60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+    /** And another one to append batches of records to the journal. */
+    private final ExecutorService journalExecutor = new ThreadPoolExecutor(0, 1,
+            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
     private final Callable<Void> cleanupCallable = new Callable<Void>() {
         @Override public Void call() throws Exception {
-            synchronized (DiskLruCache.this) {
-                if (journalWriter == null) {
-                    return null; // closed
+            cleanupScheduled.set(false);
+            synchronized (cleanupLock) {
+                if (closed) {
+                    return null;
                 }
                 trimToSize();
                 if (journalRebuildRequired()) {
                     rebuildJournal();
-                    redundantOpCount = 0;
                 }
             }
             return null;
         }
     };
+    private final Runnable journalWriteTask = new Runnable() {
+        @Override public void run() {
+            try {
+                writeJournal();
+            } catch (IOException e) {
+                // already recorded in journalError
+            }
+        }
+    };
     private DiskLruCache(File directory, int appVersion, int valueCount, long maxSize) {
         this.directory = directory;
         this.appVersion = appVersion;
@@ -276,6 +323,9 @@ public final class DiskLruCache implements Closeable {
         this.journalFileTmp = new File(directory, JOURNAL_FILE_TMP);
         this.valueCount = valueCount;
         this.maxSize = maxSize;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
     }
     /**
      * Opens the cache in {@code directory}, creating a cache if none exists
@@ -301,8 +351,7 @@ public final class DiskLruCache implements Closeable {
             try {
                 cache.readJournal();
                 cache.processJournal();
-                cache.journalWriter = new BufferedWriter(new FileWriter(cache.journalFile, true),
-                        IO_BUFFER_SIZE);
+                cache.journalOut = new FileOutputStream(cache.journalFile, true);
                 return cache;
             } catch (IOException journalIsCorrupt) {
 //                System.logW("DiskLruCache " + directory + " is corrupt: "
@@ -316,59 +365,143 @@ public final class DiskLruCache implements Closeable {
         cache.rebuildJournal();
         return cache;
     }
+    /**
+     * Reads the whole journal at once and parses it in place. Lines are split
+     * and decoded by hand instead of going through a regex based split.
+     */
     private void readJournal() throws IOException {
-        InputStream in = new BufferedInputStream(new FileInputStream(journalFile), IO_BUFFER_SIZE);
-        try {
-            String magic = readAsciiLine(in);
-            String version = readAsciiLine(in);
-            String appVersionString = readAsciiLine(in);
-            String valueCountString = readAsciiLine(in);
-            String blank = readAsciiLine(in);
-            if (!MAGIC.equals(magic)
-                    || !VERSION_1.equals(version)
-                    || !Integer.toString(appVersion).equals(appVersionString)
-                    || !Integer.toString(valueCount).equals(valueCountString)
-                    || !"".equals(blank)) {
-                throw new IOException("unexpected journal header: ["
-                        + magic + ", " + version + ", " + valueCountString + ", " + blank + "]");
-            }
-            while (true) {
-                try {
-                    readJournalLine(readAsciiLine(in));
-                } catch (EOFException endOfJournal) {
-                    break;
-                }
+        final byte[] journal = readFileFully(journalFile);
+        final String[] header = new String[5];
+        int pos = 0;
+        for (int i = 0; i < header.length; i++) {
+            final int end = indexOf(journal, pos, journal.length, (byte) '\n');
+            if (end < 0) {
+                throw new EOFException();
             }
-        } finally {
-            closeQuietly(in);
+            header[i] = new String(journal, pos, trimCr(journal, pos, end) - pos, ISO_8859_1);
+            pos = end + 1;
+        }
+        if (!MAGIC.equals(header[0])
+                || !VERSION_1.equals(header[1])
+                || !Integer.toString(appVersion).equals(header[2])
+                || !Integer.toString(valueCount).equals(header[3])
+                || !"".equals(header[4])) {
+            throw new IOException("unexpected journal header: ["
+                    + header[0] + ", " + header[1] + ", " + header[3] + ", " + header[4] + "]");
+        }
+        while (pos < journal.length) {
+            final int end = indexOf(journal, pos, journal.length, (byte) '\n');
+            if (end < 0) {
+                break; // the last line was cut short, e.g. by a crash while appending
+            }
+            readJournalLine(journal, pos, trimCr(journal, pos, end));
+            pos = end + 1;
         }
     }
-    private void readJournalLine(String line) throws IOException {
-        String[] parts = line.split(" ");
-        if (parts.length < 2) {
-            throw new IOException("unexpected journal line: " + line);
+    private void readJournalLine(byte[] line, int start, int end) throws IOException {
+        final int opEnd = indexOf(line, start, end, (byte) ' ');
+        if (opEnd < 0) {
+            throw unexpectedLine(line, start, end);
         }
-        String key = parts[1];
-        if (parts[0].equals(REMOVE) && parts.length == 2) {
+        final int argStart = indexOf(line, opEnd + 1, end, (byte) ' ');
+        final boolean hasArgs = argStart >= 0;
+        final String key = new String(line, opEnd + 1, (hasArgs ? argStart : end) - opEnd - 1,
+                ISO_8859_1);
+        if (!hasArgs && matches(line, start, opEnd, REMOVE)) {
             lruEntries.remove(key);
             return;
         }
         Entry entry = lruEntries.get(key);
+        if (!hasArgs && matches(line, start, opEnd, READ)) {
+            if (entry != null) {
+                entry.lastAccess = accessCounter.incrementAndGet();
+            }
+            return;
+        }
         if (entry == null) {
             entry = new Entry(key);
             lruEntries.put(key, entry);
         }
-        if (parts[0].equals(CLEAN) && parts.length == 2 + valueCount) {
+        entry.lastAccess = accessCounter.incrementAndGet();
+        if (hasArgs && matches(line, start, opEnd, CLEAN)) {
+            readLengths(entry, line, argStart + 1, end);
             entry.readable = true;
             entry.currentEditor = null;
-            entry.setLengths(copyOfRange(parts, 2, parts.length));
-        } else if (parts[0].equals(DIRTY) && parts.length == 2) {
+        } else if (!hasArgs && matches(line, start, opEnd, DIRTY)) {
             entry.currentEditor = new Editor(entry);
-        } else if (parts[0].equals(READ) && parts.length == 2) {
-            // this work was already done by calling lruEntries.get()
         } else {
-            throw new IOException("unexpected journal line: " + line);
+            throw unexpectedLine(line, start, end);
+        }
+    }
+    /**
+     * Parses the space separated decimal lengths of a CLEAN line.
+     */
+    private void readLengths(Entry entry, byte[] line, int start, int end) throws IOException {
+        int pos = start;
+        for (int i = 0; i < valueCount; i++) {
+            long value = 0;
+            final int digitsStart = pos;
+            for (; pos < end && line[pos] != ' '; pos++) {
+                final int digit = line[pos] - '0';
+                if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+                    throw unexpectedLine(line, start, end);
+                }
+                value = value * 10 + digit;
+            }
+            if (pos == digitsStart || (i < valueCount - 1 ? pos >= end : pos != end)) {
+                throw unexpectedLine(line, start, end);
+            }
+            entry.lengths[i] = value;
+            pos++;
+        }
+    }
+    private static IOException unexpectedLine(byte[] line, int start, int end) {
+        return new IOException("unexpected journal line: "
+                + new String(line, start, end - start, ISO_8859_1));
+    }
+    private static byte[] readFileFully(File file) throws IOException {
+        final InputStream in = new FileInputStream(file);
+        try {
+            final long length = file.length();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("journal too large: " + length);
+            }
+            byte[] result = new byte[(int) length];
+            int pos = 0;
+            int count;
+            while ((count = in.read(result, pos, result.length - pos)) > 0) {
+                pos += count;
+                if (pos == result.length) {
+                    break;
+                }
+            }
+            return pos == result.length ? result : Arrays.copyOf(result, pos);
+        } finally {
+            closeQuietly(in);
+        }
+    }
+    private static int indexOf(byte[] bytes, int start, int end, byte b) {
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    private static int trimCr(byte[] bytes, int start, int end) {
+        return end > start && bytes[end - 1] == '\r' ? end - 1 : end;
+    }
+    private static boolean matches(byte[] bytes, int start, int end, String ascii) {
+        final int length = ascii.length();
+        if (end - start != length) {
+            return false;
         }
+        for (int i = 0; i < length; i++) {
+            if (bytes[start + i] != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
     /**
      * Computes the initial size and collects garbage as a part of opening the
@@ -380,7 +513,7 @@ public final class DiskLruCache implements Closeable {
             Entry entry = i.next();
             if (entry.currentEditor == null) {
                 for (int t = 0; t < valueCount; t++) {
-                    size += entry.lengths[t];
+                    size.addAndGet(entry.lengths[t]);
                 }
             } else {
                 entry.currentEditor = null;
@@ -394,33 +527,67 @@ public final class DiskLruCache implements Closeable {
     }
     /**
      * Creates a new journal that omits redundant information. This replaces the
-     * current journal if it exists.
+     * current journal if it exists. Entries are written in LRU order so that
+     * replaying the new journal restores the same eviction order.
      */
-    private synchronized void rebuildJournal() throws IOException {
-        if (journalWriter != null) {
-            journalWriter.close();
-        }
-        Writer writer = new BufferedWriter(new FileWriter(journalFileTmp), IO_BUFFER_SIZE);
-        writer.write(MAGIC);
-        writer.write("\n");
-        writer.write(VERSION_1);
-        writer.write("\n");
-        writer.write(Integer.toString(appVersion));
-        writer.write("\n");
-        writer.write(Integer.toString(valueCount));
-        writer.write("\n");
-        writer.write("\n");
-        for (Entry entry : lruEntries.values()) {
-            if (entry.currentEditor != null) {
-                writer.write(DIRTY + ' ' + entry.key + '\n');
-            } else {
-                writer.write(CLEAN + ' ' + entry.key + entry.getLengths() + '\n');
+    private void rebuildJournal() throws IOException {
+        synchronized (journalIoLock) {
+            synchronized (journalLock) {
+                closeQuietly(journalOut);
+                journalOut = null;
+                // everything queued so far is reflected by the entries written below
+                pendingJournal.setLength(0);
+                pendingReads.clear();
+                pendingReadCount.set(0);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(journalFileTmp), UTF_8), IO_BUFFER_SIZE);
+                try {
+                    writer.write(MAGIC);
+                    writer.write("\n");
+                    writer.write(VERSION_1);
+                    writer.write("\n");
+                    writer.write(Integer.toString(appVersion));
+                    writer.write("\n");
+                    writer.write(Integer.toString(valueCount));
+                    writer.write("\n");
+                    writer.write("\n");
+                    for (Entry entry : entriesInLruOrder()) {
+                        if (entry.currentEditor != null) {
+                            writer.write(DIRTY + ' ' + entry.key + '\n');
+                        } else if (entry.readable) {
+                            writer.write(CLEAN + ' ' + entry.key + entry.getLengths() + '\n');
+                        }
+                    }
+                } finally {
+                    writer.close();
+                }
+                journalFileTmp.renameTo(journalFile);
+                journalOut = new FileOutputStream(journalFile, true);
+                redundantOpCount.set(0);
+                journalError = false;
+                writtenTicket = appendedTicket;
+                journalLock.notifyAll();
             }
         }
-        writer.close();
-        journalFileTmp.renameTo(journalFile);
-        journalWriter = new BufferedWriter(new FileWriter(journalFile, true), IO_BUFFER_SIZE);
     }
+    /**
+     * Returns the entries ordered from the least recently used one. The
+     * access order is copied first because it keeps changing while sorting.
+     */
+    private List<Entry> entriesInLruOrder() {
+        final List<Entry> result = new ArrayList<Entry>(lruEntries.values());
+        for (Entry entry : result) {
+            entry.accessSnapshot = entry.lastAccess;
+        }
+        Collections.sort(result, LRU_ORDER);
+        return result;
+    }
+    private static final Comparator<Entry> LRU_ORDER = new Comparator<Entry>() {
+        @Override public int compare(Entry lhs, Entry rhs) {
+            return lhs.accessSnapshot < rhs.accessSnapshot ? -1
+                    : (lhs.accessSnapshot == rhs.accessSnapshot ? 0 : 1);
+        }
+    };
     private static void deleteIfExists(File file) throws IOException {
 //        try {
 //            Libcore.os.remove(file.getPath());
@@ -433,41 +600,169 @@ public final class DiskLruCache implements Closeable {
             throw new IOException();
         }
     }
+    /**
+     * Queues a record for the journal and schedules a write of the batch.
+     * Callers that change the state of an entry must hold the key's stripe lock.
+     *
+     * @return the ticket to pass to {@link #awaitJournal} to wait for the record
+     *     to reach the file.
+     */
+    private long appendJournal(String record) {
+        synchronized (journalLock) {
+            pendingJournal.append(record).append('\n');
+            scheduleJournalWrite();
+            return ++appendedTicket;
+        }
+    }
+    /**
+     * Queues a READ record without locking. READ records are written together
+     * with the next batch, or on their own once enough of them have piled up.
+     */
+    private void appendRead(String key) {
+        pendingReads.offer(key);
+        if (pendingReadCount.incrementAndGet() >= READ_BATCH_SIZE) {
+            synchronized (journalLock) {
+                scheduleJournalWrite();
+            }
+        }
+    }
+    /** Must be called with journalLock held. */
+    private void scheduleJournalWrite() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            journalExecutor.execute(journalWriteTask);
+        }
+    }
+    /**
+     * Writes every queued record to the journal with a single write.
+     */
+    private void writeJournal() throws IOException {
+        synchronized (journalIoLock) {
+            final OutputStream out;
+            final long ticket;
+            final byte[] batch;
+            synchronized (journalLock) {
+                flushScheduled = false;
+                String key;
+                while ((key = pendingReads.poll()) != null) {
+                    pendingReadCount.decrementAndGet();
+                    pendingJournal.append(READ).append(' ').append(key).append('\n');
+                }
+                ticket = appendedTicket;
+                if (pendingJournal.length() == 0) {
+                    return;
+                }
+                batch = pendingJournal.toString().getBytes(UTF_8);
+                pendingJournal.setLength(0);
+                out = journalOut;
+            }
+            boolean success = false;
+            try {
+                if (out == null) {
+                    throw new IOException("journal is closed");
+                }
+                out.write(batch);
+                success = true;
+            } finally {
+                if (!success) {
+                    journalError = true;
+                }
+                synchronized (journalLock) {
+                    if (ticket > writtenTicket) {
+                        writtenTicket = ticket;
+                    }
+                    journalLock.notifyAll();
+                }
+            }
+        }
+    }
+    /**
+     * Waits until the record of {@code ticket} has been written to the journal.
+     */
+    private void awaitJournal(long ticket) throws IOException {
+        synchronized (journalLock) {
+            while (writtenTicket < ticket) {
+                try {
+                    journalLock.wait();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+        if (journalError) {
+            throw new IOException("failed to write journal");
+        }
+    }
+    private Object lockFor(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return locks[h & (LOCK_STRIPES - 1)];
+    }
+    private void scheduleCleanup() {
+        if (cleanupScheduled.compareAndSet(false, true)) {
+            executorService.submit(cleanupCallable);
+        }
+    }
     /**
      * Returns a snapshot of the entry named {@code key}, or null if it doesn't
      * exist is not currently readable. If a value is returned, it is moved to
      * the head of the LRU queue.
      */
-    public synchronized Snapshot get(String key) throws IOException {
+    public Snapshot get(String key) throws IOException {
         checkNotClosed();
         validateKey(key);
-        Entry entry = lruEntries.get(key);
-        if (entry == null) {
-            return null;
-        }
-        if (!entry.readable) {
-            return null;
-        }
-        /*
-         * Open all streams eagerly to guarantee that we see a single published
-         * snapshot. If we opened streams lazily then the streams could come
-         * from different edits.
-         */
-        InputStream[] ins = new InputStream[valueCount];
-        try {
-            for (int i = 0; i < valueCount; i++) {
-                ins[i] = new FileInputStream(entry.getCleanFile(i));
+        while (true) {
+            Entry entry = lruEntries.get(key);
+            if (entry == null) {
+                return null;
             }
-        } catch (FileNotFoundException e) {
-            // a file must have been deleted manually!
-            return null;
+            if (!entry.readable) {
+                return null;
+            }
+            final int stamp = entry.stamp;
+            if ((stamp & 1) != 0) {
+                // a commit or removal is moving the files of this entry right now
+                Thread.yield();
+                continue;
+            }
+            final long sequenceNumber = entry.sequenceNumber;
+            /*
+             * Open all streams eagerly to guarantee that we see a single published
+             * snapshot. If we opened streams lazily then the streams could come
+             * from different edits. The stamp tells whether an edit was published
+             * while the streams were being opened.
+             */
+            InputStream[] ins = new InputStream[valueCount];
+            try {
+                for (int i = 0; i < valueCount; i++) {
+                    ins[i] = new FileInputStream(entry.getCleanFile(i));
+                }
+            } catch (FileNotFoundException e) {
+                closeAll(ins);
+                if (entry.stamp == stamp) {
+                    // a file must have been deleted manually!
+                    return null;
+                }
+                continue;
+            }
+            final long[] lengths = entry.lengths.clone();
+            if (entry.stamp != stamp) {
+                closeAll(ins);
+                continue;
+            }
+            entry.lastAccess = accessCounter.incrementAndGet();
+            redundantOpCount.incrementAndGet();
+            appendRead(key);
+            if (journalRebuildRequired()) {
+                scheduleCleanup();
+            }
+            return new Snapshot(key, sequenceNumber, ins, lengths);
         }
-        redundantOpCount++;
-        journalWriter.append(READ + ' ' + key + '\n');
-        if (journalRebuildRequired()) {
-            executorService.submit(cleanupCallable);
+    }
+    private static void closeAll(InputStream[] ins) {
+        for (InputStream in : ins) {
+            closeQuietly(in);
         }
-        return new Snapshot(key, entry.sequenceNumber, ins);
     }
     /**
      * Returns an editor for the entry named {@code key}, or null if another
@@ -476,25 +771,35 @@ public final class DiskLruCache implements Closeable {
     public Editor edit(String key) throws IOException {
         return edit(key, ANY_SEQUENCE_NUMBER);
     }
-    private synchronized Editor edit(String key, long expectedSequenceNumber) throws IOException {
+    private Editor edit(String key, long expectedSequenceNumber) throws IOException {
         checkNotClosed();
         validateKey(key);
-        Entry entry = lruEntries.get(key);
-        if (expectedSequenceNumber != ANY_SEQUENCE_NUMBER
-                && (entry == null || entry.sequenceNumber != expectedSequenceNumber)) {
-            return null; // snapshot is stale
-        }
-        if (entry == null) {
-            entry = new Entry(key);
-            lruEntries.put(key, entry);
-        } else if (entry.currentEditor != null) {
-            return null; // another edit is in progress
+        final Editor editor;
+        final long ticket;
+        synchronized (lockFor(key)) {
+            Entry entry = lruEntries.get(key);
+            if (expectedSequenceNumber != ANY_SEQUENCE_NUMBER
+                    && (entry == null || entry.sequenceNumber != expectedSequenceNumber)) {
+                return null; // snapshot is stale
+            }
+            if (entry == null) {
+                entry = new Entry(key);
+                lruEntries.put(key, entry);
+            } else if (entry.currentEditor != null) {
+                return null; // another edit is in progress
+            }
+            editor = new Editor(entry);
+            entry.currentEditor = editor;
+            entry.lastAccess = accessCounter.incrementAndGet();
+            ticket = appendJournal(DIRTY + ' ' + key);
         }
-        Editor editor = new Editor(entry);
-        entry.currentEditor = editor;
         // flush the journal before creating files to prevent file leaks
-        journalWriter.write(DIRTY + ' ' + key + '\n');
-        journalWriter.flush();
+        try {
+            awaitJournal(ticket);
+        } catch (IOException e) {
+            editor.abort();
+            throw e;
+        }
         return editor;
     }
     /**
@@ -515,63 +820,70 @@ public final class DiskLruCache implements Closeable {
      * this cache. This may be greater than the max size if a background
      * deletion is pending.
      */
-    public synchronized long size() {
-        return size;
+    public long size() {
+        return size.get();
     }
-    private synchronized void completeEdit(Editor editor, boolean success) throws IOException {
+    private void completeEdit(Editor editor, boolean success) throws IOException {
         Entry entry = editor.entry;
-        if (entry.currentEditor != editor) {
-            throw new IllegalStateException();
-        }
-        // if this edit is creating the entry for the first time, every index must have a value
-        if (success && !entry.readable) {
-            for (int i = 0; i < valueCount; i++) {
-                final File dirtyFile = entry.getDirtyFile(i);
-                if (!dirtyFile.exists()) {
-                    editor.abort();
-                    throw new IllegalStateException("edit didn't create file:" + dirtyFile);
+        synchronized (lockFor(entry.key)) {
+            if (entry.currentEditor != editor) {
+                throw new IllegalStateException();
+            }
+            // if this edit is creating the entry for the first time, every index must have a value
+            if (success && !entry.readable) {
+                for (int i = 0; i < valueCount; i++) {
+                    final File dirtyFile = entry.getDirtyFile(i);
+                    if (!dirtyFile.exists()) {
+                        editor.abort();
+                        throw new IllegalStateException("edit didn't create file:" + dirtyFile);
+                    }
                 }
             }
-        }
-        for (int i = 0; i < valueCount; i++) {
-            final File dirty = entry.getDirtyFile(i);
             if (success) {
-                if (dirty.exists()) {
-                    File clean = entry.getCleanFile(i);
-                    dirty.renameTo(clean);
-                    long oldLength = entry.lengths[i];
-                    long newLength = clean.length();
-                    entry.lengths[i] = newLength;
-                    size = size - oldLength + newLength;
+                entry.stamp++;
+                try {
+                    for (int i = 0; i < valueCount; i++) {
+                        final File dirty = entry.getDirtyFile(i);
+                        if (dirty.exists()) {
+                            File clean = entry.getCleanFile(i);
+                            dirty.renameTo(clean);
+                            long oldLength = entry.lengths[i];
+                            long newLength = clean.length();
+                            entry.lengths[i] = newLength;
+                            size.addAndGet(newLength - oldLength);
+                        }
+                    }
+                    entry.sequenceNumber = nextSequenceNumber.getAndIncrement();
+                } finally {
+                    entry.stamp++;
                 }
             } else {
-                deleteIfExists(dirty);
+                for (int i = 0; i < valueCount; i++) {
+                    deleteIfExists(entry.getDirtyFile(i));
+                }
             }
-        }
-        redundantOpCount++;
-        entry.currentEditor = null;
-        if (entry.readable | success) {
-            entry.readable = true;
-            journalWriter.write(CLEAN + ' ' + entry.key + entry.getLengths() + '\n');
-            if (success) {
-                entry.sequenceNumber = nextSequenceNumber++;
+            redundantOpCount.incrementAndGet();
+            entry.currentEditor = null;
+            if (entry.readable | success) {
+                entry.readable = true;
+                appendJournal(CLEAN + ' ' + entry.key + entry.getLengths());
+            } else {
+                lruEntries.remove(entry.key, entry);
+                appendJournal(REMOVE + ' ' + entry.key);
             }
-        } else {
-            lruEntries.remove(entry.key);
-            journalWriter.write(REMOVE + ' ' + entry.key + '\n');
         }
-        if (size > maxSize || journalRebuildRequired()) {
-            executorService.submit(cleanupCallable);
+        if (size.get() > maxSize || journalRebuildRequired()) {
+            scheduleCleanup();
         }
     }
     /**
      * We only rebuild the journal when it will halve the size of the journal
-     * and eliminate at least 2000 ops.
+     * and eliminate at least 2000 ops, or when appending to it has failed.
      */
     private boolean journalRebuildRequired() {
-        final int REDUNDANT_OP_COMPACT_THRESHOLD = 2000;
-        return redundantOpCount >= REDUNDANT_OP_COMPACT_THRESHOLD
-                && redundantOpCount >= lruEntries.size();
+        final int count = redundantOpCount.get();
+        return journalError
+                || (count >= REDUNDANT_OP_COMPACT_THRESHOLD && count >= lruEntries.size());
     }
     /**
      * Drops the entry for {@code key} if it exists and can be removed. Entries
@@ -579,26 +891,34 @@ public final class DiskLruCache implements Closeable {
      *
      * @return true if an entry was removed.
      */
-    public synchronized boolean remove(String key) throws IOException {
+    public boolean remove(String key) throws IOException {
         checkNotClosed();
         validateKey(key);
-        Entry entry = lruEntries.get(key);
-        if (entry == null || entry.currentEditor != null) {
-            return false;
-        }
-        for (int i = 0; i < valueCount; i++) {
-            File file = entry.getCleanFile(i);
-            if (!file.delete()) {
-                throw new IOException("failed to delete " + file);
+        synchronized (lockFor(key)) {
+            Entry entry = lruEntries.get(key);
+            if (entry == null || entry.currentEditor != null) {
+                return false;
+            }
+            entry.stamp++;
+            try {
+                entry.readable = false;
+                for (int i = 0; i < valueCount; i++) {
+                    File file = entry.getCleanFile(i);
+                    if (!file.delete()) {
+                        throw new IOException("failed to delete " + file);
+                    }
+                    size.addAndGet(-entry.lengths[i]);
+                    entry.lengths[i] = 0;
+                }
+            } finally {
+                entry.stamp++;
             }
-            size -= entry.lengths[i];
-            entry.lengths[i] = 0;
+            redundantOpCount.incrementAndGet();
+            lruEntries.remove(key);
+            appendJournal(REMOVE + ' ' + key);
         }
-        redundantOpCount++;
-        journalWriter.append(REMOVE + ' ' + key + '\n');
-        lruEntries.remove(key);
         if (journalRebuildRequired()) {
-            executorService.submit(cleanupCallable);
+            scheduleCleanup();
         }
         return true;
     }
@@ -606,42 +926,69 @@ public final class DiskLruCache implements Closeable {
      * Returns true if this cache has been closed.
      */
     public boolean isClosed() {
-        return journalWriter == null;
+        return closed;
     }
     private void checkNotClosed() {
-        if (journalWriter == null) {
+        if (closed) {
             throw new IllegalStateException("cache is closed");
         }
     }
     /**
      * Force buffered operations to the filesystem.
      */
-    public synchronized void flush() throws IOException {
+    public void flush() throws IOException {
         checkNotClosed();
         trimToSize();
-        journalWriter.flush();
+        writeJournal();
+        if (journalError) {
+            throw new IOException("failed to write journal");
+        }
     }
     /**
      * Closes this cache. Stored values will remain on the filesystem.
      */
-    public synchronized void close() throws IOException {
-        if (journalWriter == null) {
-            return; // already closed
-        }
-        for (Entry entry : new ArrayList<Entry>(lruEntries.values())) {
-            if (entry.currentEditor != null) {
-                entry.currentEditor.abort();
+    public void close() throws IOException {
+        synchronized (cleanupLock) {
+            if (closed) {
+                return; // already closed
+            }
+            for (Entry entry : new ArrayList<Entry>(lruEntries.values())) {
+                final Editor editor = entry.currentEditor;
+                if (editor != null) {
+                    try {
+                        editor.abort();
+                    } catch (IllegalStateException e) {
+                        // the edit was completed concurrently
+                    }
+                }
+            }
+            trimToSize();
+            closed = true;
+            synchronized (journalIoLock) {
+                try {
+                    writeJournal();
+                } finally {
+                    synchronized (journalLock) {
+                        closeQuietly(journalOut);
+                        journalOut = null;
+                    }
+                }
             }
         }
-        trimToSize();
-        journalWriter.close();
-        journalWriter = null;
     }
     private void trimToSize() throws IOException {
-        while (size > maxSize) {
-//            Map.Entry<String, Entry> toEvict = lruEntries.eldest();
-            final Map.Entry<String, Entry> toEvict = lruEntries.entrySet().iterator().next();
-            remove(toEvict.getKey());
+        synchronized (cleanupLock) {
+            if (size.get() <= maxSize) {
+                return;
+            }
+            for (Entry entry : entriesInLruOrder()) {
+                if (size.get() <= maxSize) {
+                    break;
+                }
+                if (entry.currentEditor == null && lruEntries.get(entry.key) == entry) {
+                    remove(entry.key);
+                }
+            }
         }
     }
     /**
@@ -669,10 +1016,12 @@ public final class DiskLruCache implements Closeable {
         private final String key;
         private final long sequenceNumber;
         private final InputStream[] ins;
-        private Snapshot(String key, long sequenceNumber, InputStream[] ins) {
+        private final long[] lengths;
+        private Snapshot(String key, long sequenceNumber, InputStream[] ins, long[] lengths) {
             this.key = key;
             this.sequenceNumber = sequenceNumber;
             this.ins = ins;
+            this.lengths = lengths;
         }
         /**
          * Returns an editor for this snapshot's entry, or null if either the
@@ -694,6 +1043,33 @@ public final class DiskLruCache implements Closeable {
         public String getString(int index) throws IOException {
             return inputStreamToString(getInputStream(index));
         }
+        /**
+         * Returns the byte length of the value for {@code index}.
+         */
+        public long getLength(int index) {
+            return lengths[index];
+        }
+        /**
+         * Returns the channel of the file with the value for {@code index}.
+         * The channel shares its position with {@link #getInputStream} and is
+         * closed together with this snapshot.
+         */
+        public FileChannel getChannel(int index) {
+            return ((FileInputStream) ins[index]).getChannel();
+        }
+        /**
+         * Maps the value for {@code index} into memory and returns it as a
+         * read-only buffer, so callers can read it without copying it through
+         * a stream. The mapping stays valid after this snapshot is closed and
+         * even after the entry is replaced or removed, because it keeps
+         * referring to the file that was published when this snapshot was
+         * taken. Mapping has a fixed cost, so it pays off for values that are
+         * read repeatedly or in random order rather than for one small read.
+         */
+        public MappedByteBuffer getByteBuffer(int index) throws IOException {
+            final FileChannel channel = getChannel(index);
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
         @Override public void close() {
             for (InputStream in : ins) {
                 closeQuietly(in);
@@ -714,7 +1090,7 @@ public final class DiskLruCache implements Closeable {
          * or null if no value has been committed.
          */
         public InputStream newInputStream(int index) throws IOException {
-            synchronized (DiskLruCache.this) {
+            synchronized (lockFor(entry.key)) {
                 if (entry.currentEditor != this) {
                     throw new IllegalStateException();
                 }
@@ -740,7 +1116,7 @@ public final class DiskLruCache implements Closeable {
          * IOExceptions.
          */
         public OutputStream newOutputStream(int index) throws IOException {
-            synchronized (DiskLruCache.this) {
+            synchronized (lockFor(entry.key)) {
                 if (entry.currentEditor != this) {
                     throw new IllegalStateException();
                 }
@@ -817,11 +1193,21 @@ public final class DiskLruCache implements Closeable {
         /** Lengths of this entry's files. */
         private final long[] lengths;
         /** True if this entry has ever been published */
-        private boolean readable;
+        private volatile boolean readable;
         /** The ongoing edit or null if this entry is not being edited. */
-        private Editor currentEditor;
+        private volatile Editor currentEditor;
         /** The sequence number of the most recently committed edit to this entry. */
-        private long sequenceNumber;
+        private volatile long sequenceNumber;
+        /**
+         * Incremented before and after the files of this entry are replaced or
+         * deleted, so it is odd while that is in progress. Lets {@link #get}
+         * detect a concurrent change without taking a lock.
+         */
+        private volatile int stamp;
+        /** Position of the last access in the LRU order. */
+        private volatile long lastAccess;
+        /** Copy of lastAccess used while sorting, guarded by cleanupLock. */
+        private long accessSnapshot;
         private Entry(String key) {
             this.key = key;
             this.lengths = new long[valueCount];
@@ -833,24 +1219,6 @@ public final class DiskLruCache implements Closeable {
             }
             return result.toString();
         }
-        /**
-         * Set lengths using decimal numbers like "10123".
-         */
-        private void setLengths(String[] strings) throws IOException {
-            if (strings.length != valueCount) {
-                throw invalidLengths(strings);
-            }
-            try {
-                for (int i = 0; i < strings.length; i++) {
-                    lengths[i] = Long.parseLong(strings[i]);
-                }
-            } catch (NumberFormatException e) {
-                throw invalidLengths(strings);
-            }
-        }
-        private IOException invalidLengths(String[] strings) throws IOException {
-            throw new IOException("unexpected journal line: " + Arrays.toString(strings));
-        }
         public File getCleanFile(int i) {
             return new File(directory, key + "." + i);
         }
@@ -858,4 +1226,4 @@ public final class DiskLruCache implements Closeable {
             return new File(directory, key + "." + i + ".tmp");
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,541 @@
+package com.serenegiant.io;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 小さなデータを多数保持するためのディスクキャッシュ
+ * DiskLruCacheは値毎に1つのファイルを使うが、このクラスは複数の値を固定長の
+ * セグメントファイルへ追記してメモリーマップしたまま保持する。
+ * 読み込み時にファイルのオープン・クローズが無く、#getはコピーせずに
+ * セグメントファイルを直接参照する読み込み専用のByteBufferを返す。
+ * 上限サイズを超えると古いセグメントファイルから順にファイル毎削除する(FIFO)。
+ * 1つのレコード(キー+値)の最大サイズはセグメントサイズの1/4まで、
+ * それより大きな値はDiskLruCacheへ保存すること。
+ * 同じディレクトリを他のキャッシュや複数のプロセスから使ってはいけない
+ *
+ * セグメントファイルのレコードのフォーマット
+ *     int  キーのバイト数(0ならそれ以降は未使用)
+ *     int  値のバイト数(-1なら削除)
+ *     byte キー(UTF-8)
+ *     byte 値
+ * ヘッダーは本体を書き込んだ後に値のバイト数, キーのバイト数の順に書き込むので
+ * 途中で中断されたレコードは読み込み時に無視される
+ */
+public class DiskPackCache implements Closeable {
+	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
+	private static final String TAG = DiskPackCache.class.getSimpleName();
+
+	/**
+	 * デフォルトのセグメントファイルのサイズ(4MB)
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+	private static final String SEGMENT_PREFIX = "pack.";
+	private static final int HEADER_SIZE = 8;
+	private static final int TOMBSTONE = -1;
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * メモリーマップしたセグメントファイル
+	 */
+	private static class Segment {
+		private final int id;
+		@NonNull
+		private final File file;
+		/**
+		 * 読み込み用, position/limitは変更しない
+		 */
+		@NonNull
+		private final MappedByteBuffer buffer;
+		/**
+		 * 書き込み用, mSyncをロックしてアクセスする
+		 */
+		@NonNull
+		private final ByteBuffer writer;
+		private int writePos;
+
+		private Segment(final int id, @NonNull final File file,
+			@NonNull final MappedByteBuffer buffer) {
+
+			this.id = id;
+			this.file = file;
+			this.buffer = buffer;
+			this.writer = buffer.duplicate();
+		}
+	}
+
+	/**
+	 * 値の保存位置
+	 */
+	private static class Slot {
+		@NonNull
+		private final Segment segment;
+		private final int offset;
+		private final int length;
+
+		private Slot(@NonNull final Segment segment, final int offset, final int length) {
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+	@NonNull
+	private final File mDirectory;
+	private final int mSegmentSize;
+	private final long mMaxSize;
+	private final ConcurrentHashMap<String, Slot> mIndex
+		= new ConcurrentHashMap<String, Slot>();
+	private final Object mSync = new Object();
+	/**
+	 * 古い順に並べたセグメントファイル, mSyncをロックしてアクセスする
+	 */
+	private final List<Segment> mSegments = new ArrayList<Segment>();
+	private volatile long mSize;
+	private volatile boolean mClosed;
+
+	/**
+	 * 指定したディレクトリのキャッシュを開く, 存在しなければ新規に生成する
+	 * @param directory
+	 * @param segmentSize セグメントファイルのサイズ
+	 * @param maxSize 全セグメントファイルの合計サイズの上限, セグメントサイズの2倍以上
+	 * @return
+	 * @throws IOException
+	 */
+	@NonNull
+	public static DiskPackCache open(@NonNull final File directory,
+		final int segmentSize, final long maxSize) throws IOException {
+
+		if (segmentSize < 4 * HEADER_SIZE) {
+			throw new IllegalArgumentException("segmentSize too small," + segmentSize);
+		}
+		if (maxSize < 2L * segmentSize) {
+			throw new IllegalArgumentException("maxSize must be at least 2 segments," + maxSize);
+		}
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("failed to create directory," + directory);
+		}
+		final DiskPackCache cache = new DiskPackCache(directory, segmentSize, maxSize);
+		cache.load();
+		return cache;
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param directory
+	 * @param segmentSize
+	 * @param maxSize
+	 */
+	private DiskPackCache(@NonNull final File directory,
+		final int segmentSize, final long maxSize) {
+
+		mDirectory = directory;
+		mSegmentSize = segmentSize;
+		mMaxSize = maxSize;
+	}
+
+	/**
+	 * キャッシュを閉じる, 保存したデータはそのまま残る
+	 */
+	@Override
+	public void close() {
+		synchronized (mSync) {
+			if (mClosed) return;
+			mClosed = true;
+			for (final Segment segment: mSegments) {
+				segment.buffer.force();
+			}
+			mSegments.clear();
+			mIndex.clear();
+			mSize = 0;
+		}
+	}
+
+	/**
+	 * キャッシュを閉じて全てのセグメントファイルを削除する
+	 */
+	public void delete() {
+		close();
+		final File[] files = listSegmentFiles();
+		for (final File file: files) {
+			file.delete();
+		}
+	}
+
+	public boolean isClosed() {
+		return mClosed;
+	}
+
+	/**
+	 * 保持している値の合計バイト数
+	 * @return
+	 */
+	public long size() {
+		return mSize;
+	}
+
+	public long maxSize() {
+		return mMaxSize;
+	}
+
+	/**
+	 * 保存できる最大のキーと値の合計バイト数
+	 * @return
+	 */
+	public int maxRecordSize() {
+		return mSegmentSize / 4 - HEADER_SIZE;
+	}
+
+	/**
+	 * 値を取得する
+	 * 返すByteBufferはセグメントファイルを直接参照する読み込み専用のバッファーで
+	 * 値を更新・削除した後やキャッシュを閉じた後も取得した時点の内容を参照できる
+	 * @param key
+	 * @return 存在しなければnull
+	 */
+	@Nullable
+	public ByteBuffer get(@NonNull final String key) {
+		checkNotClosed();
+		final Slot slot = mIndex.get(key);
+		if (slot == null) {
+			return null;
+		}
+		final ByteBuffer result = slot.segment.buffer.duplicate();
+		result.limit(slot.offset + slot.length);
+		result.position(slot.offset);
+		return result.slice().asReadOnlyBuffer();
+	}
+
+	/**
+	 * 値を取得してバイト配列へコピーする
+	 * @param key
+	 * @return 存在しなければnull
+	 */
+	@Nullable
+	public byte[] getBytes(@NonNull final String key) {
+		final ByteBuffer buffer = get(key);
+		if (buffer == null) {
+			return null;
+		}
+		final byte[] result = new byte[buffer.remaining()];
+		buffer.get(result);
+		return result;
+	}
+
+	public boolean contains(@NonNull final String key) {
+		return mIndex.containsKey(key);
+	}
+
+	/**
+	 * 値を保存する
+	 * @param key 空文字列は不可
+	 * @param value positionからlimitまでを保存する, positionは変更しない
+	 * @return キーと値が大きすぎて保存できなければfalse
+	 * @throws IOException
+	 */
+	public boolean put(@NonNull final String key, @NonNull final ByteBuffer value)
+		throws IOException {
+
+		checkNotClosed();
+		final byte[] keyBytes = encodeKey(key);
+		final int length = value.remaining();
+		if (keyBytes.length + length > maxRecordSize()) {
+			return false;
+		}
+		synchronized (mSync) {
+			checkNotClosed();
+			final Segment segment = reserve(HEADER_SIZE + keyBytes.length + length);
+			final int offset = segment.writePos;
+			final ByteBuffer writer = segment.writer;
+			writer.clear();
+			writer.position(offset + HEADER_SIZE);
+			writer.put(keyBytes);
+			final int valueOffset = writer.position();
+			writer.put(value.duplicate());
+			writeHeader(writer, offset, keyBytes.length, length);
+			segment.writePos = writer.position();
+			final Slot prev = mIndex.put(key, new Slot(segment, valueOffset, length));
+			mSize += length - (prev != null ? prev.length : 0);
+		}
+		return true;
+	}
+
+	/**
+	 * 値を保存する
+	 * @param key 空文字列は不可
+	 * @param value
+	 * @return キーと値が大きすぎて保存できなければfalse
+	 * @throws IOException
+	 */
+	public boolean put(@NonNull final String key, @NonNull final byte[] value)
+		throws IOException {
+
+		return put(key, ByteBuffer.wrap(value));
+	}
+
+	/**
+	 * 値を削除する
+	 * @param key
+	 * @return 削除したかどうか
+	 * @throws IOException
+	 */
+	public boolean remove(@NonNull final String key) throws IOException {
+		checkNotClosed();
+		final byte[] keyBytes = encodeKey(key);
+		synchronized (mSync) {
+			checkNotClosed();
+			final Slot prev = mIndex.remove(key);
+			if (prev == null) {
+				return false;
+			}
+			mSize -= prev.length;
+			// 古いセグメントに値が残っているので削除したことを記録する
+			final Segment segment = reserve(HEADER_SIZE + keyBytes.length);
+			final int offset = segment.writePos;
+			final ByteBuffer writer = segment.writer;
+			writer.clear();
+			writer.position(offset + HEADER_SIZE);
+			writer.put(keyBytes);
+			writeHeader(writer, offset, keyBytes.length, TOMBSTONE);
+			segment.writePos = writer.position();
+		}
+		return true;
+	}
+
+	/**
+	 * 書き込んだ内容をストレージへ書き出す
+	 */
+	public void flush() {
+		synchronized (mSync) {
+			if (!mSegments.isEmpty()) {
+				mSegments.get(mSegments.size() - 1).buffer.force();
+			}
+		}
+	}
+
+	private void checkNotClosed() {
+		if (mClosed) {
+			throw new IllegalStateException("cache is closed");
+		}
+	}
+
+	@NonNull
+	private static byte[] encodeKey(@NonNull final String key) {
+		if (key.length() == 0) {
+			throw new IllegalArgumentException("key must not be empty");
+		}
+		return key.getBytes(UTF_8);
+	}
+
+	/**
+	 * ヘッダーを書き込む
+	 * キーのバイト数が0でなければ有効なレコードなので最後に書き込む
+	 * @param writer
+	 * @param offset
+	 * @param keyLength
+	 * @param valueLength
+	 */
+	private static void writeHeader(@NonNull final ByteBuffer writer,
+		final int offset, final int keyLength, final int valueLength) {
+
+		writer.putInt(offset + 4, valueLength);
+		writer.putInt(offset, keyLength);
+	}
+
+	/**
+	 * 指定したバイト数を書き込めるセグメントを取得する
+	 * 現在のセグメントに空きが無ければ新しいセグメントを生成し、
+	 * 上限サイズを超えれば古いセグメントを削除する
+	 * mSyncをロックして呼び出すこと
+	 * @param recordSize
+	 * @return
+	 * @throws IOException
+	 */
+	@NonNull
+	private Segment reserve(final int recordSize) throws IOException {
+		final int n = mSegments.size();
+		Segment segment = n > 0 ? mSegments.get(n - 1) : null;
+		if ((segment == null)
+			|| (segment.writePos + recordSize > segment.buffer.capacity())) {
+
+			final int id = segment != null ? segment.id + 1 : 0;
+			segment = mapSegment(id, new File(mDirectory, SEGMENT_PREFIX + id), mSegmentSize);
+			mSegments.add(segment);
+			while ((long)mSegments.size() * mSegmentSize > mMaxSize) {
+				evict(mSegments.remove(0));
+			}
+		}
+		return segment;
+	}
+
+	/**
+	 * セグメントと、そのセグメントに保存されている値を削除する
+	 * mSyncをロックして呼び出すこと
+	 * @param segment
+	 */
+	private void evict(@NonNull final Segment segment) {
+		if (DEBUG) Log.v(TAG, "evict:" + segment.file);
+		for (final Iterator<Map.Entry<String, Slot>> i = mIndex.entrySet().iterator(); i.hasNext(); ) {
+			final Slot slot = i.next().getValue();
+			if (slot.segment == segment) {
+				mSize -= slot.length;
+				i.remove();
+			}
+		}
+		// 取得済みのByteBufferはファイル削除後もGCされるまで有効
+		segment.file.delete();
+	}
+
+	/**
+	 * 既存のセグメントファイルを読み込んでインデックスを再構築する
+	 * @throws IOException
+	 */
+	private void load() throws IOException {
+		final File[] files = listSegmentFiles();
+		final int[] ids = new int[files.length];
+		for (int i = 0; i < files.length; i++) {
+			ids[i] = segmentId(files[i]);
+		}
+		Arrays.sort(ids);
+		synchronized (mSync) {
+			for (final int id: ids) {
+				final File file = new File(mDirectory, SEGMENT_PREFIX + id);
+				final Segment segment = mapSegment(id, file, (int)Math.max(file.length(), HEADER_SIZE));
+				scan(segment);
+				mSegments.add(segment);
+			}
+			while ((long)mSegments.size() * mSegmentSize > mMaxSize) {
+				evict(mSegments.remove(0));
+			}
+		}
+	}
+
+	/**
+	 * セグメントファイルのレコードを先頭から読み込んでインデックスへ反映する
+	 * 途中までしか書き込まれていないレコードや不正なレコードがあればそこで打ち切る
+	 * @param segment
+	 */
+	private void scan(@NonNull final Segment segment) {
+		final ByteBuffer buf = segment.buffer.duplicate();
+		final int limit = buf.capacity();
+		int pos = 0;
+		for ( ; pos + HEADER_SIZE <= limit ; ) {
+			final int keyLength = buf.getInt(pos);
+			final int valueLength = buf.getInt(pos + 4);
+			if ((keyLength <= 0) || (valueLength < TOMBSTONE)) break;
+			final int valueOffset = pos + HEADER_SIZE + keyLength;
+			final int end = valueOffset + Math.max(valueLength, 0);
+			if ((valueOffset > limit) || (end > limit) || (end < pos)) break;
+			final byte[] keyBytes = new byte[keyLength];
+			buf.position(pos + HEADER_SIZE);
+			buf.get(keyBytes);
+			final String key = new String(keyBytes, UTF_8);
+			final Slot prev;
+			if (valueLength == TOMBSTONE) {
+				prev = mIndex.remove(key);
+			} else {
+				prev = mIndex.put(key, new Slot(segment, valueOffset, valueLength));
+				mSize += valueLength;
+			}
+			if (prev != null) {
+				mSize -= prev.length;
+			}
+			pos = end;
+		}
+		segment.writePos = pos;
+	}
+
+	@NonNull
+	private File[] listSegmentFiles() {
+		final File[] files = mDirectory.listFiles();
+		if (files == null) {
+			return new File[0];
+		}
+		final List<File> result = new ArrayList<File>();
+		for (final File file: files) {
+			if (segmentId(file) >= 0) {
+				result.add(file);
+			}
+		}
+		return result.toArray(new File[result.size()]);
+	}
+
+	/**
+	 * セグメントファイルのファイル名からidを取得する
+	 * @param file
+	 * @return セグメントファイルでなければ-1
+	 */
+	private static int segmentId(@NonNull final File file) {
+		final String name = file.getName();
+		if (name.startsWith(SEGMENT_PREFIX)) {
+			try {
+				return Integer.parseInt(name.substring(SEGMENT_PREFIX.length()));
+			} catch (final NumberFormatException e) {
+				// ignore
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * セグメントファイルを指定したサイズでメモリーマップする
+	 * 新規に生成したファイルは0で埋められている
+	 * @param id
+	 * @param file
+	 * @param size
+	 * @return
+	 * @throws IOException
+	 */
+	@NonNull
+	private static Segment mapSegment(final int id,
+		@NonNull final File file, final int size) throws IOException {
+
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			if (raf.length() < size) {
+				raf.setLength(size);
+			}
+			final MappedByteBuffer buffer
+				= raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+			// マップした領域はファイルを閉じた後も有効
+			return new Segment(id, file, buffer);
+		} finally {
+			raf.close();
+		}
+	}
+}
@@ -87,7 +87,7 @@ public abstract class AbstractAudioEncoder extends AbstractEncoder
 //      audioFormat.setLong(MediaFormat.KEY_DURATION, (long)durationInMs );
 //		if (DEBUG) Log.i(TAG, "format: " + audioFormat);
 
-		mMediaCodec = MediaCodec.createEncoderByType(MIME_TYPE);
+		mMediaCodec = createEncoderByType(MIME_TYPE);
         mMediaCodec.configure(audioFormat, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
         mMediaCodec.start();
 //		if (DEBUG) Log.i(TAG, "internalPrepare:finished");
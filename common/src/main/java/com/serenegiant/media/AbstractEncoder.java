@@ -18,6 +18,7 @@ package com.serenegiant.media;
  *  limitations under the License.
 */
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 
 import android.annotation.SuppressLint;
@@ -29,9 +30,13 @@ import android.util.Log;
 import android.view.Surface;
 
 import com.serenegiant.media.exceptions.TimeoutException;
+import com.serenegiant.metrics.Metrics;
+import com.serenegiant.system.BuildCheck;
 import com.serenegiant.system.Time;
+import com.serenegiant.utils.FpsCounter;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import static com.serenegiant.utils.BufferHelper.*;
 
@@ -41,6 +46,26 @@ public abstract class AbstractEncoder implements Encoder {
 	private static final String TAG = AbstractEncoder.class.getSimpleName();
 
     public static final int TIMEOUT_USEC = 10000;	// 10ミリ秒
+	/**
+	 * 非同期モードで終了要求後にEOSが来なかった時に強制的に破棄するまでの時間[ミリ秒]
+	 */
+	private static final long ASYNC_EOS_TIMEOUT_MS = 1000L;
+
+	/**
+	 * 計測値の名前: 映像/音声の出力バイト数
+	 */
+	public static final String METRIC_VIDEO_BYTES = "media.encoder.video.bytes";
+	public static final String METRIC_AUDIO_BYTES = "media.encoder.audio.bytes";
+	/**
+	 * 計測値の名前: 映像/音声の出力フレーム数
+	 */
+	public static final String METRIC_VIDEO_FRAMES = "media.encoder.video.frames";
+	public static final String METRIC_AUDIO_FRAMES = "media.encoder.audio.frames";
+	/**
+	 * 計測値の名前: 映像/音声のIRecorder#writeSampleDataの処理時間[ナノ秒]
+	 */
+	public static final String METRIC_VIDEO_WRITE_TIME = "media.encoder.video.write_time";
+	public static final String METRIC_AUDIO_WRITE_TIME = "media.encoder.audio.write_time";
 
     private volatile int mRequestDrain;
     /**
@@ -88,6 +113,21 @@ public abstract class AbstractEncoder implements Encoder {
      * MIME
      */
     protected final String MIME_TYPE;
+	/**
+	 * 非同期モードの時のMediaCodec.Callbackの処理用, ポーリングモードならnull
+	 */
+	private volatile AsyncCodecDrainer mDrainer;
+	/**
+	 * 出力したフレームのフレームレート/フレーム間隔計測用
+	 * フレーム間隔はpresentationTimeUsで計測する
+	 */
+	@NonNull
+	private final FpsCounter mFpsCounter = new FpsCounter();
+	/**
+	 * 計測値の名前, MIMEに応じて選択する
+	 */
+	@NonNull
+	private final String mBytesMetric, mFramesMetric, mWriteTimeMetric;
 
 //********************************************************************************
     public AbstractEncoder(final String mime_type,
@@ -98,6 +138,10 @@ public abstract class AbstractEncoder implements Encoder {
     	if (recorder == null) throw new NullPointerException("recorder is null");
     	MIME_TYPE = mime_type;
     	mRecorder = recorder;
+		final boolean isAudio = (mime_type != null) && mime_type.startsWith("audio/");
+		mBytesMetric = isAudio ? METRIC_AUDIO_BYTES : METRIC_VIDEO_BYTES;
+		mFramesMetric = isAudio ? METRIC_AUDIO_FRAMES : METRIC_VIDEO_FRAMES;
+		mWriteTimeMetric = isAudio ? METRIC_AUDIO_WRITE_TIME : METRIC_VIDEO_WRITE_TIME;
     	mListener = listener;
 		recorder.addEncoder(this);
         // 効率化のために先に生成しておく(drain内で毎回生成するとGCの影響が大きくなる)
@@ -149,6 +193,10 @@ public abstract class AbstractEncoder implements Encoder {
 		} catch (final Exception e) {
 			Log.w(TAG, e);
 		}
+		if (mDrainer != null) {
+			// 非同期モードの時はMediaCodec.Callbackで処理するのでドレインスレッドは不要
+			return;
+		}
 		synchronized (mSync) {
 			// エンコーダースレッドを生成
 			new Thread(mDrainTask, getClass().getSimpleName()).start();
@@ -162,6 +210,37 @@ public abstract class AbstractEncoder implements Encoder {
 	
 	protected abstract boolean internalPrepare() throws Exception;
 
+	/**
+	 * エンコーダー用のMediaCodecを生成する, #internalPrepareから呼び出す
+	 * Recorder#isAsyncDrainがtrueでAPI>=21の時はMediaCodec#setCallbackを使った
+	 * 非同期モードにする。非同期モードではdequeueOutputBufferでポーリングせずに
+	 * 出力バッファが準備でき次第専用のハンドラースレッド上でRecorderへ書き込む
+	 * @param mime
+	 * @return configure前のMediaCodec
+	 * @throws IOException
+	 */
+	@SuppressLint("NewApi")
+	protected MediaCodec createEncoderByType(@NonNull final String mime) throws IOException {
+		final IRecorder recorder = mRecorder;
+		if ((recorder instanceof Recorder)
+			&& ((Recorder)recorder).isAsyncDrain() && BuildCheck.isLollipop()) {
+			if (mDrainer == null) {
+				mDrainer = new AsyncCodecDrainer(getClass().getSimpleName(), mDrainerListener);
+			}
+			return mDrainer.createEncoderByType(mime);
+		} else {
+			return MediaCodec.createEncoderByType(mime);
+		}
+	}
+
+	/**
+	 * 非同期モードかどうか
+	 * @return
+	 */
+	protected boolean isAsync() {
+		return mDrainer != null;
+	}
+
 	/**
 	 * エラー発生時に呼び出す
 	 * @param e
@@ -185,6 +264,7 @@ public abstract class AbstractEncoder implements Encoder {
 			mRequestStop = false;
 			mRequestDrain = 0;
 		}
+		mFpsCounter.reset();
 	}
     /**
      * エンコーダ終了要求(Recorderから呼び出される)
@@ -200,6 +280,22 @@ public abstract class AbstractEncoder implements Encoder {
             mRequestStop = true;	// 新規のフレームを受けないようにする
             mSync.notifyAll();
         }
+		final AsyncCodecDrainer drainer = mDrainer;
+		if (drainer != null) {
+			// 非同期モードの時はハンドラースレッド上でEOSを送って
+			// EOSを受け取るかタイムアウトすれば破棄する
+			drainer.post(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						signalEndOfInputStream();
+					} catch (final Exception e) {
+						// ignore
+					}
+				}
+			});
+			drainer.postDelayed(mAsyncReleaseTask, ASYNC_EOS_TIMEOUT_MS);
+		}
         // 本当のところいつ終了するのかはわからないので、呼び出し元スレッドを遅延させないために終了待ちせずに直ぐに返る
     }
 
@@ -210,6 +306,10 @@ public abstract class AbstractEncoder implements Encoder {
     @Override
 	public void frameAvailableSoon() {
 //    	if (DEBUG) Log.v(TAG, "AbstractEncoder#frameAvailableSoon");
+		if (mDrainer != null) {
+			// 非同期モードの時はMediaCodec.Callbackで処理するので何もしない
+			return;
+		}
         synchronized (mSync) {
             if (!mIsCapturing || mRequestStop) {
                 return;
@@ -324,6 +424,10 @@ public abstract class AbstractEncoder implements Encoder {
 //				Log.e(TAG, "failed releasing MediaCodec", e);
 			}
         }
+		if (mDrainer != null) {
+			mDrainer.release();
+			mDrainer = null;
+		}
         if (mRecorderStarted) {
         	mRecorderStarted = false;
         	if (mRecorder != null) {
@@ -364,6 +468,16 @@ public abstract class AbstractEncoder implements Encoder {
         }
 	}
 
+	/**
+	 * 出力したフレームのフレームレート/フレーム間隔計測用のFpsCounterを取得
+	 * #startを呼ぶとリセットする
+	 * @return
+	 */
+	@NonNull
+	public FpsCounter getFpsCounter() {
+		return mFpsCounter;
+	}
+
     /**
      * バイト配列をエンコードする場合
      * @param buffer
@@ -372,9 +486,15 @@ public abstract class AbstractEncoder implements Encoder {
      */
 	@Override
 	public  void encode(final ByteBuffer buffer, final int length, final long presentationTimeUs) {
+		final AsyncCodecDrainer drainer = mDrainer;
 		synchronized (mSync) {
-			if (!mIsCapturing || mRequestStop) return;
-			if (mMediaCodec == null) return;
+			if (!mIsCapturing || (mMediaCodec == null)) return;
+			// 非同期モードでは#stopからハンドラースレッド経由で送るEOSだけは終了要求後も受け付ける
+			if (mRequestStop && ((drainer == null) || (length > 0))) return;
+		}
+		if (drainer != null) {
+			encodeAsync(drainer, buffer, length, presentationTimeUs);
+			return;
 		}
         @SuppressWarnings("deprecation")
 		final ByteBuffer[] inputBuffers = mMediaCodec.getInputBuffers();
@@ -409,6 +529,53 @@ public abstract class AbstractEncoder implements Encoder {
         }
     }
 
+	/**
+	 * 非同期モードでバイト配列をエンコードする
+	 * 非同期モードではMediaCodec#dequeueInputBufferを呼べないので
+	 * MediaCodec.Callbackで受け取った入力バッファのインデックスを使う。
+	 * EOSは入力バッファのインデックスを供給するハンドラースレッド上から
+	 * 送られるので、ここで入力バッファを待つとハンドラースレッドが
+	 * 止まってしまう。そのためAsyncCodecDrainerへ送信待ちとして渡して
+	 * 入力バッファが利用可能になった時に送信させる
+	 * @param drainer
+	 * @param buffer
+	 * @param length 0ならBUFFER_FLAG_END_OF_STREAMフラグをセットする
+	 * @param presentationTimeUs
+	 */
+	@SuppressLint("NewApi")
+	private void encodeAsync(@NonNull final AsyncCodecDrainer drainer,
+		final ByteBuffer buffer, final int length, final long presentationTimeUs) {
+
+		final MediaCodec codec = mMediaCodec;
+		if (length <= 0) {
+			// エンコード要求サイズが0の時はEOSを送信
+			if (mIsCapturing && (codec != null)) {
+				mIsEOS = true;
+				drainer.signalEndOfInputStream(codec, presentationTimeUs);
+			}
+			return;
+		}
+		while (mIsCapturing && (codec != null)) {
+			final int inputBufferIndex = drainer.dequeueInputBuffer(TIMEOUT_USEC);
+			if (inputBufferIndex >= 0) {
+				final ByteBuffer inputBuffer = codec.getInputBuffer(inputBufferIndex);	// API>=21
+				if (inputBuffer == null) {
+					continue;
+				}
+				inputBuffer.clear();
+				if (buffer != null) {
+					buffer.clear();
+					buffer.position(length);
+					buffer.flip();
+					inputBuffer.put(buffer);
+				}
+				codec.queueInputBuffer(inputBufferIndex, 0, length,
+					presentationTimeUs, 0);
+				break;
+			}
+		}
+	}
+
     /**
      * エンコードしたデータをmuxerへ書き込む
      */
@@ -465,64 +632,186 @@ LOOP:	while (mIsCapturing) {
                 	// 出力バッファインデックスが来てるのに出力バッファを取得できない・・・無いはずやねんけど
                     throw new RuntimeException("encoderOutputBuffer " + encoderStatus + " was null");
                 }
-                if ((mBufferInfo.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0) {
-//					if (DEBUG) Log.d(TAG, "drain:BUFFER_FLAG_CODEC_CONFIG");
-                	// Android4.3未満をターゲットにするならここで処理しないと駄目
-                    if (!mRecorderStarted) {	// 1回目に来た時だけ処理する
-                    	// csd-0とcsd-1が同時に来ているはずなので分離してセットする
-                        final byte[] tmp = new byte[mBufferInfo.size];
-                        encodedData.position(0);
-                        encodedData.get(tmp, mBufferInfo.offset, mBufferInfo.size);
-                        encodedData.position(0);
-                        final int ix0 = byteComp(tmp, 0, ANNEXB_START_MARK, ANNEXB_START_MARK.length);
-                        final int ix1 = byteComp(tmp, ix0 + 2, ANNEXB_START_MARK, ANNEXB_START_MARK.length);
-						final int ix2 = byteComp(tmp, ix1 + 2, ANNEXB_START_MARK, ANNEXB_START_MARK.length);
-//						if (DEBUG) Log.i(TAG, "ix0=" + ix0 + ",ix1=" + ix1);
-                        final MediaFormat outFormat = createOutputFormat(tmp, mBufferInfo.size, ix0, ix1, ix2);
-                        if (!startRecorder(recorder, outFormat))
-                        	break LOOP;
-                    }
-					mBufferInfo.size = 0;
-                }
-
-                if (mBufferInfo.size != 0) {
+                if ((mBufferInfo.size != 0)
+                	&& ((mBufferInfo.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) == 0)) {
                 	// エンコード済みバッファにデータが入っている時・・・待機カウンタをクリア
-            		count = 0;
-                    if (!mRecorderStarted) {
-                    	// でも出力可能になっていない時
-                    	// =INFO_OUTPUT_FORMAT_CHANGED/BUFFER_FLAG_CODEC_CONFIGをまだ受け取ってない時
-                        throw new RuntimeException("drain:muxer hasn't started");
-                    }
-                    // ファイルに出力(presentationTimeUsを調整)
-                    try {
-	                   	mBufferInfo.presentationTimeUs = getNextOutputPTSUs(mBufferInfo.presentationTimeUs);
-	                   	recorder.writeSampleData(mTrackIndex, encodedData, mBufferInfo);
-//						prevOutputPTSUs = mBufferInfo.presentationTimeUs;
-                    } catch (final TimeoutException e) {
-//						if (DEBUG) Log.v(TAG, "最大録画時間を超えた", e);
-                    	recorder.stopRecording();
-                    } catch (final Exception e) {
-//						if (DEBUG) Log.w(TAG, e);
-                    	recorder.stopRecording();
-                    }
-                }
-                // 出力済みのバッファをエンコーダーに返す
-                mMediaCodec.releaseOutputBuffer(encoderStatus, false);
-                if ((mBufferInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
-                	// ストリーム終了指示が来た時
-//					if (!mIsEOS) {
-//						if (DEBUG) Log.w(TAG, "drain:reached end of stream unexpectedly");
-//					} else {
-//						if (DEBUG) Log.d(TAG, "drain:end of stream reached");
-//					}
-                	stopRecorder(recorder);
-					break LOOP;      // out of while
-                }
+                	count = 0;
+				}
+                if (!handleOutput(recorder, mMediaCodec, encoderStatus, encodedData, mBufferInfo)) {
+                	break LOOP;
+				}
             }
         }	// while (mIsCapturing)
 //		if (DEBUG) Log.v(TAG, "drain:finished");
     }
 
+	/**
+	 * エンコード済みの出力バッファ1つ分をRecorderへ書き込んでエンコーダーへ返却する
+	 * ポーリングモードと非同期モードで共通
+	 * @param recorder
+	 * @param codec
+	 * @param index
+	 * @param encodedData
+	 * @param info
+	 * @return 続けて処理できる時はtrue, ストリーム終了またはRecorderを開始できずに中断する時はfalse
+	 */
+	private boolean handleOutput(@NonNull final IRecorder recorder,
+		@NonNull final MediaCodec codec, final int index,
+		@NonNull final ByteBuffer encodedData, @NonNull final MediaCodec.BufferInfo info) {
+
+		if ((info.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0) {
+//			if (DEBUG) Log.d(TAG, "drain:BUFFER_FLAG_CODEC_CONFIG");
+			// Android4.3未満をターゲットにするならここで処理しないと駄目
+			if (!mRecorderStarted) {	// 1回目に来た時だけ処理する
+				// csd-0とcsd-1が同時に来ているはずなので分離してセットする
+				final byte[] tmp = new byte[info.size];
+				encodedData.position(0);
+				encodedData.get(tmp, info.offset, info.size);
+				encodedData.position(0);
+				final int ix0 = byteComp(tmp, 0, ANNEXB_START_MARK, ANNEXB_START_MARK.length);
+				final int ix1 = byteComp(tmp, ix0 + 2, ANNEXB_START_MARK, ANNEXB_START_MARK.length);
+				final int ix2 = byteComp(tmp, ix1 + 2, ANNEXB_START_MARK, ANNEXB_START_MARK.length);
+//				if (DEBUG) Log.i(TAG, "ix0=" + ix0 + ",ix1=" + ix1);
+				final MediaFormat outFormat = createOutputFormat(tmp, info.size, ix0, ix1, ix2);
+				if (!startRecorder(recorder, outFormat)) {
+					codec.releaseOutputBuffer(index, false);
+					return false;
+				}
+			}
+			info.size = 0;
+		}
+
+		if (info.size != 0) {
+			if (!mRecorderStarted) {
+				// でも出力可能になっていない時
+				// =INFO_OUTPUT_FORMAT_CHANGED/BUFFER_FLAG_CODEC_CONFIGをまだ受け取ってない時
+				codec.releaseOutputBuffer(index, false);
+				throw new RuntimeException("drain:muxer hasn't started");
+			}
+			// ファイルに出力(presentationTimeUsを調整)
+			try {
+				info.presentationTimeUs = getNextOutputPTSUs(info.presentationTimeUs);
+				final int size = info.size;
+				final long start = Metrics.startTimer();
+				recorder.writeSampleData(mTrackIndex, encodedData, info);
+				Metrics.stopTimer(mWriteTimeMetric, start);
+				Metrics.count(mBytesMetric, size);
+				Metrics.count(mFramesMetric, 1);
+				mFpsCounter.count(info.presentationTimeUs * 1000L);
+			} catch (final TimeoutException e) {
+//				if (DEBUG) Log.v(TAG, "最大録画時間を超えた", e);
+				recorder.stopRecording();
+			} catch (final Exception e) {
+//				if (DEBUG) Log.w(TAG, e);
+				recorder.stopRecording();
+			}
+		}
+		// 出力済みのバッファをエンコーダーに返す
+		codec.releaseOutputBuffer(index, false);
+		if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+			// ストリーム終了指示が来た時
+			stopRecorder(recorder);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 非同期モードでのMediaCodec.Callbackからのイベント処理
+	 * 全てAsyncCodecDrainerのハンドラースレッド上で呼ばれる
+	 */
+	@SuppressLint("NewApi")
+	private final AsyncCodecDrainer.Listener mDrainerListener
+		= new AsyncCodecDrainer.Listener() {
+
+		@Override
+		public void onOutputBufferAvailable(@NonNull final MediaCodec codec,
+			final int index, @NonNull final MediaCodec.BufferInfo info) {
+
+			final IRecorder recorder = mRecorder;
+			if (!mIsCapturing || (recorder == null)) {
+				codec.releaseOutputBuffer(index, false);
+				return;
+			}
+			try {
+				final ByteBuffer encodedData = codec.getOutputBuffer(index);	// API>=21
+				if (encodedData == null) {
+					codec.releaseOutputBuffer(index, false);
+					throw new RuntimeException("encoderOutputBuffer " + index + " was null");
+				}
+				if (!handleOutput(recorder, codec, index, encodedData, info)) {
+					if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+						// ストリーム終了
+						requestAsyncRelease(null);
+					} else {
+						// Recorderを開始できなかった
+						requestAsyncRelease(new RuntimeException("failed to start recorder"));
+					}
+				}
+			} catch (final Exception e) {
+				if (!mRequestStop) {
+					callOnError(e);
+				}
+				mRequestStop = true;
+			}
+		}
+
+		@Override
+		public void onOutputFormatChanged(@NonNull final MediaCodec codec,
+			@NonNull final MediaFormat format) {
+
+			final IRecorder recorder = mRecorder;
+			if (mRecorderStarted) {	// ２回目が来た時はエラー
+				callOnError(new RuntimeException("format changed twice"));
+			} else if ((recorder != null) && !startRecorder(recorder, format)) {
+				// ポーリングモードと同様にRecorderを開始できなければ中断する
+				requestAsyncRelease(new RuntimeException("failed to start recorder"));
+			}
+		}
+
+		@Override
+		public void onError(@NonNull final MediaCodec codec, @NonNull final Exception e) {
+			if (!mRequestStop) {
+				callOnError(e);
+			}
+		}
+	};
+
+	/**
+	 * 非同期モードでエンコードを終了する
+	 * コールバック内でMediaCodecを破棄しないように次のメッセージで破棄する
+	 * @param e 異常終了時の例外, nullならストリーム終了
+	 */
+	private void requestAsyncRelease(@Nullable final Exception e) {
+		if (e != null) {
+			if (!mRequestStop) {
+				callOnError(e);
+			}
+			mRequestStop = true;
+		}
+		final AsyncCodecDrainer drainer = mDrainer;
+		if (drainer != null) {
+			drainer.post(mAsyncReleaseTask);
+		}
+	}
+
+	/**
+	 * 非同期モードでEOSを受け取った時または終了要求後にタイムアウトした時の破棄処理
+	 */
+	private final Runnable mAsyncReleaseTask = new Runnable() {
+		@Override
+		public void run() {
+			if (mDrainer != null) {
+				release();
+				synchronized (mSync) {
+					mRequestStop = true;
+					mIsCapturing = false;
+					mSync.notifyAll();
+				}
+			}
+		}
+	};
+
     protected abstract MediaFormat createOutputFormat(final byte[] csd, final int size,
     	final int ix0, final int ix1, final int ix2);
 
@@ -29,9 +29,11 @@ import android.util.Log;
 import android.view.Surface;
 
 import com.serenegiant.media.exceptions.TimeoutException;
+import com.serenegiant.metrics.Metrics;
 import com.serenegiant.utils.BufferHelper;
 import com.serenegiant.system.BuildCheck;
 import com.serenegiant.system.Time;
+import com.serenegiant.utils.FpsCounter;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -67,6 +69,14 @@ public abstract class AbstractFakeEncoder implements Encoder {
 	 * フレームの待ち時間
 	 */
 	private static final long MAX_WAIT_FRAME_MS = 100;
+	/**
+	 * 計測値の名前: フレームキューの長さ
+	 */
+	public static final String METRIC_QUEUE_DEPTH = "media.fake_encoder.queue_depth";
+	/**
+	 * 計測値の名前: フレームキューが一杯で破棄したフレーム数
+	 */
+	public static final String METRIC_DROPPED_FRAMES = "media.fake_encoder.dropped";
 	
 	/**
 	 * エンコード実行中フラグ
@@ -120,6 +130,11 @@ public abstract class AbstractFakeEncoder implements Encoder {
 	 * フレームプール
 	 */
 	private final List<MediaData> mPool = new ArrayList<MediaData>();
+	/**
+	 * フレームデータのバッファを確保するアリーナ, nullなら個別に確保する
+	 */
+	@Nullable
+	private volatile MediaArena mArena;
 	/**
 	 * フレームキュー
 	 */
@@ -128,6 +143,17 @@ public abstract class AbstractFakeEncoder implements Encoder {
 	 * フレーム情報(ワーク用)
 	 */
 	private final MediaCodec.BufferInfo mBufferInfo = new MediaCodec.BufferInfo();
+	/**
+	 * 出力したフレームのフレームレート/フレーム間隔計測用
+	 * フレーム間隔はpresentationTimeUsで計測する
+	 */
+	@NonNull
+	private final FpsCounter mFpsCounter = new FpsCounter();
+	/**
+	 * 計測値の名前, MIMEに応じてAbstractEncoderと同じ名前を選択する
+	 */
+	@NonNull
+	private final String mBytesMetric, mFramesMetric, mWriteTimeMetric;
 	
 	private Thread mDrainThread;
 	
@@ -171,6 +197,13 @@ public abstract class AbstractFakeEncoder implements Encoder {
 		final int maxPoolSz, final int maxQueueSz) {
 		
 		MIME_TYPE = mimeType;
+		final boolean isAudio = (mimeType != null) && mimeType.startsWith("audio/");
+		mBytesMetric = isAudio
+			? AbstractEncoder.METRIC_AUDIO_BYTES : AbstractEncoder.METRIC_VIDEO_BYTES;
+		mFramesMetric = isAudio
+			? AbstractEncoder.METRIC_AUDIO_FRAMES : AbstractEncoder.METRIC_VIDEO_FRAMES;
+		mWriteTimeMetric = isAudio
+			? AbstractEncoder.METRIC_AUDIO_WRITE_TIME : AbstractEncoder.METRIC_VIDEO_WRITE_TIME;
 		FRAME_SZ = frameSz;
 		MAX_POOL_SZ = maxPoolSz;
 		mRecorder = recorder;
@@ -282,6 +315,16 @@ public abstract class AbstractFakeEncoder implements Encoder {
 	public boolean isCapturing() {
 		return mIsCapturing;
 	}
+
+	/**
+	 * 出力したフレームのフレームレート/フレーム間隔計測用のFpsCounterを取得
+	 * #startを呼ぶとリセットする
+	 * @return
+	 */
+	@NonNull
+	public FpsCounter getFpsCounter() {
+		return mFpsCounter;
+	}
 	
 	/**
 	 * エンコードの準備(IRecorderから呼び出される)
@@ -305,6 +348,7 @@ public abstract class AbstractFakeEncoder implements Encoder {
 //		if (DEBUG) Log.v(TAG, "start:");
 		synchronized (mSync) {
 			if (mIsCapturing && !mRequestStop) {
+				mFpsCounter.reset();
 				initPool();
 				// フレーム処理スレッドを生成＆起床
 				mDrainThread = new Thread(mDrainTask, getClass().getSimpleName());
@@ -384,16 +428,41 @@ public abstract class AbstractFakeEncoder implements Encoder {
 	}
 
 //================================================================================
+	/**
+	 * フレームデータのバッファを確保するMediaArenaをセットする
+	 * 可変長のフレームでも再確保せずにサイズクラス毎のスライスを再利用できる。
+	 * 次に#initPoolを呼んだ時または新しくフレームを生成した時から有効
+	 * @param arena nullなら個別に確保する
+	 */
+	public void setMediaArena(@Nullable final MediaArena arena) {
+		mArena = arena;
+	}
+
+	/**
+	 * フレームデータを生成する
+	 * @return
+	 */
+	@NonNull
+	protected MediaData createFrame() {
+		final MediaArena arena = mArena;
+		return arena != null ? new MediaData(arena, FRAME_SZ) : new MediaData(FRAME_SZ);
+	}
+
 	/**
 	 * フレームプールを初期化する
 	 */
 	protected void initPool() {
 //		if (DEBUG) Log.v(TAG, "initPool:");
-		mFrameQueue.clear();
+		drainFrames();
 		synchronized (mPool) {
-			mPool.clear();
+			clearPool();
 			for (int i = 0; i < MAX_POOL_SZ; i++) {
-				mPool.add(new MediaData(FRAME_SZ));
+				final MediaData frame = createFrame();
+				if (frame.arena() != null) {
+					// #recycleと同様にプール内で保持している間はアリーナのスライスを返却しておく
+					frame.release();
+				}
+				mPool.add(frame);
 			}
 		}
 	}
@@ -404,12 +473,37 @@ public abstract class AbstractFakeEncoder implements Encoder {
 	protected void clearFrames() {
 //		if (DEBUG) Log.v(TAG, "clearFrames:");
 		synchronized (mPool) {
-			mPool.clear();
+			clearPool();
 		}
-		mFrameQueue.clear();
+		drainFrames();
 		cnt = 0;
 	}
+
+	/**
+	 * フレームプールを空にする, mPoolの排他制御中に呼び出すこと
+	 * アリーナから確保したフレームはスライスを返却する
+	 */
+	private void clearPool() {
+		for (final MediaData frame: mPool) {
+			if (frame.arena() != null) {
+				frame.release();
+			}
+		}
+		mPool.clear();
+	}
 	
+	/**
+	 * フレームキューを空にする
+	 * アリーナから確保したフレームはスライスを返却する
+	 */
+	private void drainFrames() {
+		for (MediaData frame = mFrameQueue.poll(); frame != null; frame = mFrameQueue.poll()) {
+			if (frame.arena() != null) {
+				frame.release();
+			}
+		}
+	}
+
 	/**
 	 * 生成したフレームの数
 	 */
@@ -426,7 +520,7 @@ public abstract class AbstractFakeEncoder implements Encoder {
 			if (mPool.isEmpty()) {
 				cnt++;
 //				if (DEBUG) Log.v(TAG, "obtain:create new FrameData, total=" + cnt);
-				result = new MediaData(FRAME_SZ);
+				result = createFrame();
 			} else {
 				result = mPool.remove(mPool.size() - 1);
 				result.resize(newSize);
@@ -450,8 +544,10 @@ public abstract class AbstractFakeEncoder implements Encoder {
 //			}
 			if (head != null) {
 				recycle(head);
+				Metrics.count(METRIC_DROPPED_FRAMES, 1);
 			}
 		}
+		Metrics.gauge(METRIC_QUEUE_DEPTH, mFrameQueue.size());
 		return result;
 	}
 	
@@ -479,6 +575,10 @@ public abstract class AbstractFakeEncoder implements Encoder {
 	 */
 	protected void recycle(@NonNull final MediaData frame) {
 //		if (DEBUG) Log.v(TAG, "recycle:");
+		if (frame.arena() != null) {
+			// プール内で保持している間はアリーナのスライスを返却しておく
+			frame.release();
+		}
 		synchronized (mPool) {
 			if (mPool.size() < MAX_POOL_SZ) {
 				mPool.add(frame);
@@ -572,7 +672,13 @@ public abstract class AbstractFakeEncoder implements Encoder {
 			mWaitingKeyFrame = false;
 			try {
 				mBufferInfo.presentationTimeUs = getNextOutputPTSUs(mBufferInfo.presentationTimeUs);
+				final int size = mBufferInfo.size;
+				final long start = Metrics.startTimer();
 				recorder.writeSampleData(mTrackIndex, frame.get(), mBufferInfo);
+				Metrics.stopTimer(mWriteTimeMetric, start);
+				Metrics.count(mBytesMetric, size);
+				Metrics.count(mFramesMetric, 1);
+				mFpsCounter.count(mBufferInfo.presentationTimeUs * 1000L);
 			 } catch (final TimeoutException e) {
 //				if (DEBUG) Log.v(TAG, "最大録画時間を超えた", e);
 				recorder.stopRecording();
@@ -0,0 +1,320 @@
+package com.serenegiant.media;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import android.annotation.SuppressLint;
+import android.media.MediaCodec;
+import android.media.MediaFormat;
+import android.os.Build;
+import android.util.Log;
+
+import com.serenegiant.system.BuildCheck;
+import com.serenegiant.utils.HandlerThreadHandler;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+/**
+ * MediaCodec#setCallbackを使ってエンコード済みデータを非同期で取り出すためのヘルパークラス
+ * dequeueOutputBufferでポーリングする代わりにMediaCodec.Callbackで
+ * 出力バッファが準備できた時点ですぐに専用のハンドラースレッド上で処理する。
+ * MediaCodec#setCallbackはMediaCodec#configureより前に呼ぶ必要があるので
+ * #createEncoderByTypeで生成するか、configure前のMediaCodecを#attachすること。
+ * 非同期モードではMediaCodec#dequeueInputBufferを呼べないので
+ * バイト配列を入力する時は代わりに#dequeueInputBufferを使うこと
+ */
+@RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+/*package*/ class AsyncCodecDrainer {
+	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
+	private static final String TAG = AsyncCodecDrainer.class.getSimpleName();
+
+	/**
+	 * 保持する入力バッファインデックスの最大数
+	 */
+	private static final int MAX_INPUT_BUFFERS = 64;
+
+	/**
+	 * MediaCodec.Callbackからのイベントを受け取るためのリスナー
+	 * 全てハンドラースレッド上で呼ばれる
+	 */
+	/*package*/ interface Listener {
+		/**
+		 * エンコード済みデータが準備できた時
+		 * indexのバッファは必ずMediaCodec#releaseOutputBufferで返却すること
+		 * @param codec
+		 * @param index
+		 * @param info
+		 */
+		public void onOutputBufferAvailable(@NonNull final MediaCodec codec,
+			final int index, @NonNull final MediaCodec.BufferInfo info);
+		/**
+		 * 出力フォーマットが変更された時
+		 * @param codec
+		 * @param format
+		 */
+		public void onOutputFormatChanged(@NonNull final MediaCodec codec,
+			@NonNull final MediaFormat format);
+		/**
+		 * MediaCodecでエラーが発生した時
+		 * @param codec
+		 * @param e
+		 */
+		public void onError(@NonNull final MediaCodec codec, @NonNull final Exception e);
+	}
+
+	@NonNull
+	private final HandlerThreadHandler mHandler;
+	@NonNull
+	private final Listener mListener;
+	/**
+	 * 利用可能な入力バッファのインデックス
+	 */
+	private final ArrayBlockingQueue<Integer> mInputIndices
+		= new ArrayBlockingQueue<Integer>(MAX_INPUT_BUFFERS);
+	private volatile boolean mReleased;
+	/**
+	 * EOSの送信待ちかどうか, mInputIndicesで保護する
+	 */
+	private boolean mPendingEos;
+	/**
+	 * 送信待ちのEOSのpresentationTimeUs, mInputIndicesで保護する
+	 */
+	private long mPendingEosPtsUs;
+
+	/**
+	 * コンストラクタ
+	 * @param name ハンドラースレッドの名前
+	 * @param listener
+	 */
+	/*package*/ AsyncCodecDrainer(@NonNull final String name, @NonNull final Listener listener) {
+		if (DEBUG) Log.v(TAG, "コンストラクタ:");
+		mHandler = HandlerThreadHandler.createHandler(name);
+		mListener = listener;
+	}
+
+	/**
+	 * 関係するリソースを破棄する
+	 * MediaCodecを停止・破棄してから呼ぶこと
+	 */
+	/*package*/ void release() {
+		if (DEBUG) Log.v(TAG, "release:");
+		mReleased = true;
+		synchronized (mInputIndices) {
+			mPendingEos = false;
+			mInputIndices.clear();
+		}
+		try {
+			mHandler.quitSafely();
+		} catch (final Exception e) {
+			// ignore
+		}
+	}
+
+	/**
+	 * エンコーダーを生成してMediaCodec.Callbackをセットする
+	 * API21/22ではMediaCodec.Callbackは生成したスレッドのLooper上で呼ばれるので
+	 * ハンドラースレッド上で生成する
+	 * @param mime
+	 * @return configure前のMediaCodec
+	 * @throws IOException
+	 */
+	@NonNull
+	/*package*/ MediaCodec createEncoderByType(@NonNull final String mime) throws IOException {
+		if (DEBUG) Log.v(TAG, "createEncoderByType:" + mime);
+		final MediaCodec[] result = new MediaCodec[1];
+		final Exception[] error = new Exception[1];
+		final CountDownLatch latch = new CountDownLatch(1);
+		mHandler.post(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					result[0] = MediaCodec.createEncoderByType(mime);
+				} catch (final Exception e) {
+					error[0] = e;
+				} finally {
+					latch.countDown();
+				}
+			}
+		});
+		try {
+			latch.await();
+		} catch (final InterruptedException e) {
+			throw new InterruptedIOException();
+		}
+		if (error[0] instanceof IOException) {
+			throw (IOException)error[0];
+		} else if ((error[0] != null) || (result[0] == null)) {
+			throw new IOException("failed to create encoder," + mime, error[0]);
+		}
+		attach(result[0]);
+		return result[0];
+	}
+
+	/**
+	 * configure前のMediaCodecへMediaCodec.Callbackをセットする
+	 * API21/22では生成したスレッドのLooper上でコールバックされる
+	 * @param codec
+	 */
+	@SuppressLint("NewApi")
+	/*package*/ void attach(@NonNull final MediaCodec codec) {
+		if (BuildCheck.isAPI23()) {
+			codec.setCallback(mCallback, mHandler);
+		} else {
+			codec.setCallback(mCallback);
+		}
+	}
+
+	/**
+	 * 利用可能な入力バッファのインデックスを取得する
+	 * 非同期モードではMediaCodec#dequeueInputBufferの代わりにこれを使う
+	 * @param timeoutUs
+	 * @return 利用可能な入力バッファが無ければMediaCodec.INFO_TRY_AGAIN_LATER
+	 */
+	/*package*/ int dequeueInputBuffer(final long timeoutUs) {
+		try {
+			final Integer index = timeoutUs > 0
+				? mInputIndices.poll(timeoutUs, TimeUnit.MICROSECONDS)
+				: mInputIndices.poll();
+			return index != null ? index : MediaCodec.INFO_TRY_AGAIN_LATER;
+		} catch (final InterruptedException e) {
+			return MediaCodec.INFO_TRY_AGAIN_LATER;
+		}
+	}
+
+	/**
+	 * EOSを送信する
+	 * 利用可能な入力バッファがあればすぐに、無ければ次に入力バッファが
+	 * 利用可能になった時(MediaCodec.Callback#onInputBufferAvailable)に送信する。
+	 * 入力バッファのインデックスはハンドラースレッド上で供給されるので
+	 * ハンドラースレッドから呼び出してもブロックしない
+	 * @param codec
+	 * @param presentationTimeUs
+	 */
+	/*package*/ void signalEndOfInputStream(@NonNull final MediaCodec codec,
+		final long presentationTimeUs) {
+
+		final Integer index;
+		synchronized (mInputIndices) {
+			index = mInputIndices.poll();
+			if (index == null) {
+				mPendingEos = true;
+				mPendingEosPtsUs = presentationTimeUs;
+			}
+		}
+		if (index != null) {
+			queueEndOfStream(codec, index, presentationTimeUs);
+		}
+	}
+
+	private static void queueEndOfStream(@NonNull final MediaCodec codec,
+		final int index, final long presentationTimeUs) {
+
+		try {
+			codec.queueInputBuffer(index, 0, 0,
+				presentationTimeUs, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+		} catch (final Exception e) {
+			if (DEBUG) Log.w(TAG, e);
+		}
+	}
+
+	/**
+	 * ハンドラースレッド上で実行する
+	 * @param task
+	 */
+	/*package*/ void post(@NonNull final Runnable task) {
+		if (!mReleased) {
+			mHandler.post(task);
+		}
+	}
+
+	/**
+	 * 指定時間後にハンドラースレッド上で実行する
+	 * @param task
+	 * @param delayMs
+	 */
+	/*package*/ void postDelayed(@NonNull final Runnable task, final long delayMs) {
+		if (!mReleased) {
+			mHandler.postDelayed(task, delayMs);
+		}
+	}
+
+	private final MediaCodec.Callback mCallback = new MediaCodec.Callback() {
+		@Override
+		public void onInputBufferAvailable(@NonNull final MediaCodec codec, final int index) {
+			if (!mReleased) {
+				boolean eos = false;
+				long presentationTimeUs = 0;
+				synchronized (mInputIndices) {
+					if (mPendingEos) {
+						// EOSの送信待ちならこの入力バッファでEOSを送信する
+						mPendingEos = false;
+						eos = true;
+						presentationTimeUs = mPendingEosPtsUs;
+					} else {
+						mInputIndices.offer(index);
+					}
+				}
+				if (eos) {
+					queueEndOfStream(codec, index, presentationTimeUs);
+				}
+			}
+		}
+
+		@Override
+		public void onOutputBufferAvailable(@NonNull final MediaCodec codec,
+			final int index, @NonNull final MediaCodec.BufferInfo info) {
+
+			if (!mReleased) {
+				mListener.onOutputBufferAvailable(codec, index, info);
+			} else {
+				try {
+					codec.releaseOutputBuffer(index, false);
+				} catch (final Exception e) {
+					// ignore
+				}
+			}
+		}
+
+		@Override
+		public void onError(@NonNull final MediaCodec codec,
+			@NonNull final MediaCodec.CodecException e) {
+
+			if (DEBUG) Log.w(TAG, e);
+			if (!mReleased) {
+				mListener.onError(codec, e);
+			}
+		}
+
+		@Override
+		public void onOutputFormatChanged(@NonNull final MediaCodec codec,
+			@NonNull final MediaFormat format) {
+
+			if (DEBUG) Log.v(TAG, "onOutputFormatChanged:" + format);
+			if (!mReleased) {
+				mListener.onOutputFormatChanged(codec, format);
+			}
+		}
+	};
+}
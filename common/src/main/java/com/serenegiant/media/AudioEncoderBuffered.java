@@ -28,6 +28,8 @@ import android.media.AudioRecord;
 import android.media.MediaRecorder;
 import android.util.Log;
 
+import com.serenegiant.utils.SpscRingBuffer;
+
 /**
  *　FIFOキューによるバッファリング付きのAudioEncoder
  */
@@ -44,8 +46,26 @@ public class AudioEncoderBuffered extends AbstractAudioEncoder {
 	 * キューに入れる音声データのバッファサイズ
 	 */
 	protected int mBufferSize = SAMPLES_PER_FRAME;
+	/**
+	 * 互換性のために残しているだけで使っていない
+	 * @deprecated 音声データはmFramePool/mFrameQueueで受け渡す
+	 */
+	@Deprecated
 	protected final LinkedBlockingQueue<MediaData> mPool = new LinkedBlockingQueue<MediaData>(MAX_POOL_SIZE);
+	/**
+	 * 互換性のために残しているだけで使っていない
+	 * @deprecated 音声データはmFramePool/mFrameQueueで受け渡す
+	 */
+	@Deprecated
 	protected final LinkedBlockingQueue<MediaData> mAudioQueue = new LinkedBlockingQueue<MediaData>(MAX_QUEUE_SIZE);
+	/**
+	 * AudioThreadとDequeueThreadの間でのみ受け渡すのでSPSCのリングバッファーを使う
+	 * mFramePoolへの追加は両方のスレッドから行うので#recycleで排他制御する
+	 */
+	private final SpscRingBuffer<MediaData> mFramePool
+		= new SpscRingBuffer<MediaData>(MAX_POOL_SIZE, SpscRingBuffer.WAIT_SPIN_PARK);
+	private final SpscRingBuffer<MediaData> mFrameQueue
+		= new SpscRingBuffer<MediaData>(MAX_QUEUE_SIZE, SpscRingBuffer.WAIT_SPIN_PARK);
 
 	public AudioEncoderBuffered(final IRecorder recorder, final EncoderListener listener,
 								final int audio_source, final int audio_channels) {
@@ -79,7 +99,7 @@ public class AudioEncoderBuffered extends AbstractAudioEncoder {
 	private MediaData obtain() {
 		MediaData result = null;
 		try {
-			result = mPool.poll(20, TimeUnit.MILLISECONDS);
+			result = mFramePool.poll(20, TimeUnit.MILLISECONDS);
 		} catch (final InterruptedException e) {
 		}
 		if ((result == null) && (mBufferNum < MAX_POOL_SIZE) ) {
@@ -93,7 +113,9 @@ public class AudioEncoderBuffered extends AbstractAudioEncoder {
 	}
 
 	protected void recycle(final MediaData data) {
-		mPool.offer(data);
+		synchronized (mFramePool) {
+			mFramePool.offer(data);
+		}
 	}
 
 	/**
@@ -147,7 +169,7 @@ public class AudioEncoderBuffered extends AbstractAudioEncoder {
 										.size(readBytes);
 									buffer.position(readBytes);
 									buffer.flip();
-									mAudioQueue.offer(data);
+									mFrameQueue.offer(data);
 									continue;
 								} else if (readBytes == AudioRecord.SUCCESS) {	// == 0
 									err_count = 0;
@@ -214,7 +236,7 @@ public class AudioEncoderBuffered extends AbstractAudioEncoder {
             		if (!mIsCapturing || mRequestStop || mIsEOS) break;
             	}
     			try {
-					data = mAudioQueue.poll(30, TimeUnit.MILLISECONDS);
+					data = mFrameQueue.poll(30, TimeUnit.MILLISECONDS);
 				} catch (final InterruptedException e1) {
 					break;
 				}
@@ -68,9 +68,12 @@ public class AudioSampler extends IAudioSampler {
 	@Override
 	public synchronized void start() {
 //		if (DEBUG) Log.v(TAG, "start:mIsCapturing=" + mIsCapturing);
-		super.start();
 		if (mAudioThread == null) {
+			// コールバックスレッドがキューから取り出し始める前に初期化する
 			init_pool(SAMPLES_PER_FRAME);
+		}
+		super.start();
+		if (mAudioThread == null) {
 			// 内蔵マイクからの音声取り込みスレッド生成＆実行
 	        mAudioThread = new AudioThread();
 			mAudioThread.start();
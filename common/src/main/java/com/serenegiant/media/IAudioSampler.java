@@ -23,7 +23,6 @@ import java.lang.annotation.RetentionPolicy;
 import java.nio.ByteBuffer;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import android.annotation.SuppressLint;
@@ -36,6 +35,7 @@ import android.util.Log;
 
 import com.serenegiant.system.BuildCheck;
 import com.serenegiant.system.Time;
+import com.serenegiant.utils.SpscRingBuffer;
 
 public abstract class IAudioSampler {
 //	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
@@ -137,8 +137,9 @@ public abstract class IAudioSampler {
 	private final int MAX_QUEUE_SIZE = 200;
 
 	// 音声データキュー用
-	private final LinkedBlockingQueue<MediaData> mPool = new LinkedBlockingQueue<MediaData>(MAX_POOL_SIZE);
-	private final LinkedBlockingQueue<MediaData> mAudioQueue = new LinkedBlockingQueue<MediaData>(MAX_QUEUE_SIZE);
+	// 音声取得スレッドとコールバックスレッドの間でのみ受け渡すのでSPSCのリングバッファーを使う
+	private final SpscRingBuffer<MediaData> mPool = new SpscRingBuffer<MediaData>(MAX_POOL_SIZE);
+	private final SpscRingBuffer<MediaData> mAudioQueue = new SpscRingBuffer<MediaData>(MAX_QUEUE_SIZE);
 
 	// コールバック用
 	private CallbackThread mCallbackThread;
@@ -296,9 +297,11 @@ public abstract class IAudioSampler {
 	protected void init_pool(final int default_buffer_size) {
 		mDefaultBufferSize = default_buffer_size;
 		mAudioQueue.clear();
-		mPool.clear();
-		for (int i = 0; i < 8; i++) {
-			mPool.add(new MediaData(default_buffer_size));
+		synchronized (mPool) {
+			mPool.clear();
+			for (int i = 0; i < 8; i++) {
+				mPool.offer(new MediaData(default_buffer_size));
+			}
 		}
 	}
 
@@ -313,11 +316,9 @@ public abstract class IAudioSampler {
 	 */
 	protected MediaData obtain() {
 //		if (DEBUG) Log.v(TAG, "obtain:" + mPool.size() + ",mBufferNum=" + mBufferNum);
-		MediaData result = null;
-		if (!mPool.isEmpty()) {
-			// プールに空バッファが有る時
-			result = mPool.poll();
-		} else if (mBufferNum < MAX_POOL_SIZE) {
+		// プールに空バッファが有る時
+		MediaData result = mPool.poll();
+		if ((result == null) && (mBufferNum < MAX_POOL_SIZE)) {
 //			if (DEBUG) Log.i(TAG, "create MediaData");
 			result = new MediaData(mDefaultBufferSize);
 			mBufferNum++;
@@ -335,10 +336,13 @@ public abstract class IAudioSampler {
 	 */
 	protected void recycle(@NonNull final MediaData data) {
 //		if (DEBUG) Log.v(TAG, "recycle:" + mPool.size());
-		if (!mPool.offer(data)) {
-			// ここには来ないはず
-//			if (DEBUG) Log.i(TAG, "pool is full");
-			mBufferNum--;
+		// 音声取得スレッドとコールバックスレッドの両方から呼ばれるので追加のみ排他制御する
+		synchronized (mPool) {
+			if (!mPool.offer(data)) {
+				// ここには来ないはず
+//				if (DEBUG) Log.i(TAG, "pool is full");
+				mBufferNum--;
+			}
 		}
 	}
 
@@ -0,0 +1,480 @@
+package com.serenegiant.media;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.annotation.NonNull;
+
+/**
+ * MediaDataのバッファ用に1つの大きなダイレクトByteBufferを確保して
+ * 固定長のスラブに分割して貸し出すためのアリーナ
+ * 各スラブは最初に要求されたサイズクラス(2のべき乗)用に分割され、
+ * 分割したスライスは返却後に同じサイズクラスで再利用する。
+ * アリーナを使い切った時はサイズクラス毎にダイレクトByteBufferを確保して同様に再利用する。
+ * スラブサイズより大きいバッファは返却されたものをMAX_OVERSIZED_CACHE個まで保持して再利用する
+ */
+public class MediaArena {
+	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
+	private static final String TAG = MediaArena.class.getSimpleName();
+
+	/**
+	 * デフォルトのアリーナのサイズ(16MB)
+	 */
+	public static final int DEFAULT_ARENA_SIZE = 16 * 1024 * 1024;
+	/**
+	 * デフォルトのスラブサイズ(1MB)
+	 */
+	public static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+	/**
+	 * 最小サイズクラスのバイト数の2を底とする対数(1KB)
+	 */
+	private static final int MIN_SHIFT = 10;
+	/**
+	 * 再利用のために保持するスラブサイズより大きいバッファの最大数
+	 */
+	private static final int MAX_OVERSIZED_CACHE = 2;
+
+	private static MediaArena sDefault;
+
+	/**
+	 * アプリ全体で共有するデフォルトのMediaArenaを取得する
+	 * 最初に呼び出した時にDEFAULT_ARENA_SIZEのアリーナを確保する
+	 * @return
+	 */
+	@NonNull
+	public static synchronized MediaArena getDefault() {
+		if (sDefault == null) {
+			sDefault = new MediaArena();
+		}
+		return sDefault;
+	}
+
+	/**
+	 * アリーナから切り出したバッファ
+	 */
+	private static class Slice {
+		/**
+		 * サイズクラスのインデックス, 再利用しない時は-1
+		 */
+		private final int sizeClass;
+		@NonNull
+		private final ByteBuffer buffer;
+
+		private Slice(final int sizeClass, @NonNull final ByteBuffer buffer) {
+			this.sizeClass = sizeClass;
+			this.buffer = buffer;
+		}
+	}
+
+	/**
+	 * MediaArenaから貸し出したバッファ
+	 * 参照カウントが0になった時にアリーナへ返却される
+	 * #release後に#bufferで取得したByteBufferへアクセスしてはいけない
+	 */
+	public static class Lease {
+		@NonNull
+		private final MediaArena mArena;
+		@NonNull
+		private final Slice mSlice;
+		private final AtomicInteger mRefCount = new AtomicInteger(1);
+
+		private Lease(@NonNull final MediaArena arena, @NonNull final Slice slice) {
+			mArena = arena;
+			mSlice = slice;
+		}
+
+		/**
+		 * 貸し出しているByteBufferを取得する
+		 * @return
+		 */
+		@NonNull
+		public ByteBuffer buffer() {
+			return mSlice.buffer;
+		}
+
+		/**
+		 * 貸し出しているバッファの容量
+		 * @return
+		 */
+		public int capacity() {
+			return mSlice.buffer.capacity();
+		}
+
+		/**
+		 * 参照カウントを増やす
+		 * MediaDataを再利用した後もバッファを使い続ける時などに呼ぶ
+		 * @return
+		 * @throws IllegalStateException 既にアリーナへ返却済みの時
+		 */
+		@NonNull
+		public Lease retain() {
+			for ( ; ; ) {
+				final int count = mRefCount.get();
+				if (count <= 0) {
+					throw new IllegalStateException("already released");
+				}
+				if (mRefCount.compareAndSet(count, count + 1)) {
+					return this;
+				}
+			}
+		}
+
+		/**
+		 * 参照カウントを減らす
+		 * 参照カウントが0になればバッファをアリーナへ返却する
+		 */
+		public void release() {
+			final int count = mRefCount.decrementAndGet();
+			if (count == 0) {
+				mArena.recycle(mSlice);
+			} else if (count < 0) {
+				throw new IllegalStateException("already released");
+			}
+		}
+
+		@NonNull
+		@Override
+		public String toString() {
+			return "Lease{" +
+				"capacity=" + capacity() +
+				", refCount=" + mRefCount.get() +
+				'}';
+		}
+	}
+
+	/**
+	 * 統計情報
+	 * プールサイズやアリーナサイズを決める時の参考にする
+	 */
+	public static class Stats {
+		/**
+		 * 貸し出した回数
+		 */
+		public final long allocations;
+		/**
+		 * アリーナが足りずにダイレクトByteBufferを確保した回数
+		 */
+		public final long fallbacks;
+		/**
+		 * スラブサイズより大きいバッファを確保した回数
+		 */
+		public final long oversized;
+		/**
+		 * スラブサイズより大きいバッファを保持していたものから再利用した回数
+		 */
+		public final long oversizedHits;
+		/**
+		 * サイズクラスへ割り当て済みのスラブの数
+		 */
+		public final int usedSlabs;
+		/**
+		 * スラブの総数
+		 */
+		public final int totalSlabs;
+		/**
+		 * 貸し出し中のバイト数
+		 */
+		public final long bytesInUse;
+		/**
+		 * 貸し出し中のバイト数の最大値
+		 */
+		public final long highWaterBytes;
+		/**
+		 * サイズクラス毎の貸し出し中の数
+		 */
+		@NonNull
+		public final int[] inUse;
+		/**
+		 * サイズクラス毎の貸し出し中の数の最大値
+		 */
+		@NonNull
+		public final int[] highWater;
+
+		private Stats(@NonNull final MediaArena arena) {
+			allocations = arena.mAllocations;
+			fallbacks = arena.mFallbacks;
+			oversized = arena.mOversized;
+			oversizedHits = arena.mOversizedHits;
+			usedSlabs = arena.mNextSlab;
+			totalSlabs = arena.mNumSlabs;
+			bytesInUse = arena.mBytesInUse;
+			highWaterBytes = arena.mHighWaterBytes;
+			inUse = arena.mInUse.clone();
+			highWater = arena.mHighWater.clone();
+		}
+
+		/**
+		 * 指定したサイズクラスのバイト数
+		 * @param sizeClass
+		 * @return
+		 */
+		public static int bytesOf(final int sizeClass) {
+			return 1 << (sizeClass + MIN_SHIFT);
+		}
+
+		@NonNull
+		@Override
+		public String toString() {
+			return "Stats{" +
+				"allocations=" + allocations +
+				", fallbacks=" + fallbacks +
+				", oversized=" + oversized +
+				", oversizedHits=" + oversizedHits +
+				", slabs=" + usedSlabs + "/" + totalSlabs +
+				", bytesInUse=" + bytesInUse +
+				", highWaterBytes=" + highWaterBytes +
+				", inUse=" + Arrays.toString(inUse) +
+				", highWater=" + Arrays.toString(highWater) +
+				'}';
+		}
+	}
+
+	@NonNull
+	private final ByteBuffer mArena;
+	private final int mSlabShift;
+	private final int mNumSlabs;
+	/**
+	 * サイズクラス毎の未使用のスライス
+	 */
+	@NonNull
+	private final List<List<Slice>> mFree;
+	/**
+	 * 返却されたスラブサイズより大きいバッファ
+	 */
+	@NonNull
+	private final List<Slice> mOversizedFree = new ArrayList<Slice>(MAX_OVERSIZED_CACHE);
+	/**
+	 * これまでに要求されたスラブサイズより大きいバッファの最大サイズ
+	 */
+	private int mMaxOversize;
+	/**
+	 * 次にサイズクラスへ割り当てるスラブのインデックス
+	 */
+	private int mNextSlab;
+	private long mAllocations;
+	private long mFallbacks;
+	private long mOversized;
+	private long mOversizedHits;
+	private long mBytesInUse;
+	private long mHighWaterBytes;
+	@NonNull
+	private final int[] mInUse;
+	@NonNull
+	private final int[] mHighWater;
+
+	/**
+	 * コンストラクタ
+	 * アリーナのサイズはDEFAULT_ARENA_SIZE, スラブサイズはDEFAULT_SLAB_SIZE
+	 */
+	public MediaArena() {
+		this(DEFAULT_ARENA_SIZE, DEFAULT_SLAB_SIZE);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param arenaSize アリーナのサイズ, スラブサイズの倍数に切り捨てる
+	 * @param slabSize スラブサイズ, 2のべき乗に切り上げる, 1回に貸し出せる最大サイズでもある
+	 */
+	public MediaArena(final int arenaSize, final int slabSize) {
+		mSlabShift = Math.min(30, Math.max(MIN_SHIFT, shiftOf(slabSize)));
+		mNumSlabs = Math.max(0, arenaSize) >>> mSlabShift;
+		mArena = ByteBuffer.allocateDirect(mNumSlabs << mSlabShift);
+		final int n = mSlabShift - MIN_SHIFT + 1;
+		mFree = new ArrayList<List<Slice>>(n);
+		for (int i = 0; i < n; i++) {
+			mFree.add(new ArrayList<Slice>());
+		}
+		mInUse = new int[n];
+		mHighWater = new int[n];
+	}
+
+	/**
+	 * スラブサイズ
+	 * これより大きいバッファはサイズクラスを使わずに確保する
+	 * @return
+	 */
+	public int slabSize() {
+		return 1 << mSlabShift;
+	}
+
+	/**
+	 * 指定したバイト数以上の容量のバッファを参照カウント付きで貸し出す
+	 * 返すByteBufferはposition=0, limit=capacity
+	 * 使い終わったらLease#releaseを呼ぶこと
+	 * @param size
+	 * @return
+	 */
+	@NonNull
+	public synchronized Lease lease(final int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("negative size," + size);
+		}
+		final int shift = shiftOf(size);
+		final Slice slice;
+		if (shift > mSlabShift) {
+			slice = obtainOversized(size);
+		} else {
+			final int sizeClass = shift - MIN_SHIFT;
+			final List<Slice> free = mFree.get(sizeClass);
+			if (free.isEmpty()) {
+				carve(sizeClass);
+			}
+			if (!free.isEmpty()) {
+				slice = free.remove(free.size() - 1);
+			} else {
+				mFallbacks++;
+				slice = new Slice(sizeClass, ByteBuffer.allocateDirect(1 << shift));
+			}
+			if (++mInUse[sizeClass] > mHighWater[sizeClass]) {
+				mHighWater[sizeClass] = mInUse[sizeClass];
+			}
+		}
+		mAllocations++;
+		mBytesInUse += slice.buffer.capacity();
+		if (mBytesInUse > mHighWaterBytes) {
+			mHighWaterBytes = mBytesInUse;
+		}
+		slice.buffer.clear();
+		return new Lease(this, slice);
+	}
+
+	/**
+	 * 統計情報を取得する
+	 * @return
+	 */
+	@NonNull
+	public synchronized Stats getStats() {
+		return new Stats(this);
+	}
+
+	/**
+	 * 統計情報の最大値を現在の値にリセットする
+	 */
+	public synchronized void resetHighWater() {
+		mHighWaterBytes = mBytesInUse;
+		System.arraycopy(mInUse, 0, mHighWater, 0, mInUse.length);
+	}
+
+	/**
+	 * Lease#releaseで参照カウントが0になった時の処理
+	 * @param slice
+	 */
+	private synchronized void recycle(@NonNull final Slice slice) {
+		mBytesInUse -= slice.buffer.capacity();
+		if (slice.sizeClass >= 0) {
+			mInUse[slice.sizeClass]--;
+			mFree.get(slice.sizeClass).add(slice);
+		} else if (mOversizedFree.size() < MAX_OVERSIZED_CACHE) {
+			mOversizedFree.add(slice);
+		} else {
+			// 保持しているバッファの中で一番小さいものより大きければ入れ替える
+			int min = 0;
+			final int n = mOversizedFree.size();
+			for (int i = 1; i < n; i++) {
+				if (mOversizedFree.get(i).buffer.capacity()
+					< mOversizedFree.get(min).buffer.capacity()) {
+					min = i;
+				}
+			}
+			if (mOversizedFree.get(min).buffer.capacity() < slice.buffer.capacity()) {
+				mOversizedFree.set(min, slice);
+			}
+		}
+	}
+
+	/**
+	 * スラブサイズより大きいバッファを取得する
+	 * 返却済みのバッファの中に指定したサイズ以上のものがあれば一番小さいものを再利用する
+	 * 新しく確保する時は次回も再利用できるようにこれまでに要求された最大サイズで確保する
+	 * @param size
+	 * @return
+	 */
+	@NonNull
+	private Slice obtainOversized(final int size) {
+		int found = -1;
+		final int n = mOversizedFree.size();
+		for (int i = 0; i < n; i++) {
+			final int capacity = mOversizedFree.get(i).buffer.capacity();
+			if ((capacity >= size)
+				&& ((found < 0) || (capacity < mOversizedFree.get(found).buffer.capacity()))) {
+
+				found = i;
+			}
+		}
+		if (found >= 0) {
+			mOversizedHits++;
+			return mOversizedFree.remove(found);
+		}
+		if (size > mMaxOversize) {
+			mMaxOversize = size;
+		}
+		mOversized++;
+		return new Slice(-1, ByteBuffer.allocateDirect(mMaxOversize));
+	}
+
+	/**
+	 * 未割り当てのスラブを指定したサイズクラスへ割り当てて分割する
+	 * @param sizeClass
+	 */
+	private void carve(final int sizeClass) {
+		if (mNextSlab >= mNumSlabs) return;
+		final int sliceSize = 1 << (sizeClass + MIN_SHIFT);
+		final int top = mNextSlab << mSlabShift;
+		final int n = 1 << (mSlabShift - MIN_SHIFT - sizeClass);
+		if (DEBUG) Log.v(TAG, "carve:slab=" + mNextSlab + ",sliceSize=" + sliceSize + ",n=" + n);
+		mNextSlab++;
+		final List<Slice> free = mFree.get(sizeClass);
+		for (int i = n - 1; i >= 0; i--) {
+			final ByteBuffer dup = mArena.duplicate();
+			dup.limit(top + (i + 1) * sliceSize);
+			dup.position(top + i * sliceSize);
+			free.add(new Slice(sizeClass, dup.slice()));
+		}
+	}
+
+	/**
+	 * 指定したバイト数を保持できるサイズクラスの2を底とする対数
+	 * @param size
+	 * @return
+	 */
+	private static int shiftOf(final int size) {
+		if (size <= (1 << MIN_SHIFT)) {
+			return MIN_SHIFT;
+		} else if (size > (1 << 30)) {
+			return 31;
+		}
+		return 32 - Integer.numberOfLeadingZeros(size - 1);
+	}
+
+	@NonNull
+	@Override
+	public String toString() {
+		return "MediaArena{" +
+			"slabSize=" + slabSize() +
+			", numSlabs=" + mNumSlabs +
+			'}';
+	}
+}
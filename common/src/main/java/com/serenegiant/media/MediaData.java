@@ -34,6 +34,16 @@ public class MediaData {
 	private ByteOrder mByteOrder = ByteOrder.nativeOrder();
 	private int mTrackIx;
 	private ByteBuffer mBuffer;
+	/**
+	 * 内部バッファをMediaArenaから確保する時のアリーナ
+	 */
+	@Nullable
+	private MediaArena mArena;
+	/**
+	 * MediaArenaから確保した内部バッファ
+	 */
+	@Nullable
+	private MediaArena.Lease mLease;
 	private int mFlags;
 	private int mSize;
 	private long mPresentationTimeUs;
@@ -69,12 +79,34 @@ public class MediaData {
 		resize(size);
 	}
 
+	/**
+	 * コンストラクタ
+	 * 内部バッファはMediaArenaから確保する
+	 * @param arena
+	 */
+	public MediaData(@NonNull final MediaArena arena) {
+		mArena = arena;
+	}
+
+	/**
+	 * コンストラクタ
+	 * 内部バッファはMediaArenaから確保する
+	 * @param arena
+	 * @param size データ保持用の内部バッファのデフォルトサイズ
+	 */
+	public MediaData(@NonNull final MediaArena arena, @IntRange(from=0)final int size) {
+		mArena = arena;
+		resize(size);
+	}
+
 	/**
 	 * コピーコンストラクタ(ディープコピー)
+	 * コピー元がMediaArenaを使っている時は同じアリーナから内部バッファを確保する
 	 * @param src
 	 */
 	public MediaData(@NonNull MediaData src) {
 		mByteOrder = src.mByteOrder;
+		mArena = src.mArena;
 		set(src.mTrackIx, src.mBuffer, 0, src.mSize, src.mPresentationTimeUs, src.mFlags);
 	}
 
@@ -200,19 +232,66 @@ public class MediaData {
 	 */
 	public MediaData resize(@IntRange(from=0)final int newSize) {
 		if ((mBuffer == null) || (mBuffer.capacity() < newSize)) {
-			mBuffer = ByteBuffer.allocateDirect(newSize)
-				.order(mByteOrder);
+			if (mArena != null) {
+				final MediaArena.Lease lease = mArena.lease(newSize);
+				releaseLease();
+				mLease = lease;
+				mBuffer = lease.buffer().order(mByteOrder);
+			} else {
+				mBuffer = ByteBuffer.allocateDirect(newSize)
+					.order(mByteOrder);
+			}
 		}
 		mBuffer.clear();
 		return this;
 	}
-	
+
+	/**
+	 * 内部バッファを破棄する
+	 * MediaArenaから確保していればアリーナへ返却する。
+	 * 破棄後も#resize/#setを呼べば再度内部バッファを確保する
+	 */
+	public void release() {
+		mSize = mFlags = 0;
+		releaseLease();
+		mBuffer = null;
+	}
+
+	/**
+	 * 内部バッファを確保するMediaArenaを取得する
+	 * @return MediaArenaを使っていなければnull
+	 */
+	@Nullable
+	public MediaArena arena() {
+		return mArena;
+	}
+
+	/**
+	 * MediaArenaから確保した内部バッファを取得する
+	 * #release後やプールへ戻した後もバッファを使い続ける時は
+	 * MediaArena.Lease#retainで参照カウントを増やすこと
+	 * @return MediaArenaを使っていないか未確保ならnull
+	 */
+	@Nullable
+	public MediaArena.Lease lease() {
+		return mLease;
+	}
+
+	private void releaseLease() {
+		if (mLease != null) {
+			mLease.release();
+			mLease = null;
+		}
+	}
+
 	/**
 	 * データをクリア
 	 */
 	public void clear() {
 		mSize = mFlags = 0;
-		mBuffer.clear();
+		if (mBuffer != null) {
+			mBuffer.clear();
+		}
 	}
 	
 	/**
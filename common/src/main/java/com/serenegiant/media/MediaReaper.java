@@ -26,6 +26,7 @@ import android.os.Build;
 import android.util.Log;
 
 import com.serenegiant.media.exceptions.TimeoutException;
+import com.serenegiant.metrics.Metrics;
 import com.serenegiant.system.BuildCheck;
 
 import java.lang.annotation.Retention;
@@ -54,6 +55,22 @@ public abstract class MediaReaper implements Runnable {
 
 	public static final int TIMEOUT_USEC = 10000;	// 10ミリ秒
 
+	/**
+	 * 計測値の名前: 映像/音声の出力バイト数
+	 */
+	public static final String METRIC_VIDEO_BYTES = "media.reaper.video.bytes";
+	public static final String METRIC_AUDIO_BYTES = "media.reaper.audio.bytes";
+	/**
+	 * 計測値の名前: 映像/音声の出力フレーム数
+	 */
+	public static final String METRIC_VIDEO_FRAMES = "media.reaper.video.frames";
+	public static final String METRIC_AUDIO_FRAMES = "media.reaper.audio.frames";
+	/**
+	 * 計測値の名前: 映像/音声のReaperListener#writeSampleDataの処理時間[ナノ秒]
+	 */
+	public static final String METRIC_VIDEO_WRITE_TIME = "media.reaper.video.write_time";
+	public static final String METRIC_AUDIO_WRITE_TIME = "media.reaper.audio.write_time";
+
 	public interface ReaperListener {
 		public void writeSampleData(@NonNull final MediaReaper reaper,
 			final ByteBuffer byteBuf, final MediaCodec.BufferInfo bufferInfo);
@@ -69,8 +86,22 @@ public abstract class MediaReaper implements Runnable {
 		private final int mHeight;
 		public VideoReaper(final MediaCodec encoder, @NonNull final ReaperListener listener,
 			final int width, final int height) {
+
+			this(encoder, listener, width, height, false);
+		}
+
+		/**
+		 * コンストラクタ
+		 * @param encoder asyncモードの時はconfigure前のMediaCodecであること
+		 * @param listener
+		 * @param width
+		 * @param height
+		 * @param async MediaCodec#setCallbackを使った非同期モードにするかどうか, API>=21
+		 */
+		public VideoReaper(final MediaCodec encoder, @NonNull final ReaperListener listener,
+			final int width, final int height, final boolean async) {
 			
-			super(REAPER_VIDEO, encoder, listener);
+			super(REAPER_VIDEO, encoder, listener, async);
 			if (DEBUG) Log.v(TAG, "VideoReaper#コンストラクタ");
 			mWidth = width;
 			mHeight = height;
@@ -113,7 +144,21 @@ public abstract class MediaReaper implements Runnable {
 		public AudioReaper(final MediaCodec encoder, @NonNull final ReaperListener listener,
 			final int sampleRate, final int channelCount) {
 
-			super(REAPER_AUDIO, encoder, listener);
+			this(encoder, listener, sampleRate, channelCount, false);
+		}
+
+		/**
+		 * コンストラクタ
+		 * @param encoder asyncモードの時はconfigure前のMediaCodecであること
+		 * @param listener
+		 * @param sampleRate
+		 * @param channelCount
+		 * @param async MediaCodec#setCallbackを使った非同期モードにするかどうか, API>=21
+		 */
+		public AudioReaper(final MediaCodec encoder, @NonNull final ReaperListener listener,
+			final int sampleRate, final int channelCount, final boolean async) {
+
+			super(REAPER_AUDIO, encoder, listener, async);
 			mSampleRate = sampleRate;
 			mChannelCount = channelCount;
 		}
@@ -150,29 +195,100 @@ public abstract class MediaReaper implements Runnable {
 	private boolean mRequestStop;
 	private int mRequestDrain;
 	private volatile boolean mIsEOS;
-
+	/**
+	 * 非同期モードの時のMediaCodec.Callbackの処理用, ポーリングモードならnull
+	 */
+	private final AsyncCodecDrainer mDrainer;
+	/**
+	 * 計測値の名前, reaperTypeに応じて選択する
+	 */
+	@NonNull
+	private final String mBytesMetric, mFramesMetric, mWriteTimeMetric;
 
 	public MediaReaper(@ReaperType final int reaperType,
 		final MediaCodec encoder, @NonNull final ReaperListener listener) {
 
-		if (DEBUG) Log.v(TAG, "コンストラクタ:");
+		this(reaperType, encoder, listener, false);
+	}
+
+	/**
+	 * コンストラクタ
+	 * asyncモードの時はdequeueOutputBufferでポーリングせずに、
+	 * MediaCodec.Callbackで出力バッファが準備でき次第専用のハンドラースレッド上で
+	 * ReaperListener#writeSampleDataを呼び出す。
+	 * API21未満の時はasyncを指定してもポーリングモードになる
+	 * @param reaperType
+	 * @param encoder asyncモードの時はconfigure前のMediaCodecであること
+	 * @param listener
+	 * @param async MediaCodec#setCallbackを使った非同期モードにするかどうか
+	 */
+	@SuppressLint("NewApi")
+	public MediaReaper(@ReaperType final int reaperType,
+		final MediaCodec encoder, @NonNull final ReaperListener listener,
+		final boolean async) {
+
+		if (DEBUG) Log.v(TAG, "コンストラクタ:async=" + async);
 		mWeakEncoder = new WeakReference<MediaCodec>(encoder);
 		mListener = listener;
 		mReaperType = reaperType;
+		final boolean isVideo = reaperType == REAPER_VIDEO;
+		mBytesMetric = isVideo ? METRIC_VIDEO_BYTES : METRIC_AUDIO_BYTES;
+		mFramesMetric = isVideo ? METRIC_VIDEO_FRAMES : METRIC_AUDIO_FRAMES;
+		mWriteTimeMetric = isVideo ? METRIC_VIDEO_WRITE_TIME : METRIC_AUDIO_WRITE_TIME;
 		mBufferInfo = new MediaCodec.BufferInfo();
-		synchronized (mSync) {
-			// Reaperスレッドを生成
-			new Thread(this, getClass().getSimpleName()).start();
-			try {
-				mSync.wait();	// エンコーダースレッド起床待ち
-			} catch (final InterruptedException e) {
-				// ignore
+		if (async && BuildCheck.isLollipop()) {
+			mDrainer = new AsyncCodecDrainer(getClass().getSimpleName(), mDrainerListener);
+			mDrainer.attach(encoder);
+			mIsRunning = true;
+		} else {
+			mDrainer = null;
+			synchronized (mSync) {
+				// Reaperスレッドを生成
+				new Thread(this, getClass().getSimpleName()).start();
+				try {
+					mSync.wait();	// エンコーダースレッド起床待ち
+				} catch (final InterruptedException e) {
+					// ignore
+				}
 			}
 		}
 	}
 
+	/**
+	 * 非同期モードかどうか
+	 * @return
+	 */
+	public boolean isAsync() {
+		return mDrainer != null;
+	}
+
+	/**
+	 * 非同期モードの時に利用可能な入力バッファのインデックスを取得する
+	 * 非同期モードではMediaCodec#dequeueInputBufferを呼べないので代わりにこれを使う
+	 * @param timeoutUs
+	 * @return
+	 * @throws IllegalStateException 非同期モードでない時
+	 */
+	@SuppressLint("NewApi")
+	public int dequeueInputBuffer(final long timeoutUs) throws IllegalStateException {
+		if (mDrainer == null) {
+			throw new IllegalStateException("not in async mode");
+		}
+		return mDrainer.dequeueInputBuffer(timeoutUs);
+	}
+
+	@SuppressLint("NewApi")
 	public void release() {
 		if (DEBUG) Log.v(TAG, "release:");
+		if (mDrainer != null) {
+			// 非同期モードの時は既に受け取っているコールバックを処理してからハンドラースレッドを終了する
+			synchronized (mSync) {
+				mRequestStop = true;
+				mIsRunning = false;
+			}
+			mDrainer.release();
+			return;
+		}
 		if (mIsRunning && !mRequestStop) {
 			mRequestStop = true;
 //			final MediaCodec encoder = mWeakEncoder.get();
@@ -191,6 +307,10 @@ public abstract class MediaReaper implements Runnable {
 
 	public void frameAvailableSoon() {
 //		if (DEBUG) Log.v(TAG, "frameAvailableSoon:");
+		if (mDrainer != null) {
+			// 非同期モードの時はMediaCodec.Callbackで処理するので何もしない
+			return;
+		}
         synchronized (mSync) {
             if (!mIsRunning || mRequestStop) {
                 return;
@@ -356,46 +476,14 @@ LOOP:	for ( ; mIsRunning ; ) {
                 	// 出力バッファインデックスが来てるのに出力バッファを取得できない・・・無いはずやねんけど
                     throw new RuntimeException("encoderOutputBuffer " + encoderStatus + " was null");
                 }
-                if ((mBufferInfo.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0) {
-//					if (DEBUG) Log.d(TAG, "drain:BUFFER_FLAG_CODEC_CONFIG");
-                	// Android4.3未満をターゲットにするならここで処理しないと駄目
-                    if (!mRecorderStarted) {	// 1回目に来た時だけ処理する
-						final MediaFormat outFormat = createOutputFormat(mBufferInfo, encodedData);
-                        if (!callOnFormatChanged(outFormat)) {
-                        	break LOOP;
-						}
-                    }
-					mBufferInfo.size = 0;	// XXX BUFFER_FLAG_CODEC_CONFIGが来たときはスキップさせないといけない
-                }
-
-                if (mBufferInfo.size != 0) {
+                if ((mBufferInfo.size != 0)
+                	&& ((mBufferInfo.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) == 0)) {
                 	// エンコード済みバッファにデータが入っている時・・・待機カウンタをクリア
-            		count = 0;
-                    if (!mRecorderStarted) {
-                    	// でも出力可能になっていない時
-                    	// =INFO_OUTPUT_FORMAT_CHANGED/BUFFER_FLAG_CODEC_CONFIGをまだ受け取ってない時
-                        throw new RuntimeException("drain:muxer hasn't started");
-                    }
-                    // ファイルに出力(presentationTimeUsを調整)
-                    try {
-	                   	mBufferInfo.presentationTimeUs
-	                   		= getNextOutputPTSUs(mBufferInfo.presentationTimeUs);
-	                   	mListener.writeSampleData(MediaReaper.this, encodedData, mBufferInfo);
-                    } catch (final TimeoutException e) {
-//						if (DEBUG) Log.v(TAG, "最大録画時間を超えた", e);
-						callOnError(e);
-                    } catch (final Exception e) {
-//						if (DEBUG) Log.w(TAG, e);
-						callOnError(e);
-                    }
-                }
-                // 出力済みのバッファをエンコーダーに返す
-                encoder.releaseOutputBuffer(encoderStatus, false);
-                if ((mBufferInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
-                	// ストリーム終了指示が来た時
-                	callOnStop();
-					break LOOP;
-                }
+                	count = 0;
+				}
+                if (!handleOutput(encoder, encoderStatus, encodedData, mBufferInfo)) {
+                	break LOOP;
+				}
             }
         }	// for ( ; mIsRunning ; )
 //		if (DEBUG) Log.v(TAG, "drain:finished");
@@ -442,51 +530,130 @@ LOOP:	for ( ; mIsRunning ; ) {
                 	// 出力バッファインデックスが来てるのに出力バッファを取得できない・・・無いはずやねんけど
                     throw new RuntimeException("encoderOutputBuffer " + encoderStatus + " was null");
                 }
-                if ((mBufferInfo.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0) {
-//					if (DEBUG) Log.d(TAG, "drain:BUFFER_FLAG_CODEC_CONFIG");
-                	// Android4.3未満をターゲットにするならここで処理しないと駄目
-                    if (!mRecorderStarted) {	// 1回目に来た時だけ処理する
-                    	final MediaFormat outFormat = createOutputFormat(mBufferInfo, encodedData);
-                        if (!callOnFormatChanged(outFormat)) {
-                        	break LOOP;
-						}
-                    }
-					mBufferInfo.size = 0;	// XXX BUFFER_FLAG_CODEC_CONFIGが来たときはスキップさせないといけない
-                }
-
-                if (mBufferInfo.size != 0) {
+                if ((mBufferInfo.size != 0)
+                	&& ((mBufferInfo.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) == 0)) {
                 	// エンコード済みバッファにデータが入っている時・・・待機カウンタをクリア
-            		count = 0;
-                    if (!mRecorderStarted) {
-                    	// でも出力可能になっていない時
-                    	// =INFO_OUTPUT_FORMAT_CHANGED/BUFFER_FLAG_CODEC_CONFIGをまだ受け取ってない時
-                        throw new RuntimeException("drain:muxer hasn't started");
-                    }
-                    // ファイルに出力(presentationTimeUsを調整)
-                    try {
-	                   	mBufferInfo.presentationTimeUs
-	                   		= getNextOutputPTSUs(mBufferInfo.presentationTimeUs);
-	                   	mListener.writeSampleData(MediaReaper.this, encodedData, mBufferInfo);
-                    } catch (final TimeoutException e) {
-//						if (DEBUG) Log.v(TAG, "最大録画時間を超えた", e);
-						callOnError(e);
-                    } catch (final Exception e) {
-//						if (DEBUG) Log.w(TAG, e);
-						callOnError(e);
-                    }
-                }
-                // 出力済みのバッファをエンコーダーに返す
-                encoder.releaseOutputBuffer(encoderStatus, false);
-                if ((mBufferInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
-                	// ストリーム終了指示が来た時
-                	callOnStop();
-					break LOOP;
-                }
+                	count = 0;
+				}
+                if (!handleOutput(encoder, encoderStatus, encodedData, mBufferInfo)) {
+                	break LOOP;
+				}
             }
         }	// for ( ; mIsRunning ; )
 //		if (DEBUG) Log.v(TAG, "drain:finished");
     }
 
+	/**
+	 * 非同期モードでのMediaCodec.Callbackからのイベント処理
+	 * 全てAsyncCodecDrainerのハンドラースレッド上で呼ばれる
+	 */
+	@SuppressLint("NewApi")
+	private final AsyncCodecDrainer.Listener mDrainerListener
+		= new AsyncCodecDrainer.Listener() {
+
+		@Override
+		public void onOutputBufferAvailable(@NonNull final MediaCodec codec,
+			final int index, @NonNull final MediaCodec.BufferInfo info) {
+
+			if (!mIsRunning) {
+				codec.releaseOutputBuffer(index, false);
+				return;
+			}
+			try {
+				final ByteBuffer encodedData = codec.getOutputBuffer(index);	// API>=21
+				if (encodedData == null) {
+					codec.releaseOutputBuffer(index, false);
+					throw new RuntimeException("encoderOutputBuffer " + index + " was null");
+				}
+				if (!handleOutput(codec, index, encodedData, info)) {
+					// ストリーム終了またはエラー
+					// ポーリングモードでdrainループを抜けるのと同様に以降の出力バッファは処理しない
+					if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+						mIsEOS = true;
+					}
+					release();
+				}
+			} catch (final Exception e) {
+				callOnError(e);
+			}
+		}
+
+		@Override
+		public void onOutputFormatChanged(@NonNull final MediaCodec codec,
+			@NonNull final MediaFormat format) {
+
+			if (mRecorderStarted) {	// ２回目が来た時はエラー
+				callOnError(new RuntimeException("format changed twice"));
+			} else if (!callOnFormatChanged(format)) {
+				// ポーリングモードと同様に以降の出力バッファは処理しない
+				release();
+			}
+		}
+
+		@Override
+		public void onError(@NonNull final MediaCodec codec, @NonNull final Exception e) {
+			callOnError(e);
+		}
+	};
+
+	/**
+	 * エンコード済みの出力バッファ1つ分を処理してエンコーダーへ返却する
+	 * ポーリングモードと非同期モードで共通
+	 * @param encoder
+	 * @param index
+	 * @param encodedData
+	 * @param info
+	 * @return 続けて処理できる時はtrue, ストリーム終了またはエラーで中断する時はfalse
+	 */
+	private boolean handleOutput(@NonNull final MediaCodec encoder, final int index,
+		@NonNull final ByteBuffer encodedData, @NonNull final MediaCodec.BufferInfo info) {
+
+		boolean result = true;
+		if ((info.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0) {
+//			if (DEBUG) Log.d(TAG, "drain:BUFFER_FLAG_CODEC_CONFIG");
+			// Android4.3未満をターゲットにするならここで処理しないと駄目
+			if (!mRecorderStarted) {	// 1回目に来た時だけ処理する
+				final MediaFormat outFormat = createOutputFormat(info, encodedData);
+				result = callOnFormatChanged(outFormat);
+			}
+			info.size = 0;	// XXX BUFFER_FLAG_CODEC_CONFIGが来たときはスキップさせないといけない
+		}
+
+		if (result && (info.size != 0)) {
+			if (!mRecorderStarted) {
+				// でも出力可能になっていない時
+				// =INFO_OUTPUT_FORMAT_CHANGED/BUFFER_FLAG_CODEC_CONFIGをまだ受け取ってない時
+				encoder.releaseOutputBuffer(index, false);
+				throw new RuntimeException("drain:muxer hasn't started");
+			}
+			// ファイルに出力(presentationTimeUsを調整)
+			try {
+				info.presentationTimeUs
+					= getNextOutputPTSUs(info.presentationTimeUs);
+				final int size = info.size;
+				final long start = Metrics.startTimer();
+				mListener.writeSampleData(MediaReaper.this, encodedData, info);
+				Metrics.stopTimer(mWriteTimeMetric, start);
+				Metrics.count(mBytesMetric, size);
+				Metrics.count(mFramesMetric, 1);
+			} catch (final TimeoutException e) {
+//				if (DEBUG) Log.v(TAG, "最大録画時間を超えた", e);
+				callOnError(e);
+			} catch (final Exception e) {
+//				if (DEBUG) Log.w(TAG, e);
+				callOnError(e);
+			}
+		}
+		// 出力済みのバッファをエンコーダーに返す
+		encoder.releaseOutputBuffer(index, false);
+		if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+			// ストリーム終了指示が来た時
+			callOnStop();
+			result = false;
+		}
+		return result;
+	}
+
 	/**
 	 * Android4.3未満でBUFFER_FLAG_CODEC_CONFIGフラグがセットされたときに
 	 * csd0, csd1から出力用のMediaFormatを生成するためのヘルパーメソッド
@@ -506,7 +673,7 @@ LOOP:	for ( ; mIsRunning ; ) {
 		final int ix0 = MediaCodecHelper.findStartMarker(tmp, 0);
 		final int ix1 = MediaCodecHelper.findStartMarker(tmp, ix0 + 2);
 		final int ix2 = MediaCodecHelper.findStartMarker(tmp, ix1 + 2);
-		return createOutputFormat(tmp, mBufferInfo.size, ix0, ix1, ix2);
+		return createOutputFormat(tmp, info.size, ix0, ix1, ix2);
 	}
 
 	protected abstract MediaFormat createOutputFormat(final byte[] csd, final int size,
@@ -18,6 +18,7 @@ package com.serenegiant.media;
  *  limitations under the License.
 */
 
+import com.serenegiant.metrics.Metrics;
 import com.serenegiant.utils.Pool;
 
 import java.util.concurrent.LinkedBlockingQueue;
@@ -32,6 +33,14 @@ import androidx.annotation.Nullable;
  */
 
 public class MemMediaQueue implements IMediaQueue {
+	/**
+	 * 計測値の名前: キューの長さ
+	 */
+	public static final String METRIC_QUEUE_DEPTH = "media.mem_queue.queue_depth";
+	/**
+	 * 計測値の名前: プールが空で最大数まで生成済みのためにバッファを取得できなかった回数
+	 */
+	public static final String METRIC_POOL_EXHAUSTED = "media.mem_queue.pool_exhausted";
 
 	private final LinkedBlockingQueue<IRecycleBuffer> mQueue
 		= new LinkedBlockingQueue<IRecycleBuffer>();
@@ -87,12 +96,18 @@ public class MemMediaQueue implements IMediaQueue {
 	
 	@Override
 	public IRecycleBuffer obtain(@Nullable final Object... args) {
-		return mPool.obtain(args);
+		final IRecycleBuffer result = mPool.obtain(args);
+		if (result == null) {
+			Metrics.count(METRIC_POOL_EXHAUSTED, 1);
+		}
+		return result;
 	}
 	
 	@Override
 	public boolean queueFrame(final IRecycleBuffer buffer) {
-		return mQueue.offer(buffer);
+		final boolean result = mQueue.offer(buffer);
+		Metrics.gauge(METRIC_QUEUE_DEPTH, mQueue.size());
+		return result;
 	}
 	
 	@Override
@@ -0,0 +1,223 @@
+package com.serenegiant.media;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import com.serenegiant.utils.BufferHelper;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.ByteBuffer;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+
+/**
+ * AnnexB形式(スタートコード区切り)のH.264/H.265ストリームから
+ * NALユニットを順番に取り出すためのイテレーター
+ * NALユニット毎に配列やByteBufferを生成せずに、元のデータ内での
+ * 位置(#offset)・長さ(#length)・NALユニットタイプ(#type)を返す。
+ * #resetで使い回せるので、エンコーダーの出力毎に生成しなくてよい。
+ * NALユニットの末尾の0x00(trailing_zero_8bits)は長さに含めない
+ */
+public class NalUnitIterator {
+	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
+	private static final String TAG = NalUnitIterator.class.getSimpleName();
+
+	public static final int CODEC_H264 = 0;
+	public static final int CODEC_H265 = 1;
+
+	@IntDef({CODEC_H264,
+		CODEC_H265,
+	})
+	@Retention(RetentionPolicy.SOURCE)
+	public @interface Codec {}
+
+	@Codec
+	private final int mCodec;
+	private byte[] mArray;
+	private ByteBuffer mBuffer;
+	private int mLimit;
+	/**
+	 * 次に検索するスタートコードの位置, 無ければ-1
+	 */
+	private int mNextStart;
+	/**
+	 * スタートコードの先頭の0x00を探す時の下限(前のNALユニットの終端)
+	 */
+	private int mOffsetFloor;
+	private int mStartCodeOffset = -1;
+	private int mOffset = -1;
+	private int mLength;
+
+	/**
+	 * コンストラクタ
+	 * @param codec #typeでNALユニットタイプを取得する時のコーデック
+	 */
+	public NalUnitIterator(@Codec final int codec) {
+		mCodec = codec;
+	}
+
+	/**
+	 * 指定したbyte配列の範囲を対象にする
+	 * @param data
+	 * @param offset
+	 * @param length
+	 * @return
+	 */
+	@NonNull
+	public NalUnitIterator reset(@NonNull final byte[] data, final int offset, final int length) {
+		if ((offset < 0) || (length < 0) || (offset + length > data.length)) {
+			throw new IndexOutOfBoundsException(
+				"offset=" + offset + ",length=" + length + ",size=" + data.length);
+		}
+		mArray = data;
+		mBuffer = null;
+		mLimit = offset + length;
+		return start(offset);
+	}
+
+	/**
+	 * 指定したByteBufferのpositionからlimitまでを対象にする
+	 * ByteBufferのposition/limitは変更しないが、イテレート中に変更してはいけない
+	 * #offsetはByteBuffer内の絶対位置
+	 * @param data
+	 * @return
+	 */
+	@NonNull
+	public NalUnitIterator reset(@NonNull final ByteBuffer data) {
+		if (data.hasArray()) {
+			// 配列を直接検索した方が速い
+			final int base = data.arrayOffset();
+			reset(data.array(), base + data.position(), data.remaining());
+			mBuffer = data;
+			return this;
+		}
+		mArray = null;
+		mBuffer = data;
+		mLimit = data.limit();
+		return start(data.position());
+	}
+
+	/**
+	 * 次のNALユニットへ移動する
+	 * @return NALユニットが無ければfalse
+	 */
+	public boolean next() {
+		final int sc = mNextStart;
+		if (sc < 0) {
+			mStartCodeOffset = mOffset = -1;
+			mLength = 0;
+			return false;
+		}
+		final int payload = sc + 3;
+		final int nextSc = findStartCode(payload);
+		int end = nextSc >= 0 ? nextSc : mLimit;
+		// 次のスタートコードの前の0x00は4バイトのスタートコードの一部かtrailing_zero_8bits
+		while ((end > payload) && (byteAt(end - 1) == 0)) {
+			end--;
+		}
+		mStartCodeOffset = (sc > mOffsetFloor) && (byteAt(sc - 1) == 0) ? sc - 1 : sc;
+		mOffsetFloor = end;
+		mOffset = payload;
+		mLength = end - payload;
+		mNextStart = nextSc;
+		return true;
+	}
+
+	/**
+	 * 現在のNALユニットの先頭位置(NALユニットヘッダーの位置)
+	 * 配列またはByteBuffer内での絶対位置
+	 * @return #nextを呼ぶ前や終端に達した後は-1
+	 */
+	public int offset() {
+		return adjust(mOffset);
+	}
+
+	/**
+	 * 現在のNALユニットの長さ(スタートコードを含まない)
+	 * @return
+	 */
+	public int length() {
+		return mLength;
+	}
+
+	/**
+	 * 現在のNALユニットのスタートコードの先頭位置
+	 * 配列またはByteBuffer内での絶対位置
+	 * @return
+	 */
+	public int startCodeOffset() {
+		return adjust(mStartCodeOffset);
+	}
+
+	/**
+	 * 現在のNALユニットのスタートコードの長さ, 3または4
+	 * @return
+	 */
+	public int startCodeLength() {
+		return mOffset - mStartCodeOffset;
+	}
+
+	/**
+	 * 現在のNALユニットのNALユニットタイプ
+	 * H.264ならnal_unit_type(5ビット), H.265ならnal_unit_type(6ビット)
+	 * @return NALユニットが空なら-1
+	 */
+	public int type() {
+		if ((mOffset < 0) || (mLength <= 0)) {
+			return -1;
+		}
+		final int header = byteAt(mOffset) & 0xff;
+		return mCodec == CODEC_H265 ? (header >>> 1) & 0x3f : header & 0x1f;
+	}
+
+	/**
+	 * 検索開始位置をセットして最初のスタートコードを探す
+	 * @param offset
+	 * @return
+	 */
+	@NonNull
+	private NalUnitIterator start(final int offset) {
+		mOffsetFloor = offset;
+		mStartCodeOffset = mOffset = -1;
+		mLength = 0;
+		mNextStart = findStartCode(offset);
+		return this;
+	}
+
+	private int findStartCode(final int from) {
+		return mArray != null
+			? BufferHelper.findStartCode(mArray, from, mLimit)
+			: BufferHelper.findStartCode(mBuffer, from, mLimit);
+	}
+
+	private byte byteAt(final int ix) {
+		return mArray != null ? mArray[ix] : mBuffer.get(ix);
+	}
+
+	/**
+	 * 配列を持つByteBufferを渡された時は配列内の位置をByteBuffer内の位置へ変換する
+	 * @param ix
+	 * @return
+	 */
+	private int adjust(final int ix) {
+		return (ix >= 0) && (mBuffer != null) && (mArray != null)
+			? ix - mBuffer.arrayOffset() : ix;
+	}
+}
@@ -59,6 +59,7 @@ public abstract class Recorder implements IRecorder {
     private EosHandler mEosHandler;
     protected long mStartTime;
     private volatile boolean mReleased;
+	private volatile boolean mAsyncDrain;
 
 	/**
 	 * コンストラクタ
@@ -97,6 +98,26 @@ public abstract class Recorder implements IRecorder {
 		}
 	}
 
+	/**
+	 * エンコーダーからエンコード済みデータを取り出すのに
+	 * MediaCodec#setCallbackを使った非同期モード(API>=21)を使うかどうかをセット
+	 * エンコーダーを生成する前に呼ぶこと, API21未満では無視される
+	 * @param async
+	 */
+	public void setAsyncDrain(final boolean async) {
+		mAsyncDrain = async;
+	}
+
+	/**
+	 * エンコーダーからエンコード済みデータを取り出すのに
+	 * MediaCodec#setCallbackを使った非同期モード(API>=21)を使うかどうか
+	 * falseならdequeueOutputBufferでポーリングする
+	 * @return
+	 */
+	public boolean isAsyncDrain() {
+		return mAsyncDrain;
+	}
+
 	@Nullable
 	protected Context getContext() {
 		return mWeakContext.get();
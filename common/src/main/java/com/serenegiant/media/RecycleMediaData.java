@@ -23,11 +23,31 @@ import java.nio.ByteOrder;
 
 import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 /**
  * IRecycleBufferを実装したMediaData
  */
 public class RecycleMediaData extends MediaData implements IRecycleBuffer {
+	/**
+	 * 内部バッファをMediaArenaから確保するRecycleMediaData用のファクトリークラス
+	 */
+	public static class ArenaFactory implements IRecycleBuffer.Factory {
+		@NonNull
+		private final MediaArena mArena;
+
+		public ArenaFactory(@NonNull final MediaArena arena) {
+			mArena = arena;
+		}
+
+		@Override
+		public IRecycleBuffer create(@NonNull final Object parent,
+			@Nullable final Object... objects) {
+
+			return new RecycleMediaData((IMediaQueue)parent, mArena);
+		}
+	}
+
 	private final WeakReference<IMediaQueue> mWeakParent;
 
 	public RecycleMediaData(@NonNull final IMediaQueue parent) {
@@ -49,6 +69,19 @@ public class RecycleMediaData extends MediaData implements IRecycleBuffer {
 		mWeakParent = new WeakReference<IMediaQueue>(parent);
 	}
 
+	/**
+	 * コンストラクタ
+	 * 内部バッファはMediaArenaから確保し、#recycleでアリーナへ返却する
+	 * @param parent
+	 * @param arena
+	 */
+	public RecycleMediaData(@NonNull final IMediaQueue parent,
+		@NonNull final MediaArena arena) {
+
+		super(arena);
+		mWeakParent = new WeakReference<IMediaQueue>(parent);
+	}
+
 	public RecycleMediaData(@NonNull final RecycleMediaData src) {
 		super(src);
 		mWeakParent = new WeakReference<IMediaQueue>(src.mWeakParent.get());
@@ -56,6 +89,10 @@ public class RecycleMediaData extends MediaData implements IRecycleBuffer {
 
 	@Override
 	public void recycle() {
+		if (arena() != null) {
+			// プール内で保持している間はアリーナのスライスを他で使えるように返却する
+			release();
+		}
 		final IMediaQueue parent = mWeakParent.get();
 		if (parent != null) {
 			parent.recycle(this);
@@ -84,7 +84,7 @@ public class SurfaceEncoder extends AbstractVideoEncoder implements ISurfaceEnco
 
         // 設定したフォーマットに従ってMediaCodecのエンコーダーを生成する
         // エンコーダーへの入力に使うSurfaceを取得する
-        mMediaCodec = MediaCodec.createEncoderByType(MediaCodecHelper.MIME_VIDEO_AVC);
+        mMediaCodec = createEncoderByType(MediaCodecHelper.MIME_VIDEO_AVC);
         mMediaCodec.configure(format, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
         mInputSurface = mMediaCodec.createInputSurface();	// API >= 18
         mMediaCodec.start();
@@ -0,0 +1,233 @@
+package com.serenegiant.mediaeffect;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import android.annotation.SuppressLint;
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+import android.util.Log;
+
+import com.serenegiant.system.BuildCheck;
+
+import java.util.Arrays;
+
+import androidx.annotation.NonNull;
+
+/**
+ * MediaEffectChainの描画パス毎のGPU処理時間を計測するためのヘルパークラス
+ * GLES3かつGL_EXT_disjoint_timer_queryに対応していればタイマークエリーを使い、
+ * 結果は数フレーム遅れで非同期に回収する(描画パイプラインを止めない)。
+ * 対応していなければ各パスの後にglFinishしてSystem#nanoTimeで計測する
+ * (GPUとの同期待ちが入るので計測中は描画が遅くなる)
+ * GLコンテキスト内で使うこと
+ */
+/*package*/ class GLPassTimer {
+	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
+	private static final String TAG = GLPassTimer.class.getSimpleName();
+
+	private static final String EXT_DISJOINT_TIMER_QUERY = "GL_EXT_disjoint_timer_query";
+	/**
+	 * GL_EXT_disjoint_timer_queryの定数, GLES30には定義されていない
+	 */
+	private static final int GL_TIME_ELAPSED_EXT = 0x88BF;
+	private static final int GL_GPU_DISJOINT_EXT = 0x8FBB;
+	/**
+	 * タイマークエリーの結果を回収するまでに待つフレーム数
+	 */
+	private static final int QUERY_FRAMES = 3;
+
+	private final int mNumPasses;
+	private final boolean mUseQuery;
+	/**
+	 * タイマークエリーのID, [フレーム][パス]
+	 */
+	private final int[] mQueries;
+	/**
+	 * タイマークエリーを発行したかどうか, [フレーム][パス]
+	 */
+	private final boolean[] mIssued;
+	private final long[] mTotalNs;
+	private final int[] mCounts;
+	private final int[] mResult = new int[1];
+	private int mFrameIx;
+	private long mStartNs;
+	private int mFrames;
+
+	/**
+	 * コンストラクタ
+	 * GLコンテキスト内で生成すること
+	 * @param numPasses 計測するパスの数
+	 */
+	/*package*/ GLPassTimer(final int numPasses) {
+		mNumPasses = numPasses;
+		mTotalNs = new long[numPasses];
+		mCounts = new int[numPasses];
+		mUseQuery = (numPasses > 0) && isTimerQuerySupported();
+		if (mUseQuery) {
+			mQueries = new int[QUERY_FRAMES * numPasses];
+			mIssued = new boolean[QUERY_FRAMES * numPasses];
+			genQueries(mQueries);
+		} else {
+			mQueries = null;
+			mIssued = null;
+		}
+		if (DEBUG) Log.v(TAG, "コンストラクタ:useQuery=" + mUseQuery);
+	}
+
+	/**
+	 * 関係するリソースを破棄する
+	 * GLコンテキスト内で呼び出すこと
+	 */
+	/*package*/ void release() {
+		if (mUseQuery) {
+			deleteQueries(mQueries);
+		}
+	}
+
+	/**
+	 * タイマークエリーを使っているかどうか
+	 * @return
+	 */
+	/*package*/ boolean isGpuTimer() {
+		return mUseQuery;
+	}
+
+	/**
+	 * パスの描画開始前に呼び出す
+	 * @param pass
+	 */
+	@SuppressLint("NewApi")
+	/*package*/ void begin(final int pass) {
+		if (mUseQuery) {
+			final int ix = mFrameIx * mNumPasses + pass;
+			// 同じスロットを使っていたQUERY_FRAMES前のクエリーの結果を先に回収する
+			collect(ix, pass);
+			GLES30.glBeginQuery(GL_TIME_ELAPSED_EXT, mQueries[ix]);
+		} else {
+			GLES20.glFinish();
+			mStartNs = System.nanoTime();
+		}
+	}
+
+	/**
+	 * パスの描画終了後に呼び出す
+	 * @param pass
+	 */
+	@SuppressLint("NewApi")
+	/*package*/ void end(final int pass) {
+		if (mUseQuery) {
+			GLES30.glEndQuery(GL_TIME_ELAPSED_EXT);
+			mIssued[mFrameIx * mNumPasses + pass] = true;
+		} else {
+			GLES20.glFinish();
+			mTotalNs[pass] += System.nanoTime() - mStartNs;
+			mCounts[pass]++;
+		}
+	}
+
+	/**
+	 * 1フレーム分の全パスの描画が終わった時に呼び出す
+	 */
+	/*package*/ void endFrame() {
+		mFrames++;
+		if (mUseQuery) {
+			mFrameIx = (mFrameIx + 1) % QUERY_FRAMES;
+		}
+	}
+
+	/**
+	 * 計測したフレーム数
+	 * @return
+	 */
+	/*package*/ int frames() {
+		return mFrames;
+	}
+
+	/**
+	 * 指定したパスの平均処理時間を取得する
+	 * @param pass
+	 * @return 計測結果が無ければ0
+	 */
+	/*package*/ long averageNs(final int pass) {
+		final int n = mCounts[pass];
+		return n > 0 ? mTotalNs[pass] / n : 0;
+	}
+
+	/**
+	 * 計測結果をクリアする
+	 * 結果を回収していないタイマークエリーも破棄する
+	 */
+	/*package*/ void reset() {
+		for (int i = 0; i < mNumPasses; i++) {
+			mTotalNs[i] = 0;
+			mCounts[i] = 0;
+		}
+		if (mUseQuery) {
+			Arrays.fill(mIssued, false);
+		}
+		mFrames = 0;
+	}
+
+	/**
+	 * 発行済みのタイマークエリーの結果を回収する
+	 * 結果がまだ得られない時やGPUの計時が不連続になった時は破棄する
+	 * @param ix
+	 * @param pass
+	 */
+	@SuppressLint("NewApi")
+	private void collect(final int ix, final int pass) {
+		if (!mIssued[ix]) return;
+		mIssued[ix] = false;
+		final int[] val = mResult;
+		GLES20.glGetIntegerv(GL_GPU_DISJOINT_EXT, val, 0);
+		final boolean disjoint = val[0] != 0;
+		GLES30.glGetQueryObjectuiv(mQueries[ix], GLES30.GL_QUERY_RESULT_AVAILABLE, val, 0);
+		if ((val[0] != 0) && !disjoint) {
+			GLES30.glGetQueryObjectuiv(mQueries[ix], GLES30.GL_QUERY_RESULT, val, 0);
+			// GL_TIME_ELAPSED_EXTはナノ秒単位, 32ビットで約4秒まで表現できる
+			mTotalNs[pass] += val[0] & 0xffffffffL;
+			mCounts[pass]++;
+		}
+	}
+
+	/**
+	 * タイマークエリーを使えるかどうか
+	 * GLコンテキスト内で呼び出すこと
+	 * @return
+	 */
+	private static boolean isTimerQuerySupported() {
+		if (!BuildCheck.isJellyBeanMR2()) {
+			return false;
+		}
+		final String version = GLES20.glGetString(GLES20.GL_VERSION);
+		final String extensions = GLES20.glGetString(GLES20.GL_EXTENSIONS);
+		return (version != null) && version.contains("OpenGL ES 3")
+			&& (extensions != null) && extensions.contains(EXT_DISJOINT_TIMER_QUERY);
+	}
+
+	@SuppressLint("NewApi")
+	private static void genQueries(@NonNull final int[] queries) {
+		GLES30.glGenQueries(queries.length, queries, 0);
+	}
+
+	@SuppressLint("NewApi")
+	private static void deleteQueries(@NonNull final int[] queries) {
+		GLES30.glDeleteQueries(queries.length, queries, 0);
+	}
+}
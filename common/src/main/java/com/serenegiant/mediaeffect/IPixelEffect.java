@@ -0,0 +1,52 @@
+package com.serenegiant.mediaeffect;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 周辺画素を参照せずに1画素毎の色変換だけを行う映像効果
+ * MediaEffectChainで連続するIPixelEffectは1つのフラグメントシェーダーへまとめて
+ * 1回の描画で処理する
+ */
+public interface IPixelEffect extends IEffect {
+	/**
+	 * 色変換処理のGLSL
+	 * 変換前の色がセットされた`vec4 color`を書き換える文を返す。
+	 * 変換用のパラメータは`float param`で参照できる
+	 * @return
+	 */
+	@NonNull
+	public String getPixelFunction();
+
+	/**
+	 * 色変換処理で使う関数や定数の定義
+	 * 同じ文字列の定義は1回だけ出力する
+	 * @return 不要ならnull
+	 */
+	@Nullable
+	public String getPixelHelper();
+
+	/**
+	 * 色変換処理のパラメータ(`float param`)の現在値
+	 * @return
+	 */
+	public float getPixelParameter();
+}
@@ -0,0 +1,438 @@
+package com.serenegiant.mediaeffect;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 複数のIEffectを順番に適用するためのヘルパークラス
+ * 有効なIPixelEffectが連続している部分は1つのフラグメントシェーダー(MediaEffectGLFused)へ
+ * まとめて1回の描画で処理するので、オフスクリーンへの描画と読み込みの回数が減る。
+ * 周辺画素を参照する映像効果(MediaEffectGLKernel等)や2枚目のテクスチャを使う映像効果
+ * (MediaEffectGLAlphaBlend等)はIPixelEffectではないのでそのまま個別に描画する。
+ * 無効な映像効果は描画しない。
+ * まとめたパスではIPixelEffect毎のモデルビュー変換行列は使わない。
+ * #add/#remove/#clearは任意のスレッドから呼び出せるが、
+ * パスの再構成は次回の#apply呼び出し時にGLコンテキスト内で行う
+ */
+public class MediaEffectChain {
+	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
+	private static final String TAG = MediaEffectChain.class.getSimpleName();
+
+	/**
+	 * パス毎の平均処理時間
+	 */
+	public static class TimingReport {
+		/**
+		 * パスの名前
+		 */
+		@NonNull
+		public final String[] names;
+		/**
+		 * パス毎の平均処理時間[ナノ秒]
+		 */
+		@NonNull
+		public final long[] averageNs;
+		/**
+		 * 全パスの平均処理時間の合計[ナノ秒]
+		 */
+		public final long totalAverageNs;
+		/**
+		 * 計測したフレーム数
+		 */
+		public final int frames;
+		/**
+		 * GPUのタイマークエリーで計測したかどうか
+		 * falseならglFinishとSystem#nanoTimeで計測した値
+		 */
+		public final boolean gpuTimer;
+
+		private TimingReport(@NonNull final String[] names,
+			@NonNull final long[] averageNs,
+			final int frames, final boolean gpuTimer) {
+
+			this.names = names;
+			this.averageNs = averageNs;
+			long total = 0;
+			for (final long ns: averageNs) {
+				total += ns;
+			}
+			this.totalAverageNs = total;
+			this.frames = frames;
+			this.gpuTimer = gpuTimer;
+		}
+
+		@NonNull
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder("TimingReport{frames=")
+				.append(frames)
+				.append(", gpuTimer=").append(gpuTimer)
+				.append(String.format(Locale.US, ", total=%.3fms", totalAverageNs / 1e6f));
+			for (int i = 0; i < names.length; i++) {
+				sb.append(String.format(Locale.US, ", %s=%.3fms", names[i], averageNs[i] / 1e6f));
+			}
+			return sb.append('}').toString();
+		}
+	}
+
+	private final Object mSync = new Object();
+	/**
+	 * 追加されたIEffect
+	 */
+	@NonNull
+	private final List<IEffect> mEffects = new ArrayList<IEffect>();
+	/**
+	 * 実際に描画するパス, GLコンテキスト内でのみアクセスする
+	 */
+	@NonNull
+	private final List<IEffect> mPasses = new ArrayList<IEffect>();
+	/**
+	 * 生成済みのMediaEffectGLFused, GLコンテキスト内でのみアクセスする
+	 */
+	@NonNull
+	private final List<MediaEffectGLFused> mFused = new ArrayList<MediaEffectGLFused>();
+	/**
+	 * パスを構成した時の各IEffectの有効無効状態
+	 */
+	@NonNull
+	private boolean[] mEnabledStates = new boolean[0];
+	/**
+	 * mEffectsが変更されたかどうか
+	 */
+	private boolean mChanged;
+	private int mWidth, mHeight;
+	private volatile boolean mTimingEnabled;
+	/**
+	 * 計測を無効にしても最後の計測結果を返せるように
+	 * #release/パスの再構成まで破棄しない, GLコンテキスト内でのみアクセスする
+	 */
+	private GLPassTimer mTimer;
+	/**
+	 * mTimerで計測中かどうか, GLコンテキスト内でのみアクセスする
+	 */
+	private boolean mTimerRunning;
+
+	/**
+	 * コンストラクタ
+	 */
+	public MediaEffectChain() {
+		if (DEBUG) Log.v(TAG, "コンストラクタ:");
+	}
+
+	/**
+	 * 関係するリソースを破棄する
+	 * 追加されているIEffectも破棄する
+	 * GLコンテキスト内で呼び出すこと
+	 */
+	public void release() {
+		if (DEBUG) Log.v(TAG, "release:");
+		synchronized (mSync) {
+			for (final IEffect effect: mEffects) {
+				effect.release();
+			}
+			mEffects.clear();
+			mChanged = true;
+		}
+		mPasses.clear();
+		for (final MediaEffectGLFused fused: mFused) {
+			fused.release();
+		}
+		mFused.clear();
+		mEnabledStates = new boolean[0];
+		releaseTimer();
+	}
+
+	/**
+	 * IEffectを末尾に追加する
+	 * @param effect
+	 * @return
+	 */
+	public MediaEffectChain add(@NonNull final IEffect effect) {
+		synchronized (mSync) {
+			mEffects.add(effect);
+			mChanged = true;
+		}
+		return this;
+	}
+
+	/**
+	 * IEffectを取り除く
+	 * 取り除いたIEffectは破棄しないので呼び出し元で破棄すること
+	 * @param effect
+	 * @return 取り除いたかどうか
+	 */
+	public boolean remove(@NonNull final IEffect effect) {
+		synchronized (mSync) {
+			final boolean result = mEffects.remove(effect);
+			mChanged |= result;
+			return result;
+		}
+	}
+
+	/**
+	 * 全てのIEffectを取り除く
+	 * 取り除いたIEffectは破棄しないので呼び出し元で破棄すること
+	 */
+	public void clear() {
+		synchronized (mSync) {
+			mEffects.clear();
+			mChanged = true;
+		}
+	}
+
+	/**
+	 * 追加されているIEffectの数
+	 * @return
+	 */
+	public int size() {
+		synchronized (mSync) {
+			return mEffects.size();
+		}
+	}
+
+	/**
+	 * 映像サイズを変更する
+	 * GLコンテキスト内で呼び出すこと
+	 * @param width
+	 * @param height
+	 * @return
+	 */
+	public MediaEffectChain resize(final int width, final int height) {
+		mWidth = width;
+		mHeight = height;
+		synchronized (mSync) {
+			for (final IEffect effect: mEffects) {
+				effect.resize(width, height);
+			}
+		}
+		for (final MediaEffectGLFused fused: mFused) {
+			fused.resize(width, height);
+		}
+		return this;
+	}
+
+	/**
+	 * パス毎の処理時間の計測を有効にするかどうか
+	 * GPUがGL_EXT_disjoint_timer_queryに対応していない時は
+	 * 計測中は各パスの後にglFinishするので描画が遅くなる
+	 * @param enable
+	 */
+	public void setTimingEnabled(final boolean enable) {
+		mTimingEnabled = enable;
+	}
+
+	public boolean isTimingEnabled() {
+		return mTimingEnabled;
+	}
+
+	/**
+	 * パス毎の平均処理時間を取得する
+	 * 計測を無効にした後も再度有効にするか#release/パスの再構成までは最後の計測結果を返す
+	 * GLコンテキスト内で呼び出すこと
+	 * @return 計測していなければnull
+	 */
+	@Nullable
+	public TimingReport getTimingReport() {
+		final GLPassTimer timer = mTimer;
+		if (timer == null) {
+			return null;
+		}
+		final int n = mPasses.size();
+		final String[] names = new String[n];
+		final long[] averageNs = new long[n];
+		for (int i = 0; i < n; i++) {
+			final IEffect pass = mPasses.get(i);
+			names[i] = pass instanceof MediaEffectGLFused
+				? pass.toString() : pass.getClass().getSimpleName();
+			averageNs[i] = timer.averageNs(i);
+		}
+		return new TimingReport(names, averageNs, timer.frames(), timer.isGpuTimer());
+	}
+
+	/**
+	 * 現在描画するパスの数
+	 * GLコンテキスト内で呼び出すこと
+	 * @return
+	 */
+	public int getPassCount() {
+		return mPasses.size();
+	}
+
+	/**
+	 * 追加されているIEffectを順番に適用する
+	 * GLコンテキスト内で呼び出すこと
+	 * @param src
+	 * @return
+	 */
+	@NonNull
+	public ISource apply(@NonNull final ISource src) {
+		updatePasses();
+		final int n = mPasses.size();
+		if (mTimingEnabled && (n > 0)) {
+			if (mTimer == null) {
+				mTimer = new GLPassTimer(n);
+			} else if (!mTimerRunning) {
+				// 計測を再開した時は前回の計測結果をクリアする
+				mTimer.reset();
+			}
+			mTimerRunning = true;
+			final GLPassTimer timer = mTimer;
+			for (int i = 0; i < n; i++) {
+				timer.begin(i);
+				src.apply(mPasses.get(i));
+				timer.end(i);
+			}
+			timer.endFrame();
+		} else {
+			// 計測結果を取得できるようにmTimerは破棄しない
+			mTimerRunning = false;
+			for (int i = 0; i < n; i++) {
+				src.apply(mPasses.get(i));
+			}
+		}
+		return src;
+	}
+
+	/**
+	 * IEffectの追加・削除または有効無効が変化していればパスを再構成する
+	 * GLコンテキスト内で呼び出すこと
+	 */
+	private void updatePasses() {
+		synchronized (mSync) {
+			final int n = mEffects.size();
+			boolean changed = mChanged || (mEnabledStates.length != n);
+			if (!changed) {
+				for (int i = 0; i < n; i++) {
+					if (mEnabledStates[i] != mEffects.get(i).enabled()) {
+						changed = true;
+						break;
+					}
+				}
+			}
+			if (changed) {
+				mChanged = false;
+				buildPasses();
+			}
+		}
+	}
+
+	/**
+	 * パスを再構成する
+	 * mSyncをロックした状態で呼び出すこと
+	 */
+	private void buildPasses() {
+		final int n = mEffects.size();
+		if (mEnabledStates.length != n) {
+			mEnabledStates = new boolean[n];
+		}
+		mPasses.clear();
+		final List<MediaEffectGLFused> used = new ArrayList<MediaEffectGLFused>();
+		final List<IPixelEffect> group = new ArrayList<IPixelEffect>();
+		for (int i = 0; i < n; i++) {
+			final IEffect effect = mEffects.get(i);
+			final boolean enabled = effect.enabled();
+			mEnabledStates[i] = enabled;
+			if (!enabled) continue;
+			if (effect instanceof IPixelEffect) {
+				group.add((IPixelEffect)effect);
+			} else {
+				flushGroup(group, used);
+				mPasses.add(effect);
+			}
+		}
+		flushGroup(group, used);
+		// 使わなくなったMediaEffectGLFusedを破棄する
+		for (final MediaEffectGLFused fused: mFused) {
+			if (!used.contains(fused)) {
+				fused.release();
+			}
+		}
+		mFused.clear();
+		mFused.addAll(used);
+		// パスの数が変わるので計測結果はリセットする
+		releaseTimer();
+		if (DEBUG) Log.v(TAG, "buildPasses:effects=" + n + ",passes=" + mPasses.size());
+	}
+
+	/**
+	 * 連続するIPixelEffectをパスとして追加する
+	 * 2つ以上あればMediaEffectGLFusedへまとめる
+	 * @param group
+	 * @param used
+	 */
+	private void flushGroup(@NonNull final List<IPixelEffect> group,
+		@NonNull final List<MediaEffectGLFused> used) {
+
+		final int n = group.size();
+		if (n == 1) {
+			mPasses.add(group.get(0));
+		} else if (n > 1) {
+			MediaEffectGLFused fused = findFused(group);
+			if (fused == null) {
+				fused = new MediaEffectGLFused(group.toArray(new IPixelEffect[n]));
+				if ((mWidth > 0) && (mHeight > 0)) {
+					fused.resize(mWidth, mHeight);
+				}
+			}
+			used.add(fused);
+			mPasses.add(fused);
+		}
+		group.clear();
+	}
+
+	/**
+	 * 同じIPixelEffectの組み合わせで生成済みのMediaEffectGLFusedを探す
+	 * @param group
+	 * @return 見つからなければnull
+	 */
+	@Nullable
+	private MediaEffectGLFused findFused(@NonNull final List<IPixelEffect> group) {
+		final int n = group.size();
+		for (final MediaEffectGLFused fused: mFused) {
+			if (fused.getStageCount() != n) continue;
+			boolean match = true;
+			for (int i = 0; i < n; i++) {
+				if (fused.getStage(i) != group.get(i)) {
+					match = false;
+					break;
+				}
+			}
+			if (match) {
+				return fused;
+			}
+		}
+		return null;
+	}
+
+	private void releaseTimer() {
+		if (mTimer != null) {
+			mTimer.release();
+			mTimer = null;
+		}
+		mTimerRunning = false;
+	}
+}
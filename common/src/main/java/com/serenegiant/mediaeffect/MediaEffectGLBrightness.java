@@ -18,10 +18,15 @@ package com.serenegiant.mediaeffect;
  *  limitations under the License.
 */
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 import static com.serenegiant.glutils.ShaderConst.*;
 
 /** 明るさ調整([-1.0f,+1.0f], RGB各成分に単純加算), 0だと無調整 */
-public class MediaEffectGLBrightness extends MediaEffectGLBase {
+public class MediaEffectGLBrightness extends MediaEffectGLBase
+	implements IPixelEffect {
+
 	private static final boolean DEBUG = false;
 	private static final String TAG = "MediaEffectGLBrightness";
 
@@ -39,6 +44,8 @@ public class MediaEffectGLBrightness extends MediaEffectGLBase {
 		= String.format(FRAGMENT_SHADER_BASE, HEADER_2D, SAMPLER_2D);
 	private static final String FRAGMENT_SHADER_EXT
 		= String.format(FRAGMENT_SHADER_BASE, HEADER_OES_ES2, SAMPLER_OES);
+	private static final String PIXEL_FUNCTION =
+		"    color.rgb += vec3(param, param, param);\n";
 
 	public MediaEffectGLBrightness() {
 		this(0.0f);
@@ -59,4 +66,21 @@ public class MediaEffectGLBrightness extends MediaEffectGLBase {
 		((MediaEffectColorAdjustDrawer)mDrawer).setColorAdjust(brightness);
 		return this;
 	}
+
+	@NonNull
+	@Override
+	public String getPixelFunction() {
+		return PIXEL_FUNCTION;
+	}
+
+	@Nullable
+	@Override
+	public String getPixelHelper() {
+		return null;
+	}
+
+	@Override
+	public float getPixelParameter() {
+		return ((MediaEffectColorAdjustDrawer)mDrawer).getColorAdjust();
+	}
 }
@@ -20,10 +20,15 @@ package com.serenegiant.mediaeffect;
 
 import android.util.Log;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 import static com.serenegiant.glutils.ShaderConst.*;
 
 /** 露出調整, -10〜+10, 0だと無調整 */
-public class MediaEffectGLExposure extends MediaEffectGLBase {
+public class MediaEffectGLExposure extends MediaEffectGLBase
+	implements IPixelEffect {
+
 	private static final boolean DEBUG = false;
 	private static final String TAG = "MediaEffectGLExposure";
 
@@ -41,6 +46,8 @@ public class MediaEffectGLExposure extends MediaEffectGLBase {
 		= String.format(FRAGMENT_SHADER_BASE, HEADER_2D, SAMPLER_2D);
 	private static final String FRAGMENT_SHADER_EXT
 		= String.format(FRAGMENT_SHADER_BASE, HEADER_OES_ES2, SAMPLER_OES);
+	private static final String PIXEL_FUNCTION =
+		"    color.rgb *= pow(2.0, param);\n";
 
 	public MediaEffectGLExposure() {
 		super(new MediaEffectColorAdjustDrawer(FRAGMENT_SHADER));
@@ -63,4 +70,20 @@ public class MediaEffectGLExposure extends MediaEffectGLBase {
 		return this;
 	}
 
+	@NonNull
+	@Override
+	public String getPixelFunction() {
+		return PIXEL_FUNCTION;
+	}
+
+	@Nullable
+	@Override
+	public String getPixelHelper() {
+		return null;
+	}
+
+	@Override
+	public float getPixelParameter() {
+		return ((MediaEffectColorAdjustDrawer)mDrawer).getColorAdjust();
+	}
 }
@@ -0,0 +1,161 @@
+package com.serenegiant.mediaeffect;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import android.opengl.GLES20;
+import android.util.Log;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import androidx.annotation.NonNull;
+
+import static com.serenegiant.glutils.ShaderConst.*;
+
+/**
+ * 連続する複数のIPixelEffectの色変換処理を1つのフラグメントシェーダーへまとめて
+ * 1回の描画で適用するための映像効果
+ * 各IPixelEffectのパラメータはuniform配列uParamsとしてまとめて渡す。
+ * MediaEffectChainから生成される
+ */
+public class MediaEffectGLFused extends MediaEffectGLBase {
+	private static final boolean DEBUG = false;
+	private static final String TAG = "MediaEffectGLFused";
+
+	/**
+	 * まとめたIPixelEffectのパラメータをuniform配列でセットするためのMediaEffectDrawer
+	 */
+	private static class MediaEffectFusedDrawer
+		extends MediaEffectDrawer.MediaEffectSingleDrawer {
+
+		@NonNull
+		private final IPixelEffect[] mStages;
+		@NonNull
+		private final float[] mParams;
+		private final int muParamsLoc;
+
+		private MediaEffectFusedDrawer(@NonNull final IPixelEffect[] stages) {
+			super(false, VERTEX_SHADER_ES2, buildShader(stages));
+			mStages = stages;
+			mParams = new float[stages.length];
+			muParamsLoc = GLES20.glGetUniformLocation(getProgram(), "uParams");
+		}
+
+		@Override
+		protected void preDraw(@NonNull final int[] tex_ids,
+			final float[] tex_matrix, final int offset) {
+
+			super.preDraw(tex_ids, tex_matrix, offset);
+			if (muParamsLoc >= 0) {
+				for (int i = 0; i < mStages.length; i++) {
+					mParams[i] = mStages[i].getPixelParameter();
+				}
+				GLES20.glUniform1fv(muParamsLoc, mParams.length, mParams, 0);
+			}
+		}
+	}
+
+	@NonNull
+	private final IPixelEffect[] mStages;
+
+	/**
+	 * コンストラクタ
+	 * GLコンテキスト内で生成すること
+	 * @param stages まとめるIPixelEffect, 適用する順に並べること
+	 */
+	public MediaEffectGLFused(@NonNull final IPixelEffect[] stages) {
+		super(new MediaEffectFusedDrawer(stages));
+		if (DEBUG) Log.v(TAG, "コンストラクタ:" + stages.length);
+		mStages = stages;
+	}
+
+	/**
+	 * まとめているIPixelEffectの数
+	 * @return
+	 */
+	public int getStageCount() {
+		return mStages.length;
+	}
+
+	/**
+	 * まとめているIPixelEffectを取得する
+	 * @param ix
+	 * @return
+	 */
+	@NonNull
+	public IPixelEffect getStage(final int ix) {
+		return mStages[ix];
+	}
+
+	@NonNull
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder("Fused[");
+		for (int i = 0; i < mStages.length; i++) {
+			if (i > 0) {
+				sb.append('+');
+			}
+			sb.append(mStages[i].getClass().getSimpleName());
+		}
+		return sb.append(']').toString();
+	}
+
+	/**
+	 * 複数のIPixelEffectの色変換処理をまとめたフラグメントシェーダーを生成する
+	 * @param stages
+	 * @return
+	 */
+	@NonNull
+	/*package*/ static String buildShader(@NonNull final IPixelEffect[] stages) {
+		final StringBuilder sb = new StringBuilder(SHADER_VERSION_ES2)
+			.append(HEADER_2D)
+			.append("precision highp float;\n")
+			.append("varying       vec2 vTextureCoord;\n")
+			.append("uniform ").append(SAMPLER_2D).append("    sTexture;\n")
+			.append(String.format(Locale.US, "uniform float uParams[%d];\n", stages.length));
+		// 同じ関数・定数の定義は1回だけ出力する
+		final Set<String> helpers = new HashSet<String>();
+		for (final IPixelEffect stage: stages) {
+			final String helper = stage.getPixelHelper();
+			if ((helper != null) && helpers.add(helper)) {
+				sb.append(helper);
+			}
+		}
+		for (int i = 0; i < stages.length; i++) {
+			sb.append(String.format(Locale.US,
+				"highp vec4 stage%d(highp vec4 color, float param) {\n", i))
+				.append(stages[i].getPixelFunction())
+				.append("    return color;\n")
+				.append("}\n");
+		}
+		sb.append("void main() {\n")
+			.append("    highp vec4 color = texture2D(sTexture, vTextureCoord);\n");
+		for (int i = 0; i < stages.length; i++) {
+			// 個別に描画する時はステージ毎にテクスチャへ書き込む際に0〜1へ丸められるので
+			// まとめた時も同じ結果になるように各ステージの後でクランプする
+			sb.append(String.format(Locale.US,
+				"    color = stage%d(color, uParams[%d]);\n", i, i))
+				.append("    color = clamp(color, 0.0, 1.0);\n");
+		}
+		sb.append("    gl_FragColor = color;\n")
+			.append("}\n");
+		return sb.toString();
+	}
+}
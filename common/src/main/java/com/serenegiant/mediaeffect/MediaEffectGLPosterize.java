@@ -18,12 +18,17 @@ package com.serenegiant.mediaeffect;
  *  limitations under the License.
 */
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 import static com.serenegiant.glutils.ShaderConst.*;
 
 /**
  * FIXME ポスタライズ, うまく動かない
  */
-public class MediaEffectGLPosterize extends MediaEffectGLBase {
+public class MediaEffectGLPosterize extends MediaEffectGLBase
+	implements IPixelEffect {
+
 	private static final boolean DEBUG = false;
 	private static final String TAG = "MediaEffectGLBrightness";
 
@@ -41,6 +46,8 @@ public class MediaEffectGLPosterize extends MediaEffectGLBase {
 		= String.format(FRAGMENT_SHADER_BASE, HEADER_2D, SAMPLER_2D);
 	private static final String FRAGMENT_SHADER_EXT
 		= String.format(FRAGMENT_SHADER_BASE, HEADER_OES_ES2, SAMPLER_OES);
+	private static final String PIXEL_FUNCTION =
+		"    color = floor((color * param) + vec4(0.5)) / param;\n";
 
 	public MediaEffectGLPosterize() {
 		this(10.0f);
@@ -60,4 +67,21 @@ public class MediaEffectGLPosterize extends MediaEffectGLBase {
 		((MediaEffectColorAdjustDrawer)mDrawer).setColorAdjust(posterize);
 		return this;
 	}
+
+	@NonNull
+	@Override
+	public String getPixelFunction() {
+		return PIXEL_FUNCTION;
+	}
+
+	@Nullable
+	@Override
+	public String getPixelHelper() {
+		return null;
+	}
+
+	@Override
+	public float getPixelParameter() {
+		return ((MediaEffectColorAdjustDrawer)mDrawer).getColorAdjust();
+	}
 }
@@ -18,10 +18,15 @@ package com.serenegiant.mediaeffect;
  *  limitations under the License.
 */
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 import static com.serenegiant.glutils.ShaderConst.*;
 
 /** 彩度調整([-1.0f,+1.0f]), 0だと無調整 */
-public class MediaEffectGLSaturate extends MediaEffectGLBase {
+public class MediaEffectGLSaturate extends MediaEffectGLBase
+	implements IPixelEffect {
+
 	private static final boolean DEBUG = false;
 	private static final String TAG = "MediaEffectGLBrightness";
 
@@ -42,6 +47,9 @@ public class MediaEffectGLSaturate extends MediaEffectGLBase {
 		= String.format(FRAGMENT_SHADER_BASE, HEADER_2D, SAMPLER_2D);
 	private static final String FRAGMENT_SHADER_EXT
 		= String.format(FRAGMENT_SHADER_BASE, HEADER_OES_ES2, SAMPLER_OES);
+	private static final String PIXEL_FUNCTION =
+		"    highp float intensity = getIntensity(color.rgb);\n" +
+		"    color.rgb = mix(vec3(intensity, intensity, intensity), color.rgb, param);\n";
 
 	public MediaEffectGLSaturate() {
 		this(0.0f);
@@ -61,4 +69,21 @@ public class MediaEffectGLSaturate extends MediaEffectGLBase {
 		((MediaEffectColorAdjustDrawer)mDrawer).setColorAdjust(saturation + 1.0f);
 		return this;
 	}
+
+	@NonNull
+	@Override
+	public String getPixelFunction() {
+		return PIXEL_FUNCTION;
+	}
+
+	@Nullable
+	@Override
+	public String getPixelHelper() {
+		return FUNC_GET_INTENSITY;
+	}
+
+	@Override
+	public float getPixelParameter() {
+		return ((MediaEffectColorAdjustDrawer)mDrawer).getColorAdjust();
+	}
 }
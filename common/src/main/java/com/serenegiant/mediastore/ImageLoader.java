@@ -60,7 +60,10 @@ public abstract class ImageLoader implements Runnable {
 		mMediaType = mediaType;
 		mId = id;
 		mBitmap = null;
-		ThreadPool.queueEvent(mTask);
+		// 表示中の項目の読み込みなので他のタスクよりも優先する
+		// ただし優先度が効くのはThreadPool.setMode(ThreadPool.MODE_WORK_STEALING)の時のみで
+		// デフォルトのMODE_FIFOでは追加した順に実行される
+		ThreadPool.queueEvent(mTask, ThreadPool.PRIORITY_INTERACTIVE, null);
 	}
 
 	/**
@@ -68,6 +71,8 @@ public abstract class ImageLoader implements Runnable {
 	 */
 	public void cancelLoad() {
 		mTask.cancel(true);
+		// 未実行ならキューから取り除いてワーカースレッドを無駄に使わないようにする
+		ThreadPool.removeEvent(mTask);
 	}
 
 	/**
@@ -26,6 +26,8 @@ import android.os.Parcelable;
 import android.provider.MediaStore;
 import android.util.Log;
 
+import com.serenegiant.db.CursorReader;
+
 import java.util.Locale;
 
 import androidx.annotation.NonNull;
@@ -52,6 +54,21 @@ public class MediaInfo implements Parcelable {
 		}
 	};
 
+	/**
+	 * CursorReader#read/#readRowsでMediaInfoを読み込むためのRowMapper
+	 * CursorReaderはPROJ_MEDIAで生成したものを使うこと
+	 */
+	/*package*/ static final CursorReader.RowMapper<MediaInfo> ROW_MAPPER
+		= new CursorReader.RowMapper<MediaInfo>() {
+		@NonNull
+		@Override
+		public MediaInfo map(@NonNull final CursorReader reader,
+			@Nullable final MediaInfo reuse) {
+
+			return (reuse != null ? reuse : new MediaInfo()).loadFromCursor(reader);
+		}
+	};
+
 //--------------------------------------------------------------------------------
 	public long id;
 	public String data;
@@ -145,6 +162,25 @@ public class MediaInfo implements Parcelable {
 		return this;
 	}
 
+	/**
+	 * CursorReaderから値を読み込む
+	 * CursorReaderはPROJ_MEDIAで生成したものを使うこと(スロット番号がPROJ_INDEX_XXXになる)
+	 * WIDTH/HEIGHTが無い機種では0になる
+	 * @param reader
+	 * @return
+	 */
+	MediaInfo loadFromCursor(@NonNull final CursorReader reader) {
+		id = reader.getLong(PROJ_INDEX_ID, 0);
+		data = reader.getString(PROJ_INDEX_DATA, null);
+		title = reader.getString(PROJ_INDEX_TITLE, null);
+		mime = reader.getString(PROJ_INDEX_MIME_TYPE, null);
+		displayName = reader.getString(PROJ_INDEX_DISPLAY_NAME, null);
+		mediaType = reader.getInt(PROJ_INDEX_MEDIA_TYPE, 0);
+		width = reader.getInt(PROJ_INDEX_WIDTH, 0);
+		height = reader.getInt(PROJ_INDEX_HEIGHT, 0);
+		return this;
+	}
+
 	/**
 	 * セッター
 	 * @param src
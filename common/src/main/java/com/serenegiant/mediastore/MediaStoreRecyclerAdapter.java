@@ -38,6 +38,7 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.serenegiant.common.R;
+import com.serenegiant.db.CursorReader;
 import com.serenegiant.utils.ThreadPool;
 import com.serenegiant.view.ViewUtils;
 
@@ -91,6 +92,10 @@ public class MediaStoreRecyclerAdapter
 	private final MyAsyncQueryHandler mQueryHandler;
 	private final ThumbnailCache mThumbnailCache;
 	private final MediaInfo info = new MediaInfo();
+	/**
+	 * PROJ_MEDIAのカラムインデックスをキャッシュしてmCursorから読み込むためのCursorReader
+	 */
+	private final CursorReader mReader = new CursorReader(PROJ_MEDIA);
 	private final Handler mUIHandler = new Handler(Looper.getMainLooper());
 
 	private boolean mDataValid;
@@ -282,9 +287,7 @@ public class MediaStoreRecyclerAdapter
 				QUERY_URI, PROJ_MEDIA,
 				mSelection, mSelectionArgs, mSortOrder);
 		}
-		if (mCursor.moveToPosition(position)) {
-			_info.loadFromCursor(mCursor);
-		}
+		mReader.bind(mCursor).read(position, MediaInfo.ROW_MAPPER, _info);
 		return _info;
 	}
 
@@ -565,7 +568,7 @@ public class MediaStoreRecyclerAdapter
 				iv.setImageDrawable(drawable);
 			}
 			((LoaderDrawable)drawable).startLoad(
-				mCursor.getInt(PROJ_INDEX_MEDIA_TYPE), mCursor.getLong(PROJ_INDEX_ID));
+				info.mediaType, info.id);
 		}
 		if (tv != null) {
 			tv.setVisibility(mShowTitle ? View.VISIBLE : View.GONE);
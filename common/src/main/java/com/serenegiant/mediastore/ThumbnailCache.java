@@ -22,6 +22,7 @@ import android.app.ActivityManager;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.graphics.Bitmap;
+import android.os.Process;
 import android.provider.MediaStore;
 import android.util.Log;
 
@@ -37,8 +38,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Locale;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -46,6 +54,10 @@ import androidx.collection.LruCache;
 
 /**
  * サムネイルキャッシュ
+ * メモリーキャッシュはキーのハッシュ値で分割したLruCacheのストライプとして保持し、
+ * ディスクキャッシュの読み込みとサムネイル生成はグローバルロックの外で行う。
+ * 同じキーに対する同時読み込み要求は1つの読み込み処理を共有する(single-flight)。
+ * ディスクキャッシュへの書き込みは専用スレッドで非同期に行う(write-behind)。
  * FIXME groupIdは無視...groupIdは削除するかも
  */
 public class ThumbnailCache {
@@ -60,10 +72,31 @@ public class ThumbnailCache {
 	// rate of memory usage for cache, 'CACHE_RATE = 8' means use 1/8 of available memory for image cache
 	private static final Object sSync = new Object();
 	private static final int CACHE_RATE = 8;
-	private static LruCache<String, Bitmap> sThumbnailCache;
-	private static DiskLruCache sDiskLruCache;
+	/**
+	 * メモリーキャッシュの分割数, 2のべき乗にすること
+	 */
+	private static final int CACHE_STRIPES = 8;
+	/**
+	 * ディスクキャッシュへの書き込み待ちの最大数
+	 * これを超えるとディスクキャッシュへの書き込みを諦める(メモリーキャッシュには入っている)
+	 */
+	private static final int MAX_PENDING_WRITES = 64;
+	private static volatile LruCache<String, Bitmap>[] sThumbnailCache;
+	private static volatile DiskLruCache sDiskLruCache;
 	private static int sCacheSize;
+	/**
+	 * 読み込み中のキーと読み込み処理の対応
+	 */
+	private static final ConcurrentHashMap<String, FutureTask<Bitmap>>
+		sLoading = new ConcurrentHashMap<>();
+	/**
+	 * ディスクキャッシュへの書き込み待ちのキーとビットマップの対応
+	 */
+	private static final ConcurrentHashMap<String, Bitmap>
+		sPendingWrites = new ConcurrentHashMap<>();
+	private static ExecutorService sDiskWriter;
 
+	@SuppressWarnings("unchecked")
 	private static void prepareThumbnailCache(@NonNull final Context context) {
 		synchronized (sSync) {
 			if (sThumbnailCache == null) {
@@ -73,13 +106,17 @@ public class ThumbnailCache {
 					.getMemoryClass();
 				// use 1/CACHE_RATE of available memory as memory cache
 				sCacheSize = (1024 * 1024 * memClass) / CACHE_RATE;	// [MB] => [bytes]
-				sThumbnailCache = new LruCache<String, Bitmap>(sCacheSize) {
-					@Override
-					protected int sizeOf(@NonNull String key, @NonNull Bitmap bitmap) {
-						// control memory usage instead of bitmap counts
-						return bitmap.getRowBytes() * bitmap.getHeight();	// [bytes]
-					}
-				};
+				final LruCache<String, Bitmap>[] caches = new LruCache[CACHE_STRIPES];
+				final int stripeSize = Math.max(1, sCacheSize / CACHE_STRIPES);
+				for (int i = 0; i < CACHE_STRIPES; i++) {
+					caches[i] = new LruCache<String, Bitmap>(stripeSize) {
+						@Override
+						protected int sizeOf(@NonNull String key, @NonNull Bitmap bitmap) {
+							// control memory usage instead of bitmap counts
+							return bitmap.getRowBytes() * bitmap.getHeight();	// [bytes]
+						}
+					};
+				}
 				try {
 					final File cacheDir = getDiskCacheDir(context);
 					if (!cacheDir.exists()) {
@@ -96,6 +133,26 @@ public class ThumbnailCache {
 					sDiskLruCache = null;
 					Log.w(TAG, e);
 				}
+				if (sDiskWriter == null) {
+					sDiskWriter = new ThreadPoolExecutor(1, 1,
+						0L, TimeUnit.MILLISECONDS,
+						new LinkedBlockingQueue<Runnable>(),
+						new ThreadFactory() {
+							@Override
+							public Thread newThread(@NonNull final Runnable r) {
+								final Thread t = new Thread(new Runnable() {
+									@Override
+									public void run() {
+										Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+										r.run();
+									}
+								}, TAG + "-DiskWriter");
+								t.setDaemon(true);
+								return t;
+							}
+						});
+				}
+				sThumbnailCache = caches;
 			}
 		}
 	}
@@ -117,6 +174,18 @@ public class ThumbnailCache {
 		return cacheDir;
 	}
 
+	/**
+	 * 指定したキーに対応するメモリーキャッシュのストライプを取得する
+	 * @param key
+	 * @return
+	 */
+	@NonNull
+	private static LruCache<String, Bitmap> memCache(@NonNull final String key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return sThumbnailCache[h & (CACHE_STRIPES - 1)];
+	}
+
 	/**
 	 * コンストラクタ
 	 * @param context
@@ -128,8 +197,12 @@ public class ThumbnailCache {
 	@Override
 	protected void finalize() throws Throwable {
 		try {
-			synchronized (sSync) {
-				sThumbnailCache.trimToSize(sCacheSize);
+			final LruCache<String, Bitmap>[] caches = sThumbnailCache;
+			if (caches != null) {
+				final int stripeSize = Math.max(1, sCacheSize / CACHE_STRIPES);
+				for (final LruCache<String, Bitmap> cache: caches) {
+					cache.trimToSize(stripeSize);
+				}
 			}
 		} finally {
 			super.finalize();
@@ -151,39 +224,77 @@ public class ThumbnailCache {
 	/**
 	 * 指定したキーに対応するキャッシュを取得する
 	 * 存在しなければnull
+	 * ディスクキャッシュからの読み込みはグローバルロックの外で行う
 	 * @param key
 	 * @return
 	 */
 	@Nullable
 	public Bitmap get(@NonNull final String key) {
-		Bitmap result;
-		synchronized (sSync) {
-			result = sThumbnailCache.get(key);
-			if ((result == null) && (sDiskLruCache != null)) {
-				InputStream in = null;
+		Bitmap result = getFromMemCache(key);
+		if (result == null) {
+			result = getFromDiskCache(key);
+			if (result != null) {
+				memCache(key).put(key, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 指定したキーに対応するキャッシュをメモリーキャッシュ(ディスクキャッシュへの
+	 * 書き込み待ちを含む)から取得する
+	 * 存在しなければnull
+	 * @param key
+	 * @return
+	 */
+	@Nullable
+	private static Bitmap getFromMemCache(@NonNull final String key) {
+		final LruCache<String, Bitmap> cache = memCache(key);
+		Bitmap result = cache.get(key);
+		if (result == null) {
+			// ディスクキャッシュへの書き込み待ちになっていないかどうか
+			result = sPendingWrites.get(key);
+			if (result != null) {
+				cache.put(key, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * ディスクキャッシュから読み込む
+	 * 存在しなければnull
+	 * @param key
+	 * @return
+	 */
+	@Nullable
+	private static Bitmap getFromDiskCache(@NonNull final String key) {
+		final DiskLruCache diskCache = sDiskLruCache;
+		Bitmap result = null;
+		if (diskCache != null) {
+			InputStream in = null;
+			try {
+				final DiskLruCache.Snapshot snapshot = diskCache.get(key);
+				if (snapshot != null) {
+//					if (DEBUG) Log.v(TAG, "get:disk cache hit!");
+					in = snapshot.getInputStream(DISK_CACHE_INDEX);
+					if (in != null) {
+						final FileDescriptor fd = ((FileInputStream) in).getFD();
+						// Decode bitmap, but we don't want to sample so give
+						// MAX_VALUE as the target dimensions
+						result = BitmapHelper.asBitmap(fd,
+							Integer.MAX_VALUE, Integer.MAX_VALUE);
+					}
+				}
+			} catch (final IOException e) {
+				if (DEBUG) Log.w(TAG, e);
+			} finally {
 				try {
-					final DiskLruCache.Snapshot snapshot = sDiskLruCache.get(key);
-					if (snapshot != null) {
-//						if (DEBUG) Log.v(TAG, "get:disk cache hit!");
-						in = snapshot.getInputStream(DISK_CACHE_INDEX);
-						if (in != null) {
-							final FileDescriptor fd = ((FileInputStream) in).getFD();
-							// Decode bitmap, but we don't want to sample so give
-							// MAX_VALUE as the target dimensions
-							result = BitmapHelper.asBitmap(fd,
-								Integer.MAX_VALUE, Integer.MAX_VALUE);
-						}
+					if (in != null) {
+						in.close();
 					}
 				} catch (final IOException e) {
-					if (DEBUG) Log.w(TAG, e);
-				} finally {
-					try {
-						if (in != null) {
-							in.close();
-						}
-					} catch (final IOException e) {
-						// ignore
-					}
+					// ignore
 				}
 			}
 		}
@@ -192,44 +303,90 @@ public class ThumbnailCache {
 
 	/**
 	 * 指定したキーに対応するビットマップをキャッシュに追加する
+	 * メモリーキャッシュへは直ちに追加し、ディスクキャッシュへは非同期で書き込む
 	 * @param key
 	 * @param bitmap
 	 */
 	public void put(@NonNull final String key, @NonNull final Bitmap bitmap) {
 		if (DEBUG) Log.v(TAG, "put:key=" + key);
-		synchronized (sSync) {
-			sThumbnailCache.put(key, bitmap);
-			if (sDiskLruCache != null) {
-				// ディスクキャッシュへの追加処理
-				OutputStream out = null;
-				try {
-					DiskLruCache.Snapshot snapshot = sDiskLruCache.get(key);
-					if (snapshot == null) {
-						// ディスクキャッシュにエントリーが存在していない
-						final DiskLruCache.Editor editor = sDiskLruCache.edit(key);
-						if (editor != null) {
-							out = editor.newOutputStream(DISK_CACHE_INDEX);
-							bitmap.compress(
-								Bitmap.CompressFormat.JPEG, 90, out);
-							editor.commit();
-							out.close();
+		memCache(key).put(key, bitmap);
+		final ExecutorService writer = sDiskWriter;
+		if ((sDiskLruCache != null) && (writer != null)
+			&& (sPendingWrites.size() < MAX_PENDING_WRITES)
+			&& (sPendingWrites.putIfAbsent(key, bitmap) == null)) {
+
+			try {
+				writer.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							writeToDiskCache(key, bitmap);
+						} finally {
+							sPendingWrites.remove(key);
 						}
-					} else {
-						// ディスクキャッシュに既にエントリーが存在している
-						snapshot.getInputStream(DISK_CACHE_INDEX).close();
 					}
+				});
+			} catch (final Exception e) {
+				sPendingWrites.remove(key);
+				if (DEBUG) Log.w(TAG, e);
+			}
+		}
+	}
+
+	/**
+	 * ディスクキャッシュへの追加処理
+	 * ディスクキャッシュ書き込みスレッド上で実行される
+	 * @param key
+	 * @param bitmap
+	 */
+	private static void writeToDiskCache(@NonNull final String key, @NonNull final Bitmap bitmap) {
+		final DiskLruCache diskCache = sDiskLruCache;
+		if ((diskCache == null) || bitmap.isRecycled()) {
+			return;
+		}
+		OutputStream out = null;
+		DiskLruCache.Editor editor = null;
+		try {
+			DiskLruCache.Snapshot snapshot = diskCache.get(key);
+			if (snapshot == null) {
+				// ディスクキャッシュにエントリーが存在していない
+				editor = diskCache.edit(key);
+				if (editor != null) {
+					out = editor.newOutputStream(DISK_CACHE_INDEX);
+					if (!bitmap.compress(
+						Bitmap.CompressFormat.JPEG, 90, out)) {
+
+						throw new IOException("failed to compress bitmap");
+					}
+					out.close();
+					out = null;
+					// commitした後はabortできないので先にクリアしておく
+					final DiskLruCache.Editor committing = editor;
+					editor = null;
+					committing.commit();
+				}
+			} else {
+				// ディスクキャッシュに既にエントリーが存在している
+				snapshot.getInputStream(DISK_CACHE_INDEX).close();
+			}
+		} catch (final IOException e) {
+			if (DEBUG) Log.w(TAG, e);
+		} catch (final Exception e) {
+			if (DEBUG) Log.w(TAG, e);
+		} finally {
+			try {
+				if (out != null) {
+					out.close();
+				}
+			} catch (final IOException e) {
+				if (DEBUG) Log.w(TAG, e);
+			}
+			if (editor != null) {
+				// 書き込みに失敗した時は編集中のままにすると以降同じキーへ書き込めなくなる
+				try {
+					editor.abort();
 				} catch (final IOException e) {
 					if (DEBUG) Log.w(TAG, e);
-				} catch (final Exception e) {
-					if (DEBUG) Log.w(TAG, e);
-				} finally {
-					try {
-						if (out != null) {
-							out.close();
-						}
-					} catch (final IOException e) {
-						if (DEBUG) Log.w(TAG, e);
-					}
 				}
 			}
 		}
@@ -239,8 +396,11 @@ public class ThumbnailCache {
 	 * メモリーキャッシュをクリアする
 	 */
 	public void clear() {
-		synchronized (sSync) {
-			sThumbnailCache.evictAll();
+		final LruCache<String, Bitmap>[] caches = sThumbnailCache;
+		if (caches != null) {
+			for (final LruCache<String, Bitmap> cache: caches) {
+				cache.evictAll();
+			}
 		}
 	}
 
@@ -260,36 +420,63 @@ public class ThumbnailCache {
 			throws IOException {
 
 		// try to get from internal thumbnail cache(in memory), this may be redundant
+		// ディスクキャッシュは同じキーの読み込みを1回にまとめた中で1度だけ確認する
 		final String key = getKey(id);
-		Bitmap result;
-		synchronized (sSync) {
-			result = get(key);
-			if (result == null) {
-				if ((requestWidth <= 0) || (requestHeight <= 0)) {
-					result = BitmapHelper.asBitmap(cr, id, requestWidth, requestHeight);
-				} else {
-					int kind = MediaStore.Images.Thumbnails.MICRO_KIND;
-					if ((requestWidth > 96) || (requestHeight > 96) || (requestWidth * requestHeight > 128 * 128))
-						kind = MediaStore.Images.Thumbnails.MINI_KIND;
-					try {
-						result = MediaStore.Images.Thumbnails.getThumbnail(cr, id, kind, null);
-					} catch (final Exception e) {
-						if (DEBUG) Log.w(TAG, e);
-					}
-				}
-				if (result != null) {
-					final int orientation = BitmapHelper.getOrientation(cr, id);
-					if (orientation != 0) {
-						final Bitmap newBitmap = BitmapHelper.rotateBitmap(result, orientation);
-						result.recycle();
-						result = newBitmap;
-					}
-					if (DEBUG) Log.v(TAG, String.format("getImageThumbnail:id=%d(%d,%d)",
-						id, result.getWidth(), result.getHeight()));
-					// add to internal thumbnail cache(in memory)
-					put(key, result);
+		Bitmap result = getFromMemCache(key);
+		if (result == null) {
+			result = load(key, new Callable<Bitmap>() {
+				@Override
+				public Bitmap call() throws Exception {
+					return loadImageThumbnail(cr, id, requestWidth, requestHeight);
 				}
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * 静止画のサムネイルを生成する
+	 * @param cr
+	 * @param id
+	 * @param requestWidth
+	 * @param requestHeight
+	 * @return
+	 * @throws IOException
+	 */
+	@Nullable
+	private Bitmap loadImageThumbnail(
+		@NonNull final ContentResolver cr, final long id,
+		final int requestWidth, final int requestHeight)
+			throws IOException {
 
+		final String key = getKey(id);
+		// 読み込み待ちの間に他のスレッドがキャッシュへ追加しているかもしれないので
+		// メモリーキャッシュを再確認してからディスクキャッシュを確認する
+		Bitmap result = get(key);
+		if (result == null) {
+			if ((requestWidth <= 0) || (requestHeight <= 0)) {
+				result = BitmapHelper.asBitmap(cr, id, requestWidth, requestHeight);
+			} else {
+				int kind = MediaStore.Images.Thumbnails.MICRO_KIND;
+				if ((requestWidth > 96) || (requestHeight > 96) || (requestWidth * requestHeight > 128 * 128))
+					kind = MediaStore.Images.Thumbnails.MINI_KIND;
+				try {
+					result = MediaStore.Images.Thumbnails.getThumbnail(cr, id, kind, null);
+				} catch (final Exception e) {
+					if (DEBUG) Log.w(TAG, e);
+				}
+			}
+			if (result != null) {
+				final int orientation = BitmapHelper.getOrientation(cr, id);
+				if (orientation != 0) {
+					final Bitmap newBitmap = BitmapHelper.rotateBitmap(result, orientation);
+					result.recycle();
+					result = newBitmap;
+				}
+				if (DEBUG) Log.v(TAG, String.format("getImageThumbnail:id=%d(%d,%d)",
+					id, result.getWidth(), result.getHeight()));
+				// add to internal thumbnail cache(in memory)
+				put(key, result);
 			}
 		}
 		return result;
@@ -312,40 +499,104 @@ public class ThumbnailCache {
 			throws FileNotFoundException, IOException {
 
 		// try to get from internal thumbnail cache(in memory), this may be redundant
+		// ディスクキャッシュは同じキーの読み込みを1回にまとめた中で1度だけ確認する
 		final String key = getKey(id);
-		Bitmap result;
-		synchronized (sSync) {
-			result = sThumbnailCache.get(key);
-			if (result == null) {
-				int kind = MediaStore.Video.Thumbnails.MICRO_KIND;
-				if ((requestWidth > 96) || (requestHeight > 96) || (requestWidth * requestHeight > 128 * 128))
-					kind = MediaStore.Video.Thumbnails.MINI_KIND;
-				try {
-					result = MediaStore.Video.Thumbnails.getThumbnail(cr, id, kind, null);
-				} catch (final Exception e) {
-					if (DEBUG) Log.w(TAG, e);
-				}
-				if (result != null) {
-					if (DEBUG) Log.v(TAG, String.format("getVideoThumbnail:id=%d(%d,%d)",
-						id, result.getWidth(), result.getHeight()));
-					// XXX 動画はExifが無いはずなのとAndroid10未満だとorientationフィールドが無い可能性が高いので実際には回転しないかも
-					final int orientation = BitmapHelper.getOrientation(cr, id);
-					if (orientation != 0) {
-						final Bitmap newBitmap = BitmapHelper.rotateBitmap(result, orientation);
-						result.recycle();
-						result = newBitmap;
-					}
-					// add to internal thumbnail cache(in memory)
-					put(key, result);
-				} else {
-					Log.w(TAG, "failed to get video thumbnail ofr id=" + id);
+		Bitmap result = getFromMemCache(key);
+		if (result == null) {
+			result = load(key, new Callable<Bitmap>() {
+				@Override
+				public Bitmap call() throws Exception {
+					return loadVideoThumbnail(cr, id, requestWidth, requestHeight);
 				}
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * 動画のサムネイルを生成する
+	 * @param cr
+	 * @param id
+	 * @param requestWidth
+	 * @param requestHeight
+	 * @return
+	 */
+	@Nullable
+	private Bitmap loadVideoThumbnail(
+		@NonNull final ContentResolver cr, final long id,
+		final int requestWidth, final int requestHeight) {
 
+		final String key = getKey(id);
+		// 読み込み待ちの間に他のスレッドがキャッシュへ追加しているかもしれないので
+		// メモリーキャッシュを再確認してからディスクキャッシュを確認する
+		Bitmap result = get(key);
+		if (result == null) {
+			int kind = MediaStore.Video.Thumbnails.MICRO_KIND;
+			if ((requestWidth > 96) || (requestHeight > 96) || (requestWidth * requestHeight > 128 * 128))
+				kind = MediaStore.Video.Thumbnails.MINI_KIND;
+			try {
+				result = MediaStore.Video.Thumbnails.getThumbnail(cr, id, kind, null);
+			} catch (final Exception e) {
+				if (DEBUG) Log.w(TAG, e);
+			}
+			if (result != null) {
+				if (DEBUG) Log.v(TAG, String.format("getVideoThumbnail:id=%d(%d,%d)",
+					id, result.getWidth(), result.getHeight()));
+				// XXX 動画はExifが無いはずなのとAndroid10未満だとorientationフィールドが無い可能性が高いので実際には回転しないかも
+				final int orientation = BitmapHelper.getOrientation(cr, id);
+				if (orientation != 0) {
+					final Bitmap newBitmap = BitmapHelper.rotateBitmap(result, orientation);
+					result.recycle();
+					result = newBitmap;
+				}
+				// add to internal thumbnail cache(in memory)
+				put(key, result);
+			} else {
+				Log.w(TAG, "failed to get video thumbnail ofr id=" + id);
 			}
 		}
 		return result;
 	}
 
+	/**
+	 * 同じキーに対する読み込み処理を1つにまとめて実行する(single-flight)
+	 * 既に他のスレッドが同じキーを読み込み中であればその結果を待って返す
+	 * @param key
+	 * @param loader
+	 * @return
+	 * @throws IOException
+	 */
+	@Nullable
+	private static Bitmap load(@NonNull final String key,
+		@NonNull final Callable<Bitmap> loader) throws IOException {
+
+		final FutureTask<Bitmap> task = new FutureTask<>(loader);
+		FutureTask<Bitmap> running = sLoading.putIfAbsent(key, task);
+		if (running == null) {
+			// 自スレッドで読み込む
+			running = task;
+			try {
+				task.run();
+			} finally {
+				sLoading.remove(key, task);
+			}
+		}
+		try {
+			return running.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException)cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
 	/**
 	 * キャッシュエントリー用のキー文字列生成
 	 * @param id
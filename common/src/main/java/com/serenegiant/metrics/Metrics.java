@@ -0,0 +1,189 @@
+package com.serenegiant.metrics;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import com.serenegiant.system.Time;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 各パイプラインから計測値を出力するためのヘルパークラス
+ * デフォルトは何もしないMetricsSink(#NO_OP)なので、
+ * #setSinkで出力先を登録しない限りvolatileフィールドの読み込み1回分のコストしかかからない。
+ * 計測値の名前は文字列連結等でオブジェクトを生成しないように
+ * 呼び出し側で定数として保持しておくこと
+ *
+ * タイマー:
+ * final long start = Metrics.startTimer();
+ * ...
+ * Metrics.stopTimer(NAME, start);
+ *
+ * 区間:
+ * final MetricsSink sink = Metrics.beginSection(NAME);
+ * try {
+ *     ...
+ * } finally {
+ *     Metrics.endSection(sink);
+ * }
+ */
+public final class Metrics {
+	private Metrics() {
+		// インスタンス化をエラーにするためにデフォルトコンストラクタをprivateに
+	}
+
+	/**
+	 * 何もしないMetricsSink
+	 */
+	public static final MetricsSink NO_OP = new MetricsSink() {
+		@Override
+		public void count(@NonNull final String name, final long delta) {
+		}
+
+		@Override
+		public void gauge(@NonNull final String name, final long value) {
+		}
+
+		@Override
+		public void time(@NonNull final String name, final long durationNs) {
+		}
+
+		@Override
+		public void beginSection(@NonNull final String name) {
+		}
+
+		@Override
+		public void endSection() {
+		}
+	};
+
+	@NonNull
+	private static volatile MetricsSink sSink = NO_OP;
+
+	/**
+	 * 出力先を設定する
+	 * @param sink nullなら#NO_OP
+	 */
+	public static void setSink(@Nullable final MetricsSink sink) {
+		sSink = sink != null ? sink : NO_OP;
+	}
+
+	/**
+	 * 現在の出力先を取得する
+	 * @return
+	 */
+	@NonNull
+	public static MetricsSink getSink() {
+		return sSink;
+	}
+
+	/**
+	 * 出力先が登録されているかどうか
+	 * 計測値を求めるのにコストがかかる時はこれで確認してから計算すること
+	 * @return
+	 */
+	public static boolean isEnabled() {
+		return sSink != NO_OP;
+	}
+
+	/**
+	 * カウンターを加算する
+	 * @param name
+	 * @param delta
+	 */
+	public static void count(@NonNull final String name, final long delta) {
+		final MetricsSink sink = sSink;
+		if (sink != NO_OP) {
+			sink.count(name, delta);
+		}
+	}
+
+	/**
+	 * ゲージの値を設定する
+	 * @param name
+	 * @param value
+	 */
+	public static void gauge(@NonNull final String name, final long value) {
+		final MetricsSink sink = sSink;
+		if (sink != NO_OP) {
+			sink.gauge(name, value);
+		}
+	}
+
+	/**
+	 * タイマーの計測値を記録する
+	 * @param name
+	 * @param durationNs
+	 */
+	public static void time(@NonNull final String name, final long durationNs) {
+		final MetricsSink sink = sSink;
+		if (sink != NO_OP) {
+			sink.time(name, durationNs);
+		}
+	}
+
+	/**
+	 * タイマーの計測開始
+	 * @return 計測開始時刻[ナノ秒], 出力先が登録されていなければ0
+	 */
+	public static long startTimer() {
+		return sSink != NO_OP ? Time.nanoTime() : 0;
+	}
+
+	/**
+	 * タイマーの計測終了
+	 * @param name
+	 * @param startNs #startTimerの返り値, 0なら何もしない
+	 */
+	public static void stopTimer(@NonNull final String name, final long startNs) {
+		if (startNs != 0) {
+			final MetricsSink sink = sSink;
+			if (sink != NO_OP) {
+				sink.time(name, Time.nanoTime() - startNs);
+			}
+		}
+	}
+
+	/**
+	 * 区間の開始
+	 * 区間の途中で出力先が変更されても開始した出力先で終了できるように
+	 * 返り値を#endSectionへ引き渡すこと
+	 * @param name
+	 * @return 区間を開始した出力先, 出力先が登録されていなければnull
+	 */
+	@Nullable
+	public static MetricsSink beginSection(@NonNull final String name) {
+		final MetricsSink sink = sSink;
+		if (sink != NO_OP) {
+			sink.beginSection(name);
+			return sink;
+		}
+		return null;
+	}
+
+	/**
+	 * 区間の終了
+	 * @param sink #beginSectionの返り値
+	 */
+	public static void endSection(@Nullable final MetricsSink sink) {
+		if (sink != null) {
+			sink.endSection();
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package com.serenegiant.metrics;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import androidx.annotation.NonNull;
+
+/**
+ * 計測値の出力先(カウンター/ゲージ/タイマー/区間)のインターフェース
+ * Metrics#setSinkで登録すると各パイプラインから呼び出される。
+ * 描画スレッドやエンコーダーのスレッド等、複数のスレッドから同時に呼び出されるので
+ * 実装はスレッドセーフにして、処理をブロックしないようにすること
+ */
+public interface MetricsSink {
+	/**
+	 * カウンターを加算する(フレーム数、バイト数等)
+	 * @param name
+	 * @param delta
+	 */
+	public void count(@NonNull final String name, final long delta);
+	/**
+	 * ゲージの値を設定する(キューの長さ等)
+	 * @param name
+	 * @param value
+	 */
+	public void gauge(@NonNull final String name, final long value);
+	/**
+	 * タイマーの計測値を記録する(描画時間、遅延時間等)
+	 * @param name
+	 * @param durationNs 経過時間[ナノ秒]
+	 */
+	public void time(@NonNull final String name, final long durationNs);
+	/**
+	 * 区間の開始, 同じスレッドで#endSectionと対にして呼び出す
+	 * @param name
+	 */
+	public void beginSection(@NonNull final String name);
+	/**
+	 * 区間の終了
+	 */
+	public void endSection();
+}
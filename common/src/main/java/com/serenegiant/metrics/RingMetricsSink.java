@@ -0,0 +1,264 @@
+package com.serenegiant.metrics;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import com.serenegiant.system.Time;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 計測値を固定長のリングバッファーへ保持するMetricsSink
+ * ユニットテストやデバッグ時に計測値を確認するためのもの。
+ * 配列は生成時に確保し、容量を超えると古いものから上書きする
+ */
+public class RingMetricsSink implements MetricsSink {
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	public static final int TYPE_COUNT = 0;
+	public static final int TYPE_GAUGE = 1;
+	public static final int TYPE_TIME = 2;
+	public static final int TYPE_SECTION_BEGIN = 3;
+	public static final int TYPE_SECTION_END = 4;
+
+	@IntDef({TYPE_COUNT,
+		TYPE_GAUGE,
+		TYPE_TIME,
+		TYPE_SECTION_BEGIN,
+		TYPE_SECTION_END,
+	})
+	@Retention(RetentionPolicy.SOURCE)
+	public @interface EventType {}
+
+	/**
+	 * 記録した計測値
+	 */
+	public static class Event {
+		@EventType
+		public final int type;
+		/**
+		 * 計測値の名前, TYPE_SECTION_ENDの時はnull
+		 */
+		@Nullable
+		public final String name;
+		/**
+		 * TYPE_COUNTなら加算値、TYPE_GAUGEなら値、TYPE_TIMEなら経過時間[ナノ秒]
+		 */
+		public final long value;
+		/**
+		 * 記録した時刻[ナノ秒]
+		 */
+		public final long timeNs;
+
+		private Event(@EventType final int type,
+			@Nullable final String name, final long value, final long timeNs) {
+
+			this.type = type;
+			this.name = name;
+			this.value = value;
+			this.timeNs = timeNs;
+		}
+
+		@NonNull
+		@Override
+		public String toString() {
+			return "Event{type=" + type
+				+ ",name=" + name
+				+ ",value=" + value
+				+ ",timeNs=" + timeNs
+				+ "}";
+		}
+	}
+
+	private final int mCapacity;
+	private final int[] mTypes;
+	private final String[] mNames;
+	private final long[] mValues;
+	private final long[] mTimes;
+	/**
+	 * 次に書き込む位置
+	 */
+	private int mHead;
+	private int mSize;
+	/**
+	 * 上書きした計測値の数
+	 */
+	private long mOverwritten;
+
+	/**
+	 * コンストラクタ
+	 * 容量はDEFAULT_CAPACITY
+	 */
+	public RingMetricsSink() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param capacity 保持する計測値の最大数
+	 */
+	public RingMetricsSink(final int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity should be positive," + capacity);
+		}
+		mCapacity = capacity;
+		mTypes = new int[capacity];
+		mNames = new String[capacity];
+		mValues = new long[capacity];
+		mTimes = new long[capacity];
+	}
+
+	@Override
+	public void count(@NonNull final String name, final long delta) {
+		add(TYPE_COUNT, name, delta);
+	}
+
+	@Override
+	public void gauge(@NonNull final String name, final long value) {
+		add(TYPE_GAUGE, name, value);
+	}
+
+	@Override
+	public void time(@NonNull final String name, final long durationNs) {
+		add(TYPE_TIME, name, durationNs);
+	}
+
+	@Override
+	public void beginSection(@NonNull final String name) {
+		add(TYPE_SECTION_BEGIN, name, 0);
+	}
+
+	@Override
+	public void endSection() {
+		add(TYPE_SECTION_END, null, 0);
+	}
+
+	private synchronized void add(@EventType final int type,
+		@Nullable final String name, final long value) {
+
+		mTypes[mHead] = type;
+		mNames[mHead] = name;
+		mValues[mHead] = value;
+		mTimes[mHead] = Time.nanoTime();
+		mHead = (mHead + 1) % mCapacity;
+		if (mSize < mCapacity) {
+			mSize++;
+		} else {
+			mOverwritten++;
+		}
+	}
+
+	/**
+	 * 保持している計測値を全て破棄する
+	 */
+	public synchronized void clear() {
+		for (int i = 0; i < mCapacity; i++) {
+			mNames[i] = null;
+		}
+		mHead = mSize = 0;
+		mOverwritten = 0;
+	}
+
+	public int getCapacity() {
+		return mCapacity;
+	}
+
+	/**
+	 * 保持している計測値の数
+	 * @return
+	 */
+	public synchronized int size() {
+		return mSize;
+	}
+
+	/**
+	 * 容量を超えて上書きした計測値の数
+	 * @return
+	 */
+	public synchronized long getOverwrittenCount() {
+		return mOverwritten;
+	}
+
+	/**
+	 * 保持している計測値を古い順に取得する
+	 * @return
+	 */
+	@NonNull
+	public List<Event> getEvents() {
+		return getEvents(null);
+	}
+
+	/**
+	 * 指定した名前の計測値を古い順に取得する
+	 * @param name nullなら全ての計測値
+	 * @return
+	 */
+	@NonNull
+	public synchronized List<Event> getEvents(@Nullable final String name) {
+		final List<Event> result = new ArrayList<Event>(mSize);
+		final int start = (mHead - mSize + mCapacity) % mCapacity;
+		for (int i = 0; i < mSize; i++) {
+			final int ix = (start + i) % mCapacity;
+			if ((name == null) || name.equals(mNames[ix])) {
+				result.add(new Event(mTypes[ix], mNames[ix], mValues[ix], mTimes[ix]));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 保持している指定した名前のカウンターの合計値
+	 * @param name
+	 * @return
+	 */
+	public synchronized long getTotal(@NonNull final String name) {
+		long result = 0;
+		final int start = (mHead - mSize + mCapacity) % mCapacity;
+		for (int i = 0; i < mSize; i++) {
+			final int ix = (start + i) % mCapacity;
+			if ((mTypes[ix] == TYPE_COUNT) && name.equals(mNames[ix])) {
+				result += mValues[ix];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 保持している指定した名前のゲージ/タイマーの最新の値
+	 * @param name
+	 * @param defaultValue 見つからなかった時の値
+	 * @return
+	 */
+	public synchronized long getLast(@NonNull final String name, final long defaultValue) {
+		for (int i = 1; i <= mSize; i++) {
+			final int ix = (mHead - i + mCapacity) % mCapacity;
+			if (((mTypes[ix] == TYPE_GAUGE) || (mTypes[ix] == TYPE_TIME))
+				&& name.equals(mNames[ix])) {
+				return mValues[ix];
+			}
+		}
+		return defaultValue;
+	}
+}
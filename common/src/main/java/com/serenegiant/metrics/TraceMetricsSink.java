@@ -0,0 +1,136 @@
+package com.serenegiant.metrics;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import android.annotation.SuppressLint;
+import android.os.Trace;
+
+import com.serenegiant.system.BuildCheck;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * android.os.Traceへ出力するMetricsSink
+ * 区間はTrace#beginSection/#endSection(API>=18)でsystraceやPerfettoへ出力する。
+ * カウンター(累計値)/ゲージ/タイマーはTrace#setCounter(API>=29)で出力する。
+ * 対応していないAPIレベルでは何もしない。
+ * delegateを指定すると全ての呼び出しをdelegateへも引き渡す
+ */
+public class TraceMetricsSink implements MetricsSink {
+
+	private final boolean mSectionSupported;
+	private final boolean mCounterSupported;
+	@Nullable
+	private final MetricsSink mDelegate;
+	/**
+	 * カウンターの累計値
+	 */
+	@NonNull
+	private final ConcurrentHashMap<String, AtomicLong> mCounters
+		= new ConcurrentHashMap<String, AtomicLong>();
+
+	/**
+	 * コンストラクタ
+	 */
+	public TraceMetricsSink() {
+		this(null);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param delegate 同じ計測値を引き渡すMetricsSink, nullなら引き渡さない
+	 */
+	public TraceMetricsSink(@Nullable final MetricsSink delegate) {
+		mSectionSupported = BuildCheck.isJellyBeanMR2();
+		mCounterSupported = BuildCheck.isQ();
+		mDelegate = delegate;
+	}
+
+	@SuppressLint("NewApi")
+	@Override
+	public void count(@NonNull final String name, final long delta) {
+		if (mCounterSupported) {
+			AtomicLong counter = mCounters.get(name);
+			if (counter == null) {
+				final AtomicLong c = new AtomicLong();
+				counter = mCounters.putIfAbsent(name, c);
+				if (counter == null) {
+					counter = c;
+				}
+			}
+			Trace.setCounter(name, counter.addAndGet(delta));
+		}
+		if (mDelegate != null) {
+			mDelegate.count(name, delta);
+		}
+	}
+
+	@SuppressLint("NewApi")
+	@Override
+	public void gauge(@NonNull final String name, final long value) {
+		if (mCounterSupported) {
+			Trace.setCounter(name, value);
+		}
+		if (mDelegate != null) {
+			mDelegate.gauge(name, value);
+		}
+	}
+
+	@SuppressLint("NewApi")
+	@Override
+	public void time(@NonNull final String name, final long durationNs) {
+		if (mCounterSupported) {
+			Trace.setCounter(name, durationNs);
+		}
+		if (mDelegate != null) {
+			mDelegate.time(name, durationNs);
+		}
+	}
+
+	/**
+	 * 区間の開始
+	 * Trace#beginSectionの制限で名前は127文字以下にすること
+	 * @param name
+	 */
+	@SuppressLint("NewApi")
+	@Override
+	public void beginSection(@NonNull final String name) {
+		if (mSectionSupported) {
+			Trace.beginSection(name);
+		}
+		if (mDelegate != null) {
+			mDelegate.beginSection(name);
+		}
+	}
+
+	@SuppressLint("NewApi")
+	@Override
+	public void endSection() {
+		if (mDelegate != null) {
+			mDelegate.endSection();
+		}
+		if (mSectionSupported) {
+			Trace.endSection();
+		}
+	}
+}
@@ -24,18 +24,23 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import android.util.Log;
 
+import com.serenegiant.io.ByteBufferPool;
 import com.serenegiant.io.ChannelHelper;
+import com.serenegiant.metrics.Metrics;
 import com.serenegiant.utils.HandlerThreadHandler;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.net.SocketException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.ByteChannel;
 import java.nio.channels.ClosedChannelException;
 import java.nio.charset.Charset;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public abstract class AbstractChannelDataLink {
 	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
@@ -49,8 +54,26 @@ public abstract class AbstractChannelDataLink {
 		public void onReceive(final AbstractClient client, @Nullable final Object msg);
 		public void onError(final AbstractClient client, final Exception e);
 	}
+
+	/**
+	 * 受信したByteBufferをByteBufferPoolから貸し出したまま受け取るためのコールバック
+	 * ByteBufferの受信時にはCallback#onReceiveの代わりに#onReceiveBufferが呼ばれる
+	 */
+	public interface LeasedCallback extends Callback {
+		/**
+		 * ByteBufferを受信した時
+		 * 受け取ったleaseは参照カウントを1増やしてあるので
+		 * 使い終わったら必ずByteBufferPool.Lease#releaseを呼ぶこと
+		 * 例外を投げた時は呼び出し元でreleaseするのでreleaseせずに投げること
+		 * @param client
+		 * @param lease
+		 */
+		public void onReceiveBuffer(final AbstractClient client,
+			@NonNull final ByteBufferPool.Lease lease);
+	}
 	
 	private static final int REQ_RELEASE = -9;
+	private static final int REQ_FLUSH = -10;
 	private static final int TYPE_UNKNOWN = -1;
 	private static final int TYPE_NULL = 0;
 	private static final int TYPE_BYTE_BUFFER = 1;
@@ -67,8 +90,54 @@ public abstract class AbstractChannelDataLink {
 	private static final int TYPE_FLOAT_ARRAY = 40;
 	private static final int TYPE_DOUBLE_ARRAY = 41;
 
+	/**
+	 * 送信用ワーカースレッドで使う送信バッファーのサイズ(これより大きくはしない)
+	 */
+	private static final int DEFAULT_SEND_BUFFER_SIZE = 64 * 1024;
+	/**
+	 * このバイト数以上のByteBuffer/byte[]/Stringは送信バッファーへコピーせずに
+	 * ヘッダーと一緒にギャザリング書き込みする
+	 */
+	private static final int ZERO_COPY_THRESHOLD = 4 * 1024;
+	/**
+	 * 受信する1データあたりの最大バイト数(ヘッダーを含む)のデフォルト値
+	 */
+	public static final int DEFAULT_MAX_FRAME_BYTES = 64 * 1024 * 1024;
+
+	/**
+	 * 計測値の名前: 送信/受信したバイト数
+	 */
+	public static final String METRIC_SENT_BYTES = "net.datalink.sent_bytes";
+	public static final String METRIC_RECEIVED_BYTES = "net.datalink.received_bytes";
+	/**
+	 * 計測値の名前: 送信/受信したデータ数
+	 */
+	public static final String METRIC_SENT_MESSAGES = "net.datalink.sent_messages";
+	public static final String METRIC_RECEIVED_MESSAGES = "net.datalink.received_messages";
+	/**
+	 * 計測値の名前: 1回のREQ_FLUSHで送信したデータ数
+	 */
+	public static final String METRIC_SEND_BATCH = "net.datalink.send_batch";
+
+	/**
+	 * 送信待ちのデータ
+	 */
+	private static class Frame {
+		private final int type;
+		@Nullable
+		private final Object msg;
+
+		private Frame(final int type, @Nullable final Object msg) {
+			this.type = type;
+			this.msg = msg;
+		}
+	}
+
 	private final Set<AbstractClient> mClients = new CopyOnWriteArraySet<AbstractClient>();
 	private final Set<Callback> mCallbacks = new CopyOnWriteArraySet<Callback>();
+	@NonNull
+	private volatile ByteBufferPool mReceivePool = ByteBufferPool.getDefault();
+	private volatile int mMaxFrameBytes = DEFAULT_MAX_FRAME_BYTES;
 
 	/**
 	 * コンストラクタ
@@ -117,6 +186,55 @@ public abstract class AbstractChannelDataLink {
 		}
 	}
 	
+	/**
+	 * LeasedCallbackへ受信したByteBufferを渡す時に使うByteBufferPoolをセット
+	 * デフォルトはByteBufferPool#getDefault
+	 * @param pool
+	 */
+	public void setReceiveBufferPool(@NonNull final ByteBufferPool pool) {
+		mReceivePool = pool;
+	}
+
+	/**
+	 * LeasedCallbackへ受信したByteBufferを渡す時に使うByteBufferPoolを取得
+	 * @return
+	 */
+	@NonNull
+	public ByteBufferPool getReceiveBufferPool() {
+		return mReceivePool;
+	}
+
+	/**
+	 * 受信する1データあたりの最大バイト数(ヘッダーを含む)をセット
+	 * 相手から受け取ったデータ長がこれを超えるとそのクライアントを切断する
+	 * デフォルトはDEFAULT_MAX_FRAME_BYTES
+	 * @param maxFrameBytes 0以下ならDEFAULT_MAX_FRAME_BYTES
+	 */
+	public void setMaxFrameBytes(final int maxFrameBytes) {
+		mMaxFrameBytes = maxFrameBytes > 0 ? maxFrameBytes : DEFAULT_MAX_FRAME_BYTES;
+	}
+
+	/**
+	 * 受信する1データあたりの最大バイト数(ヘッダーを含む)を取得
+	 * @return
+	 */
+	public int getMaxFrameBytes() {
+		return mMaxFrameBytes;
+	}
+
+	/**
+	 * LeasedCallbackが登録されているかどうか
+	 * @return
+	 */
+	/*package*/ boolean hasLeasedCallback() {
+		for (final Callback callback: mCallbacks) {
+			if (callback instanceof LeasedCallback) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * データ受信時のコールバックを登録解除
 	 * @param callback
@@ -156,13 +274,46 @@ public abstract class AbstractChannelDataLink {
 		private volatile boolean mIsInit;
 		/** 送信データをワーカースレッド上で処理するためのHandler */
 		private Handler mSenderHandler;
+		/**
+		 * 送信待ちのデータ
+		 * 送信用ワーカースレッドでまとめて取り出して1回の書き込みで送信する
+		 */
+		private final ConcurrentLinkedQueue<Frame> mSendQueue
+			= new ConcurrentLinkedQueue<Frame>();
+		/**
+		 * REQ_FLUSHを要求済みかどうか
+		 */
+		private final AtomicBoolean mFlushRequested = new AtomicBoolean();
+		/**
+		 * 送信用ワーカースレッドで使う送信バッファー, 送信用ワーカースレッドからのみアクセスする
+		 */
+		private ByteBuffer mSendBuf;
+		/**
+		 * ギャザリング書き込み用の配列, 送信用ワーカースレッドからのみアクセスする
+		 */
+		private final ByteBuffer[] mGather = new ByteBuffer[2];
 		
 		public AbstractClient(@NonNull final AbstractChannelDataLink parent,
 			@Nullable final ByteChannel channel) {
 
+			this(parent, channel, true);
+		}
+
+		/**
+		 * コンストラクタ
+		 * @param parent
+		 * @param channel
+		 * @param useSenderThread 送信用のワーカースレッドを生成するかどうか
+		 * 						falseの時は下位クラスで#send(int, Object)と#releaseを実装すること
+		 */
+		protected AbstractClient(@NonNull final AbstractChannelDataLink parent,
+			@Nullable final ByteChannel channel, final boolean useSenderThread) {
+
 			if (DEBUG) Log.v(TAG, "Client#コンストラクタ:channel=" + channel);
 			mWeakParent = new WeakReference<AbstractChannelDataLink>(parent);
-			mSenderHandler = HandlerThreadHandler.createHandler(this);
+			if (useSenderThread) {
+				mSenderHandler = HandlerThreadHandler.createHandler(this);
+			}
 			mChannel = channel;
 		}
 		
@@ -223,7 +374,7 @@ public abstract class AbstractChannelDataLink {
 		/**
 		 * 実際の破棄処理
 		 */
-		private void internalRelease() {
+		protected void internalRelease() {
 			if (DEBUG) Log.v(TAG, "Client#internalRelease:");
 			mIsRunning = mIsInit = false;
 			ByteChannel channel;
@@ -375,54 +526,106 @@ public abstract class AbstractChannelDataLink {
 		 * @throws IOException
 		 */
 		public void send(@Nullable final Object value) throws IOException {
+			final int type = typeOf(value);
+			send(type, type == TYPE_STRING ? value.toString() : value);
+		}
+
+		/**
+		 * 複数のデータをまとめて送信
+		 * 個別に#sendを呼ぶよりも送信時のシステムコールの回数が少なくなる
+		 * @param values
+		 * @throws IOException 未対応のデータが含まれている時はどのデータも送信しない
+		 */
+		public void sendAll(@NonNull final Object... values) throws IOException {
+			final int n = values.length;
+			final int[] types = new int[n];
+			final Object[] msgs = new Object[n];
+			for (int i = 0; i < n; i++) {
+				types[i] = typeOf(values[i]);
+				msgs[i] = types[i] == TYPE_STRING ? values[i].toString() : values[i];
+			}
+			sendBatch(types, msgs);
+		}
+
+		/**
+		 * データ送信時のヘルパーメソッド
+		 * 送信キューへ追加して送信用ワーカースレッドへREQ_FLUSHを投げる
+		 * REQ_FLUSHが処理されるまでに追加されたデータは1回の書き込みでまとめて送信する
+		 * @param type
+		 * @param msg
+		 * @throws IOException
+		 */
+		protected synchronized void send(final int type, @Nullable final Object msg) throws IOException {
+			if (DEBUG) Log.v(TAG, "Client#send:");
+			if ((mSenderHandler == null) || !mIsRunning || !mIsInit) throw new IOException();
+			mSendQueue.offer(new Frame(type, msg));
+			requestFlush();
+		}
+
+		/**
+		 * 複数データ送信時のヘルパーメソッド
+		 * @param types
+		 * @param msgs
+		 * @throws IOException
+		 */
+		protected synchronized void sendBatch(@NonNull final int[] types,
+			@NonNull final Object[] msgs) throws IOException {
+
+			if (DEBUG) Log.v(TAG, "Client#sendBatch:");
+			if ((mSenderHandler == null) || !mIsRunning || !mIsInit) throw new IOException();
+			final int n = Math.min(types.length, msgs.length);
+			for (int i = 0; i < n; i++) {
+				mSendQueue.offer(new Frame(types[i], msgs[i]));
+			}
+			requestFlush();
+		}
+
+		private void requestFlush() {
+			if (mFlushRequested.compareAndSet(false, true)) {
+				mSenderHandler.sendEmptyMessage(REQ_FLUSH);
+			}
+		}
+
+		/**
+		 * 送信するデータの種類を取得する
+		 * @param value
+		 * @return
+		 * @throws IOException 未対応のデータの時
+		 */
+		private static int typeOf(@Nullable final Object value) throws IOException {
 			if (value == null) {
-				send(TYPE_NULL, null);
+				return TYPE_NULL;
 			} else if (value instanceof ByteBuffer) {
-				send(TYPE_BYTE_BUFFER, value);
-			} else if (value instanceof String) {
-				send(TYPE_STRING, value);
+				return TYPE_BYTE_BUFFER;
 			} else if (value instanceof CharSequence) {
-				send(TYPE_STRING, value.toString());
+				return TYPE_STRING;
 			} else if (value instanceof Boolean) {
-				send(TYPE_BOOL, value);
+				return TYPE_BOOL;
 			} else if (value instanceof Integer) {
-				send(TYPE_INT, value);
+				return TYPE_INT;
 			} else if (value instanceof Long) {
-				send(TYPE_LONG, value);
+				return TYPE_LONG;
 			} else if (value instanceof Float) {
-				send(TYPE_FLOAT, value);
+				return TYPE_FLOAT;
 			} else if (value instanceof Double) {
-				send(TYPE_DOUBLE, value);
+				return TYPE_DOUBLE;
 			} else if (value instanceof byte[]) {
-				send(TYPE_BYTE_ARRAY, value);
+				return TYPE_BYTE_ARRAY;
 			} else if (value instanceof boolean[]) {
-				send(TYPE_BOOL_ARRAY, value);
+				return TYPE_BOOL_ARRAY;
 			} else if (value instanceof int[]) {
-				send(TYPE_INT_ARRAY, value);
+				return TYPE_INT_ARRAY;
 			} else if (value instanceof long[]) {
-				send(TYPE_LONG_ARRAY, value);
+				return TYPE_LONG_ARRAY;
 			} else if (value instanceof float[]) {
-				send(TYPE_FLOAT_ARRAY, value);
+				return TYPE_FLOAT_ARRAY;
 			} else if (value instanceof double[]) {
-				send(TYPE_DOUBLE_ARRAY, value);
+				return TYPE_DOUBLE_ARRAY;
 			} else {
 				throw new IOException("unknown type of object");
 			}
 		}
 		
-		/**
-		 * データ送信時のヘルパーメソッド
-		 * データ送信用のスレッドのHandlerへ投げる
-		 * @param type
-		 * @param msg
-		 * @throws IOException
-		 */
-		private synchronized void send(final int type, @Nullable final Object msg) throws IOException {
-			if (DEBUG) Log.v(TAG, "Client#send:");
-			if ((mSenderHandler == null) || !mIsRunning || !mIsInit) throw new IOException();
-			mSenderHandler.sendMessage(mSenderHandler.obtainMessage(type, msg));
-		}
-		
 		/**
 		 * 初期化処理, 受信用ワーカースレッド上で実行
 		 * @throws IOException
@@ -432,6 +635,361 @@ public abstract class AbstractChannelDataLink {
 		protected void setInit(final boolean init) {
 			mIsInit = init;
 		}
+
+		/**
+		 * 送受信可能かどうか
+		 * @return
+		 */
+		protected boolean isActive() {
+			return mIsRunning && mIsInit;
+		}
+
+		@Nullable
+		protected AbstractChannelDataLink getParent() {
+			return mWeakParent.get();
+		}
+
+		/**
+		 * 送信データを種類を示すヘッダー付きのByteBufferへ変換する
+		 * ノンブロッキングモードで送信キューへ入れるために使う
+		 * @param type
+		 * @param msg
+		 * @return 読み込み用にflipしたByteBuffer, 未対応のデータならnull
+		 */
+		@Nullable
+		protected static ByteBuffer encode(final int type, @Nullable final Object msg) {
+			final Object value = type == TYPE_STRING && (msg instanceof String)
+				? ((String)msg).getBytes(UTF8) : msg;
+			final int bytes = frameBytes(type, value);
+			if (bytes < 0) {
+				return null;
+			}
+			final ByteBuffer buf = ByteBuffer.allocate(bytes).order(ByteOrder.BIG_ENDIAN);
+			encode(type, value, buf);
+			buf.flip();
+			return buf;
+		}
+
+		/**
+		 * 送信データを種類を示すヘッダー付きでByteBufferへ追加する
+		 * 複数のデータを1つのバッファーへまとめる時に使う
+		 * @param type
+		 * @param msg TYPE_STRINGの時はStringまたはUTF-8でエンコード済みのbyte[]
+		 * @param dst 残りが#frameBytes以上あること
+		 * @return 追加したバイト数, 未対応のデータなら-1
+		 */
+		protected static int encode(final int type, @Nullable final Object msg,
+			@NonNull final ByteBuffer dst) {
+
+			final Object value = type == TYPE_STRING && (msg instanceof String)
+				? ((String)msg).getBytes(UTF8) : msg;
+			final int bytes = frameBytes(type, value);
+			if (bytes < 0) {
+				return -1;
+			}
+			dst.order(ByteOrder.BIG_ENDIAN);
+			dst.putInt(type);
+			switch (type) {
+			case TYPE_BYTE_BUFFER:
+			{
+				final ByteBuffer v = (ByteBuffer)value;
+				dst.putInt(v.remaining());
+				dst.put(v);
+				break;
+			}
+			case TYPE_BOOL:
+				dst.put((byte)((Boolean)value ? 1 : 0));
+				break;
+			case TYPE_INT:
+				dst.putInt((Integer)value);
+				break;
+			case TYPE_LONG:
+				dst.putLong((Long)value);
+				break;
+			case TYPE_FLOAT:
+				dst.putFloat((Float)value);
+				break;
+			case TYPE_DOUBLE:
+				dst.putDouble((Double)value);
+				break;
+			case TYPE_STRING:
+			case TYPE_BYTE_ARRAY:
+			{
+				final byte[] v = (byte[])value;
+				dst.putInt(v.length);
+				dst.put(v);
+				break;
+			}
+			case TYPE_BOOL_ARRAY:
+			{
+				final boolean[] v = (boolean[])value;
+				dst.putInt(v.length);
+				for (final boolean b: v) {
+					dst.put((byte)(b ? 1 : 0));
+				}
+				break;
+			}
+			case TYPE_INT_ARRAY:
+			{
+				final int[] v = (int[])value;
+				dst.putInt(v.length);
+				dst.asIntBuffer().put(v);
+				dst.position(dst.position() + v.length * 4);
+				break;
+			}
+			case TYPE_LONG_ARRAY:
+			{
+				final long[] v = (long[])value;
+				dst.putInt(v.length);
+				dst.asLongBuffer().put(v);
+				dst.position(dst.position() + v.length * 8);
+				break;
+			}
+			case TYPE_FLOAT_ARRAY:
+			{
+				final float[] v = (float[])value;
+				dst.putInt(v.length);
+				dst.asFloatBuffer().put(v);
+				dst.position(dst.position() + v.length * 4);
+				break;
+			}
+			case TYPE_DOUBLE_ARRAY:
+			{
+				final double[] v = (double[])value;
+				dst.putInt(v.length);
+				dst.asDoubleBuffer().put(v);
+				dst.position(dst.position() + v.length * 8);
+				break;
+			}
+			}
+			return bytes;
+		}
+
+		/**
+		 * 種類を示すヘッダーを含めた送信データのバイト数を取得する
+		 * @param type
+		 * @param value TYPE_STRINGの時はUTF-8でエンコード済みのbyte[]
+		 * @return 未対応のデータなら-1
+		 */
+		private static int frameBytes(final int type, @Nullable final Object value) {
+			switch (type) {
+			case TYPE_NULL:
+				return 4;
+			case TYPE_BYTE_BUFFER:
+				return value instanceof ByteBuffer ? 8 + ((ByteBuffer)value).remaining() : -1;
+			case TYPE_BOOL:
+				return value instanceof Boolean ? 5 : -1;
+			case TYPE_INT:
+				return value instanceof Integer ? 8 : -1;
+			case TYPE_LONG:
+				return value instanceof Long ? 12 : -1;
+			case TYPE_FLOAT:
+				return value instanceof Float ? 8 : -1;
+			case TYPE_DOUBLE:
+				return value instanceof Double ? 12 : -1;
+			case TYPE_STRING:
+			case TYPE_BYTE_ARRAY:
+				return value instanceof byte[] ? 8 + ((byte[])value).length : -1;
+			case TYPE_BOOL_ARRAY:
+				return value instanceof boolean[] ? 8 + ((boolean[])value).length : -1;
+			case TYPE_INT_ARRAY:
+				return value instanceof int[] ? 8 + ((int[])value).length * 4 : -1;
+			case TYPE_LONG_ARRAY:
+				return value instanceof long[] ? 8 + ((long[])value).length * 8 : -1;
+			case TYPE_FLOAT_ARRAY:
+				return value instanceof float[] ? 8 + ((float[])value).length * 4 : -1;
+			case TYPE_DOUBLE_ARRAY:
+				return value instanceof double[] ? 8 + ((double[])value).length * 8 : -1;
+			default:
+				return -1;
+			}
+		}
+
+		/**
+		 * 受信する1データあたりの最大バイト数(ヘッダーを含む)を取得
+		 * @return
+		 */
+		protected int getMaxFrameBytes() {
+			final AbstractChannelDataLink parent = mWeakParent.get();
+			return parent != null ? parent.getMaxFrameBytes() : DEFAULT_MAX_FRAME_BYTES;
+		}
+
+		/**
+		 * ノンブロッキングモードでの受信データの処理
+		 * bufのpositionからlimitまでに含まれている完全なメッセージを全て解析して
+		 * #callOnReceiveを呼び出す。不完全なメッセージはpositionがその先頭を指した状態で返る
+		 * @param buf
+		 * @return 次の不完全なメッセージを受信するのに必要なバイト数(種類を示すヘッダーを含む)
+		 * @throws IOException データ長が不正な時または#getMaxFrameBytesを超える時
+		 */
+		protected int handleReceived(@NonNull final ByteBuffer buf) throws IOException {
+			buf.order(ByteOrder.BIG_ENDIAN);
+			for (; buf.remaining() >= 4 ;) {
+				final int start = buf.position();
+				final int type = buf.getInt(start);
+				final int elementBytes = elementBytes(type);
+				final long frameBytes;
+				int n = 0;
+				if (elementBytes > 0) {
+					// 可変長のデータ
+					if (buf.remaining() < 8) {
+						return 8;
+					}
+					n = buf.getInt(start + 4);
+					if (n < 0) {
+						throw new IOException("unexpected data length," + n);
+					}
+					frameBytes = 8 + (long)n * elementBytes;
+					if (frameBytes > getMaxFrameBytes()) {
+						throw new IOException("too large data length," + n);
+					}
+				} else {
+					frameBytes = 4 + fixedBytes(type);
+				}
+				if (buf.remaining() < frameBytes) {
+					return (int)frameBytes;
+				}
+				Metrics.count(METRIC_RECEIVED_BYTES, frameBytes);
+				Metrics.count(METRIC_RECEIVED_MESSAGES, 1);
+				buf.position(start + (elementBytes > 0 ? 8 : 4));
+				switch (type) {
+				case TYPE_NULL:
+					callOnReceive(null);
+					break;
+				case TYPE_BYTE_BUFFER:
+				{
+					final AbstractChannelDataLink parent = mWeakParent.get();
+					final boolean leased = (parent != null) && parent.hasLeasedCallback();
+					final ByteBufferPool.Lease lease = leased ? parent.mReceivePool.lease(n) : null;
+					final ByteBuffer value = leased ? lease.buffer() : ByteBuffer.allocateDirect(n);
+					final int limit = buf.limit();
+					buf.limit(buf.position() + n);
+					value.put(buf);
+					buf.limit(limit);
+					value.flip();
+					if (leased) {
+						callOnReceiveLeased(lease);
+					} else {
+						callOnReceive(value);
+					}
+					break;
+				}
+				case TYPE_BOOL:
+					callOnReceive(buf.get() != 0);
+					break;
+				case TYPE_INT:
+					callOnReceive(buf.getInt());
+					break;
+				case TYPE_LONG:
+					callOnReceive(buf.getLong());
+					break;
+				case TYPE_FLOAT:
+					callOnReceive(buf.getFloat());
+					break;
+				case TYPE_DOUBLE:
+					callOnReceive(buf.getDouble());
+					break;
+				case TYPE_STRING:
+				{
+					final byte[] value = new byte[n];
+					buf.get(value);
+					callOnReceive(new String(value, UTF8));
+					break;
+				}
+				case TYPE_BYTE_ARRAY:
+				{
+					final byte[] value = new byte[n];
+					buf.get(value);
+					callOnReceive(value);
+					break;
+				}
+				case TYPE_BOOL_ARRAY:
+				{
+					final boolean[] value = new boolean[n];
+					for (int i = 0; i < n; i++) {
+						value[i] = buf.get() != 0;
+					}
+					callOnReceive(value);
+					break;
+				}
+				case TYPE_INT_ARRAY:
+				{
+					final int[] value = new int[n];
+					buf.asIntBuffer().get(value);
+					callOnReceive(value);
+					break;
+				}
+				case TYPE_LONG_ARRAY:
+				{
+					final long[] value = new long[n];
+					buf.asLongBuffer().get(value);
+					callOnReceive(value);
+					break;
+				}
+				case TYPE_FLOAT_ARRAY:
+				{
+					final float[] value = new float[n];
+					buf.asFloatBuffer().get(value);
+					callOnReceive(value);
+					break;
+				}
+				case TYPE_DOUBLE_ARRAY:
+				{
+					final double[] value = new double[n];
+					buf.asDoubleBuffer().get(value);
+					callOnReceive(value);
+					break;
+				}
+				}
+				// 配列の一括読み込みはbufのpositionを進めないので次のメッセージの先頭へ移動する
+				buf.position(start + (int)frameBytes);
+			}
+			return 4;
+		}
+
+		/**
+		 * 固定長データのデータ部分のバイト数
+		 * @param type
+		 * @return
+		 */
+		private static int fixedBytes(final int type) {
+			switch (type) {
+			case TYPE_BOOL:
+				return 1;
+			case TYPE_INT:
+			case TYPE_FLOAT:
+				return 4;
+			case TYPE_LONG:
+			case TYPE_DOUBLE:
+				return 8;
+			default:
+				// TYPE_NULLと未知の種類はヘッダーのみ
+				return 0;
+			}
+		}
+
+		/**
+		 * 可変長データの1要素あたりのバイト数
+		 * @param type
+		 * @return 可変長データでなければ0
+		 */
+		private static int elementBytes(final int type) {
+			switch (type) {
+			case TYPE_BYTE_BUFFER:
+			case TYPE_STRING:
+			case TYPE_BYTE_ARRAY:
+			case TYPE_BOOL_ARRAY:
+				return 1;
+			case TYPE_INT_ARRAY:
+			case TYPE_FLOAT_ARRAY:
+				return 4;
+			case TYPE_LONG_ARRAY:
+			case TYPE_DOUBLE_ARRAY:
+				return 8;
+			default:
+				return 0;
+			}
+		}
 		
 		/**
 		 * 受信用ワーカースレッドでの処理
@@ -466,54 +1024,65 @@ public abstract class AbstractChannelDataLink {
 			throws IOException, ClassNotFoundException {
 			
 			if (DEBUG) Log.v(TAG, "Client#doReceiveLoop:");
-			
+			// 固定長データの読み込み用ワークバッファー
+			final ByteBuffer work = ByteBuffer.allocateDirect(8);
+			// 受信バイト数を計測するためにラップする
+			final ByteChannel channel = new MetricsChannel(mChannel);
 			for (; mIsRunning; ) {
 				try {
 					// 先頭は種類
-					final int type = ChannelHelper.readInt(mChannel);
+					final int type = ChannelHelper.readInt(channel, work);
+					Metrics.count(METRIC_RECEIVED_MESSAGES, 1);
 					if (DEBUG) Log.v(TAG, "Client#doReceiveLoop:type=" + type);
 					switch (type) {
 					case TYPE_NULL:
 						callOnReceive(null);
 						break;
 					case TYPE_BYTE_BUFFER:
-						callOnReceive(ChannelHelper.readByteBuffer(mChannel));
+					{
+						final AbstractChannelDataLink parent = mWeakParent.get();
+						if ((parent != null) && parent.hasLeasedCallback()) {
+							callOnReceiveLeased(ChannelHelper.readByteBuffer(channel, parent.mReceivePool));
+						} else {
+							callOnReceive(ChannelHelper.readByteBuffer(channel));
+						}
 						break;
+					}
 					case TYPE_BOOL:
-						callOnReceive(ChannelHelper.readBoolean(mChannel));
+						callOnReceive(ChannelHelper.readBoolean(channel, work));
 						break;
 					case TYPE_INT:
-						callOnReceive(ChannelHelper.readInt(mChannel));
+						callOnReceive(ChannelHelper.readInt(channel, work));
 						break;
 					case TYPE_LONG:
-						callOnReceive(ChannelHelper.readLong(mChannel));
+						callOnReceive(ChannelHelper.readLong(channel, work));
 						break;
 					case TYPE_FLOAT:
-						callOnReceive(ChannelHelper.readFloat(mChannel));
+						callOnReceive(ChannelHelper.readFloat(channel, work));
 						break;
 					case TYPE_DOUBLE:
-						callOnReceive(ChannelHelper.readDouble(mChannel));
+						callOnReceive(ChannelHelper.readDouble(channel, work));
 						break;
 					case TYPE_STRING:
-						callOnReceive(ChannelHelper.readString(mChannel));
+						callOnReceive(ChannelHelper.readString(channel));
 						break;
 					case TYPE_BYTE_ARRAY:
-						callOnReceive(ChannelHelper.readByteArray(mChannel));
+						callOnReceive(ChannelHelper.readByteArray(channel));
 						break;
 					case TYPE_BOOL_ARRAY:
-						callOnReceive(ChannelHelper.readBooleanArray(mChannel));
+						callOnReceive(ChannelHelper.readBooleanArray(channel));
 						break;
 					case TYPE_INT_ARRAY:
-						callOnReceive(ChannelHelper.readIntArray(mChannel));
+						callOnReceive(ChannelHelper.readIntArray(channel));
 						break;
 					case TYPE_LONG_ARRAY:
-						callOnReceive(ChannelHelper.readLongArray(mChannel));
+						callOnReceive(ChannelHelper.readLongArray(channel));
 						break;
 					case TYPE_FLOAT_ARRAY:
-						callOnReceive(ChannelHelper.readFloatArray(mChannel));
+						callOnReceive(ChannelHelper.readFloatArray(channel));
 						break;
 					case TYPE_DOUBLE_ARRAY:
-						callOnReceive(ChannelHelper.readDoubleArray(mChannel));
+						callOnReceive(ChannelHelper.readDoubleArray(channel));
 						break;
 					}
 				} catch (final SocketException | ClosedChannelException e) {
@@ -569,6 +1138,49 @@ public abstract class AbstractChannelDataLink {
 			}
 		}
 		
+		/**
+		 * ByteBufferPoolから貸し出したByteBufferを受信した時の処理
+		 * LeasedCallbackには参照カウントを増やしてそのまま渡し、
+		 * それ以外のCallbackにはコピーを渡す
+		 * leaseはこのメソッド内でreleaseする
+		 * LeasedCallbackが例外を投げた時はコールバックへ渡した参照もreleaseする
+		 * @param lease
+		 */
+		protected void callOnReceiveLeased(@NonNull final ByteBufferPool.Lease lease) {
+			if (DEBUG) Log.v(TAG, "callOnReceive:lease=" + lease);
+			try {
+				final AbstractChannelDataLink parent = mWeakParent.get();
+				if (parent != null) {
+					final ByteBuffer buf = lease.buffer();
+					for (final Callback callback : parent.mCallbacks) {
+						try {
+							if (callback instanceof LeasedCallback) {
+								final ByteBufferPool.Lease retained = lease.retain();
+								boolean delivered = false;
+								try {
+									((LeasedCallback)callback).onReceiveBuffer(this, retained);
+									delivered = true;
+								} finally {
+									if (!delivered) {
+										retained.release();
+									}
+								}
+							} else {
+								final ByteBuffer copy = ByteBuffer.allocateDirect(buf.remaining());
+								copy.put(buf.duplicate());
+								copy.flip();
+								callback.onReceive(this, copy);
+							}
+						} catch (final Exception e) {
+							parent.mCallbacks.remove(callback);
+						}
+					}
+				}
+			} finally {
+				lease.release();
+			}
+		}
+
 		protected void callOnError(final Exception err) {
 			if (DEBUG) Log.v(TAG, "callOnError:");
 			final AbstractChannelDataLink parent = mWeakParent.get();
@@ -583,112 +1195,126 @@ public abstract class AbstractChannelDataLink {
 			}
 		}
 		
+		/**
+		 * 送信キューのデータをまとめて送信する, 送信用ワーカースレッド上で実行
+		 * 小さなデータは送信バッファーへ詰めて1回の書き込みで送信し、
+		 * 大きなByteBuffer/byte[]/Stringはコピーせずにヘッダーと一緒にギャザリング書き込みする
+		 * 送信バッファーに入らない大きさのプリミティブ配列はバイトオーダーの変換が必要なので
+		 * その時だけ一時的なバッファーへ変換して書き込み、送信バッファーは拡張しない
+		 * @param channel
+		 * @throws IOException
+		 */
+		private void flush(@NonNull final ByteChannel channel) throws IOException {
+			// ここでクリアしておけば以降に追加されたデータは次のREQ_FLUSHで送信される
+			mFlushRequested.set(false);
+			if (mSendBuf == null) {
+				mSendBuf = ByteBuffer.allocateDirect(DEFAULT_SEND_BUFFER_SIZE);
+			}
+			final ByteBuffer buf = mSendBuf;
+			buf.clear();
+			int count = 0;
+			for (Frame frame = mSendQueue.poll(); frame != null; frame = mSendQueue.poll()) {
+				final int type = frame.type;
+				Object value = frame.msg;
+				if ((type == TYPE_STRING) && (value instanceof String)) {
+					value = ((String)value).getBytes(UTF8);
+				}
+				final int bytes = frameBytes(type, value);
+				if (bytes < 0) {
+					if (DEBUG) Log.w(TAG, "flush:unknown data,type=" + type);
+					continue;
+				}
+				final ByteBuffer payload = bytes >= ZERO_COPY_THRESHOLD ? payloadOf(type, value) : null;
+				if (payload != null) {
+					// 大きなデータはヘッダーだけを送信バッファーへ入れてペイロードと一緒に書き込む
+					if (buf.remaining() < 8) {
+						writeOut(channel, buf);
+					}
+					buf.putInt(type);
+					buf.putInt(payload.remaining());
+					buf.flip();
+					mGather[0] = buf;
+					mGather[1] = payload;
+					Metrics.count(METRIC_SENT_BYTES, buf.remaining() + payload.remaining());
+					try {
+						ChannelHelper.writeFully(channel, mGather);
+					} finally {
+						mGather[0] = mGather[1] = null;
+					}
+					buf.clear();
+				} else {
+					if (buf.remaining() < bytes) {
+						writeOut(channel, buf);
+					}
+					if (buf.capacity() < bytes) {
+						// 送信バッファーを拡張するとクライアントが生きている間ずっと
+						// 大きなバッファーを保持してしまうので一時的なバッファーを使う
+						final ByteBuffer temp = ByteBuffer.allocate(bytes);
+						encode(type, value, temp);
+						writeOut(channel, temp);
+					} else {
+						encode(type, value, buf);
+					}
+				}
+				count++;
+			}
+			writeOut(channel, buf);
+			Metrics.count(METRIC_SENT_MESSAGES, count);
+			Metrics.gauge(METRIC_SEND_BATCH, count);
+		}
+
+		/**
+		 * 送信バッファーの内容を書き込んで送信バッファーをクリアする
+		 * @param channel
+		 * @param buf
+		 * @throws IOException
+		 */
+		private static void writeOut(@NonNull final ByteChannel channel,
+			@NonNull final ByteBuffer buf) throws IOException {
+
+			if (buf.position() > 0) {
+				buf.flip();
+				Metrics.count(METRIC_SENT_BYTES, buf.remaining());
+				ChannelHelper.writeFully(channel, buf);
+			}
+			buf.clear();
+		}
+
+		/**
+		 * コピーせずに送信できるペイロードを取得する
+		 * @param type
+		 * @param value
+		 * @return ByteBuffer/byte[]/String以外ならnull
+		 */
+		@Nullable
+		private static ByteBuffer payloadOf(final int type, @Nullable final Object value) {
+			switch (type) {
+			case TYPE_BYTE_BUFFER:
+				return (ByteBuffer)value;
+			case TYPE_STRING:
+			case TYPE_BYTE_ARRAY:
+				return ByteBuffer.wrap((byte[])value);
+			default:
+				return null;
+			}
+		}
+
 		@Override
-		public synchronized boolean handleMessage(final Message msg) {
-			if (!mIsRunning || (mChannel == null)) return false;
+		public boolean handleMessage(final Message msg) {
+			final ByteChannel channel;
+			synchronized (this) {
+				channel = mChannel;
+			}
+			if (!mIsRunning || (channel == null)) return false;
 			if (DEBUG) Log.v(TAG, "handleMessage:msg=" + msg);
 			try {
-				// 内部コマンド
 				switch (msg.what) {
 				case REQ_RELEASE:
 					internalRelease();
 					return true;
-				}
-				// データ送信
-				switch (msg.what) {
-				case TYPE_NULL:
-					ChannelHelper.write(mChannel, TYPE_NULL);
+				case REQ_FLUSH:
+					flush(channel);
 					return true;
-				case TYPE_BYTE_BUFFER:
-					if (msg.obj instanceof ByteBuffer) {
-						ChannelHelper.write(mChannel, TYPE_BYTE_BUFFER);
-						ChannelHelper.write(mChannel, (ByteBuffer)msg.obj);
-					}
-					return true;
-				case TYPE_BOOL:
-					if (msg.obj instanceof Boolean) {
-						ChannelHelper.write(mChannel, TYPE_BOOL);
-						ChannelHelper.write(mChannel, (boolean)msg.obj);
-						return true;
-					}
-					break;
-				case TYPE_INT:
-					if (msg.obj instanceof Integer) {
-						ChannelHelper.write(mChannel, TYPE_INT);
-						ChannelHelper.write(mChannel, (int)msg.obj);
-						return true;
-					}
-					break;
-				case TYPE_LONG:
-					if (msg.obj instanceof Long) {
-						ChannelHelper.write(mChannel, TYPE_LONG);
-						ChannelHelper.write(mChannel, (long)msg.obj);
-						return true;
-					}
-					break;
-				case TYPE_FLOAT:
-					if (msg.obj instanceof Float) {
-						ChannelHelper.write(mChannel, TYPE_FLOAT);
-						ChannelHelper.write(mChannel, (float)msg.obj);
-						return true;
-					}
-					break;
-				case TYPE_DOUBLE:
-					if (msg.obj instanceof Double) {
-						ChannelHelper.write(mChannel, TYPE_DOUBLE);
-						ChannelHelper.write(mChannel, (double)msg.obj);
-						return true;
-					}
-					break;
-				case TYPE_STRING:
-					if (msg.obj instanceof String) {
-						ChannelHelper.write(mChannel, TYPE_STRING);
-						ChannelHelper.write(mChannel, (String)msg.obj);
-						return true;
-					}
-					break;
-				case TYPE_BYTE_ARRAY:
-					if (msg.obj instanceof byte[]) {
-						ChannelHelper.write(mChannel, TYPE_BYTE_ARRAY);
-						ChannelHelper.write(mChannel, (byte[])msg.obj);
-						return true;
-					}
-					break;
-				case TYPE_BOOL_ARRAY:
-					if (msg.obj instanceof boolean[]) {
-						ChannelHelper.write(mChannel, TYPE_BOOL_ARRAY);
-						ChannelHelper.write(mChannel, (boolean[])msg.obj);
-						return true;
-					}
-					break;
-				case TYPE_INT_ARRAY:
-					if (msg.obj instanceof int[]) {
-						ChannelHelper.write(mChannel, TYPE_INT_ARRAY);
-						ChannelHelper.write(mChannel, (int[])msg.obj);
-						return true;
-					}
-					break;
-				case TYPE_LONG_ARRAY:
-					if (msg.obj instanceof long[]) {
-						ChannelHelper.write(mChannel, TYPE_LONG_ARRAY);
-						ChannelHelper.write(mChannel, (long[])msg.obj);
-						return true;
-					}
-					break;
-				case TYPE_FLOAT_ARRAY:
-					if (msg.obj instanceof float[]) {
-						ChannelHelper.write(mChannel, TYPE_FLOAT_ARRAY);
-						ChannelHelper.write(mChannel, (float[])msg.obj);
-						return true;
-					}
-					break;
-				case TYPE_DOUBLE_ARRAY:
-					if (msg.obj instanceof double[]) {
-						ChannelHelper.write(mChannel, TYPE_DOUBLE_ARRAY);
-						ChannelHelper.write(mChannel, (double[])msg.obj);
-						return true;
-					}
-					break;
 				}
 			} catch (final SocketException e) {
 				if (DEBUG) Log.w(TAG, e);
@@ -703,4 +1329,40 @@ public abstract class AbstractChannelDataLink {
 		
 	}
 
+	/**
+	 * 読み込んだバイト数をMetricsへ出力するためのByteChannelのラッパー
+	 */
+	private static class MetricsChannel implements ByteChannel {
+		@NonNull
+		private final ByteChannel mChannel;
+
+		private MetricsChannel(@NonNull final ByteChannel channel) {
+			mChannel = channel;
+		}
+
+		@Override
+		public int read(final ByteBuffer dst) throws IOException {
+			final int result = mChannel.read(dst);
+			if (result > 0) {
+				Metrics.count(METRIC_RECEIVED_BYTES, result);
+			}
+			return result;
+		}
+
+		@Override
+		public int write(final ByteBuffer src) throws IOException {
+			return mChannel.write(src);
+		}
+
+		@Override
+		public boolean isOpen() {
+			return mChannel.isOpen();
+		}
+
+		@Override
+		public void close() throws IOException {
+			mChannel.close();
+		}
+	}
+
 }
@@ -0,0 +1,345 @@
+package com.serenegiant.net;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.ListIterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Selectorを使って複数のSelectableChannelの入出力を
+ * 1つのスレッドで多重化して処理するためのヘルパークラス
+ * IoHandlerのメソッドとqueueEventで渡したタスクは全てこのI/Oスレッド上で実行される
+ */
+/*package*/ class SelectorLoop implements Runnable {
+	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
+	private static final String TAG = SelectorLoop.class.getSimpleName();
+
+	/**
+	 * SelectorLoopへ登録したSelectableChannelのイベントハンドラー
+	 */
+	/*package*/ interface IoHandler {
+		/**
+		 * Selectorへ登録できた時
+		 * @param key
+		 * @throws IOException
+		 */
+		public void onRegistered(@NonNull final SelectionKey key) throws IOException;
+		/**
+		 * 入出力可能になった時
+		 * @param key
+		 * @throws IOException
+		 */
+		public void onSelected(@NonNull final SelectionKey key) throws IOException;
+		/**
+		 * エラーまたはSelectorLoopの終了で閉じる時
+		 * @param e エラーで閉じる時はその例外, それ以外はnull
+		 */
+		public void onClosed(@Nullable final Exception e);
+	}
+
+	/**
+	 * 遅延実行するタスク
+	 */
+	private static class DelayedTask {
+		private final Runnable task;
+		private final long when;
+
+		private DelayedTask(@NonNull final Runnable task, final long when) {
+			this.task = task;
+			this.when = when;
+		}
+	}
+
+	/**
+	 * SelectableChannelをSelectorへ登録するタスク
+	 * I/Oスレッド終了時に未実行なら登録せずに閉じる
+	 */
+	private class RegisterTask implements Runnable {
+		@NonNull
+		private final SelectableChannel channel;
+		private final int ops;
+		@NonNull
+		private final IoHandler handler;
+
+		private RegisterTask(@NonNull final SelectableChannel channel,
+			final int ops, @NonNull final IoHandler handler) {
+
+			this.channel = channel;
+			this.ops = ops;
+			this.handler = handler;
+		}
+
+		@Override
+		public void run() {
+			try {
+				final SelectionKey key = channel.register(mSelector, ops, handler);
+				handler.onRegistered(key);
+			} catch (final Exception e) {
+				handler.onClosed(e);
+			}
+		}
+
+		/**
+		 * 登録せずにIoHandler#onClosedを呼んでSelectableChannelを閉じる
+		 */
+		private void cancel() {
+			try {
+				handler.onClosed(null);
+			} catch (final Exception e) {
+				if (DEBUG) Log.w(TAG, e);
+			}
+			try {
+				channel.close();
+			} catch (final IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	@NonNull
+	private final Selector mSelector;
+	@NonNull
+	private final Thread mThread;
+	private final ConcurrentLinkedQueue<Runnable> mTasks
+		= new ConcurrentLinkedQueue<Runnable>();
+	/**
+	 * 実行予定時刻順に並べた遅延実行タスク, I/Oスレッドからのみアクセスする
+	 */
+	private final LinkedList<DelayedTask> mDelayedTasks = new LinkedList<DelayedTask>();
+	private volatile boolean mIsRunning;
+
+	/**
+	 * コンストラクタ
+	 * I/Oスレッドを生成して開始する
+	 * @param name I/Oスレッドの名前
+	 * @throws IOException
+	 */
+	/*package*/ SelectorLoop(@NonNull final String name) throws IOException {
+		mSelector = Selector.open();
+		mIsRunning = true;
+		mThread = new Thread(this, name);
+		mThread.start();
+	}
+
+	/**
+	 * I/Oスレッドを終了する
+	 * 登録されているSelectableChannelは全てIoHandler#onClosedを呼んだ後にcloseされる
+	 */
+	/*package*/ void release() {
+		if (DEBUG) Log.v(TAG, "release:");
+		mIsRunning = false;
+		mSelector.wakeup();
+	}
+
+	/*package*/ boolean isRunning() {
+		return mIsRunning;
+	}
+
+	/**
+	 * 現在のスレッドがこのSelectorLoopのI/Oスレッドかどうか
+	 * @return
+	 */
+	/*package*/ boolean isLoopThread() {
+		return Thread.currentThread() == mThread;
+	}
+
+	/**
+	 * I/Oスレッド上で実行するタスクを追加する
+	 * @param task
+	 */
+	/*package*/ void queueEvent(@NonNull final Runnable task) {
+		mTasks.offer(task);
+		mSelector.wakeup();
+	}
+
+	/**
+	 * 指定した時間経過後にI/Oスレッド上で実行するタスクを追加する
+	 * @param task
+	 * @param delayMs 0以下なら遅延しない
+	 */
+	/*package*/ void queueEvent(@NonNull final Runnable task, final long delayMs) {
+		if (delayMs <= 0) {
+			queueEvent(task);
+		} else {
+			final long when = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+			queueEvent(new Runnable() {
+				@Override
+				public void run() {
+					final ListIterator<DelayedTask> it = mDelayedTasks.listIterator();
+					while (it.hasNext()) {
+						if (it.next().when > when) {
+							it.previous();
+							break;
+						}
+					}
+					it.add(new DelayedTask(task, when));
+				}
+			});
+		}
+	}
+
+	/**
+	 * SelectableChannelをSelectorへ登録する
+	 * 登録はI/Oスレッド上で行い、登録できればIoHandler#onRegisteredが呼ばれる
+	 * 登録前にI/Oスレッドが終了した時はIoHandler#onClosedを呼んだ後にcloseされる
+	 * @param channel ノンブロッキングモードに設定済みであること
+	 * @param ops
+	 * @param handler
+	 */
+	/*package*/ void register(@NonNull final SelectableChannel channel,
+		final int ops, @NonNull final IoHandler handler) {
+
+		final RegisterTask task = new RegisterTask(channel, ops, handler);
+		queueEvent(task);
+		if (!mIsRunning && mTasks.remove(task)) {
+			// I/Oスレッドが終了処理中または終了済みなので自前で閉じる
+			task.cancel();
+		}
+	}
+
+	/**
+	 * I/Oスレッドの実行部
+	 */
+	@Override
+	public void run() {
+		if (DEBUG) Log.v(TAG, "run:");
+		try {
+			for (; mIsRunning ;) {
+				final long timeoutMs = nextTimeoutMs();
+				if (timeoutMs < 0) {
+					mSelector.selectNow();
+				} else {
+					mSelector.select(timeoutMs);
+				}
+				if (!mIsRunning) break;
+				runTasks();
+				runDelayedTasks();
+				final Iterator<SelectionKey> it = mSelector.selectedKeys().iterator();
+				while (it.hasNext()) {
+					final SelectionKey key = it.next();
+					it.remove();
+					final IoHandler handler = (IoHandler)key.attachment();
+					if (!key.isValid() || (handler == null)) continue;
+					try {
+						handler.onSelected(key);
+					} catch (final Exception e) {
+						if (DEBUG) Log.w(TAG, e);
+						key.cancel();
+						handler.onClosed(e);
+					} catch (final OutOfMemoryError e) {
+						// I/Oスレッドは全てのクライアントで共有しているので
+						// メモリー不足になったクライアントだけを切断する
+						Log.w(TAG, e);
+						key.cancel();
+						handler.onClosed(new IOException(e));
+					}
+				}
+			}
+		} catch (final Exception e) {
+			Log.w(TAG, e);
+		} finally {
+			mIsRunning = false;
+			closeAll();
+		}
+		if (DEBUG) Log.v(TAG, "run:finished");
+	}
+
+	/**
+	 * 次の遅延実行タスクまでの待機時間
+	 * @return 0なら無期限, 負なら待機しない
+	 */
+	private long nextTimeoutMs() {
+		if (!mTasks.isEmpty()) {
+			return -1;
+		}
+		if (mDelayedTasks.isEmpty()) {
+			return 0;
+		}
+		final long delayNs = mDelayedTasks.getFirst().when - System.nanoTime();
+		return delayNs > 0 ? Math.max(1, TimeUnit.NANOSECONDS.toMillis(delayNs)) : -1;
+	}
+
+	private void runTasks() {
+		for (Runnable task = mTasks.poll(); task != null; task = mTasks.poll()) {
+			try {
+				task.run();
+			} catch (final Exception e) {
+				Log.w(TAG, e);
+			}
+		}
+	}
+
+	private void runDelayedTasks() {
+		final long now = System.nanoTime();
+		for (; !mDelayedTasks.isEmpty() && (mDelayedTasks.getFirst().when <= now) ;) {
+			try {
+				mDelayedTasks.removeFirst().task.run();
+			} catch (final Exception e) {
+				Log.w(TAG, e);
+			}
+		}
+	}
+
+	/**
+	 * 登録されている全てのSelectableChannelと未登録のSelectableChannelを閉じてSelectorを破棄する
+	 */
+	private void closeAll() {
+		if (DEBUG) Log.v(TAG, "closeAll:");
+		// 未実行の登録タスクのSelectableChannelも閉じる
+		for (Runnable task = mTasks.poll(); task != null; task = mTasks.poll()) {
+			if (task instanceof RegisterTask) {
+				((RegisterTask)task).cancel();
+			}
+		}
+		mDelayedTasks.clear();
+		try {
+			for (final SelectionKey key: mSelector.keys()) {
+				final IoHandler handler = (IoHandler)key.attachment();
+				key.cancel();
+				if (handler != null) {
+					try {
+						handler.onClosed(null);
+					} catch (final Exception e) {
+						if (DEBUG) Log.w(TAG, e);
+					}
+				}
+				try {
+					key.channel().close();
+				} catch (final IOException e) {
+					// ignore
+				}
+			}
+			mSelector.close();
+		} catch (final Exception e) {
+			if (DEBUG) Log.w(TAG, e);
+		}
+	}
+}
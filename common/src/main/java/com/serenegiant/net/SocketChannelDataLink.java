@@ -20,34 +20,70 @@ package com.serenegiant.net;
 
 import android.annotation.SuppressLint;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import android.util.Log;
 
 import com.serenegiant.system.BuildCheck;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketAddress;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.LinkedList;
 
 public class SocketChannelDataLink extends AbstractChannelDataLink {
 	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
 	private static final String TAG = SocketChannelDataLink.class.getSimpleName();
 	
 	public static final int DEFAULT_SERVER_PORT = 6000;
+	/**
+	 * ノンブロッキングモードでの1クライアントあたりの送信キューの最大バイト数のデフォルト値
+	 */
+	public static final int DEFAULT_MAX_QUEUED_BYTES = 4 * 1024 * 1024;
+	/**
+	 * ノンブロッキングモードでの受信バッファーの初期サイズ
+	 */
+	private static final int READ_BUFFER_SIZE = 16 * 1024;
+	/**
+	 * ノンブロッキングモードで1回のギャザリング書き込みでまとめて送信するByteBufferの最大数
+	 */
+	private static final int MAX_GATHER = 16;
+	/**
+	 * ノンブロッキングモードで送信キューが一杯の時に空くのを待つ最大時間[ミリ秒]
+	 */
+	private static final long SEND_TIMEOUT_MS = 3000;
+
 	/** クライアントからの接続待ちを行うためのスレッドの実行部 */
 	private ServerTask mServerTask;
-	
+	/** ノンブロッキングモードでクライアントからの接続待ちを行うためのI/Oハンドラー */
+	private NioServer mNioServer;
+	/**
+	 * ノンブロッキングモードで使うI/Oスレッドの数
+	 * 0ならクライアント毎にスレッドを生成する従来の動作
+	 */
+	private final int mNumIoThreads;
+	private final int mMaxQueuedBytes;
+	/**
+	 * ノンブロッキングモードで使うI/Oスレッド, 必要になった時に生成する
+	 */
+	@Nullable
+	private SelectorLoop[] mLoops;
+	private int mNextLoop;
+
 	/**
 	 * コンストラクタ
 	 */
 	public SocketChannelDataLink() {
-		super();
+		this(null, 0);
 		if (DEBUG) Log.v(TAG, "コンストラクタ:");
 	}
 	
@@ -56,12 +92,85 @@ public class SocketChannelDataLink extends AbstractChannelDataLink {
 	 * @param callback
 	 */
 	public SocketChannelDataLink(final Callback callback) {
+		this(callback, 0);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param callback
+	 * @param numIoThreads 1以上ならSelectorを使ったノンブロッキングモードで
+	 * 						指定した数のI/Oスレッドで全てのクライアントの送受信を行う。
+	 * 						0以下ならクライアント毎に受信用と送信用のスレッドを生成する
+	 */
+	public SocketChannelDataLink(@Nullable final Callback callback, final int numIoThreads) {
+		this(callback, numIoThreads, DEFAULT_MAX_QUEUED_BYTES);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param callback
+	 * @param numIoThreads 1以上ならSelectorを使ったノンブロッキングモードで
+	 * 						指定した数のI/Oスレッドで全てのクライアントの送受信を行う。
+	 * 						0以下ならクライアント毎に受信用と送信用のスレッドを生成する
+	 * @param maxQueuedBytes ノンブロッキングモードでの1クライアントあたりの送信キューの最大バイト数
+	 * 						これを超えると送信キューが空くまで送信処理がブロックされる
+	 */
+	public SocketChannelDataLink(@Nullable final Callback callback,
+		final int numIoThreads, final int maxQueuedBytes) {
+
 		super(callback);
+		mNumIoThreads = numIoThreads > 0 ? numIoThreads : 0;
+		mMaxQueuedBytes = maxQueuedBytes > 0 ? maxQueuedBytes : DEFAULT_MAX_QUEUED_BYTES;
 	}
-	
+
 	public void release() {
 		stop();
 		super.release();
+		synchronized (this) {
+			if (mLoops != null) {
+				for (final SelectorLoop loop: mLoops) {
+					loop.release();
+				}
+				mLoops = null;
+			}
+		}
+	}
+
+	/**
+	 * ノンブロッキングモードかどうか
+	 * @return
+	 */
+	public boolean isNonBlocking() {
+		return mNumIoThreads > 0;
+	}
+
+	/**
+	 * ノンブロッキングモードで次に使うI/Oスレッドを取得する
+	 * I/Oスレッドが生成されていなければ生成する
+	 * @return
+	 * @throws IOException
+	 */
+	@NonNull
+	private synchronized SelectorLoop nextLoop() throws IOException {
+		if (mLoops == null) {
+			final SelectorLoop[] loops = new SelectorLoop[mNumIoThreads];
+			try {
+				for (int i = 0; i < mNumIoThreads; i++) {
+					loops[i] = new SelectorLoop(TAG + "-IO" + i);
+				}
+			} catch (final IOException e) {
+				for (final SelectorLoop loop: loops) {
+					if (loop != null) {
+						loop.release();
+					}
+				}
+				throw e;
+			}
+			mLoops = loops;
+		}
+		final SelectorLoop result = mLoops[mNextLoop];
+		mNextLoop = (mNextLoop + 1) % mLoops.length;
+		return result;
 	}
 				
 	public Client connectTo(final String addr) throws IOException {
@@ -80,7 +189,18 @@ public class SocketChannelDataLink extends AbstractChannelDataLink {
 		Client result;
 		try {
 			final InetAddress address = InetAddress.getByName(addr);
-			result = new Client(this, addr, port);
+			if (isNonBlocking()) {
+				final SocketChannel channel
+					= SocketChannel.open(new InetSocketAddress(address, port));
+				try {
+					result = new Client(this, channel, nextLoop());
+				} catch (final IOException e) {
+					channel.close();
+					throw e;
+				}
+			} else {
+				result = new Client(this, addr, port);
+			}
 			add(result);
 		} catch (final UnknownHostException e) {
 			throw new IOException(e.getMessage());
@@ -89,7 +209,7 @@ public class SocketChannelDataLink extends AbstractChannelDataLink {
 	}
 	
 	public synchronized boolean isRunning() {
-		return mServerTask != null;
+		return (mServerTask != null) || (mNioServer != null);
 	}
 	
 	/**
@@ -126,9 +246,17 @@ public class SocketChannelDataLink extends AbstractChannelDataLink {
 		
 		if (DEBUG) Log.v(TAG, "start");
 		add(callback);
-		if (mServerTask == null) {
-			mServerTask = new ServerTask(port);
-			new Thread(mServerTask).start();
+		if ((mServerTask == null) && (mNioServer == null)) {
+			if (isNonBlocking()) {
+				try {
+					mNioServer = new NioServer(port, nextLoop());
+				} catch (final IOException e) {
+					Log.w(TAG, e);
+				}
+			} else {
+				mServerTask = new ServerTask(port);
+				new Thread(mServerTask).start();
+			}
 		} else {
 			Log.d(TAG, "already started");
 		}
@@ -143,6 +271,10 @@ public class SocketChannelDataLink extends AbstractChannelDataLink {
 			mServerTask.release();
 			mServerTask = null;
 		}
+		if (mNioServer != null) {
+			mNioServer.release();
+			mNioServer = null;
+		}
 	}
 	
 	/**
@@ -151,10 +283,42 @@ public class SocketChannelDataLink extends AbstractChannelDataLink {
 	public static class Client extends AbstractClient {
 		private String mAddr;
 		private int mPort;
-		
+		// 以下はノンブロッキングモード用
+		/**
+		 * 送受信を行うI/Oスレッド, 従来のクライアント毎にスレッドを生成する時はnull
+		 */
+		@Nullable
+		private final SelectorLoop mLoop;
+		private final int mMaxQueuedBytes;
+		/**
+		 * 送信待ちのデータ, 自身をロックオブジェクトとしても使う
+		 */
+		private final LinkedList<ByteBuffer> mWriteQueue = new LinkedList<ByteBuffer>();
+		/**
+		 * ギャザリング書き込み用の配列, mWriteQueueで保護する
+		 */
+		private final ByteBuffer[] mGather = new ByteBuffer[MAX_GATHER];
+		/**
+		 * 送信待ちのバイト数, mWriteQueueで保護する
+		 */
+		private int mQueuedBytes;
+		/**
+		 * OP_WRITEの有効化を要求済みかどうか, mWriteQueueで保護する
+		 */
+		private boolean mWriteRequested;
+		/**
+		 * 受信バッファー, I/Oスレッドからのみアクセスする
+		 */
+		private ByteBuffer mReadBuf;
+		private SelectionKey mKey;
+		private volatile boolean mClosing;
+		private volatile boolean mClosed;
+
 		public Client(@NonNull final SocketChannelDataLink parent, @NonNull final ByteChannel channel) {
 			super(parent, channel);
 			if (DEBUG) Log.v(TAG, "Client#コンストラクタ:channel=" + channel);
+			mLoop = null;
+			mMaxQueuedBytes = 0;
 			internalStart();
 		}
 		
@@ -163,8 +327,312 @@ public class SocketChannelDataLink extends AbstractChannelDataLink {
 			if (DEBUG) Log.v(TAG, "Client#コンストラクタ:addr=" + addr + ",port=" + port);
 			mAddr = addr;
 			mPort = port;
+			mLoop = null;
+			mMaxQueuedBytes = 0;
 			internalStart();
 		}
+
+		/**
+		 * ノンブロッキングモード用のコンストラクタ
+		 * 送受信用のスレッドは生成せずにI/Oスレッド上で送受信する
+		 * @param parent
+		 * @param channel 接続済みのSocketChannel
+		 * @param loop
+		 * @throws IOException
+		 */
+		/*package*/ Client(@NonNull final SocketChannelDataLink parent,
+			@NonNull final SocketChannel channel,
+			@NonNull final SelectorLoop loop) throws IOException {
+
+			super(parent, channel, false);
+			if (DEBUG) Log.v(TAG, "Client#コンストラクタ:channel=" + channel + ",loop=" + loop);
+			mLoop = loop;
+			mMaxQueuedBytes = parent.mMaxQueuedBytes;
+			mReadBuf = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+			channel.configureBlocking(false);
+			setInit(true);
+			loop.register(channel, SelectionKey.OP_READ, mIoHandler);
+		}
+
+		/**
+		 * ノンブロッキングモードでは送信キューへ追加してI/Oスレッドで送信する
+		 * 送信キューのバイト数が上限を超えている時は空くまでブロックする
+		 * @param type
+		 * @param msg
+		 * @throws IOException
+		 */
+		@Override
+		protected void send(final int type, @Nullable final Object msg) throws IOException {
+			if (mLoop == null) {
+				super.send(type, msg);
+				return;
+			}
+			if (!isActive() || mClosing || mClosed) throw new IOException("already closed");
+			final ByteBuffer buf = encode(type, msg);
+			if (buf != null) {
+				enqueue(buf);
+			}
+		}
+
+		/**
+		 * 複数データ送信時のヘルパーメソッド
+		 * ノンブロッキングモードの時は1つのByteBufferへまとめて送信キューへ追加する
+		 * @param types
+		 * @param msgs
+		 * @throws IOException
+		 */
+		@Override
+		protected void sendBatch(@NonNull final int[] types,
+			@NonNull final Object[] msgs) throws IOException {
+
+			if (mLoop == null) {
+				super.sendBatch(types, msgs);
+				return;
+			}
+			if (!isActive() || mClosing || mClosed) throw new IOException("already closed");
+			final int n = Math.min(types.length, msgs.length);
+			final ByteBuffer[] bufs = new ByteBuffer[n];
+			int bytes = 0;
+			for (int i = 0; i < n; i++) {
+				bufs[i] = encode(types[i], msgs[i]);
+				if (bufs[i] != null) {
+					bytes += bufs[i].remaining();
+				}
+			}
+			final ByteBuffer buf = ByteBuffer.allocate(bytes);
+			for (final ByteBuffer b: bufs) {
+				if (b != null) {
+					buf.put(b);
+				}
+			}
+			buf.flip();
+			if (buf.hasRemaining()) {
+				enqueue(buf);
+			}
+		}
+
+		/**
+		 * 送信キューへ追加してI/OスレッドでOP_WRITEを有効にする
+		 * @param buf
+		 * @throws IOException
+		 */
+		private void enqueue(@NonNull final ByteBuffer buf) throws IOException {
+			boolean requestWrite = false;
+			synchronized (mWriteQueue) {
+				if ((mQueuedBytes > 0) && (mQueuedBytes + buf.remaining() > mMaxQueuedBytes)) {
+					// 送信キューが一杯なので空くまで待機する(バックプレッシャー)
+					if (mLoop.isLoopThread()) {
+						// I/Oスレッド上でブロックするとデッドロックするので待機しない
+						throw new IOException("write queue is full");
+					}
+					final long end = System.currentTimeMillis() + SEND_TIMEOUT_MS;
+					for (; !mClosed && (mQueuedBytes > 0)
+						&& (mQueuedBytes + buf.remaining() > mMaxQueuedBytes) ;) {
+
+						final long t = end - System.currentTimeMillis();
+						if (t <= 0) {
+							throw new IOException("send timeout, write queue is full");
+						}
+						try {
+							mWriteQueue.wait(t);
+						} catch (final InterruptedException e) {
+							throw new InterruptedIOException();
+						}
+					}
+					if (mClosed) throw new IOException("already closed");
+				}
+				mWriteQueue.addLast(buf);
+				mQueuedBytes += buf.remaining();
+				if (!mWriteRequested) {
+					mWriteRequested = requestWrite = true;
+				}
+			}
+			if (requestWrite) {
+				mLoop.queueEvent(mEnableWriteTask);
+			}
+		}
+
+		/**
+		 * 指定時間後に破棄する
+		 * ノンブロッキングモードでは送信キューが空になるか指定時間経過した時に切断する
+		 * @param delay 0以下なら時間指定は無効
+		 */
+		@Override
+		public synchronized void release(final long delay) {
+			if (mLoop == null) {
+				super.release(delay);
+				return;
+			}
+			if (DEBUG) Log.v(TAG, "Client#release:delay=" + delay);
+			mClosing = true;
+			if (isWriteQueueEmpty()) {
+				mLoop.queueEvent(mCloseTask);
+			} else {
+				mLoop.queueEvent(mCloseTask, delay);
+			}
+		}
+
+		private boolean isWriteQueueEmpty() {
+			synchronized (mWriteQueue) {
+				return mWriteQueue.isEmpty();
+			}
+		}
+
+		/**
+		 * 送信キューのデータをI/Oスレッドで送信できるようにOP_WRITEを有効にする
+		 */
+		private final Runnable mEnableWriteTask = new Runnable() {
+			@Override
+			public void run() {
+				if ((mKey != null) && mKey.isValid()) {
+					mKey.interestOps(mKey.interestOps() | SelectionKey.OP_WRITE);
+				}
+			}
+		};
+
+		private final Runnable mCloseTask = new Runnable() {
+			@Override
+			public void run() {
+				close(null);
+			}
+		};
+
+		/**
+		 * I/Oスレッドからのコールバック
+		 */
+		private final SelectorLoop.IoHandler mIoHandler = new SelectorLoop.IoHandler() {
+			@Override
+			public void onRegistered(@NonNull final SelectionKey key) throws IOException {
+				mKey = key;
+				callOnConnect();
+			}
+
+			@Override
+			public void onSelected(@NonNull final SelectionKey key) throws IOException {
+				if (key.isReadable()) {
+					handleRead();
+				}
+				if (key.isValid() && key.isWritable()) {
+					handleWrite();
+				}
+			}
+
+			@Override
+			public void onClosed(@Nullable final Exception e) {
+				close(e);
+			}
+		};
+
+		/**
+		 * 受信処理, I/Oスレッド上で実行される
+		 * 受信したデータは完全なメッセージになった分だけ処理し、残りは次の受信時に処理する
+		 * @throws IOException
+		 */
+		private void handleRead() throws IOException {
+			final int readBytes = ((SocketChannel)mChannel).read(mReadBuf);
+			if (readBytes < 0) {
+				// 切断された
+				close(null);
+				return;
+			}
+			if (readBytes > 0) {
+				mReadBuf.flip();
+				final int required = handleReceived(mReadBuf);
+				mReadBuf.compact();
+				if (required > mReadBuf.capacity()) {
+					// 受信中のメッセージが受信バッファーに収まらないので拡張する
+					// 相手から受け取ったデータ長なので確保する前に上限を確認する
+					// (I/Oスレッドは他のクライアントと共有しているので
+					// OutOfMemoryErrorを投げずにこのクライアントだけを切断する)
+					if (required > getMaxFrameBytes()) {
+						throw new IOException("too large frame," + required);
+					}
+					final ByteBuffer buf;
+					try {
+						buf = ByteBuffer.allocateDirect(required);
+					} catch (final OutOfMemoryError e) {
+						throw new IOException("failed to allocate receive buffer," + required, e);
+					}
+					mReadBuf.flip();
+					buf.put(mReadBuf);
+					mReadBuf = buf;
+				}
+			}
+		}
+
+		/**
+		 * 送信処理, I/Oスレッド上で実行される
+		 * @throws IOException
+		 */
+		private void handleWrite() throws IOException {
+			final SocketChannel channel = (SocketChannel)mChannel;
+			boolean empty;
+			synchronized (mWriteQueue) {
+				for (; !mWriteQueue.isEmpty() ;) {
+					// 送信キューの先頭から最大MAX_GATHER個をまとめて1回のシステムコールで書き込む
+					int n = 0;
+					long bytes = 0;
+					for (final ByteBuffer buf: mWriteQueue) {
+						mGather[n++] = buf;
+						bytes += buf.remaining();
+						if (n >= MAX_GATHER) break;
+					}
+					final long written;
+					try {
+						written = channel.write(mGather, 0, n);
+						mQueuedBytes -= written;
+					} finally {
+						for (int i = 0; i < n; i++) {
+							mGather[i] = null;
+						}
+					}
+					for (; !mWriteQueue.isEmpty() && !mWriteQueue.getFirst().hasRemaining() ;) {
+						mWriteQueue.removeFirst();
+					}
+					if (written < bytes) {
+						// ソケットの送信バッファーが一杯になった
+						break;
+					}
+				}
+				empty = mWriteQueue.isEmpty();
+				if (empty) {
+					mKey.interestOps(SelectionKey.OP_READ);
+					mWriteRequested = false;
+				}
+				mWriteQueue.notifyAll();
+			}
+			if (empty && mClosing) {
+				close(null);
+			}
+		}
+
+		/**
+		 * ノンブロッキングモードでの切断処理, I/Oスレッド上で実行される
+		 * @param e エラーで切断する時はその例外
+		 */
+		private void close(@Nullable final Exception e) {
+			if (mClosed) return;
+			if (DEBUG) Log.v(TAG, "Client#close:" + e);
+			mClosed = true;
+			synchronized (mWriteQueue) {
+				mWriteQueue.clear();
+				mQueuedBytes = 0;
+				mWriteQueue.notifyAll();
+			}
+			if (mKey != null) {
+				mKey.cancel();
+			}
+			internalRelease();
+			if (e != null) {
+				callOnError(e);
+			} else {
+				callOnDisconnect();
+			}
+			final AbstractChannelDataLink parent = getParent();
+			if (parent != null) {
+				parent.remove(this);
+			}
+		}
 		
 		/**
 		 * このClientのアドレスを取得
@@ -299,4 +767,87 @@ public class SocketChannelDataLink extends AbstractChannelDataLink {
 		}
 		
 	}
+
+	/**
+	 * ノンブロッキングモードでクライアントからの接続待ちを行うためのI/Oハンドラー
+	 */
+	private class NioServer implements SelectorLoop.IoHandler {
+		private ServerSocketChannel mServerChannel;
+
+		/**
+		 * コンストラクタ
+		 * 指定したポートで待ち受けを開始する
+		 * @param port
+		 * @param loop 接続待ちを行うI/Oスレッド
+		 * @throws IOException
+		 */
+		@SuppressLint("NewApi")
+		public NioServer(final int port, @NonNull final SelectorLoop loop) throws IOException {
+			if (DEBUG) Log.v(TAG, "NioServer#コンストラクタ:");
+			final String addr = NetworkHelper.getLocalIPv4Address();
+			final SocketAddress address = new InetSocketAddress(addr, port);
+			mServerChannel = ServerSocketChannel.open();
+			try {
+				if (BuildCheck.isNougat()) {
+					mServerChannel.bind(address);
+				} else {
+					final ServerSocket socket = mServerChannel.socket();
+					socket.bind(address);
+				}
+				mServerChannel.configureBlocking(false);
+			} catch (final IOException e) {
+				release();
+				throw e;
+			}
+			loop.register(mServerChannel, SelectionKey.OP_ACCEPT, this);
+		}
+
+		public synchronized void release() {
+			if (DEBUG) Log.v(TAG, "NioServer#release:");
+			if (mServerChannel != null) {
+				try {
+					mServerChannel.close();
+				} catch (final IOException e) {
+					// ignore
+				}
+				mServerChannel = null;
+			}
+		}
+
+		@Override
+		public void onRegistered(@NonNull final SelectionKey key) {
+			if (DEBUG) Log.v(TAG, "NioServer#onRegistered:");
+		}
+
+		/**
+		 * クライアントからの接続要求を処理する, I/Oスレッド上で実行される
+		 * 接続して来たクライアントはI/Oスレッドへ順に割り当てる
+		 * @param key
+		 * @throws IOException
+		 */
+		@Override
+		public void onSelected(@NonNull final SelectionKey key) throws IOException {
+			if (!key.isAcceptable()) return;
+			final ServerSocketChannel server = (ServerSocketChannel)key.channel();
+			for (SocketChannel clientChannel = server.accept();
+				clientChannel != null; clientChannel = server.accept()) {
+
+				if (DEBUG) Log.v(TAG, "NioServer#onSelected:accept," + clientChannel);
+				try {
+					final Client client = new Client(
+						SocketChannelDataLink.this, clientChannel, nextLoop());
+					add(client);
+				} catch (final IOException e) {
+					Log.w(TAG, e);
+					clientChannel.close();
+				}
+			}
+		}
+
+		@Override
+		public void onClosed(@Nullable final Exception e) {
+			if (DEBUG) Log.v(TAG, "NioServer#onClosed:" + e);
+			release();
+		}
+	}
 }
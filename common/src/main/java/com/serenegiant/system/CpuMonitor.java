@@ -12,14 +12,10 @@ package com.serenegiant.system;
 
 import android.util.Log;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 /**
  * FIXME Android6か7辺りからパーミッションがなくて値を取得できないのでtopまたはuptimeまたはvmstatを使うように修正
@@ -56,8 +52,13 @@ import java.util.Scanner;
  * <p>sampleCpuUtilization should not be called too often in its present form,
  * since then deltas would be small and the percent values would fluctuate and
  * be unreadable. If it is desirable to call it more often than say once per
- * second, one would need to increase SAMPLE_SAVE_NUMBER and probably use
- * Queue<Integer> to avoid copying overhead.
+ * second, one would need to increase SAMPLE_SAVE_NUMBER.
+ *
+ * <p>/proc/stat, scaling_cur_freq, 温度関係のファイルはProcFileReaderで開いたままにして
+ * サンプリング毎に再利用するバッファへ読み込むように変更。
+ * CPUコア毎の使用率・周波数とサーマルゾーン毎の温度も取得して
+ * 固定長のリングバッファへ履歴として保持する。
+ * 使い終わったら#releaseを呼んでファイルを閉じること
  *
  * <p>Known problems:
  *   1. Nexus 7 devices running Kitkat have a kernel which often output an
@@ -69,30 +70,20 @@ import java.util.Scanner;
 public final class CpuMonitor {
 	private static final String TAG = "CpuMonitor";
 	private static final int SAMPLE_SAVE_NUMBER = 10;  // Assumed to be >= 3.
+	/**
+	 * デフォルトの履歴数
+	 */
+	public static final int DEFAULT_HISTORY_SIZE = 60;
+	private static final int MAX_HWMON_NUM = 50;
+	private static final int MAX_THERMAL_ZONE_NUM = 64;
+	/**
+	 * /proc/statを読み込む最大バイト数
+	 * CPU関係の行は先頭にあるので後ろのintr等の長い行は読み込まなくても良い
+	 */
+	private static final int PROC_STAT_MAX_SIZE = 64 * 1024;
 
 //--------------------------------------------------------------------------------
-	private static final class ProcStat {
-		private long runTime;
-		private long idleTime;
-
-		private ProcStat(final long aRunTime, final long aIdleTime) {
-			runTime = aRunTime;
-			idleTime = aIdleTime;
-		}
-
-		private void set(final long aRunTime, final long aIdleTime) {
-			runTime = aRunTime;
-			idleTime = aIdleTime;
-		}
-
-		private void set(final ProcStat other) {
-			runTime = other.runTime;
-			idleTime = other.idleTime;
-		}
-	}
-
-//--------------------------------------------------------------------------------
-	private int[] percentVec = new int[SAMPLE_SAVE_NUMBER];
+	private final int[] percentVec = new int[SAMPLE_SAVE_NUMBER];
 	private int sum3 = 0;
 	private int sum10 = 0;
 	private long[] cpuFreq;
@@ -102,55 +93,184 @@ public final class CpuMonitor {
 	private int cpuAvg3;
 	private int cpuAvgAll;
 	private boolean initialized = false;
-	private String[] maxPath;
-	private String[] curPath;
-	private final ProcStat lastProcStat = new ProcStat(0L, 0L);
-	private final Map<String, Integer> mCpuTemps = new HashMap<String, Integer>();
+	private ProcFileReader[] maxReaders;
+	private ProcFileReader[] curReaders;
+	private ProcFileReader statReader;
+	private long lastRunTime;
+	private long lastIdleTime;
+	private long runTime;
+	private long idleTime;
+	/**
+	 * /proc/statの1行分の値(user, nice, system, idle)を読み込むためのワーク
+	 */
+	private final long[] mStatFields = new long[4];
+	// CPUコア毎の値
+	private long[] lastCoreRunTime;
+	private long[] lastCoreIdleTime;
+	private long[] coreRunTime;
+	private long[] coreIdleTime;
+	private boolean[] coreOnline;
+	private int[] coreLoad;
+	private long[] coreCurFreq;
+	// hwmonの温度
+	private ProcFileReader[] mTempReaders;
+	private final int[] mCpuTemps = new int[MAX_HWMON_NUM];
 	private int mTempNum = 0;
 	private float tempAve = 0;
+	// サーマルゾーンの温度
+	private ProcFileReader[] mThermalReaders;
+	private String[] mThermalTypes;
+	private int[] mThermalTemps;
+	private int mThermalNum;
+	// 履歴
+	private final int mHistorySize;
+	/**
+	 * 次に履歴を書き込む位置
+	 */
+	private int mHistoryHead;
+	private int mHistoryCount;
+	private final int[] mCpuHistory;
+	private int[][] mCoreLoadHistory;
+	private int[][] mCoreFreqHistory;
+	private int[][] mThermalHistory;
+
+	/**
+	 * コンストラクタ
+	 * 履歴数はDEFAULT_HISTORY_SIZE
+	 */
+	public CpuMonitor() {
+		this(DEFAULT_HISTORY_SIZE);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param historySize 保持する履歴数, 1以上
+	 */
+	public CpuMonitor(final int historySize) {
+		mHistorySize = Math.max(historySize, 1);
+		mCpuHistory = new int[mHistorySize];
+	}
+
+	/**
+	 * 開いているファイルを閉じる
+	 * 再度#sampleCpuUtilizationを呼ぶと初期化し直す
+	 */
+	public void release() {
+		if (initialized) {
+			initialized = false;
+			close(maxReaders);
+			close(curReaders);
+			close(mTempReaders);
+			close(mThermalReaders);
+			if (statReader != null) {
+				statReader.close();
+				statReader = null;
+			}
+		}
+	}
+
+	/**
+	 * /sys/devices/system/cpu/presentの内容("0-7"や"0-3,5"の様な形式)から
+	 * CPU数(CPU番号の最大値+1)を求める
+	 * '-'は範囲の区切りなので符号として扱わない
+	 * @param buf
+	 * @param length
+	 * @return
+	 */
+	/*package*/ static int parseCpusPresent(@NonNull final byte[] buf, final int length) {
+		int result = 0;
+		int value = -1;
+		for (int i = 0; i < length; i++) {
+			final byte b = buf[i];
+			if ((b >= '0') && (b <= '9')) {
+				value = (value < 0 ? 0 : value * 10) + (b - '0');
+			} else {
+				if (value >= 0) {
+					result = Math.max(result, value + 1);
+					value = -1;
+				}
+				if (b == '\n') {
+					break;
+				}
+			}
+		}
+		if (value >= 0) {
+			result = Math.max(result, value + 1);
+		}
+		return result;
+	}
 
 	private void init() {
+		cpusPresent = 0;
+		final ProcFileReader present = new ProcFileReader("/sys/devices/system/cpu/present");
 		try {
-			final FileReader fin = new FileReader("/sys/devices/system/cpu/present");
-			try {
-				final BufferedReader rdr = new BufferedReader(fin);
-				final Scanner scanner = new Scanner(rdr).useDelimiter("[-\n]");
-				scanner.nextInt();  // Skip leading number 0.
-				cpusPresent = 1 + scanner.nextInt();
-				scanner.close();
-			} catch (final Exception e) {
+			// "0-7"や"0-3,5"の様な形式なので最大値+1をCPU数とする
+			final int n = present.read();
+			if (n > 0) {
+				cpusPresent = parseCpusPresent(present.array(), n);
+			}
+			if (cpusPresent <= 0) {
+				cpusPresent = 0;
 				Log.e(TAG, "Cannot do CPU stats due to /sys/devices/system/cpu/present parsing problem");
-			} finally {
-				fin.close();
 			}
-		} catch (FileNotFoundException e) {
-			Log.e(TAG, "Cannot do CPU stats since /sys/devices/system/cpu/present is missing");
-		} catch (IOException e) {
-			Log.e(TAG, "Error closing file");
+		} finally {
+			present.close();
 		}
 
 		cpuFreq = new long [cpusPresent];
-		maxPath = new String[cpusPresent];
-		curPath = new String[cpusPresent];
+		maxReaders = new ProcFileReader[cpusPresent];
+		curReaders = new ProcFileReader[cpusPresent];
+		lastCoreRunTime = new long[cpusPresent];
+		lastCoreIdleTime = new long[cpusPresent];
+		coreRunTime = new long[cpusPresent];
+		coreIdleTime = new long[cpusPresent];
+		coreOnline = new boolean[cpusPresent];
+		coreLoad = new int[cpusPresent];
+		coreCurFreq = new long[cpusPresent];
+		mCoreLoadHistory = new int[cpusPresent][mHistorySize];
+		mCoreFreqHistory = new int[cpusPresent][mHistorySize];
 		for (int i = 0; i < cpusPresent; i++) {
 			cpuFreq[i] = 0;  // Frequency "not yet determined".
-			maxPath[i] = "/sys/devices/system/cpu/cpu" + i + "/cpufreq/cpuinfo_max_freq";
-			curPath[i] = "/sys/devices/system/cpu/cpu" + i + "/cpufreq/scaling_cur_freq";
+			maxReaders[i] = new ProcFileReader("/sys/devices/system/cpu/cpu" + i + "/cpufreq/cpuinfo_max_freq");
+			curReaders[i] = new ProcFileReader("/sys/devices/system/cpu/cpu" + i + "/cpufreq/scaling_cur_freq");
 		}
+		statReader = new ProcFileReader("/proc/stat", 4096, PROC_STAT_MAX_SIZE);
 
-		lastProcStat.set(0, 0);
+		lastRunTime = lastIdleTime = 0;
 
-		mCpuTemps.clear();
+		mTempReaders = new ProcFileReader[MAX_HWMON_NUM];
 		mTempNum = 0;
-		for (int i = 0; i < 50; i++) {
-			final String path = "/sys/class/hwmon/hwmon" + i;
-			final File dir = new File(path);
+		for (int i = 0; i < MAX_HWMON_NUM; i++) {
+			mCpuTemps[i] = 0;
+			final File dir = new File("/sys/class/hwmon/hwmon" + i);
 			if (dir.exists() && dir.canRead()) {
-				mCpuTemps.put(path, 0);
+				mTempReaders[i] = new ProcFileReader(new File(dir, "temp1_input").getAbsolutePath());
 				mTempNum++;
 			}
 		}
 
+		mThermalNum = 0;
+		while ((mThermalNum < MAX_THERMAL_ZONE_NUM)
+			&& new File("/sys/class/thermal/thermal_zone" + mThermalNum).exists()) {
+
+			mThermalNum++;
+		}
+		mThermalReaders = new ProcFileReader[mThermalNum];
+		mThermalTypes = new String[mThermalNum];
+		mThermalTemps = new int[mThermalNum];
+		mThermalHistory = new int[mThermalNum][mHistorySize];
+		for (int i = 0; i < mThermalNum; i++) {
+			final String path = "/sys/class/thermal/thermal_zone" + i;
+			final ProcFileReader type = new ProcFileReader(path + "/type");
+			try {
+				mThermalTypes[i] = type.readLine();
+			} finally {
+				type.close();
+			}
+			mThermalReaders[i] = new ProcFileReader(path + "/temp");
+		}
+
+		mHistoryHead = mHistoryCount = 0;
 		initialized = true;
 	}
 
@@ -161,7 +281,7 @@ public final class CpuMonitor {
 	 * cpuCurrent: The CPU use since the last sampleCpuUtilization call.
 	 * cpuAvg3: The average CPU over the last 3 calls.
 	 * cpuAvgAll: The average CPU over the last SAMPLE_SAVE_NUMBER calls.
-	 * CPU周辺の温度を取得するのが少し重いのでUIスレッドからは呼び出さないほうが良い
+	 * 成功した時はCPUコア毎の使用率・周波数とサーマルゾーン毎の温度も更新して履歴へ追加する
 	 */
 	public boolean sampleCpuUtilization() {
 		long lastSeenMaxFreq = 0;
@@ -181,17 +301,20 @@ public final class CpuMonitor {
 
 			if (cpuFreq[i] == 0) {
 				// We have never found this CPU's max frequency.  Attempt to read it.
-				long cpufreqMax = readFreqFromFile(maxPath[i]);
+				final long cpufreqMax = maxReaders[i] != null ? maxReaders[i].readLong(0) : 0;
 				if (cpufreqMax > 0) {
 					lastSeenMaxFreq = cpufreqMax;
 					cpuFreq[i] = cpufreqMax;
-					maxPath[i] = null;  // Kill path to free its memory.
+					maxReaders[i].close();
+					maxReaders[i] = null;  // max frequency never changes.
 				}
 			} else {
 				lastSeenMaxFreq = cpuFreq[i];  // A valid, previously read value.
 			}
 
-			long cpufreqCur = readFreqFromFile(curPath[i]);
+			// CPU is offline if we cannot read this, not an error.
+			final long cpufreqCur = curReaders[i].readLong(0);
+			coreCurFreq[i] = cpufreqCur;
 			cpufreqCurSum += cpufreqCur;
 
 			/* Here, lastSeenMaxFreq might come from
@@ -219,16 +342,16 @@ public final class CpuMonitor {
 		final double percentFreq = lastPercentFreq > 0 ? (lastPercentFreq + newPercentFreq) * 0.5 : newPercentFreq;
 		lastPercentFreq = newPercentFreq;
 
-		final ProcStat procStat = readIdleAndRunTime();
-		if (procStat == null) {
+		if (!readIdleAndRunTime()) {
 			return false;
 		}
 
-		final long diffRunTime = procStat.runTime - lastProcStat.runTime;
-		final long diffIdleTime = procStat.idleTime - lastProcStat.idleTime;
+		final long diffRunTime = runTime - lastRunTime;
+		final long diffIdleTime = idleTime - lastIdleTime;
 
 		// Save new measurements for next round's deltas.
-		lastProcStat.set(procStat);
+		lastRunTime = runTime;
+		lastIdleTime = idleTime;
 
 		final long allTime = diffRunTime + diffIdleTime;
 		int percent = allTime == 0 ? 0 : (int) Math.round(percentFreq * diffRunTime / allTime);
@@ -240,34 +363,47 @@ public final class CpuMonitor {
 		sum10 += percent - percentVec[SAMPLE_SAVE_NUMBER - 1];
 
 		// Rotate saved percent values, save new measurement in vacated spot.
-		for (int i = SAMPLE_SAVE_NUMBER - 1; i > 0; i--) {
-			percentVec[i] = percentVec[i - 1];
-		}
+		System.arraycopy(percentVec, 0, percentVec, 1, SAMPLE_SAVE_NUMBER - 1);
 		percentVec[0] = percent;
 
 		cpuCurrent = percent;
 		cpuAvg3 = sum3 / 3;
 		cpuAvgAll = sum10 / SAMPLE_SAVE_NUMBER;
 
+		// CPUコア毎の使用率(周波数は考慮しない)
+		for (int i = 0; i < cpusPresent; i++) {
+			if (coreOnline[i]) {
+				final long run = coreRunTime[i] - lastCoreRunTime[i];
+				final long all = run + (coreIdleTime[i] - lastCoreIdleTime[i]);
+				coreLoad[i] = (all > 0) && (run > 0)
+					? (int)Math.min(100, (run * 100 + all / 2) / all) : 0;
+				lastCoreRunTime[i] = coreRunTime[i];
+				lastCoreIdleTime[i] = coreIdleTime[i];
+			} else {
+				coreLoad[i] = 0;
+			}
+		}
+
 		tempAve = 0;
 		float tempCnt = 0;
-		for (final String path: mCpuTemps.keySet()) {
-			final File dir = new File(path);
-			if (dir.exists() && dir.canRead()) {
-				final File file = new File(dir, "temp1_input");
-				if (file.exists() && file.canRead()) {
-					final int temp = (int)readFreqFromFile(file.getAbsolutePath());
-					mCpuTemps.put(path, temp);
-					if (temp > 0) {
-						tempCnt++;
-						tempAve += temp > 1000 ? temp / 1000.0f : temp;
-					}
+		for (int i = 0; i < MAX_HWMON_NUM; i++) {
+			if (mTempReaders[i] != null) {
+				final int temp = (int)mTempReaders[i].readLong(0);
+				mCpuTemps[i] = temp;
+				if (temp > 0) {
+					tempCnt++;
+					tempAve += toCelsius(temp);
 				}
 			}
 		}
 		if (tempCnt > 0) {
 			tempAve /= tempCnt;
 		}
+		for (int i = 0; i < mThermalNum; i++) {
+			mThermalTemps[i] = (int)mThermalReaders[i].readLong(0);
+		}
+
+		addHistory(percent);
 		return true;
 	}
 
@@ -283,19 +419,49 @@ public final class CpuMonitor {
 		return cpuAvgAll;
 	}
 
+	/**
+	 * CPUの数を取得
+	 * 最初に#sampleCpuUtilizationを呼ぶまでは0
+	 * @return
+	 */
+	public int getCpuNum() {
+		return cpusPresent;
+	}
+
+	/**
+	 * 指定したCPUコアの使用率[%]を取得
+	 * 周波数は考慮せずに前回の#sampleCpuUtilizationからの稼働時間の割合
+	 * @param core
+	 * @return オフラインまたは範囲外なら0
+	 */
+	public int getCoreLoad(final int core) {
+		return (core >= 0) && (core < cpusPresent) ? coreLoad[core] : 0;
+	}
+
+	/**
+	 * 指定したCPUコアの現在の周波数[kHz]を取得
+	 * @param core
+	 * @return オフラインまたは範囲外なら0
+	 */
+	public long getCoreFreq(final int core) {
+		return (core >= 0) && (core < cpusPresent) ? coreCurFreq[core] : 0;
+	}
+
+	/**
+	 * 指定したCPUコアの最大周波数[kHz]を取得
+	 * @param core
+	 * @return まだ取得できていないまたは範囲外なら0
+	 */
+	public long getCoreMaxFreq(final int core) {
+		return (core >= 0) && (core < cpusPresent) ? cpuFreq[core] : 0;
+	}
+
 	public int getTempNum() {
 		return mTempNum;
 	}
 
 	public int getTemp(final int ix) {
-		int result = 0;
-		if ((ix >= 0) && (ix < mTempNum)) {
-			final String path = "/sys/class/hwmon/hwmon" + ix;
-			if (mCpuTemps.containsKey(path)) {
-				result = mCpuTemps.get(path);
-			}
-		}
-		return result;
+		return (ix >= 0) && (ix < mTempNum) ? mCpuTemps[ix] : 0;
 	}
 
 	public float getTempAve() {
@@ -303,63 +469,223 @@ public final class CpuMonitor {
 	}
 
 	/**
-	 * Read a single integer value from the named file.  Return the read value
-	 * or if an error occurs return 0.
+	 * サーマルゾーンの数を取得
+	 * 最初に#sampleCpuUtilizationを呼ぶまでは0
+	 * @return
 	 */
-	private long readFreqFromFile(String fileName) {
-		long number = 0;
-		try {
-			final FileReader fin = new FileReader(fileName);
-			try {
-				final BufferedReader rdr = new BufferedReader(fin);
-				final Scanner scannerC = new Scanner(rdr);
-				number = scannerC.nextLong();
-				scannerC.close();
-			} catch (final Exception e) {
-				// CPU presumably got offline just after we opened file.
-			} finally {
-				fin.close();
-			}
-		} catch (final FileNotFoundException e) {
-			// CPU is offline, not an error.
-		} catch (final IOException e) {
-			Log.e(TAG, "Error closing file");
+	public int getThermalZoneNum() {
+		return mThermalNum;
+	}
+
+	/**
+	 * サーマルゾーンの種類を取得
+	 * @param zone
+	 * @return
+	 */
+	@Nullable
+	public String getThermalZoneType(final int zone) {
+		return (zone >= 0) && (zone < mThermalNum) ? mThermalTypes[zone] : null;
+	}
+
+	/**
+	 * サーマルゾーンの温度[℃]を取得
+	 * @param zone
+	 * @return
+	 */
+	public float getThermalZoneTemp(final int zone) {
+		return (zone >= 0) && (zone < mThermalNum) ? toCelsius(mThermalTemps[zone]) : 0;
+	}
+
+	/**
+	 * 保持できる履歴数を取得
+	 * @return
+	 */
+	public int getHistorySize() {
+		return mHistorySize;
+	}
+
+	/**
+	 * 保持している履歴数を取得
+	 * @return
+	 */
+	public int getHistoryCount() {
+		return mHistoryCount;
+	}
+
+	/**
+	 * CPU全体の使用率[%](getCpuCurrentの値)の履歴を古い順にコピーする
+	 * @param dst
+	 * @return コピーした個数, dstが短い時は新しい方からdst.length個
+	 */
+	public int getCpuHistory(@NonNull final int[] dst) {
+		return copyHistory(mCpuHistory, dst);
+	}
+
+	/**
+	 * 指定したCPUコアの使用率[%]の履歴を古い順にコピーする
+	 * @param core
+	 * @param dst
+	 * @return コピーした個数
+	 */
+	public int getCoreLoadHistory(final int core, @NonNull final int[] dst) {
+		return (core >= 0) && (core < cpusPresent)
+			? copyHistory(mCoreLoadHistory[core], dst) : 0;
+	}
+
+	/**
+	 * 指定したCPUコアの周波数[kHz]の履歴を古い順にコピーする
+	 * @param core
+	 * @param dst
+	 * @return コピーした個数
+	 */
+	public int getCoreFreqHistory(final int core, @NonNull final int[] dst) {
+		return (core >= 0) && (core < cpusPresent)
+			? copyHistory(mCoreFreqHistory[core], dst) : 0;
+	}
+
+	/**
+	 * 指定したサーマルゾーンの温度の履歴を古い順にコピーする
+	 * 値はファイルから読み込んだまま(通常はミリ℃)
+	 * @param zone
+	 * @param dst
+	 * @return コピーした個数
+	 */
+	public int getThermalZoneHistory(final int zone, @NonNull final int[] dst) {
+		return (zone >= 0) && (zone < mThermalNum)
+			? copyHistory(mThermalHistory[zone], dst) : 0;
+	}
+
+	/**
+	 * 今回の値を履歴へ追加する
+	 * @param percent
+	 */
+	private void addHistory(final int percent) {
+		final int ix = mHistoryHead;
+		mCpuHistory[ix] = percent;
+		for (int i = 0; i < cpusPresent; i++) {
+			mCoreLoadHistory[i][ix] = coreLoad[i];
+			mCoreFreqHistory[i][ix] = (int)coreCurFreq[i];
+		}
+		for (int i = 0; i < mThermalNum; i++) {
+			mThermalHistory[i][ix] = mThermalTemps[i];
+		}
+		mHistoryHead = ix + 1 < mHistorySize ? ix + 1 : 0;
+		if (mHistoryCount < mHistorySize) {
+			mHistoryCount++;
+		}
+	}
+
+	/**
+	 * 履歴を古い順にコピーする
+	 * @param history
+	 * @param dst
+	 * @return
+	 */
+	private int copyHistory(@NonNull final int[] history, @NonNull final int[] dst) {
+		final int n = Math.min(mHistoryCount, dst.length);
+		int start = mHistoryHead - n;
+		if (start < 0) {
+			start += mHistorySize;
 		}
-		return number;
+		final int first = Math.min(n, mHistorySize - start);
+		System.arraycopy(history, start, dst, 0, first);
+		if (first < n) {
+			System.arraycopy(history, 0, dst, first, n - first);
+		}
+		return n;
 	}
 
 	/*
 	 * Read the current utilization of all CPUs using the cumulative first line
-	 * of /proc/stat.
+	 * of /proc/stat, and of each CPU using the following "cpuN" lines.
+	 * Offline CPUs do not have their own line.
 	 */
-	private ProcStat readIdleAndRunTime() {
-		long runTime = 0;
-		long idleTime = 0;
-		try {
-			final FileReader fin = new FileReader("/proc/stat");
-			try {
-				final BufferedReader rdr = new BufferedReader(fin);
-				final Scanner scanner = new Scanner(rdr);
-				scanner.next();
-				long user = scanner.nextLong();
-				long nice = scanner.nextLong();
-				long sys = scanner.nextLong();
-				runTime = user + nice + sys;
-				idleTime = scanner.nextLong();
-				scanner.close();
-			} catch (final Exception e) {
-				Log.e(TAG, "Problems parsing /proc/stat");
-				return null;
-			} finally {
-				fin.close();
+	private boolean readIdleAndRunTime() {
+		final int n = statReader.read();
+		if (n <= 0) {
+			Log.e(TAG, "Cannot read /proc/stat");
+			return false;
+		}
+		for (int i = 0; i < cpusPresent; i++) {
+			coreOnline[i] = false;
+		}
+		final byte[] buf = statReader.array();
+		final long[] fields = mStatFields;
+		boolean found = false;
+		int pos = 0;
+		while ((pos + 3 < n)
+			&& (buf[pos] == 'c') && (buf[pos + 1] == 'p') && (buf[pos + 2] == 'u')) {
+
+			pos += 3;
+			int core = -1;
+			if ((buf[pos] >= '0') && (buf[pos] <= '9')) {
+				core = (int)ProcFileReader.parseLong(buf, pos, n);
+				pos = ProcFileReader.skipNumber(buf, pos, n);
+			}
+			pos = parseFields(buf, pos, n, fields);
+			if (pos < 0) break;
+			final long run = fields[0] + fields[1] + fields[2];	// user + nice + sys
+			if (core < 0) {
+				runTime = run;
+				idleTime = fields[3];
+				found = true;
+			} else if (core < cpusPresent) {
+				coreRunTime[core] = run;
+				coreIdleTime[core] = fields[3];
+				coreOnline[core] = true;
+			}
+			// 次の行へ
+			while ((pos < n) && (buf[pos] != '\n')) {
+				pos++;
+			}
+			pos++;
+		}
+		if (!found) {
+			Log.e(TAG, "Problems parsing /proc/stat");
+		}
+		return found;
+	}
+
+	/**
+	 * 行の中の数値をdstの長さ分読み込む
+	 * @param buf
+	 * @param pos
+	 * @param limit
+	 * @param dst
+	 * @return 読み込んだ後の位置, 足りなければ-1
+	 */
+	private static int parseFields(@NonNull final byte[] buf, int pos, final int limit,
+		@NonNull final long[] dst) {
+
+		final int n = dst.length;
+		for (int i = 0; i < n; i++) {
+			pos = ProcFileReader.skipToNumber(buf, pos, limit);
+			if ((pos >= limit) || (buf[pos] == '\n')) {
+				return -1;
+			}
+			dst[i] = ProcFileReader.parseLong(buf, pos, limit);
+			pos = ProcFileReader.skipNumber(buf, pos, limit);
+		}
+		return pos;
+	}
+
+	/**
+	 * 温度を℃へ変換する
+	 * 機種によってミリ℃と℃が混在しているので1000を超えればミリ℃とみなす
+	 * @param temp
+	 * @return
+	 */
+	private static float toCelsius(final int temp) {
+		return temp > 1000 ? temp / 1000.0f : temp;
+	}
+
+	private static void close(@Nullable final ProcFileReader[] readers) {
+		if (readers != null) {
+			for (final ProcFileReader reader: readers) {
+				if (reader != null) {
+					reader.close();
+				}
 			}
-		} catch (final FileNotFoundException e) {
-			Log.e(TAG, "Cannot open /proc/stat for reading");
-			return null;
-		} catch (final IOException e) {
-			Log.e(TAG, "Problems reading /proc/stat");
-			return null;
 		}
-		return new ProcStat(runTime, idleTime);
 	}
 }
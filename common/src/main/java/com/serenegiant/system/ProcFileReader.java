@@ -0,0 +1,279 @@
+package com.serenegiant.system;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import androidx.annotation.NonNull;
+
+/**
+ * /procや/sys以下のファイルを開いたままにして繰り返し読み込むためのヘルパークラス
+ * 毎回FileReader/BufferedReader/Scannerを生成する代わりに
+ * FileChannelを開いたままにしてオフセット0からの位置指定読み込み(pread)で
+ * 再利用するバイト配列へ読み込む。
+ * CPUがオフラインになった時などでファイルが無い・読めない時は
+ * 一定時間再オープンを試みない。
+ * スレッドセーフではない
+ */
+/*package*/ class ProcFileReader implements Closeable {
+//	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
+//	private static final String TAG = ProcFileReader.class.getSimpleName();
+
+	/**
+	 * オープン・読み込みに失敗した時に再オープンを試みるまでの時間[ナノ秒]
+	 */
+	private static final long RETRY_INTERVAL_NS = 1000000000L;
+
+	@NonNull
+	private final String mPath;
+	private final int mMaxSize;
+	@NonNull
+	private ByteBuffer mBuffer;
+	private RandomAccessFile mFile;
+	private FileChannel mChannel;
+	private long mRetryTimeNs;
+	private boolean mRetryPending;
+	private int mLength;
+
+	/**
+	 * コンストラクタ
+	 * @param path
+	 * @param initialSize 読み込み用バッファの初期サイズ
+	 * @param maxSize 読み込む最大バイト数, これを超える部分は読み込まない
+	 */
+	/*package*/ ProcFileReader(@NonNull final String path,
+		final int initialSize, final int maxSize) {
+
+		mPath = path;
+		mMaxSize = Math.max(initialSize, maxSize);
+		mBuffer = ByteBuffer.allocate(initialSize);
+	}
+
+	/**
+	 * コンストラクタ
+	 * 1行だけの数値等を読み込むための小さなバッファを使う
+	 * @param path
+	 */
+	/*package*/ ProcFileReader(@NonNull final String path) {
+		this(path, 64, 4096);
+	}
+
+	@NonNull
+	/*package*/ String getPath() {
+		return mPath;
+	}
+
+	/**
+	 * ファイル全体(最大maxSizeバイト)を読み込む
+	 * @return 読み込んだバイト数, 読み込めなければ-1
+	 */
+	/*package*/ int read() {
+		if (!open()) {
+			return mLength = -1;
+		}
+		try {
+			mBuffer.clear();
+			long pos = 0;
+			for ( ; ; ) {
+				if (!mBuffer.hasRemaining()) {
+					final int cap = mBuffer.capacity();
+					if (cap >= mMaxSize) break;
+					final ByteBuffer buf = ByteBuffer.allocate(Math.min(cap * 2, mMaxSize));
+					mBuffer.flip();
+					buf.put(mBuffer);
+					mBuffer = buf;
+				}
+				final int bytes = mChannel.read(mBuffer, pos);
+				if (bytes < 0) break;
+				pos += bytes;
+			}
+			mLength = mBuffer.position();
+		} catch (final IOException e) {
+			// CPUがオフラインになった時等
+			fail();
+			mLength = -1;
+		}
+		return mLength;
+	}
+
+	/**
+	 * 読み込んだ内容を保持しているバイト配列
+	 * 有効なのは#readの戻り値または#lengthのバイト数まで
+	 * @return
+	 */
+	@NonNull
+	/*package*/ byte[] array() {
+		return mBuffer.array();
+	}
+
+	/**
+	 * 最後に#readで読み込んだバイト数
+	 * @return
+	 */
+	/*package*/ int length() {
+		return mLength;
+	}
+
+	/**
+	 * ファイルを読み込んで先頭の整数値を返す
+	 * @param defaultValue
+	 * @return 読み込めなかった時または数値が無い時はdefaultValue
+	 */
+	/*package*/ long readLong(final long defaultValue) {
+		final int n = read();
+		if (n > 0) {
+			final byte[] buf = mBuffer.array();
+			final int i = skipToNumber(buf, 0, n);
+			if ((i < n) && (buf[i] != '\n')) {
+				return parseLong(buf, i, n);
+			}
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * ファイルを読み込んで先頭行を文字列として返す
+	 * @return 読み込めなかった時はnull
+	 */
+	/*package*/ String readLine() {
+		final int n = read();
+		if (n >= 0) {
+			final byte[] buf = mBuffer.array();
+			int end = 0;
+			while ((end < n) && (buf[end] != '\n')) {
+				end++;
+			}
+			return new String(buf, 0, end);
+		}
+		return null;
+	}
+
+	/**
+	 * ファイルを閉じる
+	 * 次に#readを呼んだ時には再度開く
+	 */
+	@Override
+	public void close() {
+		mRetryPending = false;
+		closeFile();
+	}
+
+	private boolean open() {
+		if (mChannel != null) {
+			return true;
+		}
+		if (mRetryPending && (System.nanoTime() - mRetryTimeNs < 0)) {
+			return false;
+		}
+		try {
+			mFile = new RandomAccessFile(mPath, "r");
+			mChannel = mFile.getChannel();
+			mRetryPending = false;
+			return true;
+		} catch (final IOException e) {
+			// ファイルが無い(オフライン)・パーミッションが無い時
+			fail();
+			return false;
+		} catch (final SecurityException e) {
+			fail();
+			return false;
+		}
+	}
+
+	private void fail() {
+		closeFile();
+		mRetryPending = true;
+		mRetryTimeNs = System.nanoTime() + RETRY_INTERVAL_NS;
+	}
+
+	private void closeFile() {
+		mChannel = null;
+		if (mFile != null) {
+			try {
+				mFile.close();
+			} catch (final IOException e) {
+				// ignore
+			}
+			mFile = null;
+		}
+	}
+
+//--------------------------------------------------------------------------------
+	/**
+	 * 次の数値(符号または数字)の位置までスキップする
+	 * 行末('\n')では止まる
+	 * @param buf
+	 * @param from
+	 * @param limit
+	 * @return 数値の先頭位置, 見つからなければ行末またはlimit
+	 */
+	/*package*/ static int skipToNumber(@NonNull final byte[] buf, int from, final int limit) {
+		for ( ; from < limit; from++) {
+			final byte b = buf[from];
+			if (((b >= '0') && (b <= '9')) || (b == '-') || (b == '\n')) {
+				break;
+			}
+		}
+		return from;
+	}
+
+	/**
+	 * 10進数の整数を解析する
+	 * @param buf
+	 * @param from 先頭位置
+	 * @param limit
+	 * @return
+	 */
+	/*package*/ static long parseLong(@NonNull final byte[] buf, int from, final int limit) {
+		boolean negative = false;
+		if ((from < limit) && (buf[from] == '-')) {
+			negative = true;
+			from++;
+		}
+		long result = 0;
+		for ( ; from < limit; from++) {
+			final int d = buf[from] - '0';
+			if ((d < 0) || (d > 9)) break;
+			result = result * 10 + d;
+		}
+		return negative ? -result : result;
+	}
+
+	/**
+	 * 数字以外の位置までスキップする
+	 * @param buf
+	 * @param from
+	 * @param limit
+	 * @return
+	 */
+	/*package*/ static int skipNumber(@NonNull final byte[] buf, int from, final int limit) {
+		if ((from < limit) && (buf[from] == '-')) {
+			from++;
+		}
+		for ( ; from < limit; from++) {
+			final byte b = buf[from];
+			if ((b < '0') || (b > '9')) break;
+		}
+		return from;
+	}
+}
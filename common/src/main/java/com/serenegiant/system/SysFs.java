@@ -25,9 +25,11 @@ import android.text.TextUtils;
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileDescriptor;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileReader;
@@ -35,8 +37,10 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -85,6 +89,43 @@ public class SysFs {
 		mWriteLock = lock.writeLock();
 	}
 	
+	/**
+	 * ファイルを開いたままにして繰り返し読み書きするための属性ハンドルを生成する
+	 * 高頻度で読み書きする時はreadXXX/writeの代わりにこれを使うと
+	 * 呼び出し毎のストリーム生成やロックが不要になる
+	 * @param name nullまたは空文字列ならこのSysFsのパス自体を開く
+	 * @param writable 書き込みも行うかどうか
+	 * @return
+	 * @throws IOException
+	 */
+	@NonNull
+	public Attribute openAttribute(@Nullable final String name, final boolean writable)
+		throws IOException {
+
+		return new Attribute(getPath(name), writable);
+	}
+
+	/**
+	 * 読み込み専用の属性ハンドルを生成する
+	 * @param name
+	 * @return
+	 * @throws IOException
+	 */
+	@NonNull
+	public Attribute openAttribute(@Nullable final String name) throws IOException {
+		return openAttribute(name, false);
+	}
+
+	/**
+	 * このSysFsのパス自体の読み込み専用の属性ハンドルを生成する
+	 * @return
+	 * @throws IOException
+	 */
+	@NonNull
+	public Attribute openAttribute() throws IOException {
+		return openAttribute(null, false);
+	}
+
 	@Override
 	protected void finalize() throws Throwable {
 		try {
@@ -475,4 +516,236 @@ public class SysFs {
 			return buf;
 		}
 	}
+
+	/**
+	 * sysfsの属性ファイルを開いたままにして読み書きするためのハンドル
+	 * 読み込みは毎回オフセット0からの位置指定読み込み(pread)で
+	 * 再利用するバッファへ読み込むので、整数値の読み込みではオブジェクトを生成しない。
+	 * sysfsの変更通知(sysfs_notify)を受け取るには最後に読み込んでから
+	 * pollで待機する必要があるのでSysFsWatcherを使うこと。
+	 * 同じインスタンスへの読み書きは排他制御する
+	 */
+	public static class Attribute implements Closeable {
+		/**
+		 * sysfsの属性の最大サイズ(PAGE_SIZE)
+		 */
+		private static final int MAX_SIZE = 4096;
+
+		@NonNull
+		private final String mPath;
+		@NonNull
+		private final RandomAccessFile mFile;
+		@NonNull
+		private final FileChannel mChannel;
+		@NonNull
+		private ByteBuffer mBuffer = ByteBuffer.allocate(64);
+		private final ByteBuffer mWriteBuffer = ByteBuffer.allocate(24);
+		private int mLength;
+		/**
+		 * #readChangedで比較するための前回の内容
+		 */
+		@Nullable
+		private byte[] mPrev;
+		private int mPrevLength = -1;
+		private volatile boolean mClosed;
+
+		/*package*/ Attribute(@NonNull final File file, final boolean writable)
+			throws IOException {
+
+			mPath = file.getAbsolutePath();
+			mFile = new RandomAccessFile(file, writable ? "rw" : "r");
+			mChannel = mFile.getChannel();
+		}
+
+		@NonNull
+		public String getPath() {
+			return mPath;
+		}
+
+		/**
+		 * pollで待機するためのファイルディスクリプタを取得
+		 * @return
+		 * @throws IOException
+		 */
+		@NonNull
+		public FileDescriptor getFD() throws IOException {
+			return mFile.getFD();
+		}
+
+		public boolean isClosed() {
+			return mClosed;
+		}
+
+		/**
+		 * 属性ファイルの内容をオフセット0から内部バッファへ読み込む
+		 * @return 読み込んだバイト数
+		 * @throws IOException
+		 */
+		public synchronized int read() throws IOException {
+			checkClosed();
+			mBuffer.clear();
+			long pos = 0;
+			for ( ; ; ) {
+				if (!mBuffer.hasRemaining()) {
+					final int cap = mBuffer.capacity();
+					if (cap >= MAX_SIZE) break;
+					final ByteBuffer buf = ByteBuffer.allocate(Math.min(cap * 2, MAX_SIZE));
+					mBuffer.flip();
+					buf.put(mBuffer);
+					mBuffer = buf;
+				}
+				final int bytes = mChannel.read(mBuffer, pos);
+				if (bytes < 0) break;
+				pos += bytes;
+			}
+			mLength = mBuffer.position();
+			return mLength;
+		}
+
+		/**
+		 * 最後に#readで読み込んだ内容を整数として解析する
+		 * @return
+		 * @throws IOException 数値として解析できない時
+		 */
+		public synchronized long longValue() throws IOException {
+			final byte[] buf = mBuffer.array();
+			final int n = mLength;
+			int pos = 0;
+			while ((pos < n) && ((buf[pos] == ' ') || (buf[pos] == '\t'))) {
+				pos++;
+			}
+			final int end = ProcFileReader.skipNumber(buf, pos, n);
+			if ((end == pos) || ((end == pos + 1) && (buf[pos] == '-'))) {
+				throw new IOException(mPath + " is not a number");
+			}
+			return ProcFileReader.parseLong(buf, pos, end);
+		}
+
+		/**
+		 * 最後に#readで読み込んだ内容の先頭行を文字列として返す
+		 * @return
+		 */
+		@NonNull
+		public synchronized String stringValue() {
+			final byte[] buf = mBuffer.array();
+			int end = 0;
+			while ((end < mLength) && (buf[end] != '\n')) {
+				end++;
+			}
+			return new String(buf, 0, end);
+		}
+
+		/**
+		 * 最後に#readで読み込んだ内容をコピーする
+		 * @param dst
+		 * @return コピーしたバイト数
+		 */
+		public synchronized int copyTo(@NonNull final byte[] dst) {
+			final int n = Math.min(mLength, dst.length);
+			System.arraycopy(mBuffer.array(), 0, dst, 0, n);
+			return n;
+		}
+
+		public synchronized long readLong() throws IOException {
+			read();
+			return longValue();
+		}
+
+		public synchronized int readInt() throws IOException {
+			read();
+			return (int)longValue();
+		}
+
+		@NonNull
+		public synchronized String readString() throws IOException {
+			read();
+			return stringValue();
+		}
+
+		/**
+		 * 整数値を10進数の文字列として書き込む
+		 * 常にオフセット0へ書き込む(sysfsの属性は書き込む毎に全体が置き換わるが
+		 * 通常のファイルは切り詰めないので注意)
+		 * @param value
+		 * @throws IOException
+		 */
+		public synchronized void write(final long value) throws IOException {
+			checkClosed();
+			final byte[] buf = mWriteBuffer.array();
+			int pos = buf.length;
+			long v = value;
+			do {
+				buf[--pos] = (byte)('0' + Math.abs(v % 10));
+				v /= 10;
+			} while (v != 0);
+			if (value < 0) {
+				buf[--pos] = '-';
+			}
+			mWriteBuffer.limit(buf.length).position(pos);
+			mChannel.write(mWriteBuffer, 0);
+		}
+
+		public synchronized void write(@NonNull final byte[] value,
+			final int offset, final int length) throws IOException {
+
+			checkClosed();
+			mChannel.write(ByteBuffer.wrap(value, offset, length), 0);
+		}
+
+		public void write(@NonNull final byte[] value) throws IOException {
+			write(value, 0, value.length);
+		}
+
+		@Override
+		public synchronized void close() {
+			if (!mClosed) {
+				mClosed = true;
+				try {
+					mFile.close();
+				} catch (final IOException e) {
+					// ignore
+				}
+			}
+		}
+
+		/**
+		 * 読み込んで前回の#readChangedの時から内容が変化したかどうかを返す
+		 * 最初の呼び出しは常にtrue
+		 * @return
+		 * @throws IOException
+		 */
+		/*package*/ synchronized boolean readChanged() throws IOException {
+			final int n = read();
+			final byte[] buf = mBuffer.array();
+			boolean changed = n != mPrevLength;
+			if (!changed) {
+				for (int i = 0; i < n; i++) {
+					if (buf[i] != mPrev[i]) {
+						changed = true;
+						break;
+					}
+				}
+			}
+			if (changed) {
+				if ((mPrev == null) || (mPrev.length < n)) {
+					mPrev = new byte[buf.length];
+				}
+				System.arraycopy(buf, 0, mPrev, 0, n);
+				mPrevLength = n;
+			}
+			return changed;
+		}
+
+		private void checkClosed() throws IOException {
+			if (mClosed) {
+				throw new IOException(mPath + " already closed");
+			}
+		}
+
+		@NonNull
+		@Override
+		public String toString() {
+			return "Attribute{" + mPath + '}';
+		}
+	}
 }
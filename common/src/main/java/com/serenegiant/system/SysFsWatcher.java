@@ -0,0 +1,389 @@
+package com.serenegiant.system;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import android.annotation.SuppressLint;
+import android.os.Build;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+import android.system.StructPollfd;
+import android.util.Log;
+
+import java.io.FileDescriptor;
+import java.io.IOException;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+/**
+ * SysFs.Attributeの変更を1つのスレッドで監視するためのヘルパークラス
+ * API21以降はandroid.system.Os#pollでsysfsの変更通知(sysfs_notify, POLLPRI/POLLERR)を
+ * ブロックして待機するのでビジーループにならない。
+ * sysfs_notifyに対応していない属性も検出できるように、intervalMsが正の時は
+ * その間隔でも読み込んで前回と内容が異なればコールバックする。
+ * API21未満は常にintervalMs間隔で読み込んで比較する。
+ * コールバックは監視スレッド上で呼ばれる
+ */
+public class SysFsWatcher {
+	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
+	private static final String TAG = SysFsWatcher.class.getSimpleName();
+
+	/**
+	 * API21未満でintervalMsに0以下を指定した時の読み込み間隔[ミリ秒]
+	 */
+	private static final long DEFAULT_INTERVAL_MS = 100;
+
+	/**
+	 * 属性の変更を受け取るためのコールバックインターフェース
+	 */
+	public interface Callback {
+		/**
+		 * 属性が変更された時
+		 * 変更後の内容は読み込み済みなので
+		 * SysFs.Attribute#longValue/#stringValue等で取得できる
+		 * @param attribute
+		 */
+		public void onChanged(@NonNull final SysFs.Attribute attribute);
+	}
+
+	private static class Entry {
+		@NonNull
+		private final SysFs.Attribute attribute;
+		@NonNull
+		private final Callback callback;
+		/**
+		 * 最初の読み込み(変更通知を受け取るのに必要)を行ったかどうか
+		 * 監視スレッドのみがアクセスする
+		 */
+		private boolean armed;
+
+		private Entry(@NonNull final SysFs.Attribute attribute,
+			@NonNull final Callback callback) {
+
+			this.attribute = attribute;
+			this.callback = callback;
+		}
+	}
+
+	private final Object mSync = new Object();
+	private final long mIntervalMs;
+	/**
+	 * 監視中の属性, 変更時は配列ごと入れ替える
+	 */
+	private volatile Entry[] mEntries = new Entry[0];
+	private volatile boolean mRunning;
+	private Thread mThread;
+	/**
+	 * API21以降で監視スレッドのpollを中断するためのパイプ
+	 */
+	private FileDescriptor[] mWakeup;
+
+	/**
+	 * コンストラクタ
+	 * @param intervalMs 内容を読み込んで比較する間隔[ミリ秒],
+	 * 		0以下ならAPI21以降は変更通知のみで監視する
+	 */
+	public SysFsWatcher(final long intervalMs) {
+		mIntervalMs = intervalMs;
+	}
+
+	/**
+	 * 監視スレッドを開始する
+	 * @throws IOException
+	 */
+	@SuppressLint("NewApi")
+	public void start() throws IOException {
+		synchronized (mSync) {
+			if (mThread == null) {
+				if (BuildCheck.isAPI21()) {
+					try {
+						mWakeup = Os.pipe();
+					} catch (final ErrnoException e) {
+						throw new IOException(e);
+					}
+				}
+				mRunning = true;
+				mThread = new Thread(mWatchTask, TAG);
+				mThread.setDaemon(true);
+				mThread.start();
+			}
+		}
+	}
+
+	/**
+	 * 監視スレッドを終了する
+	 * 監視中の属性は閉じないので呼び出し元で閉じること
+	 */
+	public void release() {
+		final Thread thread;
+		synchronized (mSync) {
+			mRunning = false;
+			thread = mThread;
+			mThread = null;
+			wakeup();
+		}
+		if ((thread != null) && (thread != Thread.currentThread())) {
+			try {
+				thread.join();
+			} catch (final InterruptedException e) {
+				// ignore
+			}
+		}
+		synchronized (mSync) {
+			closeWakeup();
+			mEntries = new Entry[0];
+		}
+	}
+
+	/**
+	 * 監視する属性を追加する
+	 * 同じ属性を追加した時はコールバックを入れ替える
+	 * @param attribute
+	 * @param callback
+	 */
+	public void add(@NonNull final SysFs.Attribute attribute,
+		@NonNull final Callback callback) {
+
+		synchronized (mSync) {
+			final Entry[] entries = mEntries;
+			final int n = entries.length;
+			final Entry[] newEntries = new Entry[n + 1];
+			int j = 0;
+			for (int i = 0; i < n; i++) {
+				if (entries[i].attribute != attribute) {
+					newEntries[j++] = entries[i];
+				}
+			}
+			newEntries[j++] = new Entry(attribute, callback);
+			mEntries = j == newEntries.length ? newEntries : copyOf(newEntries, j);
+			wakeup();
+		}
+	}
+
+	/**
+	 * 属性の監視を解除する
+	 * @param attribute
+	 */
+	public void remove(@NonNull final SysFs.Attribute attribute) {
+		synchronized (mSync) {
+			final Entry[] entries = mEntries;
+			final int n = entries.length;
+			final Entry[] newEntries = new Entry[n];
+			int j = 0;
+			for (int i = 0; i < n; i++) {
+				if (entries[i].attribute != attribute) {
+					newEntries[j++] = entries[i];
+				}
+			}
+			if (j != n) {
+				mEntries = copyOf(newEntries, j);
+				wakeup();
+			}
+		}
+	}
+
+	public boolean isRunning() {
+		return mRunning;
+	}
+
+	private final Runnable mWatchTask = new Runnable() {
+		@SuppressLint("NewApi")
+		@Override
+		public void run() {
+			if (DEBUG) Log.v(TAG, "watch task:start");
+			final boolean usePoll = BuildCheck.isAPI21();
+			Entry[] entries = null;
+			StructPollfd[] fds = null;
+			for ( ; mRunning ; ) {
+				final Entry[] current = mEntries;
+				if (current != entries) {
+					entries = current;
+					arm(entries);
+					fds = usePoll ? createPollFds(entries) : null;
+				}
+				if (usePoll) {
+					pollOnce(entries, fds);
+				} else {
+					synchronized (mSync) {
+						if (mRunning && (mEntries == entries)) {
+							try {
+								mSync.wait(mIntervalMs > 0 ? mIntervalMs : DEFAULT_INTERVAL_MS);
+							} catch (final InterruptedException e) {
+								break;
+							}
+						}
+					}
+					checkAll(entries);
+				}
+			}
+			if (DEBUG) Log.v(TAG, "watch task:finished");
+		}
+	};
+
+	/**
+	 * 追加されたばかりの属性を読み込む
+	 * sysfsは読み込んでからpollしないと変更通知を受け取れない
+	 * @param entries
+	 */
+	private void arm(@NonNull final Entry[] entries) {
+		for (final Entry entry: entries) {
+			if (!entry.armed) {
+				entry.armed = true;
+				try {
+					entry.attribute.readChanged();
+				} catch (final IOException e) {
+					Log.w(TAG, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 全ての属性を読み込んで内容が変化していればコールバックする
+	 * @param entries
+	 */
+	private void checkAll(@NonNull final Entry[] entries) {
+		for (final Entry entry: entries) {
+			if (!mRunning) break;
+			try {
+				if (entry.attribute.readChanged()) {
+					entry.callback.onChanged(entry.attribute);
+				}
+			} catch (final IOException e) {
+				if (DEBUG) Log.w(TAG, e);
+			}
+		}
+	}
+
+	@RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+	@NonNull
+	private StructPollfd[] createPollFds(@NonNull final Entry[] entries) {
+		final int n = entries.length;
+		final StructPollfd[] result = new StructPollfd[n + 1];
+		for (int i = 0; i < n; i++) {
+			result[i] = new StructPollfd();
+			try {
+				result[i].fd = entries[i].attribute.getFD();
+				result[i].events = (short)(OsConstants.POLLPRI | OsConstants.POLLERR);
+			} catch (final IOException e) {
+				// 閉じられている時は監視しない(fdが負ならpollは無視する)
+				result[i].fd = new FileDescriptor();
+				result[i].events = 0;
+			}
+		}
+		result[n] = new StructPollfd();
+		result[n].fd = mWakeup[0];
+		result[n].events = (short)OsConstants.POLLIN;
+		return result;
+	}
+
+	/**
+	 * 変更通知またはタイムアウトまで待機する
+	 * @param entries
+	 * @param fds
+	 */
+	@RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+	private void pollOnce(@NonNull final Entry[] entries, @NonNull final StructPollfd[] fds) {
+		final int n = entries.length;
+		final int result;
+		try {
+			for (final StructPollfd fd: fds) {
+				fd.revents = 0;
+			}
+			result = Os.poll(fds, mIntervalMs > 0 ? (int)mIntervalMs : -1);
+		} catch (final ErrnoException e) {
+			if (e.errno != OsConstants.EINTR) {
+				Log.w(TAG, e);
+				mRunning = false;
+			}
+			return;
+		}
+		if (result == 0) {
+			// タイムアウトした時
+			checkAll(entries);
+			return;
+		}
+		if ((fds[n].revents & OsConstants.POLLIN) != 0) {
+			drainWakeup();
+		}
+		for (int i = 0; (i < n) && mRunning; i++) {
+			if ((fds[i].revents & OsConstants.POLLNVAL) != 0) {
+				// 監視中に属性が閉じられた時はビジーループにならないように監視を解除する
+				remove(entries[i].attribute);
+			} else if ((fds[i].revents & (OsConstants.POLLPRI | OsConstants.POLLERR)) != 0) {
+				final Entry entry = entries[i];
+				try {
+					// 読み込まないと次の変更通知を受け取れない
+					entry.attribute.readChanged();
+					entry.callback.onChanged(entry.attribute);
+				} catch (final IOException e) {
+					if (DEBUG) Log.w(TAG, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 監視スレッドを起床させる
+	 * mSyncをロックした状態で呼び出すこと
+	 */
+	@SuppressLint("NewApi")
+	private void wakeup() {
+		if (mWakeup != null) {
+			try {
+				Os.write(mWakeup[1], new byte[1], 0, 1);
+			} catch (final Exception e) {
+				if (DEBUG) Log.w(TAG, e);
+			}
+		} else {
+			mSync.notifyAll();
+		}
+	}
+
+	@RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+	private void drainWakeup() {
+		try {
+			Os.read(mWakeup[0], new byte[16], 0, 16);
+		} catch (final Exception e) {
+			if (DEBUG) Log.w(TAG, e);
+		}
+	}
+
+	@SuppressLint("NewApi")
+	private void closeWakeup() {
+		if (mWakeup != null) {
+			for (final FileDescriptor fd: mWakeup) {
+				try {
+					Os.close(fd);
+				} catch (final Exception e) {
+					// ignore
+				}
+			}
+			mWakeup = null;
+		}
+	}
+
+	@NonNull
+	private static Entry[] copyOf(@NonNull final Entry[] entries, final int n) {
+		final Entry[] result = new Entry[n];
+		System.arraycopy(entries, 0, result, 0, n);
+		return result;
+	}
+}
@@ -110,9 +110,9 @@ public final class DeviceFilter implements Parcelable {
 		mIntfClass = null;
 		mIntfSubClass = null;
 		mIntfProtocol = null;
-		mManufacturerName = TextUtils.isEmpty(manufacturer) ? null : manufacturer;
-		mProductName = TextUtils.isEmpty(product) ? null : product;
-		mSerialNumber = TextUtils.isEmpty(serialNum) ? null : serialNum;
+		mManufacturerName = nullIfEmpty(manufacturer);
+		mProductName = nullIfEmpty(product);
+		mSerialNumber = nullIfEmpty(serialNum);
 		this.isExclude = isExclude;
 /*		Log.i(TAG, String.format("vendorId=0x%04x,productId=0x%04x,class=0x%02x,subclass=0x%02x,protocol=0x%02x",
 			mVendorId, mProductId, mClass, mSubclass, mProtocol)); */
@@ -327,6 +327,17 @@ public final class DeviceFilter implements Parcelable {
 		serializer.endTag(null, "usb-device");
 	} */
 
+	/**
+	 * 空文字列ならnullを返す
+	 * ローカルユニットテストからも生成できるようにTextUtilsは使わない
+	 * @param str
+	 * @return
+	 */
+	@Nullable
+	private static String nullIfEmpty(@Nullable final String str) {
+		return (str == null) || (str.length() == 0) ? null : str;
+	}
+
 	/**
 	 * 指定したクラス・サブクラス・プロトコルがこのDeviceFilterとマッチするかどうかを返す
 	 * mExcludeフラグは別途#isExcludeか自前でチェックすること
@@ -450,6 +461,46 @@ public final class DeviceFilter implements Parcelable {
 		return interfaceMatches(device);
 	}
 
+	/**
+	 * 指定したUSB機器の情報がこのDeviceFilterに一致するかどうか
+	 * #matches(UsbDevice)と同じ判定をUsbDeviceを使わずに行う
+	 * @param vendorId
+	 * @param productId
+	 * @param deviceClass
+	 * @param deviceSubclass
+	 * @param deviceProtocol
+	 * @param intfClasses 各インターフェースのクラス
+	 * @param intfSubclasses 各インターフェースのサブクラス
+	 * @param intfProtocols 各インターフェースのプロトコル
+	 * @return
+	 */
+	/*package*/ boolean matches(
+		final int vendorId, final int productId,
+		final int deviceClass, final int deviceSubclass, final int deviceProtocol,
+		@NonNull final int[] intfClasses,
+		@NonNull final int[] intfSubclasses,
+		@NonNull final int[] intfProtocols) {
+
+		if (mVendorId != -1 && vendorId != mVendorId) {
+			return false;
+		}
+		if (mProductId != -1 && productId != mProductId) {
+			return false;
+		}
+		if (matches(deviceClass, deviceSubclass, deviceProtocol)) {
+			return true;
+		}
+		final int count = intfClasses.length;
+		for (int i = 0; i < count; i++) {
+			if (matches(intfClasses[i], intfSubclasses[i], intfProtocols[i])
+				|| interfaceMatches(intfClasses[i], intfSubclasses[i], intfProtocols[i])) {
+
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * このDeviceFilterに一致してかつmExcludeがtrueならtrueを返す
 	 * @param device
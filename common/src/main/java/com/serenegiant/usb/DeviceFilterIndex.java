@@ -0,0 +1,320 @@
+package com.serenegiant.usb;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import android.hardware.usb.UsbDevice;
+import android.hardware.usb.UsbInterface;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 複数のDeviceFilterをベンダーID/プロダクトID/クラスをキーにして
+ * 事前に振り分けておくためのインデックス
+ * DeviceFilterのリストを先頭から順に線形探索する代わりに
+ * USB機器のベンダーID/プロダクトID/クラスに対応するフィルターだけを
+ * DeviceFilter#matchesで確認するので、フィルターの数が多くても
+ * 1つのUSB機器あたりの照合回数はほぼ一定になる。
+ * リストの先頭に近いものを優先する(最初にマッチしたフィルターで判定する)のは
+ * 線形探索時と同じ。
+ * 生成後はイミュータブルなので複数のスレッドから同時に呼び出してもよい
+ */
+public final class DeviceFilterIndex {
+//	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
+//	private static final String TAG = DeviceFilterIndex.class.getSimpleName();
+
+	private static final int[] EMPTY = new int[0];
+
+	/**
+	 * 照合するUSB機器の情報
+	 */
+	private static class Device {
+		private final int vendorId;
+		private final int productId;
+		private final int deviceClass;
+		private final int deviceSubclass;
+		private final int deviceProtocol;
+		@NonNull
+		private final int[] intfClasses;
+		@NonNull
+		private final int[] intfSubclasses;
+		@NonNull
+		private final int[] intfProtocols;
+
+		private Device(final int vendorId, final int productId,
+			final int deviceClass, final int deviceSubclass, final int deviceProtocol,
+			@NonNull final int[] intfClasses,
+			@NonNull final int[] intfSubclasses,
+			@NonNull final int[] intfProtocols) {
+
+			this.vendorId = vendorId;
+			this.productId = productId;
+			this.deviceClass = deviceClass;
+			this.deviceSubclass = deviceSubclass;
+			this.deviceProtocol = deviceProtocol;
+			this.intfClasses = intfClasses;
+			this.intfSubclasses = intfSubclasses;
+			this.intfProtocols = intfProtocols;
+		}
+	}
+
+	/**
+	 * 元のリストの順番で保持するDeviceFilter
+	 */
+	@NonNull
+	private final DeviceFilter[] mFilters;
+	/**
+	 * ベンダーIDとプロダクトIDの両方を指定したフィルター
+	 */
+	@NonNull
+	private final Map<Integer, int[]> mByVendorProduct = new HashMap<>();
+	/**
+	 * ベンダーIDのみを指定したフィルター
+	 */
+	@NonNull
+	private final Map<Integer, int[]> mByVendor = new HashMap<>();
+	/**
+	 * プロダクトIDのみを指定したフィルター
+	 */
+	@NonNull
+	private final Map<Integer, int[]> mByProduct = new HashMap<>();
+	/**
+	 * ベンダーID/プロダクトIDを指定せずにクラスで絞り込めるフィルター
+	 */
+	@NonNull
+	private final Map<Integer, int[]> mByClass = new HashMap<>();
+	/**
+	 * 常に照合が必要なフィルター
+	 */
+	@NonNull
+	private int[] mAny = EMPTY;
+
+	/**
+	 * コンストラクタ
+	 * nullの要素は無視する
+	 * @param filters
+	 */
+	public DeviceFilterIndex(@Nullable final List<DeviceFilter> filters) {
+		final int n = filters != null ? filters.size() : 0;
+		mFilters = new DeviceFilter[n];
+		for (int i = 0; i < n; i++) {
+			final DeviceFilter filter = filters.get(i);
+			mFilters[i] = filter;
+			if (filter != null) {
+				add(filter, i);
+			}
+		}
+	}
+
+	/**
+	 * フィルターが空かどうか
+	 * 空の時は#acceptは全てのUSB機器に対してtrueを返す
+	 * @return
+	 */
+	public boolean isEmpty() {
+		return mFilters.length == 0;
+	}
+
+	/**
+	 * 指定したUSB機器に最初にマッチするフィルターを取得する
+	 * @param device
+	 * @return マッチするフィルターが無ければnull
+	 */
+	@Nullable
+	public DeviceFilter findFirst(@NonNull final UsbDevice device) {
+		final int count = device.getInterfaceCount();
+		final int[] intfClasses = new int[count];
+		final int[] intfSubclasses = new int[count];
+		final int[] intfProtocols = new int[count];
+		for (int i = 0; i < count; i++) {
+			final UsbInterface intf = device.getInterface(i);
+			intfClasses[i] = intf.getInterfaceClass();
+			intfSubclasses[i] = intf.getInterfaceSubclass();
+			intfProtocols[i] = intf.getInterfaceProtocol();
+		}
+		return findFirst(device.getVendorId(), device.getProductId(),
+			device.getDeviceClass(), device.getDeviceSubclass(), device.getDeviceProtocol(),
+			intfClasses, intfSubclasses, intfProtocols);
+	}
+
+	/**
+	 * 指定したUSB機器の情報に最初にマッチするフィルターを取得する
+	 * UsbDeviceを使わずに照合するので単体テストから呼び出せる
+	 * @param vendorId
+	 * @param productId
+	 * @param deviceClass
+	 * @param deviceSubclass
+	 * @param deviceProtocol
+	 * @param intfClasses 各インターフェースのクラス
+	 * @param intfSubclasses 各インターフェースのサブクラス, intfClassesと同じ長さであること
+	 * @param intfProtocols 各インターフェースのプロトコル, intfClassesと同じ長さであること
+	 * @return マッチするフィルターが無ければnull
+	 */
+	@Nullable
+	/*package*/ DeviceFilter findFirst(
+		final int vendorId, final int productId,
+		final int deviceClass, final int deviceSubclass, final int deviceProtocol,
+		@NonNull final int[] intfClasses,
+		@NonNull final int[] intfSubclasses,
+		@NonNull final int[] intfProtocols) {
+
+		final Device device = new Device(vendorId, productId,
+			deviceClass, deviceSubclass, deviceProtocol,
+			intfClasses, intfSubclasses, intfProtocols);
+		int best = mFilters.length;
+		best = findFirst(mByVendorProduct.get(key(vendorId, productId)), device, best);
+		best = findFirst(mByVendor.get(vendorId), device, best);
+		best = findFirst(mByProduct.get(productId), device, best);
+		best = findFirst(mAny, device, best);
+		if (!mByClass.isEmpty()) {
+			best = findFirst(mByClass.get(deviceClass), device, best);
+			for (final int intfClass: intfClasses) {
+				if (intfClass != deviceClass) {
+					best = findFirst(mByClass.get(intfClass), device, best);
+				}
+			}
+		}
+		return best < mFilters.length ? mFilters[best] : null;
+	}
+
+	/**
+	 * 指定したUSB機器が対象になるかどうか
+	 * フィルターが空の時と、最初にマッチしたフィルターがexcludeでない時にtrue
+	 * USBMonitor#getDeviceListの判定と同じ
+	 * @param device
+	 * @return
+	 */
+	public boolean accept(@NonNull final UsbDevice device) {
+		if (isEmpty()) {
+			return true;
+		}
+		final DeviceFilter filter = findFirst(device);
+		return (filter != null) && !filter.isExclude;
+	}
+
+	/**
+	 * 指定したUSB機器の情報が対象になるかどうか
+	 * #accept(UsbDevice)と同じ判定をUsbDeviceを使わずに行う
+	 * @return
+	 */
+	/*package*/ boolean accept(
+		final int vendorId, final int productId,
+		final int deviceClass, final int deviceSubclass, final int deviceProtocol,
+		@NonNull final int[] intfClasses,
+		@NonNull final int[] intfSubclasses,
+		@NonNull final int[] intfProtocols) {
+
+		if (isEmpty()) {
+			return true;
+		}
+		final DeviceFilter filter = findFirst(vendorId, productId,
+			deviceClass, deviceSubclass, deviceProtocol,
+			intfClasses, intfSubclasses, intfProtocols);
+		return (filter != null) && !filter.isExclude;
+	}
+
+	/**
+	 * 候補の中で現在の最良値よりも前にあって最初にマッチするフィルターのインデックスを返す
+	 * @param candidates 昇順に並んだフィルターのインデックス
+	 * @param device
+	 * @param best 現在の最良値
+	 * @return
+	 */
+	private int findFirst(@Nullable final int[] candidates,
+		@NonNull final Device device, final int best) {
+
+		if (candidates != null) {
+			for (final int ix: candidates) {
+				if (ix >= best) {
+					break;
+				}
+				if (mFilters[ix].matches(device.vendorId, device.productId,
+					device.deviceClass, device.deviceSubclass, device.deviceProtocol,
+					device.intfClasses, device.intfSubclasses, device.intfProtocols)) {
+
+					return ix;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * フィルターを振り分ける
+	 * @param filter
+	 * @param ix
+	 */
+	private void add(@NonNull final DeviceFilter filter, final int ix) {
+		final int vid = filter.mVendorId;
+		final int pid = filter.mProductId;
+		if ((vid != -1) && (pid != -1)) {
+			append(mByVendorProduct, key(vid, pid), ix);
+		} else if (vid != -1) {
+			append(mByVendor, vid, ix);
+		} else if (pid != -1) {
+			append(mByProduct, pid, ix);
+		} else if ((filter.mClass != -1)
+			&& (filter.mIntfClass != null) && (filter.mIntfClass.length > 0)) {
+			// DeviceFilter#matchesはデバイスクラスまたはインターフェースクラスが
+			// mClassと一致するか、インターフェースクラスがmIntfClassのいずれかと
+			// 一致する時のみマッチするのでこれらのクラスで振り分ける
+			// mIntfClassが空の時はインターフェースがあればマッチしうるので振り分けられない
+			append(mByClass, filter.mClass, ix);
+			for (final int intfClass: filter.mIntfClass) {
+				append(mByClass, intfClass, ix);
+			}
+		} else {
+			mAny = append(mAny, ix);
+		}
+	}
+
+	private static int key(final int vid, final int pid) {
+		return ((vid & 0xffff) << 16) | (pid & 0xffff);
+	}
+
+	private static void append(@NonNull final Map<Integer, int[]> map,
+		final int key, final int ix) {
+
+		final int[] values = map.get(key);
+		map.put(key, values != null ? append(values, ix) : new int[] {ix});
+	}
+
+	/**
+	 * インデックスを追加した配列を返す
+	 * 同じフィルターを複数回追加しないように末尾が同じなら追加しない
+	 * @param values
+	 * @param ix
+	 * @return
+	 */
+	@NonNull
+	private static int[] append(@NonNull final int[] values, final int ix) {
+		final int n = values.length;
+		if ((n > 0) && (values[n - 1] == ix)) {
+			return values;
+		}
+		final int[] result = new int[n + 1];
+		System.arraycopy(values, 0, result, 0, n);
+		result[n] = ix;
+		return result;
+	}
+}
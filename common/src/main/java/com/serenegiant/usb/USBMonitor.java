@@ -44,15 +44,19 @@ import com.serenegiant.utils.HandlerThreadHandler;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
@@ -117,12 +121,64 @@ public final class USBMonitor implements Const {
 	private  final ConcurrentHashMap<UsbDevice, UsbDeviceState>
 		mDeviceStates = new ConcurrentHashMap<>();
 
+	/**
+	 * 接続機器の確認方法
+	 * Android5以降ならACTION_USB_DEVICE_ATTACHED/DETACHEDのブロードキャストで、
+	 * Android5未満なら1秒毎のポーリングで確認する(従来の動作)
+	 */
+	public static final int CHECK_MODE_AUTO = 0;
+	/**
+	 * 接続機器の確認方法
+	 * Androidのバージョンに関係なく1秒毎のポーリングで確認する
+	 */
+	public static final int CHECK_MODE_POLLING = 1;
+	/**
+	 * 接続機器の確認方法
+	 * Androidのバージョンに関係なくACTION_USB_DEVICE_ATTACHED/DETACHEDの
+	 * ブロードキャストで確認し、ブロードキャストの取りこぼしに備えて
+	 * #setReconcileIntervalで指定した間隔でのみ接続機器を再確認する
+	 */
+	public static final int CHECK_MODE_EVENT = 2;
+
+	@IntDef({
+		CHECK_MODE_AUTO,
+		CHECK_MODE_POLLING,
+		CHECK_MODE_EVENT})
+	@Retention(RetentionPolicy.SOURCE)
+	public @interface CheckMode {}
+
+	/**
+	 * ポーリングで接続機器を確認する間隔[ミリ秒]
+	 */
+	private static final long POLLING_INTERVAL_MS = 1000;
+	/**
+	 * CHECK_MODE_EVENTで接続機器を再確認する間隔のデフォルト値[ミリ秒]
+	 */
+	public static final long DEFAULT_RECONCILE_INTERVAL_MS = 60000;
+
 	private final WeakReference<Context> mWeakContext;
 	private final UsbManager mUsbManager;
 	@NonNull
 	private final OnDeviceConnectListener mOnDeviceConnectListener;
 	private PendingIntent mPermissionIntent = null;
 	private final List<DeviceFilter> mDeviceFilters = new ArrayList<DeviceFilter>();
+	/**
+	 * mDeviceFiltersから生成したインデックス
+	 * mDeviceFiltersを変更した時はnullにして次に必要になった時に再生成する
+	 * mDeviceFiltersの変更と再生成はmDeviceFiltersで排他制御する
+	 */
+	@Nullable
+	private volatile DeviceFilterIndex mFilterIndex;
+	@CheckMode
+	private int mCheckMode = CHECK_MODE_AUTO;
+	/**
+	 * #registerした時のmCheckMode
+	 * setCheckModeは次回の#registerから有効なので、ブロードキャストレシーバーと
+	 * mDeviceCheckRunnableはmCheckModeではなくこちらを参照する
+	 */
+	@CheckMode
+	private volatile int mActiveCheckMode = CHECK_MODE_AUTO;
+	private long mReconcileIntervalMs = DEFAULT_RECONCILE_INTERVAL_MS;
 
 	/**
 	 * コールバックをワーカースレッドで呼び出すためのハンドラー
@@ -191,8 +247,10 @@ public final class USBMonitor implements Const {
 			final Context context = mWeakContext.get();
 			if (context != null) {
 				mPermissionIntent = PendingIntent.getBroadcast(context, 0, new Intent(ACTION_USB_PERMISSION), 0);
+				mActiveCheckMode = mCheckMode;
 				final IntentFilter filter = new IntentFilter(ACTION_USB_PERMISSION);
-				if (BuildCheck.isAndroid5()) {
+				if ((mActiveCheckMode == CHECK_MODE_EVENT)
+					|| ((mActiveCheckMode == CHECK_MODE_AUTO) && BuildCheck.isAndroid5())) {
 					filter.addAction(UsbManager.ACTION_USB_DEVICE_ATTACHED);	// SC-06Dはこのactionが来ない
 				}
 				filter.addAction(UsbManager.ACTION_USB_DEVICE_DETACHED);
@@ -233,6 +291,51 @@ public final class USBMonitor implements Const {
 		return !destroyed && (mPermissionIntent != null);
 	}
 
+	/**
+	 * 接続機器の確認方法を設定する
+	 * #registerを呼ぶ前に設定すること。登録中に変更した時は次回#registerを呼んだ時から有効
+	 * @param mode CHECK_MODE_AUTO, CHECK_MODE_POLLING, CHECK_MODE_EVENTのいずれか
+	 * @throws IllegalArgumentException
+	 */
+	public synchronized void setCheckMode(@CheckMode final int mode)
+		throws IllegalArgumentException {
+
+		switch (mode) {
+		case CHECK_MODE_AUTO:
+		case CHECK_MODE_POLLING:
+		case CHECK_MODE_EVENT:
+			mCheckMode = mode;
+			break;
+		default:
+			throw new IllegalArgumentException("unknown check mode," + mode);
+		}
+	}
+
+	/**
+	 * 接続機器の確認方法を取得する
+	 * @return
+	 */
+	@CheckMode
+	public synchronized int getCheckMode() {
+		return mCheckMode;
+	}
+
+	/**
+	 * CHECK_MODE_EVENTの時に接続機器を再確認する間隔を設定する
+	 * @param intervalMs 0以下なら#register時の1回のみ確認する
+	 */
+	public synchronized void setReconcileInterval(final long intervalMs) {
+		mReconcileIntervalMs = intervalMs;
+	}
+
+	/**
+	 * CHECK_MODE_EVENTの時に接続機器を再確認する間隔を取得する
+	 * @return
+	 */
+	public synchronized long getReconcileInterval() {
+		return mReconcileIntervalMs;
+	}
+
 	/**
 	 * デバイスフィルターを設定
 	 * @param filter
@@ -242,9 +345,12 @@ public final class USBMonitor implements Const {
 		throws IllegalStateException {
 
 		if (destroyed) throw new IllegalStateException("already destroyed");
-		mDeviceFilters.clear();
-		if (filter != null) {
-			mDeviceFilters.add(filter);
+		synchronized (mDeviceFilters) {
+			mDeviceFilters.clear();
+			if (filter != null) {
+				mDeviceFilters.add(filter);
+			}
+			mFilterIndex = null;
 		}
 	}
 
@@ -257,7 +363,10 @@ public final class USBMonitor implements Const {
 		throws IllegalStateException {
 
 		if (destroyed) throw new IllegalStateException("already destroyed");
-		mDeviceFilters.add(filter);
+		synchronized (mDeviceFilters) {
+			mDeviceFilters.add(filter);
+			mFilterIndex = null;
+		}
 	}
 
 	/**
@@ -269,7 +378,10 @@ public final class USBMonitor implements Const {
 		throws IllegalStateException {
 
 		if (destroyed) throw new IllegalStateException("already destroyed");
-		mDeviceFilters.remove(filter);
+		synchronized (mDeviceFilters) {
+			mDeviceFilters.remove(filter);
+			mFilterIndex = null;
+		}
 	}
 
 	/**
@@ -281,9 +393,12 @@ public final class USBMonitor implements Const {
 		throws IllegalStateException {
 
 		if (destroyed) throw new IllegalStateException("already destroyed");
-		mDeviceFilters.clear();
-		if (filters != null) {
-			mDeviceFilters.addAll(filters);
+		synchronized (mDeviceFilters) {
+			mDeviceFilters.clear();
+			if (filters != null) {
+				mDeviceFilters.addAll(filters);
+			}
+			mFilterIndex = null;
 		}
 	}
 
@@ -296,7 +411,10 @@ public final class USBMonitor implements Const {
 		throws IllegalStateException {
 
 		if (destroyed) throw new IllegalStateException("already destroyed");
-		mDeviceFilters.addAll(filters);
+		synchronized (mDeviceFilters) {
+			mDeviceFilters.addAll(filters);
+			mFilterIndex = null;
+		}
 	}
 
 	/**
@@ -307,7 +425,10 @@ public final class USBMonitor implements Const {
 		throws IllegalStateException {
 
 		if (destroyed) throw new IllegalStateException("already destroyed");
-		mDeviceFilters.removeAll(filters);
+		synchronized (mDeviceFilters) {
+			mDeviceFilters.removeAll(filters);
+			mFilterIndex = null;
+		}
 	}
 
 	/**
@@ -328,19 +449,14 @@ public final class USBMonitor implements Const {
 		if (destroyed) return result;
 		final HashMap<String, UsbDevice> deviceList = mUsbManager.getDeviceList();
 		if (deviceList != null) {
-			if (mDeviceFilters.isEmpty()) {
+			final DeviceFilterIndex index = getFilterIndex();
+			if (index.isEmpty()) {
 				result.addAll(deviceList.values());
 			} else {
 				for (final UsbDevice device: deviceList.values() ) {
-					for (final DeviceFilter filter: mDeviceFilters) {
-						if ((filter != null) && filter.matches(device)) {
-							// フィルタにマッチした時
-							if (!filter.isExclude) {
-								// excludeで無い時のみ追加する
-								result.add(device);
-							}
-							break;
-						}
+					// 最初にマッチしたフィルターがexcludeで無い時のみ追加する
+					if (index.accept(device)) {
+						result.add(device);
 					}
 				}
 			}
@@ -348,6 +464,27 @@ public final class USBMonitor implements Const {
 		return result;
 	}
 
+	/**
+	 * デバイスフィルターのインデックスを取得する
+	 * デバイスフィルターが変更されていれば再生成する
+	 * 再生成中にデバイスフィルターが変更されて古いインデックスをセットしてしまわないように
+	 * デバイスフィルターの変更と同じロック内で再生成する
+	 * @return
+	 */
+	@NonNull
+	private DeviceFilterIndex getFilterIndex() {
+		DeviceFilterIndex result = mFilterIndex;
+		if (result == null) {
+			synchronized (mDeviceFilters) {
+				result = mFilterIndex;
+				if (result == null) {
+					result = mFilterIndex = new DeviceFilterIndex(mDeviceFilters);
+				}
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * 指定したデバイス名に対応するUsbDeviceを取得する
 	 * @param name　UsbDevice#getDeviceNameで取得できる値
@@ -529,6 +666,11 @@ public final class USBMonitor implements Const {
 				// Nexus7/5はaddActionしてれば来るけど、どのAndroidバージョンから来るのかわからない
 				// Android5以降なら大丈夫そう
 				final UsbDevice device = intent.getParcelableExtra(UsbManager.EXTRA_DEVICE);
+				if ((mActiveCheckMode == CHECK_MODE_EVENT)
+					&& ((device == null) || !getFilterIndex().accept(device))) {
+					// CHECK_MODE_EVENTの時はポーリング時と同様にデバイスフィルターに合わない機器は無視する
+					return;
+				}
 				processAttach(device);
 			} else if (UsbManager.ACTION_USB_DEVICE_DETACHED.equals(action)) {
 				// デバイスが取り外された時
@@ -548,6 +690,7 @@ public final class USBMonitor implements Const {
 	/**
 	 * 古い一部機種向けのポーリングで接続機器をチェックするためのRunnable
 	 * 定期的に接続しているデバイスを確認して数が変更されていればonAttachを呼び出す
+	 * CHECK_MODE_EVENTの時はブロードキャストの取りこぼしを補うための再確認にも使う
 	 */
 	private final Runnable mDeviceCheckRunnable = new Runnable() {
 		@Override
@@ -556,7 +699,7 @@ public final class USBMonitor implements Const {
 			if (DEBUG) Log.v(TAG, "mDeviceCheckRunnable#run");
 			mAsyncHandler.removeCallbacks(mDeviceCheckRunnable);
 			// 現在接続されている機器
-			final List<UsbDevice> currentDevices = getDeviceList();
+			final Set<UsbDevice> currentDevices = new HashSet<>(getDeviceList());
 			if (DEBUG) Log.v(TAG, "mDeviceCheckRunnable:current=" + currentDevices.size());
 			// 以前接続されていたはずの機器
 			final Collection<UsbDevice> prevDevices = mDeviceStates.keySet();
@@ -591,8 +734,22 @@ public final class USBMonitor implements Const {
 					});
 				}
 			}
-			if (!BuildCheck.isAndroid5()) {
-				mAsyncHandler.postDelayed(mDeviceCheckRunnable, 1000);	// 1秒に1回確認
+			final long interval;
+			synchronized (USBMonitor.this) {
+				switch (mActiveCheckMode) {
+				case CHECK_MODE_POLLING:
+					interval = POLLING_INTERVAL_MS;
+					break;
+				case CHECK_MODE_EVENT:
+					interval = mReconcileIntervalMs;
+					break;
+				default:
+					interval = BuildCheck.isAndroid5() ? 0 : POLLING_INTERVAL_MS;
+					break;
+				}
+			}
+			if ((interval > 0) && isRegistered()) {
+				mAsyncHandler.postDelayed(mDeviceCheckRunnable, interval);
 			}
 		}
 	};
@@ -20,848 +20,888 @@ package com.serenegiant.usb;
  *  moved from aAndUsb
 */
 
-import android.text.TextUtils;
-import android.util.SparseArray;
-
+import java.util.Arrays;
 import java.util.Locale;
 
+/**
+ * USBのベンダーIDからベンダー名を取得するためのヘルパークラス
+ * ベンダーIDの昇順に並べた1つの文字列定数を最初の検索時に1回だけ走査して
+ * ベンダーIDと名前の開始位置をint配列へ展開し、二分探索で検索する。
+ * ベンダー名の文字列は検索された時にだけ生成する
+ */
 public class USBVendorId {
-	private static final SparseArray<String> IDS = new SparseArray<String>();
 
 	private USBVendorId() {
 		// インスタンス化をエラーにするためにデフォルトコンストラクタをprivateに
 	}
 
 	public static String vendorName(final int vendor_id) {
-		String result = IDS.get(vendor_id);
-		if (TextUtils.isEmpty(result)) {
-			result = String.format(Locale.US, "VendorId%08x", vendor_id);
+		final int ix = Arrays.binarySearch(Table.IDS, vendor_id);
+		if (ix >= 0) {
+			final int start = Table.OFFSETS[ix];
+			return TABLE.substring(start, TABLE.indexOf('\n', start));
 		}
-		return result;
+		return String.format(Locale.US, "VendorId%08x", vendor_id);
 	}
 
-	static {
-		IDS.put(10006, "YUEN DA ELECTRONIC PRODUCTS FACTORY");
-		IDS.put(10013, "Gionee Communication Equipment Co., Ltd. ShenZhen");
-		IDS.put(10022, "Universal Electronics Inc. (dba: TVIEW)");
-		IDS.put(1003, "Atmel Corporation");
-		IDS.put(1006, "Mitsumi");
-		IDS.put(1008, "HP Inc.");
-		IDS.put(10112, "M31 Technology Corp.");
-		IDS.put(10113, "Liteconn Co., Ltd.");
-		IDS.put(10121, "Suzhou WEIJU Electronics Technology Co., Ltd.");
-		IDS.put(10144, "Mondokey Limited");
-		IDS.put(10149, "Advantest Corporation");
-		IDS.put(10150, "iRobot Corporation");
-		IDS.put(1020, "Elitegroup Computer Systems");
-		IDS.put(1021, "Xilinx Inc.");
-		IDS.put(10226, "Sibridge Tech.");
-		IDS.put(1026, "ALi Corporation");
-		IDS.put(1027, "Future Technology Devices International Limited");
-		IDS.put(10275, "Dongguan Jiumutong Industry Co., Ltd.");
-		IDS.put(10289, "Power Integrations");
-		IDS.put(10291, "Oculus VR, Inc.");
-		IDS.put(10300, "HIGH TEK HARNESS ENTERPRISE CO., LTD.");
-		IDS.put(10316, "Full in Hope Co., Ltd.");
-		IDS.put(1032, "Quanta Computer Inc.");
-		IDS.put(10329, "Viconn Technology (HK) Co., Ltd.");
-		IDS.put(1033, "NEC Corporation");
-		IDS.put(1035, "Weltrend Semiconductor");
-		IDS.put(1037, "VIA Technologies, Inc.");
-		IDS.put(10374, "Seeed Technology Co., Ltd.");
-		IDS.put(10375, "Specwerkz");
-		IDS.put(1038, "MCCI Corporation");
-		IDS.put(10398, "Esselte Leitz GmbH & Co. KG");
-		IDS.put(10406, "E-SEEK Inc.");
-		IDS.put(1041, "BUFFALO INC.");
-		IDS.put(10423, "Pleora Technologies Inc.");
-		IDS.put(10431, "Vitetech Int'l Co., Ltd.");
-		IDS.put(1044, "Giga-Byte Technology Co., Ltd.");
-		IDS.put(10446, "Changzhou Shi Wujin Miqi East Electronic Co., Ltd.");
-		IDS.put(10457, "Shenzhen Ourconn Technology Co., Ltd.");
-		IDS.put(10458, "G.SKILL Int'l Enterprice Co., Ltd.");
-		IDS.put(1046, "Nuvoton Technology Corp.");
-		IDS.put(10466, "Surplus Electronic Technology Co., Ltd.");
-		IDS.put(10470, "BIAMP SYSTEMS");
-		IDS.put(10509, "IBCONN Technologies (Shenzhen) Co., Ltd.");
-		IDS.put(10510, "Fugoo Inc.");
-		IDS.put(10519, "Pan Xin Precision Electronics Co., Ltd.");
-		IDS.put(10530, "Dongguan Digi-in Digital Technology Co., Ltd.");
-		IDS.put(1054, "Creative Labs");
-		IDS.put(10540, "GENUSION, Inc.");
-		IDS.put(10544, "Ineda Systems Inc.");
-		IDS.put(10545, "Jolla Ltd.");
-		IDS.put(10546, "Peraso Technologies, Inc.");
-		IDS.put(10549, "Nanjing Magewell Electronics Co., Ltd.");
-		IDS.put(10560, "Shenzhen Yiwanda Electronics Co., Ltd.");
-		IDS.put(1057, "Nokia Corporation");
-		IDS.put(10575, "Dollar Connection Ltd.");
-		IDS.put(10595, "BIO-key International, Inc.");
-		IDS.put(1060, "Microchip-SMSC");
-		IDS.put(10603, "Xacti Corporation");
-		IDS.put(10615, "Shenzhen Zowee Technology Co., Ltd.");
-		IDS.put(10643, "ADPlaus Technology Limited");
-		IDS.put(10646, "Unwired Technology");
-		IDS.put(1065, "Cirrus Logic Inc.");
-		IDS.put(10657, "Union Electric Plug & Connector Corp.");
-		IDS.put(10674, "Canova Tech");
-		IDS.put(10685, "Silicon Works");
-		IDS.put(10695, "HANRICO ANFU ELECTRONICS CO., LTD.");
-		IDS.put(10700, "Kodak Alaris");
-		IDS.put(10702, "JGR Optics Inc.");
-		IDS.put(10703, "Richtek Technology Corporation");
-		IDS.put(10705, "Binatone Electronics Int. Ltd.");
-		IDS.put(1071, "Molex Inc.");
-		IDS.put(10715, "Shenzhen iBoard Technology Co., Ltd.");
-		IDS.put(10719, "SMIT(HK) Limited");
-		IDS.put(1072, "Fujitsu Component Limited");
-		IDS.put(10725, "Dongguan Kechenda Electronic Technology Co., Ltd.");
-		IDS.put(10726, "Fengshun Peiying Electro-Acoustic Co., Ltd.");
-		IDS.put(10744, "MD ELEKTRONIK GmbH");
-		IDS.put(10749, "Bad Elf, LLC");
-		IDS.put(10770, "Vreo Limited");
-		IDS.put(10772, "Kanex");
-		IDS.put(10781, "Oxford Nanopore Technologies");
-		IDS.put(10782, "Obsidian Technology");
-		IDS.put(10783, "Lucent Trans Electronics Co., Ltd.");
-		IDS.put(10784, "GUOGUANG GROUP CO., LTD.");
-		IDS.put(10788, "CNPLUS");
-		IDS.put(10789, "Fourstar Group");
-		IDS.put(10790, "Tragant International Co., Ltd.");
-		IDS.put(10791, "DongGuan LianGang Optoelectronic Technology Co., Ltd.");
-		IDS.put(10797, "Atrust Computer Corp.");
-		IDS.put(10798, "VIA Alliance Semiconductor Co., Ltd.");
-		IDS.put(10799, "BSUN Electronics Co., Ltd.");
-		IDS.put(1080, "Advanced Micro Devices");
-		IDS.put(10807, "RTD Embedded Technologies, Inc.");
-		IDS.put(10816, "Shenzhen Choseal Industrial Co., Ltd.");
-		IDS.put(10817, "Canyon Semiconductor");
-		IDS.put(10818, "Spectra7 Microsystems Corp.");
-		IDS.put(10821, "Meizu Technology Co., Ltd.");
-		IDS.put(10822, "Hubei Yingtong Telecommunication Cable Inc.");
-		IDS.put(10829, "Wilder Technologies");
-		IDS.put(10837, "Diodes Inc.");
-		IDS.put(10846, "DuPont");
-		IDS.put(1085, "Lexmark International Inc.");
-		IDS.put(10852, "Zhejiang Songcheng Electronics Co., Ltd.");
-		IDS.put(10859, "VSN Mobil");
-		IDS.put(10875, "Bellwether Electronic Corp.");
-		IDS.put(10878, "VAIO Corporation");
-		IDS.put(10879, "Perixx Computer GmbH");
-		IDS.put(10885, "HANK ELECTRONICS CO., LTD");
-		IDS.put(10892, "Sonnet Technologies, Inc.");
-		IDS.put(10893, "Keysight Technologies Inc.");
-		IDS.put(10895, "Manutronics Vietnam Joint Stock Company");
-		IDS.put(10900, "G2 Touch Co., Ltd.");
-		IDS.put(10902, "Micromax Informatics Ltd");
-		IDS.put(10910, "SEIKO SOLUTIONS Inc.");
-		IDS.put(10912, "Casco Products Corp.");
-		IDS.put(10922, "Virtium Technology, Inc.");
-		IDS.put(10923, "Field and Company LLC, dba Leef USA");
-		IDS.put(10928, "GM Global Technology Operations LLC");
-		IDS.put(10931, "Key Asic Inc.");
-		IDS.put(10943, "Revolabs, Inc.");
-		IDS.put(10945, "Lattice Semiconductor Corp");
-		IDS.put(10947, "Foshan Nanhai Saga Audio Equipment Co., Ltd.");
-		IDS.put(10957, "Silergy Corp.");
-		IDS.put(10963, "Shenzhen Hali-Power Industrial Co., Ltd.");
-		IDS.put(10971, "I-PEX (Dai-ichi Seiko)");
-		IDS.put(10973, "SEE-PLUS INDUSTRIAL LTD.");
-		IDS.put(10990, "Adapt-IP Company");
-		IDS.put(10997, "Libratone A/S");
-		IDS.put(10999, "Shenzhen Hazens Automotive Electronics (SZ) Co., Ltd.");
-		IDS.put(11000, "Jiangsu Toppower Automotive Electronics Co., Ltd.");
-		IDS.put(11001, "Drapho Electronics Technology Co., Ltd.");
-		IDS.put(1102, "Alps Electric Co., Ltd.");
-		IDS.put(11022, "Le Shi Zhi Xin Electronic Technology (Tian Jin) Limited");
-		IDS.put(11024, "Cardiac Insight, Inc.");
-		IDS.put(11028, "EverPro Technologies Company, Ltd.");
-		IDS.put(11029, "Rosenberger Hochfrequenztechnik");
-		IDS.put(11035, "Dongguan City Sanji Electronics Co., Ltd.");
-		IDS.put(11037, "Lintes Technology Co., Ltd.");
-		IDS.put(11039, "KinnexA, Inc.");
-		IDS.put(11042, "Metra Electronics Corp.");
-		IDS.put(11044, "KeepKey, LLC");
-		IDS.put(11047, "FluxData Incorporated");
-		IDS.put(1105, "Texas Instruments");
-		IDS.put(11061, "Assem Technology Co., Ltd.");
-		IDS.put(11062, "Dongguan City Jianghan Electronics Co., Ltd.");
-		IDS.put(11063, "Huizhou Desay SV Automotive Co., Ltd.");
-		IDS.put(11064, "Ningbo Rixing Electronics Co., Ltd.");
-		IDS.put(11069, "GuangDong YuanFeng Automotive Electroics Co., Ltd.");
-		IDS.put(11080, "Sounding Audio Industrial Limited");
-		IDS.put(11082, "Yueqing Huaxin Electronic Co., Ltd.");
-		IDS.put(11098, "Universal Audio, Inc.");
-		IDS.put(11111, "Lifesize, Inc.");
-		IDS.put(11123, "Pioneer DJ Corporation");
-		IDS.put(11124, "Embedded Intelligence, Inc.");
-		IDS.put(11125, "New Matter");
-		IDS.put(11126, "Shanghai Wingtech Electronic Technology Co., Ltd.");
-		IDS.put(11127, "Epiphan Systems Inc.");
-		IDS.put(11130, "Spin Master Far East Ltd.");
-		IDS.put(11131, "Gigaset Digital Technology (Shenzhen) Co., Ltd.");
-		IDS.put(11132, "Noveltek Semiconductor Corp.");
-		IDS.put(11139, "Silicon Line GmbH");
-		IDS.put(11140, "Ever Win International Corp.");
-		IDS.put(11144, "Socionext Inc.");
-		IDS.put(11145, "Ugreen Group Limited");
-		IDS.put(11146, "Shanghai Pateo Electronic Equipment Mfg. Co., Ltd.");
-		IDS.put(1115, "Renesas Electronics Corp.");
-		IDS.put(11154, "i-BLADES, Inc.");
-		IDS.put(11155, "Altia Systems Inc.");
-		IDS.put(11156, "ShenZhen Baoyuanda Electronics Co., Ltd.");
-		IDS.put(11157, "iST - Integrated Service Technology Inc.");
-		IDS.put(11158, "HYUNDAI MOBIS Co., Ltd.");
-		IDS.put(11161, "360fly, Inc.");
-		IDS.put(11162, "HUIZHOU CHENG SHUO HARDWARE PLASTIC CO., LTD.");
-		IDS.put(11163, "Zhongshan Aute Electronics Technology Co., Ltd.");
-		IDS.put(11164, "Guangdong King Link Industrial Co., Ltd.");
-		IDS.put(11167, "Scietera Technologies, Inc.");
-		IDS.put(11168, "InVue Security Products");
-		IDS.put(11169, "I-Sheng Electric Wire & Cable Co., Ltd.");
-		IDS.put(11170, "China Daheng Group Inc Beijing Image Vision Tech Branch");
-		IDS.put(11171, "Shenzhen FeiTianXia Technology Ltd.");
-		IDS.put(11172, "Shenzhen HengJia New Energy Auto Part Co., Ltd.");
-		IDS.put(11175, "77 Elektronika Kft.");
-		IDS.put(11176, "YUDU EASON ELECTRONIC CO., LTD.");
-		IDS.put(1118, "Microsoft Corporation");
-		IDS.put(11181, "XIN JI (SHENZHEN) COMPUTER PARTS CO., LTD.");
-		IDS.put(11189, "Silk ID Systems");
-		IDS.put(11190, "3D Imaging & Simulations Corp. (3DISC)");
-		IDS.put(11191, "Dongguan ChengXiang Industrial Co., Ltd.");
-		IDS.put(11192, "OCC (Zhuhai) Electronic Co., Ltd.");
-		IDS.put(11194, "Sinseader Electronic Co., Ltd.");
-		IDS.put(11195, "DONGGUAN YELLOWKNIFE Industrial Co., Ltd.");
-		IDS.put(11197, "RF Creations Ltd.");
-		IDS.put(11198, "Chengyi Semiconductors (Shanghai) Co., Ltd.");
-		IDS.put(11199, "Shenzhen Shinning Electronic Co., Ltd.");
-		IDS.put(11200, "Shenzhen WFD Electronics Co., Ltd.");
-		IDS.put(11201, "Dongguan Sino Syncs Industrial Co., Ltd.");
-		IDS.put(11202, "JNTC Co., Ltd.");
-		IDS.put(11208, "DONGGUAN POLIXIN ELECTRIC CO., LTD.");
-		IDS.put(11209, "Tama Electric (Suzhou) Co., Ltd.");
-		IDS.put(1121, "Primax Electronics");
-		IDS.put(11210, "Exvision, Inc.");
-		IDS.put(11216, "mophie, LLC");
-		IDS.put(11219, "Dongguan ULT-unite electronic technology co., LTD");
-		IDS.put(11220, "JL Audio, Inc.");
-		IDS.put(11221, "Cable Matters Inc.");
-		IDS.put(11222, "CoroWare, Inc.");
-		IDS.put(11229, "Charm Sciences Inc.");
-		IDS.put(1123, "EATON");
-		IDS.put(11230, "Pickering Interfaces Limited");
-		IDS.put(11231, "Hangzhou Hikvision Digital Technology Co., Ltd.");
-		IDS.put(11232, "FULLINK ELECTRONICS TECHNOLOGY (SZ) LTD");
-		IDS.put(11233, "AutoChips Inc.");
-		IDS.put(11234, "Electric Connector Technology Co., Ltd.");
-		IDS.put(11237, "LELTEK");
-		IDS.put(11238, "Dongguan KaiWin Electronics Co., Ltd.");
-		IDS.put(11239, "BEFS Co., Ltd.");
-		IDS.put(11240, "Archisite, Inc.");
-		IDS.put(11241, "Magneti Marelli S.p.A Electr BL");
-		IDS.put(11246, "Ventev Mobile");
-		IDS.put(11247, "Quanta Storage Inc.");
-		IDS.put(11248, "Tech-Top Technology Limited");
-		IDS.put(11253, "Shenzhen YOOBAO Technology Co., Ltd.");
-		IDS.put(11254, "Shenzhen Sinotek Technology Co., Ltd.");
-		IDS.put(11255, "KEYW");
-		IDS.put(11256, "Visual Land Inc.");
-		IDS.put(11264, "MEEM SL Ltd");
-		IDS.put(11265, "Dongguan Arin Electronics Technology Co., Ltd.");
-		IDS.put(11266, "DongGuan City JianNuo Electronics Co., Ltd.");
-		IDS.put(11268, "Shenzhen XOX Electronics Co., Ltd.");
-		IDS.put(11269, "Protop International Inc.");
-		IDS.put(11270, "Microsemi Semiconductor (US) Inc.");
-		IDS.put(11271, "Webcloak LLC");
-		IDS.put(11272, "INVECAS INC.");
-		IDS.put(11274, "ATANS Technology Inc.");
-		IDS.put(11275, "Triple Win Precision Technology Co., Ltd.");
-		IDS.put(11276, "IC Realtech");
-		IDS.put(11277, "Embrava Pty Ltd");
-		IDS.put(1128, "Wieson Technologies Co., Ltd.");
-		IDS.put(11280, "Sinotronics Co., Ltd.");
-		IDS.put(11281, "ALLBEST ELECTRONICS TECHNOLOGY CO., LTD.");
-		IDS.put(11282, "Shenzhen Xin Kai Feng Electronics Factory");
-		IDS.put(11283, "MOST WELL Technology Corp.");
-		IDS.put(11284, "Buffalo Memory Co., Ltd.");
-		IDS.put(11285, "Xentris Wireless");
-		IDS.put(11286, "Priferential Accessories Ltd");
-		IDS.put(11289, "Sunlike Technology Co., Ltd.");
-		IDS.put(11290, "Young Fast Optoelectronics Co., Ltd.");
-		IDS.put(11291, "ISAW Camera Inc");
-		IDS.put(11298, "Qanba USA, LLC");
-		IDS.put(11299, "Super Micro Computer Inc.");
-		IDS.put(11302, "Micromax International Corporation");
-		IDS.put(11304, "Granite River Labs Japan Ltd.");
-		IDS.put(11305, "Coagent Enterprise Limited");
-		IDS.put(11306, "LEIA Inc.");
-		IDS.put(11309, "Shenzhen Ebull Technology Limited");
-		IDS.put(1131, "American Megatrends");
-		IDS.put(11310, "Hualun Technology Co., Ltd.");
-		IDS.put(11311, "Sensel, Inc.");
-		IDS.put(11319, "Shenzhen Adition Audio Science & Technology Co., Ltd.");
-		IDS.put(11320, "Goldenconn Electronics Technology (Suzhou) Co., Ltd.");
-		IDS.put(11321, "JIB Electronics Technology Co., Ltd.");
-		IDS.put(11322, "Changzhou Shinco Automotive Electronics Co., Ltd.");
-		IDS.put(11323, "Shenzhen Hangsheng Electronics Corp., Ltd.");
-		IDS.put(11324, "Beartooth Radio, Inc.");
-		IDS.put(11325, "Audience, A Knowles Company");
-		IDS.put(11327, "Nextbit Systems, Inc.");
-		IDS.put(11328, "Leadtrend");
-		IDS.put(11329, "Adaptertek Technology Co., Ltd.");
-		IDS.put(1133, "Logitech Inc.");
-		IDS.put(11330, "Feature Integration Technology Inc.");
-		IDS.put(11331, "Avegant Corporation");
-		IDS.put(11335, "Chunghsin International Electronics Co., Ltd.");
-		IDS.put(11336, "Delphi Electrical Centers (Shanghai) Co., Ltd.");
-		IDS.put(11341, "VVETEK DOO");
-		IDS.put(11347, "Huizhou Foryou General Electronics Co., Ltd.");
-		IDS.put(11348, "LifeWatch Technologies Ltd.");
-		IDS.put(11349, "Magicleap");
-		IDS.put(11355, "Dongguan City Shenglan Electronics Co., LTD.");
-		IDS.put(11356, "Neusoft Corporation");
-		IDS.put(11357, "SIP Simya Electronics Technology Co., Ltd.");
-		IDS.put(11358, "GNSD Automotive Co., Ltd.");
-		IDS.put(11359, "YOODS Co., Ltd.");
-		IDS.put(11360, "Sirin Mobile Technologies AG");
-		IDS.put(11361, "Jadmam Corporation dba: Boytone");
-		IDS.put(11373, "Gibson Innovations");
-		IDS.put(11374, "Shen Zhen Xian Shuo Technology Co. LTD");
-		IDS.put(11375, "PST Eletronica LTDA");
-		IDS.put(11376, "PERI, Inc.");
-		IDS.put(11377, "Bozhou BoTong Information Technology Co., Ltd.");
-		IDS.put(11383, "Profindustry GmbH");
-		IDS.put(11384, "BRAGI GmbH");
-		IDS.put(11385, "WAWGD, Inc. (DBA: Foresight Sports)");
-		IDS.put(11390, "Dongguan Allpass Electronic Co., Ltd.");
-		IDS.put(11391, "SHENZHEN D-VITEC INDUSTRIAL CO., LTD.");
-		IDS.put(11392, "motomobile AG");
-		IDS.put(11393, "Indie Semiconductor");
-		IDS.put(11397, "Audientes");
-		IDS.put(11403, "Huizhou Dehong Technology Co., Ltd.");
-		IDS.put(11404, "PowerCenter Technology Limited");
-		IDS.put(11405, "Mizco International, Inc.");
-		IDS.put(11408, "I. AM. PLUS, LLC");
-		IDS.put(11409, "Corigine, Inc.");
-		IDS.put(11410, "Ningbo Yinzhou Shengke Electronics Co., Ltd.");
-		IDS.put(11417, "Prusa Research s.r.o.");
-		IDS.put(11423, "e-Smart Systems Pvt. Ltd.");
-		IDS.put(11424, "Leagtech Jiangxi Electronic Co., Ltd.");
-		IDS.put(11425, "Dongguan Yujia Electronics Technology Co., Ltd.");
-		IDS.put(11426, "GuangZhou MingPing Electronics Technology");
-		IDS.put(11427, "DJI Technology Co., Ltd.");
-		IDS.put(11428, "Shenzhen Alex Technology Co., Ltd.");
-		IDS.put(11433, "JITS TECHNOLOGY CO., LIMITED");
-		IDS.put(11434, "LIVV Brand llc");
-		IDS.put(11444, "Ava Enterprises, Inc. dba: Boss Audio Systems");
-		IDS.put(11448, "Shenzhen Sydixon Electronic Technology Co., Ltd.");
-		IDS.put(11449, "On-Bright Electronics (Shanghai) Co., Ltd.");
-		IDS.put(11450, "Dongguan Puxu Industrial Co., Ltd.");
-		IDS.put(11451, "Shenzhen Soling Indusrtial Co., Ltd.");
-		IDS.put(11453, "EGGCYTE, INC.");
-		IDS.put(11455, "Donggguan Yuhua Electronic Co., Ltd.");
-		IDS.put(11456, "Hangzhou Zero Zero Technology Co., Ltd.");
-		IDS.put(11462, "Prodigy Technovations Pvt Ltd");
-		IDS.put(11463, "EmergiTech, Inc");
-		IDS.put(11464, "Hewlett Packard Enterprise");
-		IDS.put(11465, "Monolithic Power Systems Inc.");
-		IDS.put(11467, "USB Memory Direct");
-		IDS.put(11468, "Silicon Mitus Inc.");
-		IDS.put(11472, "Technics Global Electronics & JCE Co., Ltd.");
-		IDS.put(11478, "Immersive Media");
-		IDS.put(11479, "Cosemi Technologies Inc.");
-		IDS.put(11481, "Cambrionix Ltd");
-		IDS.put(11482, "CXUN Co. Ltd.");
-		IDS.put(11483, "China Tsp Inc");
-		IDS.put(11490, "Yanfeng Visteon (Chongqing) Automotive Electronics Co");
-		IDS.put(11491, "Alcorlink Corp.");
-		IDS.put(11492, "ISBC Ltd.");
-		IDS.put(11493, "InX8 Inc dba: AKiTiO");
-		IDS.put(11494, "SDAN Tecchnology Co., Ltd.");
-		IDS.put(11495, "Lemobile Information Technology (Beijing) Co., Ltd.");
-		IDS.put(11496, "GongGuan HWX Electronic Technology Co., Ltd.");
-		IDS.put(11497, "Suzhu Jingshi Electronic Technology Co., Ltd.");
-		IDS.put(11498, "Zhong Shan City Richsound Electronic Industrial Ltd.");
-		IDS.put(11499, "Dongguang Kangbang Electronics Co., Ltd.");
-		IDS.put(1151, "Plantronics, Inc.");
-		IDS.put(1154, "Kyocera Corporation");
-		IDS.put(1155, "STMicroelectronics");
-		IDS.put(1161, "Foxconn / Hon Hai");
-		IDS.put(1165, "ITE Tech Inc.");
-		IDS.put(1177, "Yamaha Corporation");
-		IDS.put(1188, "Hitachi, Ltd.");
-		IDS.put(1191, "Visioneer");
-		IDS.put(1193, "Canon Inc.");
-		IDS.put(1200, "Nikon Corporation");
-		IDS.put(1201, "Pan International");
-		IDS.put(1204, "Cypress Semiconductor");
-		IDS.put(1205, "ROHM Co., Ltd.");
-		IDS.put(1207, "Compal Electronics, Inc.");
-		IDS.put(1208, "Seiko Epson Corp.");
-		IDS.put(1211, "I-O Data Device, Inc.");
-		IDS.put(1221, "Fujitsu Ltd.");
-		IDS.put(1227, "FUJIFILM Corporation");
-		IDS.put(1238, "Mentor Graphics");
-		IDS.put(1240, "Microchip Technology Inc.");
-		IDS.put(1241, "Holtek Semiconductor, Inc.");
-		IDS.put(1242, "Panasonic Corporation");
-		IDS.put(1245, "Sharp Corporation");
-		IDS.put(1250, "Exar Corporation");
-		IDS.put(1254, "Identiv, Inc.");
-		IDS.put(1256, "Samsung Electronics Co., Ltd.");
-		IDS.put(1260, "Tokyo Electron Device Limited");
-		IDS.put(1266, "Chicony Electronics Co., Ltd.");
-		IDS.put(1271, "Newnex Technology Corp.");
-		IDS.put(1273, "Brother Industries, Ltd.");
-		IDS.put(1276, "SUNPLUS TECHNOLOGY CO., LTD.");
-		IDS.put(1278, "PFU Limited");
-		IDS.put(1281, "Fujikura/DDK");
-		IDS.put(1282, "Acer, Inc.");
-		IDS.put(1287, "Hosiden Corporation");
-		IDS.put(1293, "Belkin International, Inc.");
-		IDS.put(1300, "FCI Electronics");
-		IDS.put(1302, "Longwell Electronics/Longwell Company");
-		IDS.put(1305, "Star Micronics Co., LTD");
-		IDS.put(1309, "American Power Conversion");
-		IDS.put(1314, "ACON, Advanced-Connectek, Inc.");
-		IDS.put(1343, "Synopsys, Inc.");
-		IDS.put(1356, "Sony Corporation");
-		IDS.put(1360, "Fuji Xerox Co., Ltd.");
-		IDS.put(1367, "ATEN International Co. Ltd.");
-		IDS.put(1369, "Cadence Design Systems, Inc.");
-		IDS.put(1386, "WACOM Co., Ltd.");
-		IDS.put(1389, "EIZO Corporation");
-		IDS.put(1390, "Elecom Co., Ltd.");
-		IDS.put(1394, "Conexant Systems, Inc.");
-		IDS.put(1398, "BAFO/Quality Computer Accessories");
-		IDS.put(1403, "Y-E Data, Inc.");
-		IDS.put(1404, "AVM GmbH");
-		IDS.put(1410, "Roland Corporation");
-		IDS.put(1412, "RATOC Systems, Inc.");
-		IDS.put(1419, "Infineon Technologies");
-		IDS.put(1423, "Alcor Micro, Corp.");
-		IDS.put(1424, "OMRON Corporation");
-		IDS.put(1447, "Bose Corporation");
-		IDS.put(1449, "OmniVision Technologies, Inc.");
-		IDS.put(1452, "Apple");
-		IDS.put(1453, "Y.C. Cable U.S.A., Inc");
-		IDS.put(14627, "National Instruments");
-		IDS.put(1470, "Tyco Electronics Corp., a TE Connectivity Ltd. company");
-		IDS.put(1473, "MegaChips Corporation");
-		IDS.put(1478, "Qualcomm, Inc");
-		IDS.put(1480, "Foxlink/Cheng Uei Precision Industry Co., Ltd.");
-		IDS.put(1482, "Ricoh Company Ltd.");
-		IDS.put(1498, "Microtek International Inc.");
-		IDS.put(1504, "Symbol Technologies");
-		IDS.put(1507, "Genesys Logic, Inc.");
-		IDS.put(1509, "Fuji Electric Co., Ltd.");
-		IDS.put(1525, "Unixtar Technology Inc.");
-		IDS.put(1529, "Datalogic ADC");
-		IDS.put(1535, "LeCroy Corporation");
-		IDS.put(1539, "Novatek Microelectronics Corp.");
-		IDS.put(1545, "SMK Manufacturing Inc.");
-		IDS.put(1551, "Joinsoon Electronics Mfg. Co., Ltd.");
-		IDS.put(1555, "TransAct Technologies Incorporated");
-		IDS.put(1561, "Seiko Instruments Inc.");
-		IDS.put(1582, "JPC/MAIN SUPER Inc.");
-		IDS.put(1583, "Sin Sheng Terminal & Machine Inc.");
-		IDS.put(1593, "Chrontel, Inc.");
-		IDS.put(1611, "Analog Devices, Inc. Development Tools");
-		IDS.put(1612, "Ji-Haw Industrial Co., Ltd");
-		IDS.put(1614, "Suyin Corporation");
-		IDS.put(1621, "Space Shuttle Hi-Tech Co.,Ltd.");
-		IDS.put(1622, "Glory Mark Electronic Ltd.");
-		IDS.put(1623, "Tekcon Electronics Corp.");
-		IDS.put(1624, "Sigma Designs, Inc.");
-		IDS.put(1631, "Good Way Technology Co., Ltd. & GWC technology Inc");
-		IDS.put(1632, "TSAY-E (BVI) International Inc.");
-		IDS.put(1633, "Hamamatsu Photonics K.K.");
-		IDS.put(1642, "Total Technologies, Ltd.");
-		IDS.put(1659, "Prolific Technology, Inc.");
-		IDS.put(16700, "Dell Inc.");
-		IDS.put(1680, "Golden Bridge Electech Inc.");
-		IDS.put(1689, "Tektronix, Inc.");
-		IDS.put(1690, "Askey Computer Corporation");
-		IDS.put(1709, "Greatland Electronics Taiwan Ltd.");
-		IDS.put(1710, "Eurofins Digital Testing Belgium");
-		IDS.put(1720, "Pixela Corporation");
-		IDS.put(1724, "Oki Data Corporation");
-		IDS.put(1727, "Leoco Corporation");
-		IDS.put(1732, "Bizlink Technology, Inc.");
-		IDS.put(1736, "SIIG, Inc.");
-		IDS.put(1747, "Mitsubishi Electric Corporation");
-		IDS.put(1758, "Heisei Technology Co., Ltd.");
-		IDS.put(1802, "Oki Electric Industry Co., Ltd.");
-		IDS.put(1805, "Comoss Electronic Co., Ltd.");
-		IDS.put(1809, "Magic Control Technology Corp.");
-		IDS.put(1816, "Imation Corp.");
-		IDS.put(1838, "Sunix Co., Ltd.");
-		IDS.put(1846, "Lorom Industrial Co., Ltd.");
-		IDS.put(1848, "Mad Catz, Inc.");
-		IDS.put(1899, "HID Global GmbH");
-		IDS.put(1901, "Denso Corporation");
-		IDS.put(1913, "Fairchild Semiconductor");
-		IDS.put(1921, "SanDisk Corporation");
-		IDS.put(1937, "Copartner Technology Corporation");
-		IDS.put(1954, "National Technical Systems");
-		IDS.put(1971, "Plustek, Inc.");
-		IDS.put(1972, "OLYMPUS CORPORATION");
-		IDS.put(1975, "TIME Interconnect Ltd.");
-		IDS.put(1994, "AVerMedia Technologies, Inc.");
-		IDS.put(1999, "Casio Computer Co., Ltd.");
-		IDS.put(2015, "David Electronics Company, Ltd.");
-		IDS.put(2039, "Century Corporation");
-		IDS.put(2058, "Evermuch Technology Co., Ltd.");
-		IDS.put(2101, "Action Star Enterprise Co., Ltd.");
-		IDS.put(2112, "Argosy Research Inc.");
-		IDS.put(2122, "Wipro Limited");
-		IDS.put(2159, "MEC IMEX INC/HPT");
-		IDS.put(2205, "Icron Technologies Corporation");
-		IDS.put(2247, "TAI TWUN ENTERPRISE CO., LTD.");
-		IDS.put(2276, "Pioneer Corporation");
-		IDS.put(2278, "Gemalto SA");
-		IDS.put(2310, "FARADAY Technology Corp.");
-		IDS.put(2313, "Audio-Technica Corp.");
-		IDS.put(2316, "Silicon Motion, Inc. - Taiwan");
-		IDS.put(2334, "Garmin International");
-		IDS.put(2352, "Toshiba Corporation");
-		IDS.put(2362, "Pixart Imaging, Inc.");
-		IDS.put(2363, "Plextor LLC");
-		IDS.put(2366, "J.S.T. Mfg. Co., Ltd.");
-		IDS.put(2385, "Kingston Technology Company");
-		IDS.put(2389, "NVIDIA");
-		IDS.put(2395, "Medialogic Corporation");
-		IDS.put(2397, "Polycom, Inc.");
-		IDS.put(2468, "Contech Research, Inc.");
-		IDS.put(2472, "Lin Shiung Enterprise Co., Ltd.");
-		IDS.put(2475, "Japan Cash Machine Co., Ltd.");
-		IDS.put(2498, "NISCA Corporation");
-		IDS.put(2511, "Electronics Testing Center, Taiwan");
-		IDS.put(2522, "A-FOUR TECH CO., LTD.");
-		IDS.put(2555, "Altera");
-		IDS.put(2578, "Cambridge Silicon Radio Ltd.");
-		IDS.put(2583, "HOYA Corporation");
-		IDS.put(2631, "Hirose Electric Co., Ltd.");
-		IDS.put(2636, "COMPUTEX Co., Ltd.");
-		IDS.put(2640, "Mimaki Engineering Co., Ltd.");
-		IDS.put(2652, "Broadcom Corp.");
-		IDS.put(2667, "Green House Co., Ltd.");
-		IDS.put(2702, "Japan Aviation Electronics Industry Ltd. (JAE)");
-		IDS.put(2727, "Wincor Nixdorf GmbH & Co KG");
-		IDS.put(2733, "Rohde & Schwarz GmbH & Co. KG");
-		IDS.put(2787, "Allion Labs, Inc.");
-		IDS.put(2821, "ASUSTek Computer Inc.");
-		IDS.put(2849, "Yokogawa Electric Corporation");
-		IDS.put(2851, "Pan-Asia Electronics Co., Ltd.");
-		IDS.put(2894, "Musical Electronics Ltd.");
-		IDS.put(2907, "Anritsu Corporation");
-		IDS.put(2922, "Maxim Integrated Products");
-		IDS.put(2965, "ASIX Electronics Corporation");
-		IDS.put(2967, "O2Micro, Inc.");
-		IDS.put(3010, "Seagate Technology LLC");
-		IDS.put(3034, "Realtek Semiconductor Corp.");
-		IDS.put(3035, "Ericsson AB");
-		IDS.put(3044, "Elka International Ltd.");
-		IDS.put(3056, "Pace Micro Technology PLC");
-		IDS.put(3108, "Taiyo Yuden Co., Ltd.");
-		IDS.put(3129, "Aeroflex");
-		IDS.put(3132, "Radius Co., Ltd.");
-		IDS.put(3141, "Sonix Technology Co., Ltd.");
-		IDS.put(3158, "Billion Bright (HK) Corporation Limited");
-		IDS.put(3161, "Dong Guan Shinko Wire Co., Ltd.");
-		IDS.put(3170, "Chant Sincere Co., Ltd");
-		IDS.put(3190, "Solid State System Co., Ltd.");
-		IDS.put(3209, "Honda Tsushin Kogyo Co., Ltd");
-		IDS.put(3245, "Motorola Solutions");
-		IDS.put(3255, "Singatron Enterprise Co. Ltd.");
-		IDS.put(3268, "emsys Embedded Systems GmbH");
-		IDS.put(32902, "Intel Corporation");
-		IDS.put(3294, "Z-Com INC.");
-		IDS.put(3313, "e-CONN ELECTRONIC CO., LTD.");
-		IDS.put(3314, "ENE Technology Inc.");
-		IDS.put(3351, "NALTEC, Inc.");
-		IDS.put(3402, "NF Corporation");
-		IDS.put(3403, "Grape Systems Inc.");
-		IDS.put(3409, "Volex (Asia) Pte Ltd");
-		IDS.put(3425, "MEILU ELECTRONICS (SHENZHEN) CO., LTD.");
-		IDS.put(3441, "Hirakawa Hewtech Corp.");
-		IDS.put(3452, "Taiwan Line Tek Electronic Co., Ltd.");
-		IDS.put(3463, "Dolby Laboratories Inc.");
-		IDS.put(3468, "C-MEDIA ELECTRONICS INC.");
-		IDS.put(3472, "Sure-Fire Electrical Corporation");
-		IDS.put(3495, "IOGEAR, Inc.");
-		IDS.put(3504, "Micro-Star International Co., Ltd.");
-		IDS.put(3537, "Contek Electronics Co., Ltd.");
-		IDS.put(3540, "Custom Engineering SPA");
-		IDS.put(3641, "Smart Modular Technologies, Inc.");
-		IDS.put(3658, "Shenzhen Bao Hing Electric Wire & Cable Mfr. Co.");
-		IDS.put(3673, "Bourns, Inc.");
-		IDS.put(3690, "Megawin Technology Co., Ltd.");
-		IDS.put(3698, "Hsi-Chin Electronics Co., Ltd.");
-		IDS.put(3714, "Ching Tai Electric Wire & Cable Co., Ltd.");
-		IDS.put(3724, "Well Force Electronic Co., Ltd");
-		IDS.put(3725, "MediaTek Inc.");
-		IDS.put(3728, "CRU");
-		IDS.put(3744, "Ours Technology Inc.");
-		IDS.put(3762, "Y-S ELECTRONIC CO., LTD.");
-		IDS.put(3778, "Sweetray Industrial Ltd.");
-		IDS.put(3779, "Axell Corporation");
-		IDS.put(3782, "InnoVISION Multimedia Limited");
-		IDS.put(3790, "TaiSol Electronics Co., Ltd.");
-		IDS.put(3812, "Sunrich Technology (H.K.) Ltd.");
-		IDS.put(3868, "Funai Electric Co., Ltd.");
-		IDS.put(3873, "IOI Technology Corporation");
-		IDS.put(3890, "YFC-BonEagle Electric Co., Ltd.");
-		IDS.put(3896, "Nien-Yi Industrial Corp.");
-		IDS.put(3916, "WORLDWIDE CABLE OPTO CORP.");
-		IDS.put(3923, "Taiyo Cable (Dongguan) Co. Ltd.");
-		IDS.put(3924, "Kawai Musical Instruments Mfg. Co., Ltd.");
-		IDS.put(3936, "GuangZhou Chief Tech Electronic Technology Co. Ltd.");
-		IDS.put(3944, "UQUEST, LTD.");
-		IDS.put(3991, "CviLux Corporation");
-		IDS.put(4003, "Chief Land Electronic Co., Ltd.");
-		IDS.put(4046, "Sony Mobile Communications");
-		IDS.put(4087, "CHI SHING COMPUTER ACCESSORIES CO., LTD.");
-		IDS.put(4096, "Speed Tech Corp.");
-		IDS.put(4100, "LG Electronics Inc.");
-		IDS.put(4101, "Apacer Technology Inc.");
-		IDS.put(4134, "Newly Corporation");
-		IDS.put(4168, "Targus Group International");
-		IDS.put(4172, "AMCO TEC International Inc.");
-		IDS.put(4183, "ON Semiconductor");
-		IDS.put(4184, "Western Digital Technologies, Inc.");
-		IDS.put(4227, "CANON ELECTRONICS INC.");
-		IDS.put(4235, "Grand-tek Technology Co., Ltd.");
-		IDS.put(4236, "Robert Bosch GmbH");
-		IDS.put(4238, "Lotes Co., Ltd.");
-		IDS.put(4266, "Cables To Go");
-		IDS.put(4267, "Universal Global Scientific Industrial Co., Ltd.");
-		IDS.put(4292, "Silicon Laboratories, Inc.");
-		IDS.put(4301, "Kycon Inc.");
-		IDS.put(4362, "Moxa Inc.");
-		IDS.put(4370, "Golden Bright (Sichuan) Electronic Technology Co Ltd");
-		IDS.put(4382, "VSO ELECTRONICS CO., LTD.");
-		IDS.put(4398, "Master Hill Electric Wire and Cable Co., Ltd.");
-		IDS.put(4477, "Santa Electronic Inc.");
-		IDS.put(4505, "Sierra Wireless Inc.");
-		IDS.put(4522, "GlobalMedia Group, LLC");
-		IDS.put(4528, "ATECH FLASH TECHNOLOGY");
-		IDS.put(4643, "SKYCABLE ENTERPRISE CO., LTD.");
-		IDS.put(4703, "ADATA Technology Co., Ltd.");
-		IDS.put(4716, "Aristocrat Technologies");
-		IDS.put(4717, "Bel Stewart");
-		IDS.put(4742, "MARVELL SEMICONDUCTOR, INC.");
-		IDS.put(4756, "RISO KAGAKU CORP.");
-		IDS.put(4792, "Zhejiang Xinya Electronic Technology Co., Ltd.");
-		IDS.put(4817, "Huawei Technologies Co., Ltd.");
-		IDS.put(4823, "Better Holdings (HK) Limited");
-		IDS.put(4907, "Konica Minolta, Inc.");
-		IDS.put(4925, "Jasco Products Company");
-		IDS.put(4989, "Pericom Semiconductor Corp.");
-		IDS.put(5008, "TomTom International B.V.");
-		IDS.put(5075, "AzureWave Technologies, Inc.");
-		IDS.put(5117, "Initio Corporation");
-		IDS.put(5118, "Phison Electronics Corp.");
-		IDS.put(5134, "Telechips, Inc.");
-		IDS.put(5145, "ABILITY ENTERPRISE CO., LTD.");
-		IDS.put(5148, "Leviton Manufacturing");
-		IDS.put(5271, "Panstrong Company Ltd.");
-		IDS.put(5293, "CTK Corporation");
-		IDS.put(5296, "StarTech.com Ltd.");
-		IDS.put(5376, "Ellisys");
-		IDS.put(5404, "VeriSilicon Holdings Co., Ltd.");
-		IDS.put(5421, "JMicron Technology Corp.");
-		IDS.put(5422, "HLDS (Hitachi-LG Data Storage, Inc.)");
-		IDS.put(5440, "Phihong Technology Co., Ltd.");
-		IDS.put(5451, "PNY Technologies Inc.");
-		IDS.put(5453, "Rapid Conn, Connect County Holdings Bhd");
-		IDS.put(5454, "D & M Holdings, Inc.");
-		IDS.put(5480, "Sunf Pu Technology Co., Ltd");
-		IDS.put(5488, "ALLTOP TECHNOLOGY CO., LTD.");
-		IDS.put(5510, "Palconn Technology Co., Ltd.");
-		IDS.put(5528, "Kunshan Guoji Electronics Co., Ltd.");
-		IDS.put(5546, "DongGuan Ya Lian Electronics Co., Ltd.");
-		IDS.put(5645, "Samtec");
-		IDS.put(5694, "HongLin Electronics Co., Ltd.");
-		IDS.put(5753, "Total Phase");
-		IDS.put(5766, "ZOOM Corporation");
-		IDS.put(5836, "silex technology, Inc.");
-		IDS.put(5946, "F. Hoffmann-La Roche AG");
-		IDS.put(5960, "MQP Electronics Ltd.");
-		IDS.put(5964, "ASMedia Technology Inc.");
-		IDS.put(5998, "UD electronic corp.");
-		IDS.put(6001, "Shenzhen Alex Connector Co., Ltd.");
-		IDS.put(6002, "System Level Solutions, Inc.");
-		IDS.put(6018, "Spreadtrum Hong Kong Limited");
-		IDS.put(6024, "ShenZhen Litkconn Technology Co., Ltd.");
-		IDS.put(6053, "Advanced Connection Technology Inc.");
-		IDS.put(6095, "Hip Hing Cable & Plug Mfy. Ltd.");
-		IDS.put(6121, "DisplayLink (UK) Ltd.");
-		IDS.put(6127, "Lenovo");
-		IDS.put(6133, "K.K. Rocky");
-		IDS.put(6160, "Wanshih Electronic Co., Ltd.");
-		IDS.put(6185, "Dongguan YuQiu Electronics Co., Ltd.");
-		IDS.put(6193, "Gwo Jinn Industries Co., Ltd.");
-		IDS.put(6297, "Linkiss Co., Ltd.");
-		IDS.put(6353, "Google Inc.");
-		IDS.put(6394, "Kuang Ying Computer Equipment Co., Ltd.");
-		IDS.put(6421, "Nordic Semiconductor ASA");
-		IDS.put(6448, "Shenzhen Xianhe Technology Co., Ltd.");
-		IDS.put(6449, "Ningbo Broad Telecommunication Co., Ltd.");
-		IDS.put(6470, "Irisguard UK Ltd");
-		IDS.put(6473, "Lab126");
-		IDS.put(6481, "Hyperstone GmbH");
-		IDS.put(6487, "BIOS Corporation");
-		IDS.put(6626, "Solomon Systech Limited");
-		IDS.put(6639, "Pak Heng Technology (Shenzhen) Co., Ltd.");
-		IDS.put(6655, "Best Buy China Ltd.");
-		IDS.put(6666, "USB-IF non-workshop");
-		IDS.put(6709, "Artesyn Technologies Inc.");
-		IDS.put(6720, "TERMINUS TECHNOLOGY INC.");
-		IDS.put(6766, "Global Unichip Corp.");
-		IDS.put(6786, "Proconn Technology Co., Ltd.");
-		IDS.put(6794, "Simula Technology Inc.");
-		IDS.put(6795, "SGS Taiwan Ltd.");
-		IDS.put(6830, "Johnson Component & Equipments Co., Ltd.");
-		IDS.put(6834, "Allied Vision Technologies GmbH");
-		IDS.put(6859, "Salcomp Plc");
-		IDS.put(6865, "Desan Wire Co., Ltd.");
-		IDS.put(6944, "MStar Semiconductor, Inc.");
-		IDS.put(6984, "Plastron Precision Co., Ltd.");
-		IDS.put(7013, "The Hong Kong Standards and Testing Centre Ltd.");
-		IDS.put(7048, "ShenMing Electron (Dong Guan) Co., Ltd.");
-		IDS.put(7086, "Vuzix Corporation");
-		IDS.put(7108, "Ford Motor Co.");
-		IDS.put(7118, "Contac Cable Industrial Limited");
-		IDS.put(7119, "Sunplus Innovation Technology Inc.");
-		IDS.put(7120, "Hangzhou Riyue Electronics Co., Ltd.");
-		IDS.put(7158, "Orient Semiconductor Electronics, Ltd.");
-		IDS.put(7207, "SHENZHEN DNS INDUSTRIES CO., LTD.");
-		IDS.put(7217, "LS Mtron Ltd.");
-		IDS.put(7229, "NONIN MEDICAL INC.");
-		IDS.put(7275, "Philips & Lite-ON Digital Solutions Corporation");
-		IDS.put(7310, "ASTRON INTERNATIONAL CORP.");
-		IDS.put(7320, "ALPINE ELECTRONICS, INC.");
-		IDS.put(7347, "Aces Electronics Co., Ltd.");
-		IDS.put(7348, "OPEX CORPORATION");
-		IDS.put(7390, "Telecommunications Technology Association (TTA)");
-		IDS.put(7434, "Visteon Corporation");
-		IDS.put(7465, "Horng Tong Enterprise Co., Ltd.");
-		IDS.put(7501, "Pegatron Corporation");
-		IDS.put(7516, "Fresco Logic Inc.");
-		IDS.put(7529, "Walta Electronic Co., Ltd.");
-		IDS.put(7543, "Yueqing Changling Electronic Instrument Corp., Ltd.");
-		IDS.put(7584, "Parade Technologies, Inc.");
-		IDS.put(7647, "L&T Technology Services");
-		IDS.put(7649, "Actions Microelectronics Co., Ltd.");
-		IDS.put(7666, "China Telecommunication Technology Labs - Terminals");
-		IDS.put(7668, "SHEN ZHEN FORMAN PRECISION INDUSTRY CO., LTD.");
-		IDS.put(7682, "GLOBEMASTER TECHNOLOGIES CO., LTD.");
-		IDS.put(7696, "Point Grey Research Inc.");
-		IDS.put(7751, "HUNG TA H.T.ENTERPRISE CO., LTD.");
-		IDS.put(7758, "Etron Technology, Inc.");
-		IDS.put(7795, "COMLINK ELECTRONICS CO., LTD.");
-		IDS.put(7818, "HIBEST Electronic (DongGuan) Co., Ltd.");
-		IDS.put(7825, "Other World Computing");
-		IDS.put(7863, "WIN WIN PRECISION INDUSTRIAL CO., LTD.");
-		IDS.put(7879, "Gefen Inc.");
-		IDS.put(7881, "MOSER BAER INDIA LIMITED");
-		IDS.put(7898, "AIRTIES WIRELESS NETWORKS");
-		IDS.put(7956, "Astoria Networks GmbH");
-		IDS.put(7969, "Scosche Industries");
-		IDS.put(7976, "Cal-Comp Electronics & Communications");
-		IDS.put(7977, "Analogix Semiconductor, Inc.");
-		IDS.put(7989, "Amphenol ShouhMin Industry (ShenZhen) Co., Ltd");
-		IDS.put(7996, "Chang Yang Electronics Company Ltd.");
-		IDS.put(8073, "Dongguan Goldconn Electronics Co., Ltd.");
-		IDS.put(8074, "Morning Star Industrial Co., Ltd.");
-		IDS.put(8117, "Unify Software and Solutions GmbH & Co. KG");
-		IDS.put(8137, "NXP Semiconductors");
-		IDS.put(8181, "Changzhou Wujin BEST Electronic Cables Co., Ltd.");
-		IDS.put(8205, "Belkin Electronic (Changzhou) Co., Ltd.");
-		IDS.put(8220, "Freeport Resources Enterprises Corp.");
-		IDS.put(8222, "Qingdao Haier Telecom Co., Ltd.");
-		IDS.put(8284, "Shenzhen Tronixin Electronics Co., Ltd.");
-		IDS.put(8294, "Unicorn Electronics Components Co., Ltd.");
-		IDS.put(8334, "Luxshare-ICT");
-		IDS.put(8341, "CE LINK LIMITED");
-		IDS.put(8342, "Microconn Electronic Co., Ltd.");
-		IDS.put(8367, "Shenzhen CARVE Electronics Co., Ltd.");
-		IDS.put(8382, "BURY GmbH & Co. KG");
-		IDS.put(8384, "FENGHUA KINGSUN CO., LTD.");
-		IDS.put(8386, "Sumitomo Electric Ind., Ltd., Optical Comm. R&D Lab");
-		IDS.put(8439, "XIMEA s.r.o.");
-		IDS.put(8457, "VIA Labs, Inc.");
-		IDS.put(8492, "Shenzhen Linoya Electronic Co., Ltd.");
-		IDS.put(8494, "Amphenol AssembleTech (Xiamen) Co., Ltd.");
-		IDS.put(8524, "Y Soft Corporation");
-		IDS.put(8550, "JVC KENWOOD Corporation");
-		IDS.put(8564, "Transcend Information, Inc.");
-		IDS.put(8566, "TMC/Allion Test Labs");
-		IDS.put(8613, "Genesis Technology USA, Inc.");
-		IDS.put(8627, "Dongguan Teconn Electronics Technology Co., Ltd.");
-		IDS.put(8644, "Netcom Technology (HK) Limited");
-		IDS.put(8659, "Compupack Technology Co., Ltd.");
-		IDS.put(8667, "G-Max Technology Co., Ltd.");
-		IDS.put(8679, "Sagemcom Broadband SAS");
-		IDS.put(8695, "Wuerth-Elektronik eiSos GmbH & Co. KG");
-		IDS.put(8707, "Shin Shin Co., Ltd.");
-		IDS.put(8709, "3eYamaichi Electronics Co., Ltd.");
-		IDS.put(8710, "Wiretek International Investment Ltd.");
-		IDS.put(8711, "Fuzhou Rockchip Electronics Co., Ltd.");
-		IDS.put(8752, "Plugable Technologies");
-		IDS.put(8756, "T-CONN PRECISION CORPORATION");
-		IDS.put(8831, "Granite River Labs");
-		IDS.put(8842, "Hotron Precision Electronic Ind. Corp.");
-		IDS.put(8875, "Trigence Semiconductor, Inc.");
-		IDS.put(8888, "Motorola Mobility Inc.");
-		IDS.put(8904, "Karming Electronic (Shenzhen) Co., Ltd.");
-		IDS.put(8981, "Avery Design Systems, Inc.");
-		IDS.put(8993, "iKingdom Corp. (d.b.a. iConnectivity)");
-		IDS.put(9051, "KangXiang Electronic Co., Ltd.");
-		IDS.put(9068, "ZheJiang Chunsheng Electronics Co., Ltd.");
-		IDS.put(9130, "DOK (HK) Trading Limited");
-		IDS.put(9132, "Marunix Electron Limited");
-		IDS.put(9165, "Avconn Precise Connector Co., Ltd.");
-		IDS.put(9184, "BitifEye Digital Test Solutions GmbH");
-		IDS.put(9205, "Speed Conn Co., Ltd.");
-		IDS.put(9222, "INSIDE Secure");
-		IDS.put(9292, "Minebea Co., Ltd.");
-		IDS.put(9299, "BAANTO");
-		IDS.put(9338, "Suzhou Jutze Technologies Co., Ltd");
-		IDS.put(9355, "DONGGUAN SYNCONN PRECISION INDUSTRY CO. LTD.");
-		IDS.put(9382, "Shenzhen Pangngai Industrial Co., Ltd.");
-		IDS.put(9422, "Shenzhen Deren Electronic Co., Ltd.");
-		IDS.put(9424, "Smith Micro Software, Inc.");
-		IDS.put(9453, "ZEN FACTORY GROUP (ASIA) LTD.");
-		IDS.put(9481, "Chain-In Electronic Co., Ltd.");
-		IDS.put(9514, "SUZHOU KELI TECHNOLOGY DEVELOPMENT CO., LTD.");
-		IDS.put(9515, "TOP Exactitude Industry (ShenZhen) Co., Ltd.");
-		IDS.put(9525, "ShenZhen Hogend Precision Technology Co., Ltd.");
-		IDS.put(9527, "Norel Systems Ltd.");
-		IDS.put(9556, "ASSA ABLOY AB");
-		IDS.put(9575, "DongGuan LongTao Electronic Co., Ltd.");
-		IDS.put(9577, "DongGuan City MingJi Electronics Co., Ltd.");
-		IDS.put(9589, "Weida Hi-Tech Co., Ltd.");
-		IDS.put(9593, "Dongguan Wisechamp Electronic Co., Ltd.");
-		IDS.put(9613, "Sequans Communications");
-		IDS.put(9636, "ALGOLTEK, INC.");
-		IDS.put(9651, "DongGuan Elinke Industrial Co., Ltd.");
-		IDS.put(9679, "Corning Optical Communications LLC");
-		IDS.put(9714, "Dongguan Jinyue Electronics Co., Ltd.");
-		IDS.put(9723, "RICOH IMAGING COMPANY, LTD.");
-		IDS.put(9742, "DongGuan HYX Industrial Co., Ltd.");
-		IDS.put(9753, "Advanced Silicon SA");
-		IDS.put(9756, "EISST Limited");
-		IDS.put(9771, "YTOP Electronics Technical (Kunshan) Co., Ltd.");
-		IDS.put(9841, "Innovative Logic");
-		IDS.put(9842, "GoPro");
-		IDS.put(9846, "Basler AG");
-		IDS.put(9851, "Palpilot International Corp.");
-		IDS.put(9896, "UNIREX CORPORATION");
-		IDS.put(9917, "Integral Memory Plc.");
-		IDS.put(9973, "Morning Star Digital Connector Co., Ltd.");
-		IDS.put(9984, "MITACHI CO., LTD.");
-		IDS.put(9999, "HGST, a Western Digital Company");
+	/**
+	 * TABLEを展開したベンダーIDと名前の開始位置
+	 * 最初にアクセスした時に初期化される
+	 */
+	private static final class Table {
+		private static final int[] IDS;
+		private static final int[] OFFSETS;
+
+		static {
+			final String table = TABLE;
+			final int length = table.length();
+			int n = 0;
+			for (int i = 0; i < length; i++) {
+				if (table.charAt(i) == '\n') {
+					n++;
+				}
+			}
+			IDS = new int[n];
+			OFFSETS = new int[n];
+			int pos = 0;
+			for (int i = 0; i < n; i++) {
+				int id = 0;
+				char c;
+				while ((c = table.charAt(pos++)) != '\t') {
+					id = id * 10 + (c - '0');
+				}
+				IDS[i] = id;
+				OFFSETS[i] = pos;
+				pos = table.indexOf('\n', pos) + 1;
+			}
+		}
 	}
+
+	/**
+	 * "ベンダーID(10進数)\tベンダー名\n"の繰り返し
+	 * 二分探索するので必ずベンダーIDの昇順に並べること
+	 */
+	private static final String TABLE =
+		"1003\tAtmel Corporation\n" +
+		"1006\tMitsumi\n" +
+		"1008\tHP Inc.\n" +
+		"1020\tElitegroup Computer Systems\n" +
+		"1021\tXilinx Inc.\n" +
+		"1026\tALi Corporation\n" +
+		"1027\tFuture Technology Devices International Limited\n" +
+		"1032\tQuanta Computer Inc.\n" +
+		"1033\tNEC Corporation\n" +
+		"1035\tWeltrend Semiconductor\n" +
+		"1037\tVIA Technologies, Inc.\n" +
+		"1038\tMCCI Corporation\n" +
+		"1041\tBUFFALO INC.\n" +
+		"1044\tGiga-Byte Technology Co., Ltd.\n" +
+		"1046\tNuvoton Technology Corp.\n" +
+		"1054\tCreative Labs\n" +
+		"1057\tNokia Corporation\n" +
+		"1060\tMicrochip-SMSC\n" +
+		"1065\tCirrus Logic Inc.\n" +
+		"1071\tMolex Inc.\n" +
+		"1072\tFujitsu Component Limited\n" +
+		"1080\tAdvanced Micro Devices\n" +
+		"1085\tLexmark International Inc.\n" +
+		"1102\tAlps Electric Co., Ltd.\n" +
+		"1105\tTexas Instruments\n" +
+		"1115\tRenesas Electronics Corp.\n" +
+		"1118\tMicrosoft Corporation\n" +
+		"1121\tPrimax Electronics\n" +
+		"1123\tEATON\n" +
+		"1128\tWieson Technologies Co., Ltd.\n" +
+		"1131\tAmerican Megatrends\n" +
+		"1133\tLogitech Inc.\n" +
+		"1151\tPlantronics, Inc.\n" +
+		"1154\tKyocera Corporation\n" +
+		"1155\tSTMicroelectronics\n" +
+		"1161\tFoxconn / Hon Hai\n" +
+		"1165\tITE Tech Inc.\n" +
+		"1177\tYamaha Corporation\n" +
+		"1188\tHitachi, Ltd.\n" +
+		"1191\tVisioneer\n" +
+		"1193\tCanon Inc.\n" +
+		"1200\tNikon Corporation\n" +
+		"1201\tPan International\n" +
+		"1204\tCypress Semiconductor\n" +
+		"1205\tROHM Co., Ltd.\n" +
+		"1207\tCompal Electronics, Inc.\n" +
+		"1208\tSeiko Epson Corp.\n" +
+		"1211\tI-O Data Device, Inc.\n" +
+		"1221\tFujitsu Ltd.\n" +
+		"1227\tFUJIFILM Corporation\n" +
+		"1238\tMentor Graphics\n" +
+		"1240\tMicrochip Technology Inc.\n" +
+		"1241\tHoltek Semiconductor, Inc.\n" +
+		"1242\tPanasonic Corporation\n" +
+		"1245\tSharp Corporation\n" +
+		"1250\tExar Corporation\n" +
+		"1254\tIdentiv, Inc.\n" +
+		"1256\tSamsung Electronics Co., Ltd.\n" +
+		"1260\tTokyo Electron Device Limited\n" +
+		"1266\tChicony Electronics Co., Ltd.\n" +
+		"1271\tNewnex Technology Corp.\n" +
+		"1273\tBrother Industries, Ltd.\n" +
+		"1276\tSUNPLUS TECHNOLOGY CO., LTD.\n" +
+		"1278\tPFU Limited\n" +
+		"1281\tFujikura/DDK\n" +
+		"1282\tAcer, Inc.\n" +
+		"1287\tHosiden Corporation\n" +
+		"1293\tBelkin International, Inc.\n" +
+		"1300\tFCI Electronics\n" +
+		"1302\tLongwell Electronics/Longwell Company\n" +
+		"1305\tStar Micronics Co., LTD\n" +
+		"1309\tAmerican Power Conversion\n" +
+		"1314\tACON, Advanced-Connectek, Inc.\n" +
+		"1343\tSynopsys, Inc.\n" +
+		"1356\tSony Corporation\n" +
+		"1360\tFuji Xerox Co., Ltd.\n" +
+		"1367\tATEN International Co. Ltd.\n" +
+		"1369\tCadence Design Systems, Inc.\n" +
+		"1386\tWACOM Co., Ltd.\n" +
+		"1389\tEIZO Corporation\n" +
+		"1390\tElecom Co., Ltd.\n" +
+		"1394\tConexant Systems, Inc.\n" +
+		"1398\tBAFO/Quality Computer Accessories\n" +
+		"1403\tY-E Data, Inc.\n" +
+		"1404\tAVM GmbH\n" +
+		"1410\tRoland Corporation\n" +
+		"1412\tRATOC Systems, Inc.\n" +
+		"1419\tInfineon Technologies\n" +
+		"1423\tAlcor Micro, Corp.\n" +
+		"1424\tOMRON Corporation\n" +
+		"1447\tBose Corporation\n" +
+		"1449\tOmniVision Technologies, Inc.\n" +
+		"1452\tApple\n" +
+		"1453\tY.C. Cable U.S.A., Inc\n" +
+		"1470\tTyco Electronics Corp., a TE Connectivity Ltd. company\n" +
+		"1473\tMegaChips Corporation\n" +
+		"1478\tQualcomm, Inc\n" +
+		"1480\tFoxlink/Cheng Uei Precision Industry Co., Ltd.\n" +
+		"1482\tRicoh Company Ltd.\n" +
+		"1498\tMicrotek International Inc.\n" +
+		"1504\tSymbol Technologies\n" +
+		"1507\tGenesys Logic, Inc.\n" +
+		"1509\tFuji Electric Co., Ltd.\n" +
+		"1525\tUnixtar Technology Inc.\n" +
+		"1529\tDatalogic ADC\n" +
+		"1535\tLeCroy Corporation\n" +
+		"1539\tNovatek Microelectronics Corp.\n" +
+		"1545\tSMK Manufacturing Inc.\n" +
+		"1551\tJoinsoon Electronics Mfg. Co., Ltd.\n" +
+		"1555\tTransAct Technologies Incorporated\n" +
+		"1561\tSeiko Instruments Inc.\n" +
+		"1582\tJPC/MAIN SUPER Inc.\n" +
+		"1583\tSin Sheng Terminal & Machine Inc.\n" +
+		"1593\tChrontel, Inc.\n" +
+		"1611\tAnalog Devices, Inc. Development Tools\n" +
+		"1612\tJi-Haw Industrial Co., Ltd\n" +
+		"1614\tSuyin Corporation\n" +
+		"1621\tSpace Shuttle Hi-Tech Co.,Ltd.\n" +
+		"1622\tGlory Mark Electronic Ltd.\n" +
+		"1623\tTekcon Electronics Corp.\n" +
+		"1624\tSigma Designs, Inc.\n" +
+		"1631\tGood Way Technology Co., Ltd. & GWC technology Inc\n" +
+		"1632\tTSAY-E (BVI) International Inc.\n" +
+		"1633\tHamamatsu Photonics K.K.\n" +
+		"1642\tTotal Technologies, Ltd.\n" +
+		"1659\tProlific Technology, Inc.\n" +
+		"1680\tGolden Bridge Electech Inc.\n" +
+		"1689\tTektronix, Inc.\n" +
+		"1690\tAskey Computer Corporation\n" +
+		"1709\tGreatland Electronics Taiwan Ltd.\n" +
+		"1710\tEurofins Digital Testing Belgium\n" +
+		"1720\tPixela Corporation\n" +
+		"1724\tOki Data Corporation\n" +
+		"1727\tLeoco Corporation\n" +
+		"1732\tBizlink Technology, Inc.\n" +
+		"1736\tSIIG, Inc.\n" +
+		"1747\tMitsubishi Electric Corporation\n" +
+		"1758\tHeisei Technology Co., Ltd.\n" +
+		"1802\tOki Electric Industry Co., Ltd.\n" +
+		"1805\tComoss Electronic Co., Ltd.\n" +
+		"1809\tMagic Control Technology Corp.\n" +
+		"1816\tImation Corp.\n" +
+		"1838\tSunix Co., Ltd.\n" +
+		"1846\tLorom Industrial Co., Ltd.\n" +
+		"1848\tMad Catz, Inc.\n" +
+		"1899\tHID Global GmbH\n" +
+		"1901\tDenso Corporation\n" +
+		"1913\tFairchild Semiconductor\n" +
+		"1921\tSanDisk Corporation\n" +
+		"1937\tCopartner Technology Corporation\n" +
+		"1954\tNational Technical Systems\n" +
+		"1971\tPlustek, Inc.\n" +
+		"1972\tOLYMPUS CORPORATION\n" +
+		"1975\tTIME Interconnect Ltd.\n" +
+		"1994\tAVerMedia Technologies, Inc.\n" +
+		"1999\tCasio Computer Co., Ltd.\n" +
+		"2015\tDavid Electronics Company, Ltd.\n" +
+		"2039\tCentury Corporation\n" +
+		"2058\tEvermuch Technology Co., Ltd.\n" +
+		"2101\tAction Star Enterprise Co., Ltd.\n" +
+		"2112\tArgosy Research Inc.\n" +
+		"2122\tWipro Limited\n" +
+		"2159\tMEC IMEX INC/HPT\n" +
+		"2205\tIcron Technologies Corporation\n" +
+		"2247\tTAI TWUN ENTERPRISE CO., LTD.\n" +
+		"2276\tPioneer Corporation\n" +
+		"2278\tGemalto SA\n" +
+		"2310\tFARADAY Technology Corp.\n" +
+		"2313\tAudio-Technica Corp.\n" +
+		"2316\tSilicon Motion, Inc. - Taiwan\n" +
+		"2334\tGarmin International\n" +
+		"2352\tToshiba Corporation\n" +
+		"2362\tPixart Imaging, Inc.\n" +
+		"2363\tPlextor LLC\n" +
+		"2366\tJ.S.T. Mfg. Co., Ltd.\n" +
+		"2385\tKingston Technology Company\n" +
+		"2389\tNVIDIA\n" +
+		"2395\tMedialogic Corporation\n" +
+		"2397\tPolycom, Inc.\n" +
+		"2468\tContech Research, Inc.\n" +
+		"2472\tLin Shiung Enterprise Co., Ltd.\n" +
+		"2475\tJapan Cash Machine Co., Ltd.\n" +
+		"2498\tNISCA Corporation\n" +
+		"2511\tElectronics Testing Center, Taiwan\n" +
+		"2522\tA-FOUR TECH CO., LTD.\n" +
+		"2555\tAltera\n" +
+		"2578\tCambridge Silicon Radio Ltd.\n" +
+		"2583\tHOYA Corporation\n" +
+		"2631\tHirose Electric Co., Ltd.\n" +
+		"2636\tCOMPUTEX Co., Ltd.\n" +
+		"2640\tMimaki Engineering Co., Ltd.\n" +
+		"2652\tBroadcom Corp.\n" +
+		"2667\tGreen House Co., Ltd.\n" +
+		"2702\tJapan Aviation Electronics Industry Ltd. (JAE)\n" +
+		"2727\tWincor Nixdorf GmbH & Co KG\n" +
+		"2733\tRohde & Schwarz GmbH & Co. KG\n" +
+		"2787\tAllion Labs, Inc.\n" +
+		"2821\tASUSTek Computer Inc.\n" +
+		"2849\tYokogawa Electric Corporation\n" +
+		"2851\tPan-Asia Electronics Co., Ltd.\n" +
+		"2894\tMusical Electronics Ltd.\n" +
+		"2907\tAnritsu Corporation\n" +
+		"2922\tMaxim Integrated Products\n" +
+		"2965\tASIX Electronics Corporation\n" +
+		"2967\tO2Micro, Inc.\n" +
+		"3010\tSeagate Technology LLC\n" +
+		"3034\tRealtek Semiconductor Corp.\n" +
+		"3035\tEricsson AB\n" +
+		"3044\tElka International Ltd.\n" +
+		"3056\tPace Micro Technology PLC\n" +
+		"3108\tTaiyo Yuden Co., Ltd.\n" +
+		"3129\tAeroflex\n" +
+		"3132\tRadius Co., Ltd.\n" +
+		"3141\tSonix Technology Co., Ltd.\n" +
+		"3158\tBillion Bright (HK) Corporation Limited\n" +
+		"3161\tDong Guan Shinko Wire Co., Ltd.\n" +
+		"3170\tChant Sincere Co., Ltd\n" +
+		"3190\tSolid State System Co., Ltd.\n" +
+		"3209\tHonda Tsushin Kogyo Co., Ltd\n" +
+		"3245\tMotorola Solutions\n" +
+		"3255\tSingatron Enterprise Co. Ltd.\n" +
+		"3268\temsys Embedded Systems GmbH\n" +
+		"3294\tZ-Com INC.\n" +
+		"3313\te-CONN ELECTRONIC CO., LTD.\n" +
+		"3314\tENE Technology Inc.\n" +
+		"3351\tNALTEC, Inc.\n" +
+		"3402\tNF Corporation\n" +
+		"3403\tGrape Systems Inc.\n" +
+		"3409\tVolex (Asia) Pte Ltd\n" +
+		"3425\tMEILU ELECTRONICS (SHENZHEN) CO., LTD.\n" +
+		"3441\tHirakawa Hewtech Corp.\n" +
+		"3452\tTaiwan Line Tek Electronic Co., Ltd.\n" +
+		"3463\tDolby Laboratories Inc.\n" +
+		"3468\tC-MEDIA ELECTRONICS INC.\n" +
+		"3472\tSure-Fire Electrical Corporation\n" +
+		"3495\tIOGEAR, Inc.\n" +
+		"3504\tMicro-Star International Co., Ltd.\n" +
+		"3537\tContek Electronics Co., Ltd.\n" +
+		"3540\tCustom Engineering SPA\n" +
+		"3641\tSmart Modular Technologies, Inc.\n" +
+		"3658\tShenzhen Bao Hing Electric Wire & Cable Mfr. Co.\n" +
+		"3673\tBourns, Inc.\n" +
+		"3690\tMegawin Technology Co., Ltd.\n" +
+		"3698\tHsi-Chin Electronics Co., Ltd.\n" +
+		"3714\tChing Tai Electric Wire & Cable Co., Ltd.\n" +
+		"3724\tWell Force Electronic Co., Ltd\n" +
+		"3725\tMediaTek Inc.\n" +
+		"3728\tCRU\n" +
+		"3744\tOurs Technology Inc.\n" +
+		"3762\tY-S ELECTRONIC CO., LTD.\n" +
+		"3778\tSweetray Industrial Ltd.\n" +
+		"3779\tAxell Corporation\n" +
+		"3782\tInnoVISION Multimedia Limited\n" +
+		"3790\tTaiSol Electronics Co., Ltd.\n" +
+		"3812\tSunrich Technology (H.K.) Ltd.\n" +
+		"3868\tFunai Electric Co., Ltd.\n" +
+		"3873\tIOI Technology Corporation\n" +
+		"3890\tYFC-BonEagle Electric Co., Ltd.\n" +
+		"3896\tNien-Yi Industrial Corp.\n" +
+		"3916\tWORLDWIDE CABLE OPTO CORP.\n" +
+		"3923\tTaiyo Cable (Dongguan) Co. Ltd.\n" +
+		"3924\tKawai Musical Instruments Mfg. Co., Ltd.\n" +
+		"3936\tGuangZhou Chief Tech Electronic Technology Co. Ltd.\n" +
+		"3944\tUQUEST, LTD.\n" +
+		"3991\tCviLux Corporation\n" +
+		"4003\tChief Land Electronic Co., Ltd.\n" +
+		"4046\tSony Mobile Communications\n" +
+		"4087\tCHI SHING COMPUTER ACCESSORIES CO., LTD.\n" +
+		"4096\tSpeed Tech Corp.\n" +
+		"4100\tLG Electronics Inc.\n" +
+		"4101\tApacer Technology Inc.\n" +
+		"4134\tNewly Corporation\n" +
+		"4168\tTargus Group International\n" +
+		"4172\tAMCO TEC International Inc.\n" +
+		"4183\tON Semiconductor\n" +
+		"4184\tWestern Digital Technologies, Inc.\n" +
+		"4227\tCANON ELECTRONICS INC.\n" +
+		"4235\tGrand-tek Technology Co., Ltd.\n" +
+		"4236\tRobert Bosch GmbH\n" +
+		"4238\tLotes Co., Ltd.\n" +
+		"4266\tCables To Go\n" +
+		"4267\tUniversal Global Scientific Industrial Co., Ltd.\n" +
+		"4292\tSilicon Laboratories, Inc.\n" +
+		"4301\tKycon Inc.\n" +
+		"4362\tMoxa Inc.\n" +
+		"4370\tGolden Bright (Sichuan) Electronic Technology Co Ltd\n" +
+		"4382\tVSO ELECTRONICS CO., LTD.\n" +
+		"4398\tMaster Hill Electric Wire and Cable Co., Ltd.\n" +
+		"4477\tSanta Electronic Inc.\n" +
+		"4505\tSierra Wireless Inc.\n" +
+		"4522\tGlobalMedia Group, LLC\n" +
+		"4528\tATECH FLASH TECHNOLOGY\n" +
+		"4643\tSKYCABLE ENTERPRISE CO., LTD.\n" +
+		"4703\tADATA Technology Co., Ltd.\n" +
+		"4716\tAristocrat Technologies\n" +
+		"4717\tBel Stewart\n" +
+		"4742\tMARVELL SEMICONDUCTOR, INC.\n" +
+		"4756\tRISO KAGAKU CORP.\n" +
+		"4792\tZhejiang Xinya Electronic Technology Co., Ltd.\n" +
+		"4817\tHuawei Technologies Co., Ltd.\n" +
+		"4823\tBetter Holdings (HK) Limited\n" +
+		"4907\tKonica Minolta, Inc.\n" +
+		"4925\tJasco Products Company\n" +
+		"4989\tPericom Semiconductor Corp.\n" +
+		"5008\tTomTom International B.V.\n" +
+		"5075\tAzureWave Technologies, Inc.\n" +
+		"5117\tInitio Corporation\n" +
+		"5118\tPhison Electronics Corp.\n" +
+		"5134\tTelechips, Inc.\n" +
+		"5145\tABILITY ENTERPRISE CO., LTD.\n" +
+		"5148\tLeviton Manufacturing\n" +
+		"5271\tPanstrong Company Ltd.\n" +
+		"5293\tCTK Corporation\n" +
+		"5296\tStarTech.com Ltd.\n" +
+		"5376\tEllisys\n" +
+		"5404\tVeriSilicon Holdings Co., Ltd.\n" +
+		"5421\tJMicron Technology Corp.\n" +
+		"5422\tHLDS (Hitachi-LG Data Storage, Inc.)\n" +
+		"5440\tPhihong Technology Co., Ltd.\n" +
+		"5451\tPNY Technologies Inc.\n" +
+		"5453\tRapid Conn, Connect County Holdings Bhd\n" +
+		"5454\tD & M Holdings, Inc.\n" +
+		"5480\tSunf Pu Technology Co., Ltd\n" +
+		"5488\tALLTOP TECHNOLOGY CO., LTD.\n" +
+		"5510\tPalconn Technology Co., Ltd.\n" +
+		"5528\tKunshan Guoji Electronics Co., Ltd.\n" +
+		"5546\tDongGuan Ya Lian Electronics Co., Ltd.\n" +
+		"5645\tSamtec\n" +
+		"5694\tHongLin Electronics Co., Ltd.\n" +
+		"5753\tTotal Phase\n" +
+		"5766\tZOOM Corporation\n" +
+		"5836\tsilex technology, Inc.\n" +
+		"5946\tF. Hoffmann-La Roche AG\n" +
+		"5960\tMQP Electronics Ltd.\n" +
+		"5964\tASMedia Technology Inc.\n" +
+		"5998\tUD electronic corp.\n" +
+		"6001\tShenzhen Alex Connector Co., Ltd.\n" +
+		"6002\tSystem Level Solutions, Inc.\n" +
+		"6018\tSpreadtrum Hong Kong Limited\n" +
+		"6024\tShenZhen Litkconn Technology Co., Ltd.\n" +
+		"6053\tAdvanced Connection Technology Inc.\n" +
+		"6095\tHip Hing Cable & Plug Mfy. Ltd.\n" +
+		"6121\tDisplayLink (UK) Ltd.\n" +
+		"6127\tLenovo\n" +
+		"6133\tK.K. Rocky\n" +
+		"6160\tWanshih Electronic Co., Ltd.\n" +
+		"6185\tDongguan YuQiu Electronics Co., Ltd.\n" +
+		"6193\tGwo Jinn Industries Co., Ltd.\n" +
+		"6297\tLinkiss Co., Ltd.\n" +
+		"6353\tGoogle Inc.\n" +
+		"6394\tKuang Ying Computer Equipment Co., Ltd.\n" +
+		"6421\tNordic Semiconductor ASA\n" +
+		"6448\tShenzhen Xianhe Technology Co., Ltd.\n" +
+		"6449\tNingbo Broad Telecommunication Co., Ltd.\n" +
+		"6470\tIrisguard UK Ltd\n" +
+		"6473\tLab126\n" +
+		"6481\tHyperstone GmbH\n" +
+		"6487\tBIOS Corporation\n" +
+		"6626\tSolomon Systech Limited\n" +
+		"6639\tPak Heng Technology (Shenzhen) Co., Ltd.\n" +
+		"6655\tBest Buy China Ltd.\n" +
+		"6666\tUSB-IF non-workshop\n" +
+		"6709\tArtesyn Technologies Inc.\n" +
+		"6720\tTERMINUS TECHNOLOGY INC.\n" +
+		"6766\tGlobal Unichip Corp.\n" +
+		"6786\tProconn Technology Co., Ltd.\n" +
+		"6794\tSimula Technology Inc.\n" +
+		"6795\tSGS Taiwan Ltd.\n" +
+		"6830\tJohnson Component & Equipments Co., Ltd.\n" +
+		"6834\tAllied Vision Technologies GmbH\n" +
+		"6859\tSalcomp Plc\n" +
+		"6865\tDesan Wire Co., Ltd.\n" +
+		"6944\tMStar Semiconductor, Inc.\n" +
+		"6984\tPlastron Precision Co., Ltd.\n" +
+		"7013\tThe Hong Kong Standards and Testing Centre Ltd.\n" +
+		"7048\tShenMing Electron (Dong Guan) Co., Ltd.\n" +
+		"7086\tVuzix Corporation\n" +
+		"7108\tFord Motor Co.\n" +
+		"7118\tContac Cable Industrial Limited\n" +
+		"7119\tSunplus Innovation Technology Inc.\n" +
+		"7120\tHangzhou Riyue Electronics Co., Ltd.\n" +
+		"7158\tOrient Semiconductor Electronics, Ltd.\n" +
+		"7207\tSHENZHEN DNS INDUSTRIES CO., LTD.\n" +
+		"7217\tLS Mtron Ltd.\n" +
+		"7229\tNONIN MEDICAL INC.\n" +
+		"7275\tPhilips & Lite-ON Digital Solutions Corporation\n" +
+		"7310\tASTRON INTERNATIONAL CORP.\n" +
+		"7320\tALPINE ELECTRONICS, INC.\n" +
+		"7347\tAces Electronics Co., Ltd.\n" +
+		"7348\tOPEX CORPORATION\n" +
+		"7390\tTelecommunications Technology Association (TTA)\n" +
+		"7434\tVisteon Corporation\n" +
+		"7465\tHorng Tong Enterprise Co., Ltd.\n" +
+		"7501\tPegatron Corporation\n" +
+		"7516\tFresco Logic Inc.\n" +
+		"7529\tWalta Electronic Co., Ltd.\n" +
+		"7543\tYueqing Changling Electronic Instrument Corp., Ltd.\n" +
+		"7584\tParade Technologies, Inc.\n" +
+		"7647\tL&T Technology Services\n" +
+		"7649\tActions Microelectronics Co., Ltd.\n" +
+		"7666\tChina Telecommunication Technology Labs - Terminals\n" +
+		"7668\tSHEN ZHEN FORMAN PRECISION INDUSTRY CO., LTD.\n" +
+		"7682\tGLOBEMASTER TECHNOLOGIES CO., LTD.\n" +
+		"7696\tPoint Grey Research Inc.\n" +
+		"7751\tHUNG TA H.T.ENTERPRISE CO., LTD.\n" +
+		"7758\tEtron Technology, Inc.\n" +
+		"7795\tCOMLINK ELECTRONICS CO., LTD.\n" +
+		"7818\tHIBEST Electronic (DongGuan) Co., Ltd.\n" +
+		"7825\tOther World Computing\n" +
+		"7863\tWIN WIN PRECISION INDUSTRIAL CO., LTD.\n" +
+		"7879\tGefen Inc.\n" +
+		"7881\tMOSER BAER INDIA LIMITED\n" +
+		"7898\tAIRTIES WIRELESS NETWORKS\n" +
+		"7956\tAstoria Networks GmbH\n" +
+		"7969\tScosche Industries\n" +
+		"7976\tCal-Comp Electronics & Communications\n" +
+		"7977\tAnalogix Semiconductor, Inc.\n" +
+		"7989\tAmphenol ShouhMin Industry (ShenZhen) Co., Ltd\n" +
+		"7996\tChang Yang Electronics Company Ltd.\n" +
+		"8073\tDongguan Goldconn Electronics Co., Ltd.\n" +
+		"8074\tMorning Star Industrial Co., Ltd.\n" +
+		"8117\tUnify Software and Solutions GmbH & Co. KG\n" +
+		"8137\tNXP Semiconductors\n" +
+		"8181\tChangzhou Wujin BEST Electronic Cables Co., Ltd.\n" +
+		"8205\tBelkin Electronic (Changzhou) Co., Ltd.\n" +
+		"8220\tFreeport Resources Enterprises Corp.\n" +
+		"8222\tQingdao Haier Telecom Co., Ltd.\n" +
+		"8284\tShenzhen Tronixin Electronics Co., Ltd.\n" +
+		"8294\tUnicorn Electronics Components Co., Ltd.\n" +
+		"8334\tLuxshare-ICT\n" +
+		"8341\tCE LINK LIMITED\n" +
+		"8342\tMicroconn Electronic Co., Ltd.\n" +
+		"8367\tShenzhen CARVE Electronics Co., Ltd.\n" +
+		"8382\tBURY GmbH & Co. KG\n" +
+		"8384\tFENGHUA KINGSUN CO., LTD.\n" +
+		"8386\tSumitomo Electric Ind., Ltd., Optical Comm. R&D Lab\n" +
+		"8439\tXIMEA s.r.o.\n" +
+		"8457\tVIA Labs, Inc.\n" +
+		"8492\tShenzhen Linoya Electronic Co., Ltd.\n" +
+		"8494\tAmphenol AssembleTech (Xiamen) Co., Ltd.\n" +
+		"8524\tY Soft Corporation\n" +
+		"8550\tJVC KENWOOD Corporation\n" +
+		"8564\tTranscend Information, Inc.\n" +
+		"8566\tTMC/Allion Test Labs\n" +
+		"8613\tGenesis Technology USA, Inc.\n" +
+		"8627\tDongguan Teconn Electronics Technology Co., Ltd.\n" +
+		"8644\tNetcom Technology (HK) Limited\n" +
+		"8659\tCompupack Technology Co., Ltd.\n" +
+		"8667\tG-Max Technology Co., Ltd.\n" +
+		"8679\tSagemcom Broadband SAS\n" +
+		"8695\tWuerth-Elektronik eiSos GmbH & Co. KG\n" +
+		"8707\tShin Shin Co., Ltd.\n" +
+		"8709\t3eYamaichi Electronics Co., Ltd.\n" +
+		"8710\tWiretek International Investment Ltd.\n" +
+		"8711\tFuzhou Rockchip Electronics Co., Ltd.\n" +
+		"8752\tPlugable Technologies\n" +
+		"8756\tT-CONN PRECISION CORPORATION\n" +
+		"8831\tGranite River Labs\n" +
+		"8842\tHotron Precision Electronic Ind. Corp.\n" +
+		"8875\tTrigence Semiconductor, Inc.\n" +
+		"8888\tMotorola Mobility Inc.\n" +
+		"8904\tKarming Electronic (Shenzhen) Co., Ltd.\n" +
+		"8981\tAvery Design Systems, Inc.\n" +
+		"8993\tiKingdom Corp. (d.b.a. iConnectivity)\n" +
+		"9051\tKangXiang Electronic Co., Ltd.\n" +
+		"9068\tZheJiang Chunsheng Electronics Co., Ltd.\n" +
+		"9130\tDOK (HK) Trading Limited\n" +
+		"9132\tMarunix Electron Limited\n" +
+		"9165\tAvconn Precise Connector Co., Ltd.\n" +
+		"9184\tBitifEye Digital Test Solutions GmbH\n" +
+		"9205\tSpeed Conn Co., Ltd.\n" +
+		"9222\tINSIDE Secure\n" +
+		"9292\tMinebea Co., Ltd.\n" +
+		"9299\tBAANTO\n" +
+		"9338\tSuzhou Jutze Technologies Co., Ltd\n" +
+		"9355\tDONGGUAN SYNCONN PRECISION INDUSTRY CO. LTD.\n" +
+		"9382\tShenzhen Pangngai Industrial Co., Ltd.\n" +
+		"9422\tShenzhen Deren Electronic Co., Ltd.\n" +
+		"9424\tSmith Micro Software, Inc.\n" +
+		"9453\tZEN FACTORY GROUP (ASIA) LTD.\n" +
+		"9481\tChain-In Electronic Co., Ltd.\n" +
+		"9514\tSUZHOU KELI TECHNOLOGY DEVELOPMENT CO., LTD.\n" +
+		"9515\tTOP Exactitude Industry (ShenZhen) Co., Ltd.\n" +
+		"9525\tShenZhen Hogend Precision Technology Co., Ltd.\n" +
+		"9527\tNorel Systems Ltd.\n" +
+		"9556\tASSA ABLOY AB\n" +
+		"9575\tDongGuan LongTao Electronic Co., Ltd.\n" +
+		"9577\tDongGuan City MingJi Electronics Co., Ltd.\n" +
+		"9589\tWeida Hi-Tech Co., Ltd.\n" +
+		"9593\tDongguan Wisechamp Electronic Co., Ltd.\n" +
+		"9613\tSequans Communications\n" +
+		"9636\tALGOLTEK, INC.\n" +
+		"9651\tDongGuan Elinke Industrial Co., Ltd.\n" +
+		"9679\tCorning Optical Communications LLC\n" +
+		"9714\tDongguan Jinyue Electronics Co., Ltd.\n" +
+		"9723\tRICOH IMAGING COMPANY, LTD.\n" +
+		"9742\tDongGuan HYX Industrial Co., Ltd.\n" +
+		"9753\tAdvanced Silicon SA\n" +
+		"9756\tEISST Limited\n" +
+		"9771\tYTOP Electronics Technical (Kunshan) Co., Ltd.\n" +
+		"9841\tInnovative Logic\n" +
+		"9842\tGoPro\n" +
+		"9846\tBasler AG\n" +
+		"9851\tPalpilot International Corp.\n" +
+		"9896\tUNIREX CORPORATION\n" +
+		"9917\tIntegral Memory Plc.\n" +
+		"9973\tMorning Star Digital Connector Co., Ltd.\n" +
+		"9984\tMITACHI CO., LTD.\n" +
+		"9999\tHGST, a Western Digital Company\n" +
+		"10006\tYUEN DA ELECTRONIC PRODUCTS FACTORY\n" +
+		"10013\tGionee Communication Equipment Co., Ltd. ShenZhen\n" +
+		"10022\tUniversal Electronics Inc. (dba: TVIEW)\n" +
+		"10112\tM31 Technology Corp.\n" +
+		"10113\tLiteconn Co., Ltd.\n" +
+		"10121\tSuzhou WEIJU Electronics Technology Co., Ltd.\n" +
+		"10144\tMondokey Limited\n" +
+		"10149\tAdvantest Corporation\n" +
+		"10150\tiRobot Corporation\n" +
+		"10226\tSibridge Tech.\n" +
+		"10275\tDongguan Jiumutong Industry Co., Ltd.\n" +
+		"10289\tPower Integrations\n" +
+		"10291\tOculus VR, Inc.\n" +
+		"10300\tHIGH TEK HARNESS ENTERPRISE CO., LTD.\n" +
+		"10316\tFull in Hope Co., Ltd.\n" +
+		"10329\tViconn Technology (HK) Co., Ltd.\n" +
+		"10374\tSeeed Technology Co., Ltd.\n" +
+		"10375\tSpecwerkz\n" +
+		"10398\tEsselte Leitz GmbH & Co. KG\n" +
+		"10406\tE-SEEK Inc.\n" +
+		"10423\tPleora Technologies Inc.\n" +
+		"10431\tVitetech Int'l Co., Ltd.\n" +
+		"10446\tChangzhou Shi Wujin Miqi East Electronic Co., Ltd.\n" +
+		"10457\tShenzhen Ourconn Technology Co., Ltd.\n" +
+		"10458\tG.SKILL Int'l Enterprice Co., Ltd.\n" +
+		"10466\tSurplus Electronic Technology Co., Ltd.\n" +
+		"10470\tBIAMP SYSTEMS\n" +
+		"10509\tIBCONN Technologies (Shenzhen) Co., Ltd.\n" +
+		"10510\tFugoo Inc.\n" +
+		"10519\tPan Xin Precision Electronics Co., Ltd.\n" +
+		"10530\tDongguan Digi-in Digital Technology Co., Ltd.\n" +
+		"10540\tGENUSION, Inc.\n" +
+		"10544\tIneda Systems Inc.\n" +
+		"10545\tJolla Ltd.\n" +
+		"10546\tPeraso Technologies, Inc.\n" +
+		"10549\tNanjing Magewell Electronics Co., Ltd.\n" +
+		"10560\tShenzhen Yiwanda Electronics Co., Ltd.\n" +
+		"10575\tDollar Connection Ltd.\n" +
+		"10595\tBIO-key International, Inc.\n" +
+		"10603\tXacti Corporation\n" +
+		"10615\tShenzhen Zowee Technology Co., Ltd.\n" +
+		"10643\tADPlaus Technology Limited\n" +
+		"10646\tUnwired Technology\n" +
+		"10657\tUnion Electric Plug & Connector Corp.\n" +
+		"10674\tCanova Tech\n" +
+		"10685\tSilicon Works\n" +
+		"10695\tHANRICO ANFU ELECTRONICS CO., LTD.\n" +
+		"10700\tKodak Alaris\n" +
+		"10702\tJGR Optics Inc.\n" +
+		"10703\tRichtek Technology Corporation\n" +
+		"10705\tBinatone Electronics Int. Ltd.\n" +
+		"10715\tShenzhen iBoard Technology Co., Ltd.\n" +
+		"10719\tSMIT(HK) Limited\n" +
+		"10725\tDongguan Kechenda Electronic Technology Co., Ltd.\n" +
+		"10726\tFengshun Peiying Electro-Acoustic Co., Ltd.\n" +
+		"10744\tMD ELEKTRONIK GmbH\n" +
+		"10749\tBad Elf, LLC\n" +
+		"10770\tVreo Limited\n" +
+		"10772\tKanex\n" +
+		"10781\tOxford Nanopore Technologies\n" +
+		"10782\tObsidian Technology\n" +
+		"10783\tLucent Trans Electronics Co., Ltd.\n" +
+		"10784\tGUOGUANG GROUP CO., LTD.\n" +
+		"10788\tCNPLUS\n" +
+		"10789\tFourstar Group\n" +
+		"10790\tTragant International Co., Ltd.\n" +
+		"10791\tDongGuan LianGang Optoelectronic Technology Co., Ltd.\n" +
+		"10797\tAtrust Computer Corp.\n" +
+		"10798\tVIA Alliance Semiconductor Co., Ltd.\n" +
+		"10799\tBSUN Electronics Co., Ltd.\n" +
+		"10807\tRTD Embedded Technologies, Inc.\n" +
+		"10816\tShenzhen Choseal Industrial Co., Ltd.\n" +
+		"10817\tCanyon Semiconductor\n" +
+		"10818\tSpectra7 Microsystems Corp.\n" +
+		"10821\tMeizu Technology Co., Ltd.\n" +
+		"10822\tHubei Yingtong Telecommunication Cable Inc.\n" +
+		"10829\tWilder Technologies\n" +
+		"10837\tDiodes Inc.\n" +
+		"10846\tDuPont\n" +
+		"10852\tZhejiang Songcheng Electronics Co., Ltd.\n" +
+		"10859\tVSN Mobil\n" +
+		"10875\tBellwether Electronic Corp.\n" +
+		"10878\tVAIO Corporation\n" +
+		"10879\tPerixx Computer GmbH\n" +
+		"10885\tHANK ELECTRONICS CO., LTD\n" +
+		"10892\tSonnet Technologies, Inc.\n" +
+		"10893\tKeysight Technologies Inc.\n" +
+		"10895\tManutronics Vietnam Joint Stock Company\n" +
+		"10900\tG2 Touch Co., Ltd.\n" +
+		"10902\tMicromax Informatics Ltd\n" +
+		"10910\tSEIKO SOLUTIONS Inc.\n" +
+		"10912\tCasco Products Corp.\n" +
+		"10922\tVirtium Technology, Inc.\n" +
+		"10923\tField and Company LLC, dba Leef USA\n" +
+		"10928\tGM Global Technology Operations LLC\n" +
+		"10931\tKey Asic Inc.\n" +
+		"10943\tRevolabs, Inc.\n" +
+		"10945\tLattice Semiconductor Corp\n" +
+		"10947\tFoshan Nanhai Saga Audio Equipment Co., Ltd.\n" +
+		"10957\tSilergy Corp.\n" +
+		"10963\tShenzhen Hali-Power Industrial Co., Ltd.\n" +
+		"10971\tI-PEX (Dai-ichi Seiko)\n" +
+		"10973\tSEE-PLUS INDUSTRIAL LTD.\n" +
+		"10990\tAdapt-IP Company\n" +
+		"10997\tLibratone A/S\n" +
+		"10999\tShenzhen Hazens Automotive Electronics (SZ) Co., Ltd.\n" +
+		"11000\tJiangsu Toppower Automotive Electronics Co., Ltd.\n" +
+		"11001\tDrapho Electronics Technology Co., Ltd.\n" +
+		"11022\tLe Shi Zhi Xin Electronic Technology (Tian Jin) Limited\n" +
+		"11024\tCardiac Insight, Inc.\n" +
+		"11028\tEverPro Technologies Company, Ltd.\n" +
+		"11029\tRosenberger Hochfrequenztechnik\n" +
+		"11035\tDongguan City Sanji Electronics Co., Ltd.\n" +
+		"11037\tLintes Technology Co., Ltd.\n" +
+		"11039\tKinnexA, Inc.\n" +
+		"11042\tMetra Electronics Corp.\n" +
+		"11044\tKeepKey, LLC\n" +
+		"11047\tFluxData Incorporated\n" +
+		"11061\tAssem Technology Co., Ltd.\n" +
+		"11062\tDongguan City Jianghan Electronics Co., Ltd.\n" +
+		"11063\tHuizhou Desay SV Automotive Co., Ltd.\n" +
+		"11064\tNingbo Rixing Electronics Co., Ltd.\n" +
+		"11069\tGuangDong YuanFeng Automotive Electroics Co., Ltd.\n" +
+		"11080\tSounding Audio Industrial Limited\n" +
+		"11082\tYueqing Huaxin Electronic Co., Ltd.\n" +
+		"11098\tUniversal Audio, Inc.\n" +
+		"11111\tLifesize, Inc.\n" +
+		"11123\tPioneer DJ Corporation\n" +
+		"11124\tEmbedded Intelligence, Inc.\n" +
+		"11125\tNew Matter\n" +
+		"11126\tShanghai Wingtech Electronic Technology Co., Ltd.\n" +
+		"11127\tEpiphan Systems Inc.\n" +
+		"11130\tSpin Master Far East Ltd.\n" +
+		"11131\tGigaset Digital Technology (Shenzhen) Co., Ltd.\n" +
+		"11132\tNoveltek Semiconductor Corp.\n" +
+		"11139\tSilicon Line GmbH\n" +
+		"11140\tEver Win International Corp.\n" +
+		"11144\tSocionext Inc.\n" +
+		"11145\tUgreen Group Limited\n" +
+		"11146\tShanghai Pateo Electronic Equipment Mfg. Co., Ltd.\n" +
+		"11154\ti-BLADES, Inc.\n" +
+		"11155\tAltia Systems Inc.\n" +
+		"11156\tShenZhen Baoyuanda Electronics Co., Ltd.\n" +
+		"11157\tiST - Integrated Service Technology Inc.\n" +
+		"11158\tHYUNDAI MOBIS Co., Ltd.\n" +
+		"11161\t360fly, Inc.\n" +
+		"11162\tHUIZHOU CHENG SHUO HARDWARE PLASTIC CO., LTD.\n" +
+		"11163\tZhongshan Aute Electronics Technology Co., Ltd.\n" +
+		"11164\tGuangdong King Link Industrial Co., Ltd.\n" +
+		"11167\tScietera Technologies, Inc.\n" +
+		"11168\tInVue Security Products\n" +
+		"11169\tI-Sheng Electric Wire & Cable Co., Ltd.\n" +
+		"11170\tChina Daheng Group Inc Beijing Image Vision Tech Branch\n" +
+		"11171\tShenzhen FeiTianXia Technology Ltd.\n" +
+		"11172\tShenzhen HengJia New Energy Auto Part Co., Ltd.\n" +
+		"11175\t77 Elektronika Kft.\n" +
+		"11176\tYUDU EASON ELECTRONIC CO., LTD.\n" +
+		"11181\tXIN JI (SHENZHEN) COMPUTER PARTS CO., LTD.\n" +
+		"11189\tSilk ID Systems\n" +
+		"11190\t3D Imaging & Simulations Corp. (3DISC)\n" +
+		"11191\tDongguan ChengXiang Industrial Co., Ltd.\n" +
+		"11192\tOCC (Zhuhai) Electronic Co., Ltd.\n" +
+		"11194\tSinseader Electronic Co., Ltd.\n" +
+		"11195\tDONGGUAN YELLOWKNIFE Industrial Co., Ltd.\n" +
+		"11197\tRF Creations Ltd.\n" +
+		"11198\tChengyi Semiconductors (Shanghai) Co., Ltd.\n" +
+		"11199\tShenzhen Shinning Electronic Co., Ltd.\n" +
+		"11200\tShenzhen WFD Electronics Co., Ltd.\n" +
+		"11201\tDongguan Sino Syncs Industrial Co., Ltd.\n" +
+		"11202\tJNTC Co., Ltd.\n" +
+		"11208\tDONGGUAN POLIXIN ELECTRIC CO., LTD.\n" +
+		"11209\tTama Electric (Suzhou) Co., Ltd.\n" +
+		"11210\tExvision, Inc.\n" +
+		"11216\tmophie, LLC\n" +
+		"11219\tDongguan ULT-unite electronic technology co., LTD\n" +
+		"11220\tJL Audio, Inc.\n" +
+		"11221\tCable Matters Inc.\n" +
+		"11222\tCoroWare, Inc.\n" +
+		"11229\tCharm Sciences Inc.\n" +
+		"11230\tPickering Interfaces Limited\n" +
+		"11231\tHangzhou Hikvision Digital Technology Co., Ltd.\n" +
+		"11232\tFULLINK ELECTRONICS TECHNOLOGY (SZ) LTD\n" +
+		"11233\tAutoChips Inc.\n" +
+		"11234\tElectric Connector Technology Co., Ltd.\n" +
+		"11237\tLELTEK\n" +
+		"11238\tDongguan KaiWin Electronics Co., Ltd.\n" +
+		"11239\tBEFS Co., Ltd.\n" +
+		"11240\tArchisite, Inc.\n" +
+		"11241\tMagneti Marelli S.p.A Electr BL\n" +
+		"11246\tVentev Mobile\n" +
+		"11247\tQuanta Storage Inc.\n" +
+		"11248\tTech-Top Technology Limited\n" +
+		"11253\tShenzhen YOOBAO Technology Co., Ltd.\n" +
+		"11254\tShenzhen Sinotek Technology Co., Ltd.\n" +
+		"11255\tKEYW\n" +
+		"11256\tVisual Land Inc.\n" +
+		"11264\tMEEM SL Ltd\n" +
+		"11265\tDongguan Arin Electronics Technology Co., Ltd.\n" +
+		"11266\tDongGuan City JianNuo Electronics Co., Ltd.\n" +
+		"11268\tShenzhen XOX Electronics Co., Ltd.\n" +
+		"11269\tProtop International Inc.\n" +
+		"11270\tMicrosemi Semiconductor (US) Inc.\n" +
+		"11271\tWebcloak LLC\n" +
+		"11272\tINVECAS INC.\n" +
+		"11274\tATANS Technology Inc.\n" +
+		"11275\tTriple Win Precision Technology Co., Ltd.\n" +
+		"11276\tIC Realtech\n" +
+		"11277\tEmbrava Pty Ltd\n" +
+		"11280\tSinotronics Co., Ltd.\n" +
+		"11281\tALLBEST ELECTRONICS TECHNOLOGY CO., LTD.\n" +
+		"11282\tShenzhen Xin Kai Feng Electronics Factory\n" +
+		"11283\tMOST WELL Technology Corp.\n" +
+		"11284\tBuffalo Memory Co., Ltd.\n" +
+		"11285\tXentris Wireless\n" +
+		"11286\tPriferential Accessories Ltd\n" +
+		"11289\tSunlike Technology Co., Ltd.\n" +
+		"11290\tYoung Fast Optoelectronics Co., Ltd.\n" +
+		"11291\tISAW Camera Inc\n" +
+		"11298\tQanba USA, LLC\n" +
+		"11299\tSuper Micro Computer Inc.\n" +
+		"11302\tMicromax International Corporation\n" +
+		"11304\tGranite River Labs Japan Ltd.\n" +
+		"11305\tCoagent Enterprise Limited\n" +
+		"11306\tLEIA Inc.\n" +
+		"11309\tShenzhen Ebull Technology Limited\n" +
+		"11310\tHualun Technology Co., Ltd.\n" +
+		"11311\tSensel, Inc.\n" +
+		"11319\tShenzhen Adition Audio Science & Technology Co., Ltd.\n" +
+		"11320\tGoldenconn Electronics Technology (Suzhou) Co., Ltd.\n" +
+		"11321\tJIB Electronics Technology Co., Ltd.\n" +
+		"11322\tChangzhou Shinco Automotive Electronics Co., Ltd.\n" +
+		"11323\tShenzhen Hangsheng Electronics Corp., Ltd.\n" +
+		"11324\tBeartooth Radio, Inc.\n" +
+		"11325\tAudience, A Knowles Company\n" +
+		"11327\tNextbit Systems, Inc.\n" +
+		"11328\tLeadtrend\n" +
+		"11329\tAdaptertek Technology Co., Ltd.\n" +
+		"11330\tFeature Integration Technology Inc.\n" +
+		"11331\tAvegant Corporation\n" +
+		"11335\tChunghsin International Electronics Co., Ltd.\n" +
+		"11336\tDelphi Electrical Centers (Shanghai) Co., Ltd.\n" +
+		"11341\tVVETEK DOO\n" +
+		"11347\tHuizhou Foryou General Electronics Co., Ltd.\n" +
+		"11348\tLifeWatch Technologies Ltd.\n" +
+		"11349\tMagicleap\n" +
+		"11355\tDongguan City Shenglan Electronics Co., LTD.\n" +
+		"11356\tNeusoft Corporation\n" +
+		"11357\tSIP Simya Electronics Technology Co., Ltd.\n" +
+		"11358\tGNSD Automotive Co., Ltd.\n" +
+		"11359\tYOODS Co., Ltd.\n" +
+		"11360\tSirin Mobile Technologies AG\n" +
+		"11361\tJadmam Corporation dba: Boytone\n" +
+		"11373\tGibson Innovations\n" +
+		"11374\tShen Zhen Xian Shuo Technology Co. LTD\n" +
+		"11375\tPST Eletronica LTDA\n" +
+		"11376\tPERI, Inc.\n" +
+		"11377\tBozhou BoTong Information Technology Co., Ltd.\n" +
+		"11383\tProfindustry GmbH\n" +
+		"11384\tBRAGI GmbH\n" +
+		"11385\tWAWGD, Inc. (DBA: Foresight Sports)\n" +
+		"11390\tDongguan Allpass Electronic Co., Ltd.\n" +
+		"11391\tSHENZHEN D-VITEC INDUSTRIAL CO., LTD.\n" +
+		"11392\tmotomobile AG\n" +
+		"11393\tIndie Semiconductor\n" +
+		"11397\tAudientes\n" +
+		"11403\tHuizhou Dehong Technology Co., Ltd.\n" +
+		"11404\tPowerCenter Technology Limited\n" +
+		"11405\tMizco International, Inc.\n" +
+		"11408\tI. AM. PLUS, LLC\n" +
+		"11409\tCorigine, Inc.\n" +
+		"11410\tNingbo Yinzhou Shengke Electronics Co., Ltd.\n" +
+		"11417\tPrusa Research s.r.o.\n" +
+		"11423\te-Smart Systems Pvt. Ltd.\n" +
+		"11424\tLeagtech Jiangxi Electronic Co., Ltd.\n" +
+		"11425\tDongguan Yujia Electronics Technology Co., Ltd.\n" +
+		"11426\tGuangZhou MingPing Electronics Technology\n" +
+		"11427\tDJI Technology Co., Ltd.\n" +
+		"11428\tShenzhen Alex Technology Co., Ltd.\n" +
+		"11433\tJITS TECHNOLOGY CO., LIMITED\n" +
+		"11434\tLIVV Brand llc\n" +
+		"11444\tAva Enterprises, Inc. dba: Boss Audio Systems\n" +
+		"11448\tShenzhen Sydixon Electronic Technology Co., Ltd.\n" +
+		"11449\tOn-Bright Electronics (Shanghai) Co., Ltd.\n" +
+		"11450\tDongguan Puxu Industrial Co., Ltd.\n" +
+		"11451\tShenzhen Soling Indusrtial Co., Ltd.\n" +
+		"11453\tEGGCYTE, INC.\n" +
+		"11455\tDonggguan Yuhua Electronic Co., Ltd.\n" +
+		"11456\tHangzhou Zero Zero Technology Co., Ltd.\n" +
+		"11462\tProdigy Technovations Pvt Ltd\n" +
+		"11463\tEmergiTech, Inc\n" +
+		"11464\tHewlett Packard Enterprise\n" +
+		"11465\tMonolithic Power Systems Inc.\n" +
+		"11467\tUSB Memory Direct\n" +
+		"11468\tSilicon Mitus Inc.\n" +
+		"11472\tTechnics Global Electronics & JCE Co., Ltd.\n" +
+		"11478\tImmersive Media\n" +
+		"11479\tCosemi Technologies Inc.\n" +
+		"11481\tCambrionix Ltd\n" +
+		"11482\tCXUN Co. Ltd.\n" +
+		"11483\tChina Tsp Inc\n" +
+		"11490\tYanfeng Visteon (Chongqing) Automotive Electronics Co\n" +
+		"11491\tAlcorlink Corp.\n" +
+		"11492\tISBC Ltd.\n" +
+		"11493\tInX8 Inc dba: AKiTiO\n" +
+		"11494\tSDAN Tecchnology Co., Ltd.\n" +
+		"11495\tLemobile Information Technology (Beijing) Co., Ltd.\n" +
+		"11496\tGongGuan HWX Electronic Technology Co., Ltd.\n" +
+		"11497\tSuzhu Jingshi Electronic Technology Co., Ltd.\n" +
+		"11498\tZhong Shan City Richsound Electronic Industrial Ltd.\n" +
+		"11499\tDongguang Kangbang Electronics Co., Ltd.\n" +
+		"14627\tNational Instruments\n" +
+		"16700\tDell Inc.\n" +
+		"32902\tIntel Corporation\n";
 }
@@ -147,13 +147,20 @@ public class BufferHelper {
 		final int n0 = array.length;
 		final int ns = search.length;
 		if ((n0 >= offset + len) && (ns >= len)) {
-			for (int i = offset; i < n0 - len; i++) {
+			if (len <= 0) {
+				return offset < n0 ? offset : -1;
+			}
+			final byte first = search[0];
+			final int last = n0 - len;
+			for (int i = offset; i < last; i++) {
+				// 先頭バイトが一致するところまで読み飛ばしてから残りを比較する
+				if (array[i] != first) continue;
 				int j = len - 1;
-				while (j >= 0) {
+				while (j > 0) {
 					if (array[i + j] != search[j]) break;
 					j--;
 				}
-				if (j < 0) {
+				if (j == 0) {
 					index = i;
 					break;
 				}
@@ -165,33 +172,103 @@ public class BufferHelper {
 	/**
 	 * AnnexBのスタートマーカー(N[00] 00 00 01 (N ≧ 0))を探して先頭インデックスを返す
 	 * 返り値が0以上の場合は、返り値+3がpayloadの先頭位置(nalu headerのはず)
+	 * 4バイトのスタートマーカー(00 00 00 01)の場合は先頭の00の位置を返すので
+	 * 返り値+4がpayloadの先頭位置になる
+	 * 最初に見つかったスタートマーカーの位置を返す(以前は4バイトのスタートマーカーを優先していた)
 	 * @param data
 	 * @param offset
 	 * @return 見つからなければ負
 	 */
 	public static final int findAnnexB(final byte[] data, final int offset) {
 		if (data != null) {
-			final int len5 = data.length - 5;	// 本当はlength-3までだけどpayloadが無いのは無効とみなしてlength-4までとする
-			for (int i = offset; i < len5; i++) {
-				// 最低3つは連続して0x00
-				if ((data[i] != 0x00) || (data[i+1] != 0x00) || (data[i+2] != 0x00)) {
-					continue;
-				}
-				// 4つ目が0x01ならOK
-				if (data[i+3] == 0x01) {
-					return i;
-				}
+			// 本当はlength-3までだけどpayloadが無いのは無効とみなす
+			final int ix = findStartCode(data, offset, data.length - 2);
+			if (ix >= 0) {
+				return (ix > offset) && (data[ix - 1] == 0) ? ix - 1 : ix;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * AnnexBのスタートマーカー(N[00] 00 00 01 (N ≧ 0))を探して先頭インデックスを返す
+	 * ByteBufferのposition/limitは変更しない
+	 * @param data
+	 * @param offset 検索を開始する絶対位置
+	 * @return 見つからなければ負, 見つかった時はByteBuffer内の絶対位置
+	 */
+	public static final int findAnnexB(final ByteBuffer data, final int offset) {
+		if (data != null) {
+			final int ix = findStartCode(data, offset, data.limit() - 2);
+			if (ix >= 0) {
+				return (ix > offset) && (data.get(ix - 1) == 0) ? ix - 1 : ix;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 3バイトのスタートコード(00 00 01)を探す
+	 * 01の位置の値が1より大きければスタートコードの途中ではないので3バイト先へ読み飛ばす
+	 * @param data
+	 * @param from 検索開始位置
+	 * @param limit スタートコード全体がこの位置より前に収まるものだけを探す
+	 * @return 見つかったスタートコードの先頭位置, 見つからなければ-1
+	 */
+	public static int findStartCode(@NonNull final byte[] data, final int from, final int limit) {
+		final int end = Math.min(limit, data.length);
+		int i = Math.max(from, 0) + 2;
+		while (i < end) {
+			final int b = data[i] & 0xff;
+			if (b > 1) {
+				i += 3;
+			} else if (b == 0) {
+				i++;
+			} else if ((data[i - 1] == 0) && (data[i - 2] == 0)) {
+				return i - 2;
+			} else {
+				i += 3;
 			}
-			final int len4 = data.length - 4;	// 本当はlength-3までだけどpayloadが無いのは無効とみなしてlength-4までとする
-			for (int i = offset; i < len4; i++) {
-				// 最低2つは連続して0x00でないとだめ
-				if ((data[i] != 0x00) || (data[i+1] != 0x00)) {
+		}
+		return -1;
+	}
+
+	/**
+	 * 3バイトのスタートコード(00 00 01)を探す
+	 * ByteBufferのposition/limitは変更しない
+	 * 配列を持っていないByteBufferは8バイトずつ読み込んで0x00を含まなければ読み飛ばす
+	 * @param data
+	 * @param from 検索開始位置(絶対位置)
+	 * @param limit スタートコード全体がこの位置より前に収まるものだけを探す
+	 * @return 見つかったスタートコードの先頭位置(絶対位置), 見つからなければ-1
+	 */
+	public static int findStartCode(@NonNull final ByteBuffer data, final int from, final int limit) {
+		if (data.hasArray()) {
+			final int base = data.arrayOffset();
+			final int ix = findStartCode(data.array(), base + from,
+				base + Math.min(limit, data.limit()));
+			return ix >= 0 ? ix - base : -1;
+		}
+		final int end = Math.min(limit, data.limit());
+		int i = Math.max(from, 0) + 2;
+		while (i < end) {
+			if (i + 6 <= end) {
+				// i-2からi+5までの8バイトに0x00が無ければスタートコードはi+6以降
+				final long v = data.getLong(i - 2);
+				if (((v - 0x0101010101010101L) & ~v & 0x8080808080808080L) == 0) {
+					i += 8;
 					continue;
 				}
-				// 3つ目が0x01ならOK
-				if (data[i+2] == 0x01) {
-					return i;
-				}
+			}
+			final int b = data.get(i) & 0xff;
+			if (b > 1) {
+				i += 3;
+			} else if (b == 0) {
+				i++;
+			} else if ((data.get(i - 1) == 0) && (data.get(i - 2) == 0)) {
+				return i - 2;
+			} else {
+				i += 3;
 			}
 		}
 		return -1;
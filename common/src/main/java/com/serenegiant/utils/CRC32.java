@@ -18,6 +18,20 @@ package com.serenegiant.utils;
  *  limitations under the License.
 */
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * CRC32計算用ヘルパークラス
+ * 互換性のために以前と同様に配列の末尾から先頭に向かって計算する
+ * (java.util.zip.CRC32とは結果が異なるのでjava.util.zip.CRC32へは委譲できない)。
+ * 8バイトずつ8個のテーブルを使って計算する(slicing-by-8)ので
+ * 1バイトずつテーブルを引くよりも速い
+ */
 public class CRC32 {
 	private static final int[] crc32tab = {
 		0x00000000, 0x77073096, 0xee0e612c, 0x990951ba,
@@ -85,19 +99,62 @@ public class CRC32 {
 		0xb3667a2e, 0xc4614ab8, 0x5d681b02, 0x2a6f2b94,
 		0xb40bbe37, 0xc30c8ea1, 0x5a05df1b, 0x2d02ef8d,
 	};
-		
+
+	/**
+	 * slicing-by-8用のテーブル, [0]はcrc32tabと同じ
+	 */
+	private static final int[][] SLICE_TABLES = new int[8][];
+	static {
+		SLICE_TABLES[0] = crc32tab;
+		for (int k = 1; k < 8; k++) {
+			final int[] prev = SLICE_TABLES[k - 1];
+			final int[] table = new int[256];
+			for (int n = 0; n < 256; n++) {
+				table[n] = (prev[n] >>> 8) ^ crc32tab[prev[n] & 0xff];
+			}
+			SLICE_TABLES[k] = table;
+		}
+	}
+
+	/**
+	 * 文字列をバイト配列へ変換せずに計算できるかどうか
+	 * デフォルトの文字セットでASCII文字が1バイトのままエンコードされる時のみ
+	 */
+	private static final boolean ASCII_COMPATIBLE;
+	static {
+		final String name = Charset.defaultCharset().name();
+		ASCII_COMPATIBLE = "UTF-8".equals(name) || "US-ASCII".equals(name)
+			|| "ISO-8859-1".equals(name);
+	}
+
 	public static int crc32(final String s) {
 		return crc32(s, 0);
 	}
 
+	/**
+	 * 文字列のCRC32を計算する
+	 * ASCII文字だけの文字列ならバイト配列へ変換せずに計算する
+	 * @param s
+	 * @param init
+	 * @return
+	 */
 	public static int crc32(final String s, final int init) {
 		final int n = s.length();
-		final byte[] p = s.getBytes();
-		int crc = init ^ 0xffffffff;
-		for (int i = n - 1; i >= 0; i--) {
-			crc = ((crc >> 8) & 0x00FFFFFF) ^ crc32tab[(crc ^ p[i]) & 0xFF];
+		if (ASCII_COMPATIBLE) {
+			int crc = init ^ 0xffffffff;
+			int i = n - 1;
+			for ( ; i >= 0; i--) {
+				final char c = s.charAt(i);
+				if (c >= 0x80) break;
+				crc = ((crc >> 8) & 0x00FFFFFF) ^ crc32tab[(crc ^ c) & 0xFF];
+			}
+			if (i < 0) {
+				return crc ^ 0xFFFFFFFF;
+			}
 		}
-		return crc ^ 0xFFFFFFFF;
+		// 以前と同様に文字数分のバイトを計算する
+		final byte[] p = s.getBytes();
+		return crc32(p, 0, Math.min(n, p.length), init);
 	}
 	
 	public static int crc32(final byte[] p) {
@@ -105,12 +162,82 @@ public class CRC32 {
 	}
 
 	public static int crc32(final byte[] p, final int init) {
+		return p != null ? crc32(p, 0, p.length, init) : init;
+	}
+
+	/**
+	 * バイト配列の指定した範囲のCRC32を計算する
+	 * @param p
+	 * @param offset
+	 * @param length
+	 * @param init
+	 * @return
+	 */
+	public static int crc32(@NonNull final byte[] p,
+		final int offset, final int length, final int init) {
+
+		if ((offset < 0) || (length < 0) || (offset + length > p.length)) {
+			throw new IndexOutOfBoundsException(
+				"offset=" + offset + ",length=" + length + ",size=" + p.length);
+		}
+		final int[] t0 = SLICE_TABLES[0], t1 = SLICE_TABLES[1],
+			t2 = SLICE_TABLES[2], t3 = SLICE_TABLES[3],
+			t4 = SLICE_TABLES[4], t5 = SLICE_TABLES[5],
+			t6 = SLICE_TABLES[6], t7 = SLICE_TABLES[7];
+		int crc = init ^ 0xffffffff;
+		int i = offset + length - 1;
+		// 末尾から8バイトずつ
+		for ( ; i - 7 >= offset; i -= 8) {
+			final int lo = crc ^ ((p[i] & 0xff) | ((p[i - 1] & 0xff) << 8)
+				| ((p[i - 2] & 0xff) << 16) | (p[i - 3] << 24));
+			final int hi = (p[i - 4] & 0xff) | ((p[i - 5] & 0xff) << 8)
+				| ((p[i - 6] & 0xff) << 16) | (p[i - 7] << 24);
+			crc = t7[lo & 0xff] ^ t6[(lo >>> 8) & 0xff]
+				^ t5[(lo >>> 16) & 0xff] ^ t4[lo >>> 24]
+				^ t3[hi & 0xff] ^ t2[(hi >>> 8) & 0xff]
+				^ t1[(hi >>> 16) & 0xff] ^ t0[hi >>> 24];
+		}
+		// 残りは1バイトずつ
+		for ( ; i >= offset; i--) {
+			crc = ((crc >> 8) & 0x00FFFFFF) ^ t0[(crc ^ p[i]) & 0xFF];
+		}
+		return crc ^ 0xFFFFFFFF;
+	}
+
+	/**
+	 * ByteBufferのpositionからlimitまでのCRC32を計算する
+	 * ダイレクトバッファーでもコピーせずに計算する, positionは変更しない
+	 * @param buf
+	 * @param init
+	 * @return
+	 */
+	public static int crc32(@NonNull final ByteBuffer buf, final int init) {
+		if (buf.hasArray()) {
+			return crc32(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining(), init);
+		}
+		final int[] t0 = SLICE_TABLES[0], t1 = SLICE_TABLES[1],
+			t2 = SLICE_TABLES[2], t3 = SLICE_TABLES[3],
+			t4 = SLICE_TABLES[4], t5 = SLICE_TABLES[5],
+			t6 = SLICE_TABLES[6], t7 = SLICE_TABLES[7];
+		final boolean bigEndian = buf.order() == ByteOrder.BIG_ENDIAN;
+		final int start = buf.position();
 		int crc = init ^ 0xffffffff;
-		if (p != null) {
-			final int n = p.length;
-			for (int i = n - 1; i >= 0; i--) {
-				crc = ((crc >> 8) & 0x00FFFFFF) ^ crc32tab[(crc ^ p[i]) & 0xFF];
+		int i = buf.limit() - 1;
+		for ( ; i - 7 >= start; i -= 8) {
+			// ビッグエンディアンで読めば下位32ビットがp[i-3..i]を逆順に並べたものになる
+			long v = buf.getLong(i - 7);
+			if (!bigEndian) {
+				v = Long.reverseBytes(v);
 			}
+			final int lo = crc ^ (int)v;
+			final int hi = (int)(v >>> 32);
+			crc = t7[lo & 0xff] ^ t6[(lo >>> 8) & 0xff]
+				^ t5[(lo >>> 16) & 0xff] ^ t4[lo >>> 24]
+				^ t3[hi & 0xff] ^ t2[(hi >>> 8) & 0xff]
+				^ t1[(hi >>> 16) & 0xff] ^ t0[hi >>> 24];
+		}
+		for ( ; i >= start; i--) {
+			crc = ((crc >> 8) & 0x00FFFFFF) ^ t0[(crc ^ buf.get(i)) & 0xFF];
 		}
 		return crc ^ 0xFFFFFFFF;
 	}
@@ -131,12 +258,32 @@ public class CRC32 {
 		return crc;
 	}
 
-	public int update(final byte[] p) {
+	public int update(@Nullable final byte[] p) {
 		tbytes += p != null ? p.length : 0;
 		crc = crc32(p, crc);
 		return crc;
 	}
 
+	public int update(@NonNull final byte[] p, final int offset, final int length) {
+		crc = crc32(p, offset, length, crc);
+		tbytes += length;
+		return crc;
+	}
+
+	/**
+	 * ByteBufferのpositionからlimitまでを追加する
+	 * 計算後のpositionはlimitと同じになる
+	 * @param buf
+	 * @return
+	 */
+	public int update(@NonNull final ByteBuffer buf) {
+		final int n = buf.remaining();
+		crc = crc32(buf, crc);
+		buf.position(buf.limit());
+		tbytes += n;
+		return crc;
+	}
+
 	public int getCrc() {
 		return crc;
 	}
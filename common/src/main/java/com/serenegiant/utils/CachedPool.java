@@ -0,0 +1,682 @@
+package com.serenegiant.utils;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import android.util.Log;
+
+import com.serenegiant.collections.LockFreeStack;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * スレッド毎のキャッシュ(マガジン)を持つオブジェクトプール
+ * Poolは#obtain/#recycle毎にsynchronizedでArrayListを排他制御するが、
+ * CachedPoolはまず呼び出したスレッド専用のマガジンから取得・返却するので
+ * 同じスレッドで取得・返却を繰り返す場合は他のスレッドと競合しないロックだけで済む。
+ * マガジンが空/満杯の時だけ全スレッドで共有するロックフリーのデポ(LockFreeStack)との間で
+ * まとめてやり取りする。
+ * 終了したスレッドのマガジン内のオブジェクトはデポが空の時に回収する。
+ * 別のスレッドで返却したオブジェクトはそのスレッドのマガジンに入るので、
+ * 最大生成数に達した時は生存中の他のスレッドのマガジンからも取得する
+ * (取得スレッドと返却スレッドが異なっても枯渇しない)。
+ * プール内に保持するオブジェクト数はデポがmaxNumInPoolまで、
+ * 各スレッドのマガジンがmagazineSizeまでなので、合計はPoolより多くなることがある。
+ * 統計情報(#getStats)は排他制御せずに集計するので概算値
+ * @param <T>
+ */
+public abstract class CachedPool<T> {
+	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
+	private static final String TAG = CachedPool.class.getSimpleName();
+
+	/**
+	 * マガジンに保持するオブジェクト数のデフォルト値
+	 */
+	public static final int DEFAULT_MAGAZINE_SIZE = 8;
+
+	/**
+	 * 統計情報保持用のクラス
+	 */
+	public static final class Stats {
+		/**
+		 * スレッド毎のマガジンから取得できた回数
+		 */
+		public final long hits;
+		/**
+		 * 共有デポ(終了したスレッドのマガジンや最大生成数に達した時の
+		 * 他のスレッドのマガジンを含む)から取得できた回数
+		 */
+		public final long depotHits;
+		/**
+		 * プール内に無かった回数
+		 */
+		public final long misses;
+		/**
+		 * オブジェクトを生成した回数
+		 */
+		public final long creations;
+		/**
+		 * プールが満杯で返却されたオブジェクトを破棄した回数
+		 */
+		public final long discards;
+		/**
+		 * リーク検出を有効にしている時に返却されないまま
+		 * GCされたオブジェクトの数
+		 */
+		public final long leaks;
+		/**
+		 * 共有デポ内のオブジェクト数
+		 */
+		public final int depotSize;
+		/**
+		 * 生成済み(破棄されていない)オブジェクト数
+		 */
+		public final int created;
+
+		private Stats(final long hits, final long depotHits,
+			final long misses, final long creations, final long discards,
+			final long leaks, final int depotSize, final int created) {
+
+			this.hits = hits;
+			this.depotHits = depotHits;
+			this.misses = misses;
+			this.creations = creations;
+			this.discards = discards;
+			this.leaks = leaks;
+			this.depotSize = depotSize;
+			this.created = created;
+		}
+
+		@NonNull
+		@Override
+		public String toString() {
+			return String.format(Locale.US,
+				"Stats{hits=%d,depotHits=%d,misses=%d,creations=%d,discards=%d,leaks=%d,depotSize=%d,created=%d}",
+				hits, depotHits, misses, creations, discards, leaks, depotSize, created);
+		}
+	}
+
+	/**
+	 * スレッド毎のキャッシュ
+	 * 通常は所有スレッドのみがアクセスするが、最大生成数に達した時に
+	 * 他のスレッドから取得することがあるのでcount/objectsへのアクセスは
+	 * Magazine自体で排他制御すること(hitsの集計時の読み込みを除く)
+	 */
+	private static final class Magazine {
+		@NonNull
+		private final WeakReference<Thread> owner;
+		@NonNull
+		private final Object[] objects;
+		private int count;
+		private int generation;
+		private long hits;
+
+		private Magazine(final int size, final int generation) {
+			owner = new WeakReference<Thread>(Thread.currentThread());
+			objects = new Object[size];
+			this.generation = generation;
+		}
+
+		private boolean isOwnerAlive() {
+			final Thread thread = owner.get();
+			return (thread != null) && thread.isAlive();
+		}
+	}
+
+	/**
+	 * リーク検出用の弱参照
+	 */
+	private static final class LeakRef<T> extends WeakReference<T> {
+		private final int hash;
+		@NonNull
+		private final Throwable trace;
+
+		private LeakRef(@NonNull final T obj, @NonNull final ReferenceQueue<T> queue) {
+			super(obj, queue);
+			hash = System.identityHashCode(obj);
+			trace = new Throwable("obtained here");
+		}
+	}
+
+	private final int mInitNum;
+	private final int mMaxNumInPool;
+	private final int mLimitNum;
+	private final int mMagazineSize;
+	@NonNull
+	private final LockFreeStack<T> mDepot = new LockFreeStack<T>();
+	private final AtomicInteger mCreatedObjects = new AtomicInteger();
+	/**
+	 * #clearを呼ぶ度に更新して古いマガジンの内容を破棄させる
+	 */
+	private volatile int mGeneration;
+	/**
+	 * 全てのマガジン, 終了したスレッドのマガジンの回収と統計情報の集計用
+	 */
+	@NonNull
+	private final List<Magazine> mMagazines = new ArrayList<Magazine>();
+	@NonNull
+	private final ThreadLocal<Magazine> mMagazine = new ThreadLocal<Magazine>() {
+		@Override
+		protected Magazine initialValue() {
+			final Magazine result = new Magazine(mMagazineSize, mGeneration);
+			synchronized (mMagazines) {
+				mMagazines.add(result);
+			}
+			return result;
+		}
+	};
+	/**
+	 * 回収済みのマガジンのhitsの合計
+	 */
+	private long mRetiredHits;
+	private final AtomicLong mDepotHits = new AtomicLong();
+	private final AtomicLong mMisses = new AtomicLong();
+	private final AtomicLong mCreations = new AtomicLong();
+	private final AtomicLong mDiscards = new AtomicLong();
+	private final AtomicLong mLeaks = new AtomicLong();
+	private volatile boolean mLeakDetection;
+	@NonNull
+	private final ReferenceQueue<T> mLeakQueue = new ReferenceQueue<T>();
+	/**
+	 * リーク検出用に取得中のオブジェクトを保持する
+	 * キーはSystem#identityHashCode
+	 */
+	@NonNull
+	private final Map<Integer, List<LeakRef<T>>> mObtained
+		= new HashMap<Integer, List<LeakRef<T>>>();
+	private int mObtainedCount;
+
+	/**
+	 * コンストラクタ
+	 * @param initNum
+	 * @param maxNumInPool 共有デポ内に保持できる最大数==最大生成数
+	 */
+	public CachedPool(final int initNum, final int maxNumInPool) {
+		this(initNum, maxNumInPool, maxNumInPool, DEFAULT_MAGAZINE_SIZE);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param initNum プール内のオブジェクトの初期数
+	 * @param maxNumInPool 共有デポ内に保持できる最大数
+	 * @param limitNum 最大生成数
+	 */
+	public CachedPool(final int initNum, final int maxNumInPool, final int limitNum) {
+		this(initNum, maxNumInPool, limitNum, DEFAULT_MAGAZINE_SIZE);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param initNum プール内のオブジェクトの初期数
+	 * @param maxNumInPool 共有デポ内に保持できる最大数
+	 * @param limitNum 最大生成数
+	 * @param magazineSize スレッド毎のマガジンに保持する最大数, 0ならマガジンを使わない
+	 */
+	public CachedPool(final int initNum, final int maxNumInPool,
+		final int limitNum, final int magazineSize) {
+
+		mInitNum = initNum;
+		mMaxNumInPool = maxNumInPool < limitNum ? maxNumInPool : limitNum;
+		mLimitNum = limitNum;
+		mMagazineSize = Math.max(magazineSize, 0);
+		init();
+	}
+
+	/**
+	 * プール内のオブジェクトを破棄して新たに初期数まで確保する
+	 */
+	public void init() {
+		clear();
+		for (int i = 0; (i < mInitNum) && (i < mMaxNumInPool); i++) {
+			final T obj = createObject();
+			if (obj != null) {
+				mDepot.push(obj);
+				mCreatedObjects.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * リーク検出(取得したまま返却されずにGCされたオブジェクトの検出)を有効/無効にする
+	 * 有効にすると#obtain/#recycle毎に排他制御が必要になるのでデバッグ用
+	 * @param enable
+	 */
+	public void setLeakDetection(final boolean enable) {
+		mLeakDetection = enable;
+		if (!enable) {
+			synchronized (mObtained) {
+				mObtained.clear();
+				mObtainedCount = 0;
+			}
+		}
+	}
+
+	public boolean isLeakDetection() {
+		return mLeakDetection;
+	}
+
+	/**
+	 * リーク検出を有効にしてから取得したまま返却されていないオブジェクト数
+	 * @return
+	 */
+	public int getOutstandingCount() {
+		checkLeaks();
+		synchronized (mObtained) {
+			return mObtainedCount;
+		}
+	}
+
+	/**
+	 * プールからオブジェクトTを取得する。もしプールが空で最大生成数を超えている場合にはnullを返す
+	 * @param args
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public T obtain(@Nullable final Object... args) {
+		T result = null;
+		final Magazine mag = mMagazineSize > 0 ? magazine() : null;
+		if (mag != null) {
+			synchronized (mag) {
+				if (mag.count > 0) {
+					result = fromMagazine(mag);
+					mag.hits++;
+				}
+			}
+		}
+		if (result == null) {
+			result = mDepot.pop();
+			if (result == null) {
+				result = reclaim();
+			}
+			if ((result == null) && (mCreatedObjects.get() >= mLimitNum)) {
+				// 最大生成数に達しているので他のスレッドのマガジンから取得する
+				result = steal();
+			}
+			if (result != null) {
+				mDepotHits.incrementAndGet();
+				if (mag != null) {
+					// 次回以降はマガジンから取得できるようにデポからまとめて移しておく
+					final int n = mMagazineSize >> 1;
+					synchronized (mag) {
+						for (int i = 0; (i < n) && (mag.count < mMagazineSize); i++) {
+							final T obj = mDepot.pop();
+							if (obj == null) break;
+							mag.objects[mag.count++] = obj;
+						}
+					}
+				}
+			} else {
+				mMisses.incrementAndGet();
+				result = create(args);
+			}
+		}
+		if ((result != null) && mLeakDetection) {
+			track(result);
+		}
+		return result;
+	}
+
+	/**
+	 * オブジェクトTを生成する
+	 * @param args
+	 * @return
+	 */
+	@Nullable
+	protected abstract T createObject(@Nullable final Object... args);
+
+	/**
+	 * プールが満杯で返却されたオブジェクトを破棄する時の処理
+	 * デフォルトは何もしないので必要に応じて上書きすること
+	 * @param obj
+	 */
+	protected void onDiscard(@NonNull final T obj) {
+	}
+
+	/**
+	 * 返却されずにGCされたオブジェクトを検出した時の処理
+	 * デフォルトはログ出力のみ
+	 * @param trace オブジェクトを取得した時のスタックトレース
+	 */
+	protected void onLeak(@NonNull final Throwable trace) {
+		Log.w(TAG, "object was garbage collected without recycle", trace);
+	}
+
+	/**
+	 * 使用済みオブジェクトをプールに返却する
+	 * @param obj
+	 */
+	public void recycle(@NonNull final T obj) {
+		if (mLeakDetection) {
+			untrack(obj);
+		}
+		final Magazine mag = mMagazineSize > 0 ? magazine() : null;
+		if (mag == null) {
+			toDepot(obj);
+			return;
+		}
+		synchronized (mag) {
+			if (mag.count >= mMagazineSize) {
+				// マガジンが満杯なら半分をデポへ移す
+				final int n = Math.max(mMagazineSize >> 1, 1);
+				for (int i = 0; i < n; i++) {
+					toDepot(fromMagazine(mag));
+				}
+			}
+			mag.objects[mag.count++] = obj;
+		}
+	}
+
+	/**
+	 * 使用済みオブジェクトをプールに返却する
+	 * @param objects
+	 */
+	public void recycle(@NonNull final Collection<T> objects) {
+		for (final T obj: objects) {
+			if (obj != null) {
+				recycle(obj);
+			}
+		}
+	}
+
+	/**
+	 * 使用済みオブジェクトをプールに返却する
+	 * @param objects
+	 */
+	public void recycle(@NonNull final T[] objects) {
+		for (final T obj: objects) {
+			if (obj != null) {
+				recycle(obj);
+			}
+		}
+	}
+
+	/**
+	 * 呼び出したスレッドのマガジン内のオブジェクトを全て共有デポへ移す
+	 * スレッドを終了させる前や、しばらくプールを使わなくなる時に呼び出すと
+	 * 他のスレッドからすぐに再利用できる
+	 */
+	public void flush() {
+		if (mMagazineSize > 0) {
+			final Magazine mag = magazine();
+			synchronized (mag) {
+				while (mag.count > 0) {
+					toDepot(fromMagazine(mag));
+				}
+			}
+		}
+	}
+
+	/**
+	 * プールを空にする
+	 * 他のスレッドのマガジン内のオブジェクトはそのスレッドが次にアクセスした時に破棄する
+	 */
+	public void clear() {
+		mGeneration++;
+		mDepot.clear();
+		mCreatedObjects.set(0);
+		synchronized (mObtained) {
+			mObtained.clear();
+			mObtainedCount = 0;
+		}
+	}
+
+	/**
+	 * 統計情報を取得
+	 * @return
+	 */
+	@NonNull
+	public Stats getStats() {
+		checkLeaks();
+		long hits;
+		synchronized (mMagazines) {
+			hits = mRetiredHits;
+			for (final Magazine mag: mMagazines) {
+				hits += mag.hits;
+			}
+		}
+		return new Stats(hits, mDepotHits.get(), mMisses.get(),
+			mCreations.get(), mDiscards.get(), mLeaks.get(),
+			mDepot.size(), mCreatedObjects.get());
+	}
+
+//--------------------------------------------------------------------------------
+	/**
+	 * 呼び出したスレッドのマガジンを取得する
+	 * #clear後に初めてアクセスした時は古い内容を破棄する
+	 * @return
+	 */
+	@NonNull
+	private Magazine magazine() {
+		final Magazine mag = mMagazine.get();
+		final int generation = mGeneration;
+		if (mag.generation != generation) {
+			synchronized (mag) {
+				while (mag.count > 0) {
+					mag.objects[--mag.count] = null;
+				}
+				mag.generation = generation;
+			}
+		}
+		return mag;
+	}
+
+	/**
+	 * マガジンから1つ取り出す, Magazineの排他制御中に呼び出すこと
+	 * @param mag
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	@NonNull
+	private T fromMagazine(@NonNull final Magazine mag) {
+		final T result = (T)mag.objects[--mag.count];
+		mag.objects[mag.count] = null;
+		return result;
+	}
+
+	/**
+	 * 共有デポへ移す, デポが満杯なら破棄する
+	 * @param obj
+	 */
+	private void toDepot(@NonNull final T obj) {
+		if (!mDepot.offer(obj, mMaxNumInPool)) {
+			mCreatedObjects.decrementAndGet();
+			mDiscards.incrementAndGet();
+			onDiscard(obj);
+		}
+	}
+
+	/**
+	 * 最大生成数を超えていなければオブジェクトを生成する
+	 * @param args
+	 * @return
+	 */
+	@Nullable
+	private T create(@Nullable final Object... args) {
+		for ( ; ; ) {
+			final int n = mCreatedObjects.get();
+			if (n >= mLimitNum) {
+				return null;
+			}
+			if (mCreatedObjects.compareAndSet(n, n + 1)) {
+				break;
+			}
+		}
+		final T result = createObject(args);
+		if (result != null) {
+			mCreations.incrementAndGet();
+		} else {
+			mCreatedObjects.decrementAndGet();
+		}
+		return result;
+	}
+
+	/**
+	 * 終了したスレッドのマガジン内のオブジェクトをデポへ回収する
+	 * @return 回収したオブジェクトの1つ, 無ければnull
+	 */
+	@Nullable
+	private T reclaim() {
+		if (mMagazineSize <= 0) {
+			return null;
+		}
+		final int generation = mGeneration;
+		T result = null;
+		synchronized (mMagazines) {
+			for (int i = mMagazines.size() - 1; i >= 0; i--) {
+				final Magazine mag = mMagazines.get(i);
+				if (!mag.isOwnerAlive()) {
+					mMagazines.remove(i);
+					mRetiredHits += mag.hits;
+					synchronized (mag) {
+						if (mag.generation == generation) {
+							while (mag.count > 0) {
+								final T obj = fromMagazine(mag);
+								if (result == null) {
+									result = obj;
+								} else {
+									toDepot(obj);
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+		if (DEBUG && (result != null)) Log.v(TAG, "reclaim:reclaimed objects from terminated thread");
+		return result;
+	}
+
+	/**
+	 * 最大生成数に達した時に生存中の他のスレッドのマガジン内のオブジェクトをデポへ移す
+	 * 別のスレッドで返却したオブジェクトがそのスレッドのマガジンに残ったままに
+	 * なって最大生成数を使い切ってしまうのを防ぐ
+	 * @return 移したオブジェクトの1つ, 無ければnull
+	 */
+	@Nullable
+	private T steal() {
+		if (mMagazineSize <= 0) {
+			return null;
+		}
+		final int generation = mGeneration;
+		T result = null;
+		synchronized (mMagazines) {
+			for (final Magazine mag: mMagazines) {
+				synchronized (mag) {
+					if (mag.generation == generation) {
+						while (mag.count > 0) {
+							final T obj = fromMagazine(mag);
+							if (result == null) {
+								result = obj;
+							} else {
+								toDepot(obj);
+							}
+						}
+					}
+				}
+				if (result != null) break;
+			}
+		}
+		if (DEBUG && (result != null)) Log.v(TAG, "steal:moved objects from other thread's magazine");
+		return result;
+	}
+
+	/**
+	 * リーク検出用に取得したオブジェクトを記録する
+	 * @param obj
+	 */
+	private void track(@NonNull final T obj) {
+		checkLeaks();
+		final LeakRef<T> ref = new LeakRef<T>(obj, mLeakQueue);
+		synchronized (mObtained) {
+			List<LeakRef<T>> refs = mObtained.get(ref.hash);
+			if (refs == null) {
+				refs = new ArrayList<LeakRef<T>>(1);
+				mObtained.put(ref.hash, refs);
+			}
+			refs.add(ref);
+			mObtainedCount++;
+		}
+	}
+
+	/**
+	 * 返却されたオブジェクトの記録を削除する
+	 * @param obj
+	 */
+	private void untrack(@NonNull final T obj) {
+		final int hash = System.identityHashCode(obj);
+		synchronized (mObtained) {
+			final List<LeakRef<T>> refs = mObtained.get(hash);
+			if (refs != null) {
+				for (int i = refs.size() - 1; i >= 0; i--) {
+					final LeakRef<T> ref = refs.get(i);
+					if (ref.get() == obj) {
+						refs.remove(i);
+						// 削除した弱参照はキューに入らないようにする
+						ref.clear();
+						mObtainedCount--;
+						break;
+					}
+				}
+				if (refs.isEmpty()) {
+					mObtained.remove(hash);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 返却されずにGCされたオブジェクトが無いかどうかを確認する
+	 */
+	private void checkLeaks() {
+		for ( ; ; ) {
+			@SuppressWarnings("unchecked")
+			final LeakRef<T> ref = (LeakRef<T>)mLeakQueue.poll();
+			if (ref == null) break;
+			boolean leaked = false;
+			synchronized (mObtained) {
+				final List<LeakRef<T>> refs = mObtained.get(ref.hash);
+				if ((refs != null) && refs.remove(ref)) {
+					leaked = true;
+					mObtainedCount--;
+					if (refs.isEmpty()) {
+						mObtained.remove(ref.hash);
+					}
+				}
+			}
+			if (leaked) {
+				// 返却されないままGCされたので生成数から除く
+				mCreatedObjects.decrementAndGet();
+				mLeaks.incrementAndGet();
+				onLeak(ref.trace);
+			}
+		}
+	}
+}
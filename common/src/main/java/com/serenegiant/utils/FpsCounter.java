@@ -20,25 +20,104 @@ package com.serenegiant.utils;
 
 import com.serenegiant.system.Time;
 
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+
+/**
+ * フレームレート計測用クラス
+ * #countはロックフリーでオブジェクトも生成しないので描画スレッド等から毎フレーム呼び出しても
+ * #update/#getFps等を呼び出すUIスレッドと競合しない。
+ * フレーム間隔をHistogramへ記録するのでパーセンタイルとドロップフレーム数も取得できる。
+ * ドロップフレームは基準のフレーム間隔の1.5倍を超えた時にその間のフレームが
+ * ドロップしたとみなして数える。基準のフレーム間隔は#setExpectedFpsで指定するか、
+ * 指定しなければ#updateを呼んだ時のフレーム間隔の中央値を使う
+ */
 public class FpsCounter {
-	private int cnt, prevCnt;
+	/**
+	 * フレーム間隔のヒストグラムの精度(2^-4≒6%)
+	 */
+	private static final int HISTOGRAM_PRECISION = 4;
+	private static final long NO_FRAME = Long.MIN_VALUE;
+
+	private final AtomicLong mCount = new AtomicLong();
+	private final AtomicLong mLastFrameNs = new AtomicLong(NO_FRAME);
+	private final AtomicLong mDropped = new AtomicLong();
+	@NonNull
+	private final Histogram mFrameTimeNs = new Histogram(HISTOGRAM_PRECISION);
+	/**
+	 * #setExpectedFpsで指定したフレーム間隔[ナノ秒], 0なら未指定
+	 */
+	private volatile long mExpectedIntervalNs;
+	/**
+	 * ドロップフレーム判定用の基準のフレーム間隔[ナノ秒], 0なら未確定
+	 */
+	private volatile long mFrameIntervalNs;
+	// 以下は#updateでのみ更新する
+	private long prevCnt;
 	private long startTime, prevTime;
-	private float fps, totalFps;
+	private volatile float fps, totalFps;
+
 	public FpsCounter() {
 		reset();
 	}
 
+	/**
+	 * コンストラクタ
+	 * @param expectedFps ドロップフレーム判定用の本来のフレームレート
+	 */
+	public FpsCounter(final float expectedFps) {
+		setExpectedFps(expectedFps);
+		reset();
+	}
+
+	/**
+	 * ドロップフレーム判定用の本来のフレームレートを設定する
+	 * @param expectedFps 0以下なら#updateを呼んだ時のフレーム間隔の中央値から推定する
+	 * @return
+	 */
+	public FpsCounter setExpectedFps(final float expectedFps) {
+		mExpectedIntervalNs = expectedFps > 0 ? (long)(1000000000.0 / expectedFps) : 0;
+		mFrameIntervalNs = mExpectedIntervalNs;
+		return this;
+	}
+
 	public synchronized FpsCounter reset() {
-		cnt = prevCnt = 0;
+		mCount.set(0);
+		mLastFrameNs.set(NO_FRAME);
+		mDropped.set(0);
+		mFrameTimeNs.reset();
+		mFrameIntervalNs = mExpectedIntervalNs;
+		prevCnt = 0;
 		startTime = prevTime = Time.nanoTime() - 1;
+		fps = totalFps = 0;
 		return this;
 	}
 
 	/**
 	 * フレームをカウント
 	 */
-	public synchronized void count() {
-		cnt++;
+	public void count() {
+		count(Time.nanoTime());
+	}
+
+	/**
+	 * 指定した時刻のフレームとしてカウント
+	 * 描画時刻の代わりにフレームのタイムスタンプでフレーム間隔を計測する時に使う
+	 * @param timeNs フレームの時刻[ナノ秒]
+	 */
+	public void count(final long timeNs) {
+		mCount.incrementAndGet();
+		final long prev = mLastFrameNs.getAndSet(timeNs);
+		if (prev != NO_FRAME) {
+			final long interval = timeNs - prev;
+			mFrameTimeNs.record(interval);
+			final long nominal = mFrameIntervalNs;
+			if ((nominal > 0) && (interval * 2 > nominal * 3)) {
+				mDropped.addAndGet(Math.max((interval + nominal / 2) / nominal - 1, 1));
+			}
+		}
 	}
 
 	/**
@@ -47,18 +126,67 @@ public class FpsCounter {
 	 */
 	public synchronized FpsCounter update() {
 		final long t = Time.nanoTime();
+		final long cnt = mCount.get();
 		fps = (cnt - prevCnt) * 1000000000.0f / (t - prevTime);
 		prevCnt = cnt;
 		prevTime = t;
 		totalFps = cnt * 1000000000.0f / (t - startTime);
+		if (mExpectedIntervalNs <= 0) {
+			mFrameIntervalNs = mFrameTimeNs.getPercentile(50);
+		}
 		return this;
 	}
 
-	public synchronized float getFps() {
+	public float getFps() {
 		return fps;
 	}
 
-	public synchronized float getTotalFps() {
+	public float getTotalFps() {
 		return totalFps;
 	}
+
+	/**
+	 * #resetしてからのフレーム数
+	 * @return
+	 */
+	public long getCount() {
+		return mCount.get();
+	}
+
+	/**
+	 * #resetしてからのドロップフレーム数
+	 * @return
+	 */
+	public long getDroppedFrames() {
+		return mDropped.get();
+	}
+
+	/**
+	 * #resetしてからのフレーム間隔のパーセンタイル値
+	 * @param percentile 0〜100
+	 * @return フレーム間隔[ナノ秒], 2フレーム以上カウントしていなければ0
+	 */
+	public long getFrameTimeNs(final double percentile) {
+		return mFrameTimeNs.getPercentile(percentile);
+	}
+
+	/**
+	 * フレーム間隔[ナノ秒]のヒストグラム
+	 * @return
+	 */
+	@NonNull
+	public Histogram getFrameTimeHistogram() {
+		return mFrameTimeNs;
+	}
+
+	@NonNull
+	@Override
+	public String toString() {
+		return String.format(Locale.US,
+			"FpsCounter{fps=%.2f,total=%.2f,frames=%d,dropped=%d,p50=%.2fms,p95=%.2fms,p99=%.2fms}",
+			getFps(), getTotalFps(), getCount(), getDroppedFrames(),
+			getFrameTimeNs(50) / 1000000.0f,
+			getFrameTimeNs(95) / 1000000.0f,
+			getFrameTimeNs(99) / 1000000.0f);
+	}
 }
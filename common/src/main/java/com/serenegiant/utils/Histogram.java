@@ -0,0 +1,258 @@
+package com.serenegiant.utils;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 2のべき乗毎のバケットに値を振り分けて数えるロックフリーのヒストグラム
+ * デフォルト(precision=0)ではバケット0は0以下の値、
+ * バケットi(i>0)は[2^(i-1), 2^i)の値を数える。
+ * precisionを指定するとHdrHistogramと同様に2のべき乗毎の範囲を
+ * さらに2^precision個のバケットへ等分するので、相対誤差が2^-precision程度になる。
+ * 待ち時間や処理時間・フレーム間隔[ナノ秒]、キューの長さ等の分布を
+ * 排他制御無しで複数のスレッドから記録するためのもの。
+ * パーセンタイルはバケットの上限値で返す
+ */
+public class Histogram {
+	/**
+	 * precision=0の時のバケット数
+	 */
+	public static final int NUM_BUCKETS = 64;
+	/**
+	 * precisionの最大値
+	 */
+	public static final int MAX_PRECISION = 8;
+
+	private final int mPrecision;
+	private final int mNumBuckets;
+	private final AtomicLongArray mBuckets;
+	private final AtomicLong mCount = new AtomicLong();
+	private final AtomicLong mSum = new AtomicLong();
+	private final AtomicLong mMax = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * コンストラクタ
+	 * 2のべき乗毎のバケットを使う
+	 */
+	public Histogram() {
+		this(0);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param precision 2のべき乗毎の範囲を分割するビット数, 0〜MAX_PRECISION
+	 */
+	public Histogram(final int precision) {
+		mPrecision = Math.max(Math.min(precision, MAX_PRECISION), 0);
+		mNumBuckets = (64 - mPrecision) << mPrecision;
+		mBuckets = new AtomicLongArray(mNumBuckets);
+	}
+
+	/**
+	 * 値を記録する
+	 * @param value
+	 */
+	public void record(final long value) {
+		mBuckets.incrementAndGet(indexOf(value));
+		mCount.incrementAndGet();
+		mSum.addAndGet(value);
+		for ( ; ; ) {
+			final long max = mMax.get();
+			if ((value <= max) || mMax.compareAndSet(max, value)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * 記録した値を全てクリアする
+	 * 記録中に呼び出した時は一部の値が残ることがある
+	 */
+	public void reset() {
+		for (int i = 0; i < mNumBuckets; i++) {
+			mBuckets.set(i, 0);
+		}
+		mCount.set(0);
+		mSum.set(0);
+		mMax.set(Long.MIN_VALUE);
+	}
+
+	/**
+	 * 記録した値の数
+	 * @return
+	 */
+	public long getCount() {
+		return mCount.get();
+	}
+
+	/**
+	 * 記録した値の合計
+	 * @return
+	 */
+	public long getSum() {
+		return mSum.get();
+	}
+
+	/**
+	 * 記録した値の平均
+	 * @return 値を記録していなければ0
+	 */
+	public double getMean() {
+		final long count = mCount.get();
+		return count > 0 ? mSum.get() / (double)count : 0;
+	}
+
+	/**
+	 * 記録した値の最大値
+	 * @return 値を記録していなければ0
+	 */
+	public long getMax() {
+		final long max = mMax.get();
+		return max != Long.MIN_VALUE ? max : 0;
+	}
+
+	/**
+	 * 2のべき乗毎の範囲を分割するビット数
+	 * @return
+	 */
+	public int getPrecision() {
+		return mPrecision;
+	}
+
+	/**
+	 * バケット数
+	 * @return
+	 */
+	public int getNumBuckets() {
+		return mNumBuckets;
+	}
+
+	/**
+	 * 指定したバケットの値の数
+	 * @param bucket
+	 * @return
+	 */
+	public long getBucketCount(final int bucket) {
+		return mBuckets.get(bucket);
+	}
+
+	/**
+	 * 全てのバケットの値の数をコピーする
+	 * @param dst 長さが#getNumBuckets未満なら新たに配列を生成する
+	 * @return
+	 */
+	@NonNull
+	public long[] getBucketCounts(final long[] dst) {
+		final long[] result = (dst != null) && (dst.length >= mNumBuckets)
+			? dst : new long[mNumBuckets];
+		for (int i = 0; i < mNumBuckets; i++) {
+			result[i] = mBuckets.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * 指定したパーセンタイルの値(を含むバケットの上限値)を返す
+	 * @param percentile 0〜100
+	 * @return 値を記録していなければ0
+	 */
+	public long getPercentile(final double percentile) {
+		final long count = mCount.get();
+		if (count <= 0) {
+			return 0;
+		}
+		final long target = Math.max((long)Math.ceil(count * percentile / 100.0), 1);
+		long sum = 0;
+		for (int i = 0; i < mNumBuckets; i++) {
+			sum += mBuckets.get(i);
+			if (sum >= target) {
+				return Math.min(upperBoundOf(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	@NonNull
+	@Override
+	public String toString() {
+		return String.format(Locale.US,
+			"Histogram{count=%d,mean=%.1f,p50=%d,p90=%d,p99=%d,max=%d}",
+			getCount(), getMean(),
+			getPercentile(50), getPercentile(90), getPercentile(99), getMax());
+	}
+
+	/**
+	 * 値に対応するバケットを返す
+	 * @param value
+	 * @return
+	 */
+	public int indexOf(final long value) {
+		if (value < (1L << mPrecision)) {
+			return value > 0 ? (int)value : 0;
+		}
+		final int msb = 63 - Long.numberOfLeadingZeros(value);
+		final int shift = msb - mPrecision;
+		final int sub = (int)(value >>> shift) - (1 << mPrecision);
+		return ((shift + 1) << mPrecision) + sub;
+	}
+
+	/**
+	 * バケットに含まれる値の上限値(この値を含む)を返す
+	 * @param index
+	 * @return
+	 */
+	public long upperBoundOf(final int index) {
+		if (index < (1 << mPrecision)) {
+			return Math.max(index, 0);
+		}
+		final int shift = (index >> mPrecision) - 1;
+		final long top = (1L << mPrecision) + (index & ((1 << mPrecision) - 1)) + 1;
+		return Long.numberOfLeadingZeros(top) <= shift
+			? Long.MAX_VALUE : (top << shift) - 1;
+	}
+
+	/**
+	 * precision=0の時の値に対応するバケットを返す
+	 * @param value
+	 * @return
+	 */
+	public static int bucketOf(final long value) {
+		if (value <= 0) {
+			return 0;
+		}
+		return Math.min(64 - Long.numberOfLeadingZeros(value), NUM_BUCKETS - 1);
+	}
+
+	/**
+	 * precision=0の時のバケットに含まれる値の上限値(この値を含む)を返す
+	 * @param bucket
+	 * @return
+	 */
+	public static long getBucketUpperBound(final int bucket) {
+		if (bucket <= 0) {
+			return 0;
+		}
+		return bucket >= NUM_BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+	}
+}
@@ -0,0 +1,35 @@
+package com.serenegiant.utils;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import androidx.annotation.NonNull;
+
+/**
+ * フレームレート/フレーム間隔を計測しているオブジェクトが実装するインターフェース
+ * 既存のインターフェースへメソッドを追加しないで済むように別にしているので
+ * instanceofで確認してから使うこと
+ */
+public interface IFpsCounterProvider {
+	/**
+	 * フレームレート/フレーム間隔計測用のFpsCounterを取得
+	 * @return
+	 */
+	@NonNull
+	public FpsCounter getFpsCounter();
+}
@@ -20,10 +20,15 @@ package com.serenegiant.utils;
 
 import android.util.Log;
 
-import com.serenegiant.collections.ReentrantReadWriteList;
+import com.serenegiant.metrics.Metrics;
+import com.serenegiant.metrics.MetricsSink;
 
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 
@@ -49,6 +54,18 @@ public abstract class MessageTask implements Runnable {
 		Object obj;
 		int request_for_result;
 		Object result;
+		/**
+		 * RequestPool内のインデックス, プールしない時は-1
+		 */
+		int pool_ix = -1;
+		/**
+		 * RequestQueue内の前後のRequest
+		 */
+		Request prev, next;
+		/**
+		 * RequestQueue内の同じ要求コードの前後のRequest
+		 */
+		Request prev_same, next_same;
 
 		private Request() {
 			request = request_for_result = REQUEST_TASK_NON;
@@ -97,14 +114,313 @@ public abstract class MessageTask implements Runnable {
 	protected static final int REQUEST_TASK_START = -8;
 	protected static final int REQUEST_TASK_QUIT = -9;
 
+	/**
+	 * キューのサイズが無制限の時にプールするRequestの最大数
+	 */
+	private static final int DEFAULT_POOL_SIZE = 64;
+
+	/**
+	 * Request用のロックフリーなフリーリスト
+	 * 最大数までのRequestを配列で保持してインデックスでリンクする。
+	 * ABA問題を避けるために先頭インデックスと更新回数を1つのlongで更新する
+	 * 最大数を超えた分は都度生成してプールしない
+	 */
+	private static final class RequestPool {
+		/**
+		 * 空の時の先頭(インデックス=-1)
+		 */
+		private static final long EMPTY = 0xffffffffL;
+
+		@NonNull
+		private final Request[] mRequests;
+		@NonNull
+		private final int[] mNext;
+		/**
+		 * 上位32ビットが更新回数, 下位32ビットが先頭のインデックス
+		 */
+		private final AtomicLong mHead = new AtomicLong(EMPTY);
+		private final AtomicInteger mCreated = new AtomicInteger();
+
+		private RequestPool(final int capacity) {
+			mRequests = new Request[capacity];
+			mNext = new int[capacity];
+		}
+
+		/**
+		 * 未使用のRequestを取得する, プールが空なら生成する
+		 * @return
+		 */
+		@NonNull
+		private Request obtain() {
+			for ( ; ; ) {
+				final long head = mHead.get();
+				final int ix = (int)head;
+				if (ix < 0) {
+					return create();
+				}
+				final int next = mNext[ix];
+				if (mHead.compareAndSet(head, nextStamp(head) | (next & EMPTY))) {
+					return mRequests[ix];
+				}
+			}
+		}
+
+		/**
+		 * 使用済みのRequestをプールへ戻す
+		 * プールしないRequestは何もしない
+		 * @param req
+		 */
+		private void recycle(@NonNull final Request req) {
+			final int ix = req.pool_ix;
+			if (ix < 0) return;
+			req.request = req.request_for_result = REQUEST_TASK_NON;
+			req.obj = null;
+			for ( ; ; ) {
+				final long head = mHead.get();
+				mNext[ix] = (int)head;
+				if (mHead.compareAndSet(head, nextStamp(head) | ix)) {
+					return;
+				}
+			}
+		}
+
+		@NonNull
+		private Request create() {
+			final Request result = new Request();
+			final int ix = mCreated.get() < mRequests.length ? mCreated.getAndIncrement() : -1;
+			if ((ix >= 0) && (ix < mRequests.length)) {
+				result.pool_ix = ix;
+				mRequests[ix] = result;
+			}
+			return result;
+		}
+
+		private static long nextStamp(final long head) {
+			return ((head >>> 32) + 1) << 32;
+		}
+	}
+
+	/**
+	 * 要求コード毎のRequestの連結リスト
+	 */
+	private static final class Chain {
+		Request first, last;
+		/**
+		 * trueならキュー内に同じ要求コードのRequestがある時に追加せずに引数を置き換える
+		 */
+		boolean coalesce;
+	}
+
+	/**
+	 * Requestを前後のリンクでつないだ要求キュー
+	 * 要求コード毎にもリンクするので指定した要求コードのRequestを
+	 * キューを走査せずに取り除ける
+	 */
+	private static final class RequestQueue {
+		/**
+		 * キューの最大サイズ, 0以下なら無制限
+		 */
+		private final int mCapacity;
+		@NonNull
+		private final RequestPool mPool;
+		private final Map<Integer, Chain> mChains = new HashMap<Integer, Chain>();
+		private Request mHead, mTail;
+		private int mCount;
+		private int mWaiters;
+
+		private RequestQueue(final int capacity, @NonNull final RequestPool pool) {
+			mCapacity = capacity;
+			mPool = pool;
+		}
+
+		/**
+		 * 指定した要求コードのRequestをまとめるかどうかを設定する
+		 * @param request
+		 * @param coalesce
+		 */
+		private synchronized void setCoalescing(final int request, final boolean coalesce) {
+			chainOf(request).coalesce = coalesce;
+		}
+
+		/**
+		 * キューへ追加する
+		 * 同じ要求コードのRequestをまとめる設定でキュー内に既にあれば
+		 * そのRequestの引数を置き換えてreqはプールへ戻す
+		 * @param req
+		 * @param first trueなら先頭へ追加する
+		 * @return 追加できなければfalse, その時reqは呼び出し元で処理すること
+		 */
+		private synchronized boolean offer(@NonNull final Request req, final boolean first) {
+			final Chain chain = chainOf(req.request);
+			if (chain.coalesce && (chain.first != null)) {
+				final Request pending = chain.first;
+				pending.arg1 = req.arg1;
+				pending.arg2 = req.arg2;
+				pending.obj = req.obj;
+				mPool.recycle(req);
+				return true;
+			}
+			if ((mCapacity > 0) && (mCount >= mCapacity)) {
+				return false;
+			}
+			if (first) {
+				req.next = mHead;
+				if (mHead != null) {
+					mHead.prev = req;
+				} else {
+					mTail = req;
+				}
+				mHead = req;
+				req.next_same = chain.first;
+				if (chain.first != null) {
+					chain.first.prev_same = req;
+				} else {
+					chain.last = req;
+				}
+				chain.first = req;
+			} else {
+				req.prev = mTail;
+				if (mTail != null) {
+					mTail.next = req;
+				} else {
+					mHead = req;
+				}
+				mTail = req;
+				req.prev_same = chain.last;
+				if (chain.last != null) {
+					chain.last.next_same = req;
+				} else {
+					chain.first = req;
+				}
+				chain.last = req;
+			}
+			mCount++;
+			if (mWaiters > 0) {
+				notify();
+			}
+			return true;
+		}
+
+		/**
+		 * 先頭のRequestを取り出す, 空ならブロックする
+		 * @return
+		 * @throws InterruptedException
+		 */
+		@NonNull
+		private synchronized Request take() throws InterruptedException {
+			for ( ; mHead == null ; ) {
+				mWaiters++;
+				try {
+					wait();
+				} finally {
+					mWaiters--;
+				}
+			}
+			final Request result = mHead;
+			unlink(result);
+			return result;
+		}
+
+		private synchronized int size() {
+			return mCount;
+		}
+
+		/**
+		 * キュー内の全てのRequestを取り除いてプールへ戻す
+		 */
+		private synchronized void clear() {
+			for ( ; mHead != null ; ) {
+				final Request req = mHead;
+				unlink(req);
+				mPool.recycle(req);
+			}
+		}
+
+		/**
+		 * 指定した要求コードのRequestを全て取り除いてプールへ戻す
+		 * @param request
+		 */
+		private synchronized void remove(final int request) {
+			final Chain chain = mChains.get(request);
+			if (chain != null) {
+				for ( ; chain.first != null ; ) {
+					final Request req = chain.first;
+					unlink(req);
+					mPool.recycle(req);
+				}
+			}
+		}
+
+		/**
+		 * 指定したRequestと等しいRequestを全て取り除いてプールへ戻す
+		 * @param request
+		 */
+		private synchronized void remove(@NonNull final Request request) {
+			final Chain chain = mChains.get(request.request);
+			if (chain != null) {
+				for (Request req = chain.first; req != null; ) {
+					final Request next = req.next_same;
+					if (req.equals(request)) {
+						unlink(req);
+						mPool.recycle(req);
+					}
+					req = next;
+				}
+			}
+		}
+
+		@NonNull
+		private Chain chainOf(final int request) {
+			Chain result = mChains.get(request);
+			if (result == null) {
+				result = new Chain();
+				mChains.put(request, result);
+			}
+			return result;
+		}
+
+		private void unlink(@NonNull final Request req) {
+			if (req.prev != null) {
+				req.prev.next = req.next;
+			} else {
+				mHead = req.next;
+			}
+			if (req.next != null) {
+				req.next.prev = req.prev;
+			} else {
+				mTail = req.prev;
+			}
+			final Chain chain = mChains.get(req.request);
+			if (chain != null) {
+				if (req.prev_same != null) {
+					req.prev_same.next_same = req.next_same;
+				} else {
+					chain.first = req.next_same;
+				}
+				if (req.next_same != null) {
+					req.next_same.prev_same = req.prev_same;
+				} else {
+					chain.last = req.prev_same;
+				}
+			}
+			req.prev = req.next = req.prev_same = req.next_same = null;
+			mCount--;
+		}
+	}
+
 	private final Object mSync = new Object();
 	/** プール/キューのサイズ, -1なら無制限 */
 	private final int mMaxRequest;
-	private final ReentrantReadWriteList<Request> mRequestPool;
-	private final LinkedBlockingDeque<Request> mRequestQueue;
+	private final RequestPool mRequestPool;
+	private final RequestQueue mRequestQueue;
 	private volatile boolean mIsRunning, mFinished;
 	private Thread mWorkerThread;
 	private long mWorkerThreadId;
+	/**
+	 * 計測値の名前(区間)、キューの長さ、要求の処理時間[ナノ秒]
+	 */
+	@NonNull
+	private volatile String mMetricsName, mQueueDepthMetric, mProcessTimeMetric;
 
 	/**
 	 * コンストラクタ
@@ -132,15 +448,18 @@ public abstract class MessageTask implements Runnable {
 	 */
 	public MessageTask(final int max_request, final int init_num) {
 		mMaxRequest = max_request;
-		if (max_request > 0) {
-			mRequestPool = new ReentrantReadWriteList<Request>();
-			mRequestQueue = new LinkedBlockingDeque<Request>(max_request);
-		} else {
-			mRequestPool = new ReentrantReadWriteList<Request>();
-			mRequestQueue = new LinkedBlockingDeque<Request>();
+		// 処理中と結果待ちの分も含めてプールする
+		mRequestPool = new RequestPool(Math.max(init_num,
+			max_request > 0 ? max_request + 2 : DEFAULT_POOL_SIZE));
+		mRequestQueue = new RequestQueue(max_request, mRequestPool);
+		final String name = getClass().getSimpleName();
+		setMetricsName(name.isEmpty() ? getClass().getName() : name);
+		final Request[] reqs = new Request[Math.max(init_num, 0)];
+		for (int i = 0; i < reqs.length; i++) {
+			reqs[i] = mRequestPool.obtain();
 		}
-		for (int i = 0; i < init_num; i++) {
-			if (!mRequestPool.add(new Request())) break;
+		for (final Request req: reqs) {
+			mRequestPool.recycle(req);
 		}
 	}
 
@@ -153,7 +472,7 @@ public abstract class MessageTask implements Runnable {
 	 */
 	protected void init(final int arg1, final int arg2, @Nullable final Object obj) {
 		mFinished = false;
-		mRequestQueue.offer(obtain(REQUEST_TASK_START, arg1, arg2, obj));
+		offerRequest(obtain(REQUEST_TASK_START, arg1, arg2, obj), false);
 //		offer(REQUEST_TASK_START, arg1, arg2, obj);
 	}
 
@@ -231,6 +550,19 @@ public abstract class MessageTask implements Runnable {
 		return mRequestQueue.size();
 	}
 
+	/**
+	 * Metricsへ出力する計測値の名前を設定する
+	 * 区間は指定した名前、キューの長さは"名前.queue_depth"、
+	 * 要求の処理時間[ナノ秒]は"名前.process_time"で出力する。
+	 * デフォルトはクラス名
+	 * @param name
+	 */
+	public final void setMetricsName(@NonNull final String name) {
+		mQueueDepthMetric = name + ".queue_depth";
+		mProcessTimeMetric = name + ".process_time";
+		mMetricsName = name;
+	}
+
 	@Override
 	public void run() {
 		Request request = null;
@@ -269,47 +601,56 @@ public abstract class MessageTask implements Runnable {
 LOOP:	for (; mIsRunning; ) {
 			try {
 				request = takeRequest();
-				switch (request.request) {
-				case REQUEST_TASK_NON:
-					break;
-				case REQUEST_TASK_QUIT:
-					break LOOP;
-				case REQUEST_TASK_RUN:
-					if (request.obj instanceof Runnable)
-					try {
-						((Runnable)request.obj).run();
-					} catch (final Exception e) {
-						if (callOnError(e))
-							break LOOP;
-					}
-					break;
-				case REQUEST_TASK_RUN_AND_WAIT:
-					try {
-						request.setResult(processRequest(request.request_for_result, request.arg1, request.arg2, request.obj));
-					} catch (final TaskBreak e) {
-						request.setResult(null);
+				final MetricsSink section = Metrics.beginSection(mMetricsName);
+				final long start = Metrics.startTimer();
+				if (start != 0) {
+					Metrics.gauge(mQueueDepthMetric, mRequestQueue.size());
+				}
+				try {
+					switch (request.request) {
+					case REQUEST_TASK_NON:
+						break;
+					case REQUEST_TASK_QUIT:
 						break LOOP;
-					} catch (final Exception e) {
-						request.setResult(null);
-						if (callOnError(e)) {
+					case REQUEST_TASK_RUN:
+						if (request.obj instanceof Runnable)
+						try {
+							((Runnable)request.obj).run();
+						} catch (final Exception e) {
+							if (callOnError(e))
+								break LOOP;
+						}
+						break;
+					case REQUEST_TASK_RUN_AND_WAIT:
+						try {
+							request.setResult(processRequest(request.request_for_result, request.arg1, request.arg2, request.obj));
+						} catch (final TaskBreak e) {
+							request.setResult(null);
 							break LOOP;
+						} catch (final Exception e) {
+							request.setResult(null);
+							if (callOnError(e)) {
+								break LOOP;
+							}
 						}
-					}
-					break;
-				default:
-					try {
-						processRequest(request.request, request.arg1, request.arg2, request.obj);
-					} catch (final TaskBreak e) {
-						break LOOP;
-					} catch (final Exception e) {
-						if (callOnError(e))
+						break;
+					default:
+						try {
+							processRequest(request.request, request.arg1, request.arg2, request.obj);
+						} catch (final TaskBreak e) {
 							break LOOP;
+						} catch (final Exception e) {
+							if (callOnError(e))
+								break LOOP;
+						}
+						break;
 					}
-					break;
+				} finally {
+					Metrics.stopTimer(mProcessTimeMetric, start);
+					Metrics.endSection(section);
 				}
-				request.request = request.request_for_result = REQUEST_TASK_NON;
 				// プールへ返却する
-				mRequestPool.add(request);
+				mRequestPool.recycle(request);
 			} catch (final InterruptedException e) {
 				break;
 			}
@@ -364,18 +705,44 @@ LOOP:	for (; mIsRunning; ) {
 	 * @return Request
 	 */
 	protected Request obtain(final int request, final int arg1, final int arg2, final Object obj) {
-		Request req = mRequestPool.removeLast();
-		if (req != null) {
-			req.request = request;
-			req.arg1 = arg1;
-			req.arg2 = arg2;
-			req.obj = obj;
-		} else {
-			req = new Request(request, arg1, arg2, obj);
-		}
+		final Request req = mRequestPool.obtain();
+		req.request = request;
+		req.arg1 = arg1;
+		req.arg2 = arg2;
+		req.obj = obj;
 		return req;
 	}
 
+	/**
+	 * 要求キューへ追加する
+	 * 追加できなければRequestをプールへ戻す
+	 * @param req
+	 * @param first trueなら先頭へ追加する
+	 * @return
+	 */
+	private boolean offerRequest(@NonNull final Request req, final boolean first) {
+		final boolean result = mRequestQueue.offer(req, first);
+		if (!result) {
+			mRequestPool.recycle(req);
+		}
+		return result;
+	}
+
+	/**
+	 * 指定した要求コードの要求をまとめるかどうかを設定する
+	 * まとめる場合は同じ要求コードの要求が既にキュー内にあれば
+	 * 新たに追加せずにキュー内の要求の引数を置き換える。
+	 * 描画要求のように最新の1つだけを処理すれば良い要求に使う
+	 * @param request 1以上
+	 * @param coalesce
+	 */
+	public void setCoalescing(final int request, final boolean coalesce) {
+		if (request <= REQUEST_TASK_NON) {
+			throw new IllegalArgumentException("request code should be positive," + request);
+		}
+		mRequestQueue.setCoalescing(request, coalesce);
+	}
+
 	/**
 	 * offer request to run on worker thread
 	 * @param request minus values and zero are reserved
@@ -387,7 +754,7 @@ LOOP:	for (; mIsRunning; ) {
 	public boolean offer(final int request,
 		final int arg1, final int arg2, final Object obj) {
 
-		return !mFinished && mRequestQueue.offer(obtain(request, arg1, arg2, obj));
+		return !mFinished && offerRequest(obtain(request, arg1, arg2, obj), false);
 	}
 
 	/**
@@ -451,7 +818,7 @@ LOOP:	for (; mIsRunning; ) {
 		final int arg1, final int arg2, final Object obj) {
 
 		return !mFinished && mIsRunning
-			&& mRequestQueue.offerFirst(obtain(request, arg1, arg2, obj));
+			&& offerRequest(obtain(request, arg1, arg2, obj), true);
 	}
 
 	/**
@@ -473,7 +840,9 @@ LOOP:	for (; mIsRunning; ) {
 				synchronized (req) {
 					req.request_for_result = request;
 					req.result = null;
-					mRequestQueue.offer(req);
+					if (!offerRequest(req, false)) {
+						return null;
+					}
 					for (; mIsRunning && (req.request_for_result != REQUEST_TASK_NON); ) {
 						try {
 							req.wait(100);
@@ -494,6 +863,10 @@ LOOP:	for (; mIsRunning; ) {
 					req.setResult(null);
 					callOnError(e);
 				}
+				// キューへ追加していないのでここでプールへ戻す
+				final Object result = req.result;
+				mRequestPool.recycle(req);
+				return result;
 			}
 			return req.result;
 		} else {
@@ -515,12 +888,8 @@ LOOP:	for (; mIsRunning; ) {
 	 * @param request
 	 */
 	public void removeRequest(final Request request) {
-		for (final Request req: mRequestQueue) {
-			if (!mIsRunning || mFinished || !mRequestQueue.contains(request)) break;
-			if (req.equals(request)) {
-				mRequestQueue.remove(req);
-				mRequestPool.add(req);
-			}
+		if (mIsRunning && !mFinished && (request != null)) {
+			mRequestQueue.remove(request);
 		}
 	}
 
@@ -529,12 +898,8 @@ LOOP:	for (; mIsRunning; ) {
 	 * @param request
 	 */
 	public void removeRequest(final int request) {
-		for (final Request req: mRequestQueue) {
-			if (!mIsRunning || mFinished) break;
-			if (req.request == request) {
-				mRequestQueue.remove(req);
-				mRequestPool.add(req);
-			}
+		if (mIsRunning && !mFinished) {
+			mRequestQueue.remove(request);
 		}
 	}
 
@@ -554,7 +919,7 @@ LOOP:	for (; mIsRunning; ) {
 		mIsRunning = false;
 		if (!mFinished) {
 			mRequestQueue.clear();
-			mRequestQueue.offerFirst(obtain(REQUEST_TASK_QUIT, 0, 0, null));
+			offerRequest(obtain(REQUEST_TASK_QUIT, 0, 0, null), true);
 			synchronized (mSync) {
 				if (b) {
 					final long current = Thread.currentThread().getId();
@@ -583,7 +948,7 @@ LOOP:	for (; mIsRunning; ) {
 		mIsRunning = false;
 		if (!mFinished) {
 			mRequestQueue.clear();
-			mRequestQueue.offerFirst(obtain(REQUEST_TASK_QUIT, 0, 0, null));
+			offerRequest(obtain(REQUEST_TASK_QUIT, 0, 0, null), true);
 		}
 	}
 
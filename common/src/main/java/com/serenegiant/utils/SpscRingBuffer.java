@@ -0,0 +1,312 @@
+package com.serenegiant.utils;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 単一プロデューサー・単一コンシューマー(SPSC)用のロックフリーな固定長リングバッファー
+ * LinkedBlockingQueueと違って追加時にノードを生成せず、
+ * 追加・取り出しのどちらもロックを取らない。
+ * #offerは常に同じ1つのスレッド(プロデューサー)から、
+ * #poll/#peek/#clearは常に同じ1つのスレッド(コンシューマー)から呼び出すこと。
+ * 複数スレッドから追加する場合は呼び出し側で#offerを排他制御すること
+ * @param <E>
+ */
+public class SpscRingBuffer<E> {
+	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
+	private static final String TAG = SpscRingBuffer.class.getSimpleName();
+
+	/**
+	 * 待機方法: 一定回数スピンした後にLockSupport#parkNanosで待機する
+	 * 低レイテンシだが待機開始直後はCPUを消費する
+	 */
+	public static final int WAIT_SPIN_PARK = 0;
+	/**
+	 * 待機方法: Object#waitでブロックする
+	 */
+	public static final int WAIT_BLOCKING = 1;
+
+	@IntDef({WAIT_SPIN_PARK,
+		WAIT_BLOCKING,
+	})
+	@Retention(RetentionPolicy.SOURCE)
+	public @interface WaitStrategy {}
+
+	/**
+	 * WAIT_SPIN_PARKでparkする前にスピンする回数
+	 */
+	private static final int SPIN_TRIES = 100;
+
+	private final Object[] mBuffer;
+	private final int mMask;
+	private final int mCapacity;
+	@WaitStrategy
+	private final int mWaitStrategy;
+	/**
+	 * 次に取り出す位置, コンシューマーのみが更新する
+	 */
+	private final AtomicLong mHead = new AtomicLong();
+	/**
+	 * 次に追加する位置, プロデューサーのみが更新する
+	 */
+	private final AtomicLong mTail = new AtomicLong();
+	/**
+	 * WAIT_SPIN_PARKでpark中のコンシューマースレッド
+	 */
+	private volatile Thread mWaiter;
+	/**
+	 * WAIT_BLOCKINGで待機中かどうか
+	 */
+	private volatile boolean mWaiting;
+	private final Object mSync = new Object();
+
+	/**
+	 * コンストラクタ
+	 * 待機方法はWAIT_BLOCKING
+	 * @param capacity 最大保持数, 1以上
+	 */
+	public SpscRingBuffer(final int capacity) {
+		this(capacity, WAIT_BLOCKING);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param capacity 最大保持数, 1以上
+	 * @param waitStrategy #poll(long, TimeUnit)での待機方法
+	 */
+	public SpscRingBuffer(final int capacity, @WaitStrategy final int waitStrategy) {
+		if ((capacity <= 0) || (capacity > (1 << 30))) {
+			throw new IllegalArgumentException("invalid capacity," + capacity);
+		}
+		final int n = capacity > 1 ? Integer.highestOneBit(capacity - 1) << 1 : 1;
+		mBuffer = new Object[n];
+		mMask = n - 1;
+		mCapacity = capacity;
+		mWaitStrategy = waitStrategy;
+	}
+
+	/**
+	 * 最大保持数を取得
+	 * @return
+	 */
+	public int capacity() {
+		return mCapacity;
+	}
+
+	/**
+	 * 待機方法を取得
+	 * @return
+	 */
+	@WaitStrategy
+	public int waitStrategy() {
+		return mWaitStrategy;
+	}
+
+	/**
+	 * 末尾へ追加する, プロデューサースレッドから呼び出すこと
+	 * @param e
+	 * @return 一杯で追加できなければfalse
+	 */
+	public boolean offer(@NonNull final E e) {
+		final long tail = mTail.get();
+		if (tail - mHead.get() >= mCapacity) {
+			return false;
+		}
+		mBuffer[(int)tail & mMask] = e;
+		// 待機中のコンシューマーの確認と順序付けるためにlazySetではなくsetを使う
+		mTail.set(tail + 1);
+		signal();
+		return true;
+	}
+
+	/**
+	 * 先頭を取り出す, コンシューマースレッドから呼び出すこと
+	 * @return 空ならnull
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public E poll() {
+		final long head = mHead.get();
+		if (head >= mTail.get()) {
+			return null;
+		}
+		final int ix = (int)head & mMask;
+		final E result = (E)mBuffer[ix];
+		mBuffer[ix] = null;
+		mHead.lazySet(head + 1);
+		return result;
+	}
+
+	/**
+	 * 先頭を取り出す, コンシューマースレッドから呼び出すこと
+	 * 空の時は指定時間まで追加されるのを待機する
+	 * @param timeout
+	 * @param unit
+	 * @return 指定時間内に追加されなければnull
+	 * @throws InterruptedException
+	 */
+	@Nullable
+	public E poll(final long timeout, @NonNull final TimeUnit unit)
+		throws InterruptedException {
+
+		E result = poll();
+		if ((result != null) || (timeout <= 0)) {
+			return result;
+		}
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		if (mWaitStrategy == WAIT_SPIN_PARK) {
+			for (int i = 0; i < SPIN_TRIES; i++) {
+				result = poll();
+				if (result != null) {
+					return result;
+				}
+			}
+			return parkPoll(deadline);
+		} else {
+			return blockingPoll(deadline);
+		}
+	}
+
+	/**
+	 * 先頭を取り出さずに取得する, コンシューマースレッドから呼び出すこと
+	 * @return 空ならnull
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public E peek() {
+		final long head = mHead.get();
+		if (head >= mTail.get()) {
+			return null;
+		}
+		return (E)mBuffer[(int)head & mMask];
+	}
+
+	/**
+	 * 保持している個数を取得
+	 * 他のスレッドから呼び出した時は呼び出し中に変化している可能性がある
+	 * @return
+	 */
+	public int size() {
+		final long head = mHead.get();
+		final long size = mTail.get() - head;
+		return size > 0 ? (int)Math.min(size, mCapacity) : 0;
+	}
+
+	public boolean isEmpty() {
+		return mHead.get() >= mTail.get();
+	}
+
+	/**
+	 * 保持している要素を全て取り除く
+	 * コンシューマースレッドまたはコンシューマースレッドが動いていない時に呼び出すこと
+	 */
+	public void clear() {
+		for ( ; poll() != null ; ) {
+			// do nothing
+		}
+	}
+
+	/**
+	 * 待機中のコンシューマーを起床させる
+	 */
+	private void signal() {
+		if (mWaitStrategy == WAIT_SPIN_PARK) {
+			final Thread waiter = mWaiter;
+			if (waiter != null) {
+				LockSupport.unpark(waiter);
+			}
+		} else if (mWaiting) {
+			synchronized (mSync) {
+				mSync.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * LockSupport#parkNanosで待機しながら取り出す
+	 * @param deadline
+	 * @return
+	 * @throws InterruptedException
+	 */
+	@Nullable
+	private E parkPoll(final long deadline) throws InterruptedException {
+		E result = null;
+		mWaiter = Thread.currentThread();
+		try {
+			for ( ; ; ) {
+				result = poll();
+				if (result != null) break;
+				final long remain = deadline - System.nanoTime();
+				if (remain <= 0) break;
+				LockSupport.parkNanos(this, remain);
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+			}
+		} finally {
+			mWaiter = null;
+		}
+		return result;
+	}
+
+	/**
+	 * Object#waitで待機しながら取り出す
+	 * @param deadline
+	 * @return
+	 * @throws InterruptedException
+	 */
+	@Nullable
+	private E blockingPoll(final long deadline) throws InterruptedException {
+		E result = null;
+		synchronized (mSync) {
+			mWaiting = true;
+			try {
+				for ( ; ; ) {
+					result = poll();
+					if (result != null) break;
+					final long remain = deadline - System.nanoTime();
+					if (remain <= 0) break;
+					mSync.wait(remain / 1000000L, (int)(remain % 1000000L));
+				}
+			} finally {
+				mWaiting = false;
+			}
+		}
+		return result;
+	}
+
+	@NonNull
+	@Override
+	public String toString() {
+		return "SpscRingBuffer{" +
+			"capacity=" + mCapacity +
+			", size=" + size() +
+			", waitStrategy=" + mWaitStrategy +
+			'}';
+	}
+}
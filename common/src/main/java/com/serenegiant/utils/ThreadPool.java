@@ -18,7 +18,10 @@ package com.serenegiant.utils;
  *  limitations under the License.
  */
 
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -28,9 +31,38 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
+import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
+/**
+ * アプリ全体で共有するスレッドプール
+ * MODE_FIFO(デフォルト)は単一のキューを持つThreadPoolExecutorで追加した順に実行する。
+ * MODE_WORK_STEALINGはWorkStealingExecutorで優先度の高いタスクから実行する。
+ * どちらのモードでもタグを指定して追加したタスクは#cancelEventsでまとめて取り除ける
+ */
 public class ThreadPool {
+	private static final String TAG = ThreadPool.class.getSimpleName();
+
+	/**
+	 * 単一のキューで追加した順に実行する(従来の動作)
+	 * 優先度は無視する
+	 */
+	public static final int MODE_FIFO = 0;
+	/**
+	 * 優先度毎のレーンを持つワークスティーリング方式で実行する
+	 */
+	public static final int MODE_WORK_STEALING = 1;
+
+	@IntDef({
+		MODE_FIFO,
+		MODE_WORK_STEALING})
+	@Retention(RetentionPolicy.SOURCE)
+	public @interface Mode {}
+
+	public static final int PRIORITY_INTERACTIVE = WorkStealingExecutor.PRIORITY_INTERACTIVE;
+	public static final int PRIORITY_BACKGROUND = WorkStealingExecutor.PRIORITY_BACKGROUND;
+	public static final int PRIORITY_BULK_IO = WorkStealingExecutor.PRIORITY_BULK_IO;
 
 	// for thread pool
 	private static final int CORE_POOL_SIZE = 1;		// initial/minimum threads
@@ -38,6 +70,10 @@ public class ThreadPool {
 	private static final int KEEP_ALIVE_TIME_SECS = 10;	// time periods while keep the idle thread
 
 	private static PausableThreadPoolExecutor EXECUTOR;
+	private static WorkStealingExecutor WORK_STEALING_EXECUTOR;
+	@Mode
+	private static volatile int sMode = MODE_FIFO;
+	private static volatile boolean sPaused;
 
 	static {
 		getInstance();
@@ -57,16 +93,60 @@ public class ThreadPool {
 			EXECUTOR = new PausableThreadPoolExecutor(
 				CORE_POOL_SIZE, MAX_POOL_SIZE, KEEP_ALIVE_TIME_SECS,
 				TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+			if (sPaused) {
+				EXECUTOR.pause();
+			}
 		}
 		return EXECUTOR;
 	}
 
+	/**
+	 * MODE_WORK_STEALING用のExecutorが存在しなければ新たに生成する
+	 * @return
+	 */
+	@NonNull
+	private static synchronized WorkStealingExecutor getWorkStealingInstance() {
+		if (WORK_STEALING_EXECUTOR == null) {
+			WORK_STEALING_EXECUTOR = new WorkStealingExecutor(TAG,
+				Math.max(Runtime.getRuntime().availableProcessors(), 2),
+				KEEP_ALIVE_TIME_SECS, TimeUnit.SECONDS);
+			if (sPaused) {
+				WORK_STEALING_EXECUTOR.pause();
+			}
+		}
+		return WORK_STEALING_EXECUTOR;
+	}
+
+	/**
+	 * MODE_WORK_STEALING用のExecutorを生成せずに取得する
+	 * @return まだ生成していなければnull
+	 */
+	@Nullable
+	private static synchronized WorkStealingExecutor peekWorkStealingInstance() {
+		return WORK_STEALING_EXECUTOR;
+	}
+
+	/**
+	 * 以降に追加するタスクの実行方法を設定する
+	 * 追加済みのタスクは変更前の方法で実行される
+	 * @param mode
+	 */
+	public static void setMode(@Mode final int mode) {
+		sMode = mode == MODE_WORK_STEALING ? MODE_WORK_STEALING : MODE_FIFO;
+	}
+
+	@Mode
+	public static int getMode() {
+		return sMode;
+	}
+
 	/**
 	 * シャットダウンしたかどうか
 	 * @return
 	 */
 	public static synchronized boolean isShutdown() {
-		return EXECUTOR != null && EXECUTOR.isShutdown();
+		return ((EXECUTOR != null) && EXECUTOR.isShutdown())
+			|| ((WORK_STEALING_EXECUTOR != null) && WORK_STEALING_EXECUTOR.isShutdown());
 	}
 
 	/**
@@ -79,6 +159,10 @@ public class ThreadPool {
 			EXECUTOR.shutdown();
 			EXECUTOR = null;
 		}
+		if (WORK_STEALING_EXECUTOR != null) {
+			WORK_STEALING_EXECUTOR.shutdown();
+			WORK_STEALING_EXECUTOR = null;
+		}
 	}
 
 	/**
@@ -96,25 +180,50 @@ public class ThreadPool {
 			}
 			EXECUTOR = null;
 		}
+		if (WORK_STEALING_EXECUTOR != null) {
+			result.addAll(WORK_STEALING_EXECUTOR.shutdownNow());
+			WORK_STEALING_EXECUTOR = null;
+		}
 		return result;
 	}
 
 	/**
 	 * スレッドプールで待機しているタスクの実行を再開する
 	 */
-	public void resume() {
-		getInstance().resume();
+	public static synchronized void resume() {
+		sPaused = false;
+		if (EXECUTOR != null) {
+			EXECUTOR.resume();
+		}
+		if (WORK_STEALING_EXECUTOR != null) {
+			WORK_STEALING_EXECUTOR.resume();
+		}
 	}
 
 	/**
 	 * スレッドプールで待機しているタスクの実行を一時中断する
 	 */
-	public void pause() {
-		getInstance().pause();
+	public static synchronized void pause() {
+		sPaused = true;
+		if (EXECUTOR != null) {
+			EXECUTOR.pause();
+		}
+		if (WORK_STEALING_EXECUTOR != null) {
+			WORK_STEALING_EXECUTOR.pause();
+		}
+	}
+
+	/**
+	 * 一時中断中かどうか
+	 * @return
+	 */
+	public static boolean isPaused() {
+		return sPaused;
 	}
 
 	/**
 	 * コアスレッド数を設定する
+	 * MODE_FIFO用
 	 * @param corePoolSize
 	 */
 	public static void setCorePoolSize(final int corePoolSize) {
@@ -123,6 +232,7 @@ public class ThreadPool {
 
 	/**
 	 * 最大スレッド数を設定する
+	 * MODE_FIFO用
 	 * @param maximumPoolSize
 	 */
 	public static void setMaximumPoolSize(final int maximumPoolSize) {
@@ -155,7 +265,26 @@ public class ThreadPool {
 	public static void queueEvent(@NonNull final Runnable command)
 		throws RejectedExecutionException {
 
-		getInstance().execute(command);
+		queueEvent(command, PRIORITY_BACKGROUND, null);
+	}
+
+	/**
+	 * スレッドプールのキューにタスクを追加する
+	 * @param command
+	 * @param priority PRIORITY_INTERACTIVE, PRIORITY_BACKGROUND, PRIORITY_BULK_IOのいずれか
+	 * 		MODE_FIFOの時は無視する
+	 * @param tag #cancelEventsでまとめて取り除くためのタグ, null可
+	 * @throws RejectedExecutionException
+	 */
+	public static void queueEvent(@NonNull final Runnable command,
+		@WorkStealingExecutor.Priority final int priority, @Nullable final Object tag)
+			throws RejectedExecutionException {
+
+		if (sMode == MODE_WORK_STEALING) {
+			getWorkStealingInstance().execute(command, priority, tag);
+		} else {
+			getInstance().execute(tag != null ? new TaggedRunnable(command, tag) : command);
+		}
 	}
 
 	/**
@@ -164,14 +293,121 @@ public class ThreadPool {
 	 * @return
 	 */
 	public static boolean removeEvent(@NonNull final Runnable command) {
-		return getInstance().remove(command);
+		final WorkStealingExecutor ws;
+		final PausableThreadPoolExecutor executor;
+		synchronized (ThreadPool.class) {
+			ws = WORK_STEALING_EXECUTOR;
+			executor = EXECUTOR;
+		}
+		if ((ws != null) && ws.remove(command)) {
+			return true;
+		}
+		if (executor != null) {
+			if (executor.remove(command)) {
+				return true;
+			}
+			final Iterator<Runnable> it = executor.getQueue().iterator();
+			while (it.hasNext()) {
+				final Runnable r = it.next();
+				if ((r instanceof TaggedRunnable) && (((TaggedRunnable)r).command == command)) {
+					it.remove();
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 指定したタグで追加した未実行のタスクを全てスレッドプールのキューから削除する
+	 * @param tag
+	 * @return 削除したタスクの数
+	 */
+	public static int cancelEvents(@NonNull final Object tag) {
+		final WorkStealingExecutor ws;
+		final PausableThreadPoolExecutor executor;
+		synchronized (ThreadPool.class) {
+			ws = WORK_STEALING_EXECUTOR;
+			executor = EXECUTOR;
+		}
+		int result = 0;
+		if (ws != null) {
+			result += ws.cancel(tag);
+		}
+		if (executor != null) {
+			final Iterator<Runnable> it = executor.getQueue().iterator();
+			while (it.hasNext()) {
+				final Runnable r = it.next();
+				if ((r instanceof TaggedRunnable) && tag.equals(((TaggedRunnable)r).tag)) {
+					it.remove();
+					result++;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * MODE_WORK_STEALINGでタスク追加時のキューの長さのヒストグラム
+	 * MODE_WORK_STEALINGでタスクを追加したことが無ければ空のヒストグラムを返す
+	 * @return
+	 */
+	@NonNull
+	public static Histogram getQueueDepthHistogram() {
+		final WorkStealingExecutor executor = peekWorkStealingInstance();
+		return executor != null ? executor.getQueueDepthHistogram() : new Histogram();
+	}
+
+	/**
+	 * MODE_WORK_STEALINGでタスクを追加してから実行を開始するまでの時間[ナノ秒]のヒストグラム
+	 * MODE_WORK_STEALINGでタスクを追加したことが無ければ空のヒストグラムを返す
+	 * @return
+	 */
+	@NonNull
+	public static Histogram getWaitTimeHistogram() {
+		final WorkStealingExecutor executor = peekWorkStealingInstance();
+		return executor != null ? executor.getWaitTimeHistogram() : new Histogram();
+	}
+
+	/**
+	 * MODE_WORK_STEALINGでのタスクの実行時間[ナノ秒]のヒストグラム
+	 * MODE_WORK_STEALINGでタスクを追加したことが無ければ空のヒストグラムを返す
+	 * @return
+	 */
+	@NonNull
+	public static Histogram getRunTimeHistogram() {
+		final WorkStealingExecutor executor = peekWorkStealingInstance();
+		return executor != null ? executor.getRunTimeHistogram() : new Histogram();
+	}
+
+	/**
+	 * MODE_FIFOでタグを指定して追加したタスクを保持するためのRunnable
+	 */
+	private static class TaggedRunnable implements Runnable {
+		@NonNull
+		private final Runnable command;
+		@NonNull
+		private final Object tag;
+
+		private TaggedRunnable(@NonNull final Runnable command, @NonNull final Object tag) {
+			this.command = command;
+			this.tag = tag;
+		}
+
+		@Override
+		public void run() {
+			command.run();
+		}
 	}
 
 	/**
 	 * キューに入れたタスクの実行待ち/待ち解除を可能にするためのThreadPoolExecutor子クラス
 	 */
 	private static class PausableThreadPoolExecutor extends ThreadPoolExecutor {
-		private boolean isPaused;
+		/**
+		 * タスク毎にロックしなくていいようにvolatileにしてロック無しで確認する
+		 */
+		private volatile boolean isPaused;
 		private ReentrantLock pauseLock = new ReentrantLock();
 		private Condition unpaused = pauseLock.newCondition();
 
@@ -188,6 +424,9 @@ public class ThreadPool {
 
 		protected void beforeExecute(final Thread t, final Runnable r) {
 			super.beforeExecute(t, r);
+			if (!isPaused) {
+				return;
+			}
 			pauseLock.lock();
 			try {
 				while (isPaused) {
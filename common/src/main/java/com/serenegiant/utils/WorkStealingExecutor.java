@@ -0,0 +1,717 @@
+package com.serenegiant.utils;
+/*
+ * libcommon
+ * utility/helper classes for myself
+ *
+ * Copyright (c) 2014-2020 saki t_saki@serenegiant.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+*/
+
+import android.util.Log;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 優先度毎のレーンを持つワークスティーリング方式のExecutor
+ * 各ワーカースレッドが優先度毎のキューを持ち、ワーカースレッド以外から追加したタスクは
+ * ラウンドロビンでいずれかのワーカースレッドへ、ワーカースレッド上で追加したタスクは
+ * そのワーカースレッドのキューへ追加する。
+ * 各ワーカースレッドは優先度の高いレーンから順に、自分のキューが空なら
+ * 他のワーカースレッドのキューから同じレーンのタスクを取得(スティール)して実行するので
+ * 優先度の高いタスクが優先度の低いタスクの後ろで待たされることはない。
+ * ロックはワーカースレッド毎なので単一のキューよりも競合しにくい。
+ * PRIORITY_BULK_IOのタスクを同時に実行するワーカースレッド数は
+ * 並列数-1までに制限するので、I/O待ちのタスクで他の優先度のタスクが止まることはない。
+ * 一時停止中かどうかはvolatileフラグで判定するのでタスク毎のロックは不要。
+ * キューの長さ・待ち時間・実行時間をHistogramへ記録する
+ */
+public class WorkStealingExecutor implements Executor {
+	private static final boolean DEBUG = false;	// FIXME 実働時はfalseにすること
+	private static final String TAG = WorkStealingExecutor.class.getSimpleName();
+
+	/**
+	 * 表示中の項目の読み込み等、ユーザー操作に直結するタスク
+	 */
+	public static final int PRIORITY_INTERACTIVE = 0;
+	/**
+	 * 通常のバックグラウンドタスク
+	 */
+	public static final int PRIORITY_BACKGROUND = 1;
+	/**
+	 * 大量のファイル入出力等、長時間ブロックする可能性のあるタスク
+	 */
+	public static final int PRIORITY_BULK_IO = 2;
+
+	@IntDef({
+		PRIORITY_INTERACTIVE,
+		PRIORITY_BACKGROUND,
+		PRIORITY_BULK_IO})
+	@Retention(RetentionPolicy.SOURCE)
+	public @interface Priority {}
+
+	private static final int NUM_LANES = 3;
+	private static final long DEFAULT_KEEP_ALIVE_MS = 10000;
+
+	/**
+	 * キュー内のタスク
+	 */
+	private static final class Task {
+		@NonNull
+		private final Runnable command;
+		@Nullable
+		private final Object tag;
+		private final int priority;
+		private final long enqueueTimeNs;
+
+		private Task(@NonNull final Runnable command,
+			@Nullable final Object tag, final int priority) {
+
+			this.command = command;
+			this.tag = tag;
+			this.priority = priority;
+			enqueueTimeNs = System.nanoTime();
+		}
+	}
+
+	/**
+	 * ワーカースレッド
+	 * キューへのアクセスはこのオブジェクトで排他制御する
+	 */
+	private final class Worker implements Runnable {
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		private final ArrayDeque<Task>[] lanes = new ArrayDeque[NUM_LANES];
+		private final int index;
+		private boolean alive = true;
+		private Thread thread;
+
+		private Worker(final int index) {
+			this.index = index;
+			for (int i = 0; i < NUM_LANES; i++) {
+				lanes[i] = new ArrayDeque<Task>();
+			}
+		}
+
+		/**
+		 * キューへタスクを追加する
+		 * @param task
+		 * @return 既に終了している時はfalse
+		 */
+		private synchronized boolean offer(@NonNull final Task task) {
+			if (alive) {
+				lanes[task.priority].addLast(task);
+				return true;
+			}
+			return false;
+		}
+
+		@Nullable
+		private synchronized Task poll(final int lane) {
+			return lanes[lane].pollFirst();
+		}
+
+		/**
+		 * 条件に合うタスクをキューから取り除く
+		 * @param command nullでなければ一致するRunnableを1つだけ取り除く
+		 * @param tag commandがnullの時は一致するタグを持つ全てのタスクを取り除く
+		 * @param removed 取り除いたタスクを追加する
+		 * @return 取り除いた数
+		 */
+		private synchronized int remove(@Nullable final Runnable command,
+			@Nullable final Object tag, @Nullable final List<Runnable> removed) {
+
+			int result = 0;
+			for (final ArrayDeque<Task> lane: lanes) {
+				final Iterator<Task> it = lane.iterator();
+				while (it.hasNext()) {
+					final Task task = it.next();
+					if (command != null ? task.command == command
+						: (tag == null) || tag.equals(task.tag)) {
+
+						it.remove();
+						result++;
+						if (removed != null) {
+							removed.add(task.command);
+						}
+						if (command != null) {
+							return result;
+						}
+					}
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * ワーカースレッドを終了状態にして未実行のタスクを返す
+		 * @return
+		 */
+		@NonNull
+		private synchronized List<Task> retire() {
+			alive = false;
+			final List<Task> result = new ArrayList<Task>();
+			for (final ArrayDeque<Task> lane: lanes) {
+				result.addAll(lane);
+				lane.clear();
+			}
+			return result;
+		}
+
+		@Override
+		public void run() {
+			if (DEBUG) Log.v(TAG, "worker#run:start " + index);
+			mCurrentWorker.set(this);
+			try {
+				long idleStartNs = 0;
+				for ( ; ; ) {
+					if (mPaused && !mTerminating) {
+						awaitResume();
+						continue;
+					}
+					final int signal = mSignal.get();
+					final Task task = findTask(this);
+					if (task != null) {
+						idleStartNs = 0;
+						runTask(task);
+						continue;
+					}
+					if (mTerminating || (mShutdown && (mQueued.get() <= 0))) {
+						break;
+					}
+					final long now = System.nanoTime();
+					if (idleStartNs == 0) {
+						idleStartNs = now;
+					} else if ((now - idleStartNs >= mKeepAliveNs) && tryRetire(signal)) {
+						// アイドル状態が続いたので終了する
+						break;
+					}
+					synchronized (mSync) {
+						mIdle.incrementAndGet();
+						try {
+							if (mSignal.get() == signal) {
+								mSync.wait(TimeUnit.NANOSECONDS.toMillis(mKeepAliveNs) + 1);
+							}
+						} catch (final InterruptedException e) {
+							if (mTerminating) break;
+						} finally {
+							mIdle.decrementAndGet();
+						}
+					}
+				}
+			} finally {
+				mCurrentWorker.remove();
+				removeWorker(this);
+				// 終了直前に追加されたタスクは他のワーカースレッドへ移す
+				for (final Task task: retire()) {
+					if (mTerminating) {
+						mQueued.decrementAndGet();
+					} else {
+						try {
+							push(task, true);
+						} catch (final RejectedExecutionException e) {
+							if (DEBUG) Log.w(TAG, e);
+						}
+					}
+				}
+				if (DEBUG) Log.v(TAG, "worker#run:finished " + index);
+			}
+		}
+	}
+
+	private final int mParallelism;
+	private final int mMaxBulk;
+	private final long mKeepAliveNs;
+	@NonNull
+	private final String mName;
+	@NonNull
+	private final Object mSync = new Object();
+	/**
+	 * 実行中のワーカースレッド, 変更時はmSyncをロックして配列ごと入れ替える
+	 */
+	@NonNull
+	private volatile Worker[] mWorkers = new Worker[0];
+	@NonNull
+	private final ThreadLocal<Worker> mCurrentWorker = new ThreadLocal<Worker>();
+	/**
+	 * タスクを追加する度に更新する, 待機直前の取りこぼし検出用
+	 */
+	private final AtomicInteger mSignal = new AtomicInteger();
+	private final AtomicInteger mIdle = new AtomicInteger();
+	private final AtomicInteger mQueued = new AtomicInteger();
+	private final AtomicInteger mActive = new AtomicInteger();
+	private final AtomicInteger mRunningBulk = new AtomicInteger();
+	private final AtomicInteger mNext = new AtomicInteger();
+	private final AtomicLong mCompleted = new AtomicLong();
+	private int mWorkerIndex;
+	private volatile boolean mPaused;
+	private volatile boolean mShutdown;
+	private volatile boolean mTerminating;
+	@NonNull
+	private final Histogram mQueueDepth = new Histogram();
+	@NonNull
+	private final Histogram mWaitTimeNs = new Histogram();
+	@NonNull
+	private final Histogram mRunTimeNs = new Histogram();
+
+	/**
+	 * コンストラクタ
+	 * 並列数はCPUのコア数(2以上)
+	 * @param name ワーカースレッド名
+	 */
+	public WorkStealingExecutor(@NonNull final String name) {
+		this(name, Math.max(Runtime.getRuntime().availableProcessors(), 2),
+			DEFAULT_KEEP_ALIVE_MS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param name ワーカースレッド名
+	 * @param parallelism 最大ワーカースレッド数
+	 * @param keepAliveTime アイドル状態のワーカースレッドを終了させるまでの時間
+	 * @param unit
+	 */
+	public WorkStealingExecutor(@NonNull final String name,
+		final int parallelism, final long keepAliveTime, @NonNull final TimeUnit unit) {
+
+		mName = name;
+		mParallelism = Math.max(parallelism, 1);
+		mMaxBulk = Math.max(mParallelism - 1, 1);
+		mKeepAliveNs = Math.max(unit.toNanos(keepAliveTime), 1);
+	}
+
+	/**
+	 * PRIORITY_BACKGROUNDでタスクを追加する
+	 * @param command
+	 * @throws RejectedExecutionException
+	 */
+	@Override
+	public void execute(@NonNull final Runnable command)
+		throws RejectedExecutionException {
+
+		execute(command, PRIORITY_BACKGROUND, null);
+	}
+
+	/**
+	 * タスクを追加する
+	 * @param command
+	 * @param priority
+	 * @param tag #cancelでまとめて取り除くためのタグ, null可
+	 * @throws RejectedExecutionException シャットダウン済みの時
+	 * @throws IllegalArgumentException
+	 */
+	public void execute(@NonNull final Runnable command,
+		@Priority final int priority, @Nullable final Object tag)
+			throws RejectedExecutionException, IllegalArgumentException {
+
+		if ((priority < 0) || (priority >= NUM_LANES)) {
+			throw new IllegalArgumentException("unknown priority," + priority);
+		}
+		if (mShutdown) {
+			throw new RejectedExecutionException("already shutdown");
+		}
+		mQueueDepth.record(mQueued.incrementAndGet());
+		push(new Task(command, tag, priority), false);
+	}
+
+	/**
+	 * 未実行のタスクを取り除く
+	 * @param command
+	 * @return 取り除いた時はtrue
+	 */
+	public boolean remove(@NonNull final Runnable command) {
+		for (final Worker worker: mWorkers) {
+			if (worker.remove(command, null, null) > 0) {
+				mQueued.decrementAndGet();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 指定したタグを持つ未実行のタスクを全て取り除く
+	 * @param tag
+	 * @return 取り除いたタスクの数
+	 */
+	public int cancel(@NonNull final Object tag) {
+		int result = 0;
+		for (final Worker worker: mWorkers) {
+			result += worker.remove(null, tag, null);
+		}
+		mQueued.addAndGet(-result);
+		return result;
+	}
+
+	/**
+	 * 未実行のタスクの実行を一時停止する
+	 * 実行中のタスクはそのまま実行される
+	 */
+	public void pause() {
+		mPaused = true;
+	}
+
+	/**
+	 * 未実行のタスクの実行を再開する
+	 */
+	public void resume() {
+		mPaused = false;
+		signalAll();
+	}
+
+	public boolean isPaused() {
+		return mPaused;
+	}
+
+	/**
+	 * 新規のタスクの追加を禁止する
+	 * 追加済みのタスクは全て実行してからワーカースレッドが終了する
+	 */
+	public void shutdown() {
+		mShutdown = true;
+		mPaused = false;
+		signalAll();
+	}
+
+	/**
+	 * 新規のタスクの追加を禁止して未実行のタスクを全て取り除く
+	 * 実行中のタスクには割り込みをかける
+	 * @return 未実行だったタスク
+	 */
+	@NonNull
+	public List<Runnable> shutdownNow() {
+		mShutdown = true;
+		mTerminating = true;
+		mPaused = false;
+		final List<Runnable> result = new ArrayList<Runnable>();
+		final Worker[] workers = mWorkers;
+		for (final Worker worker: workers) {
+			final int n = worker.remove(null, null, result);
+			mQueued.addAndGet(-n);
+		}
+		signalAll();
+		for (final Worker worker: workers) {
+			final Thread thread = worker.thread;
+			if (thread != null) {
+				thread.interrupt();
+			}
+		}
+		return result;
+	}
+
+	public boolean isShutdown() {
+		return mShutdown;
+	}
+
+	/**
+	 * 未実行のタスク数
+	 * @return
+	 */
+	public int getQueuedCount() {
+		return Math.max(mQueued.get(), 0);
+	}
+
+	/**
+	 * 実行中のタスク数
+	 * @return
+	 */
+	public int getActiveCount() {
+		return mActive.get();
+	}
+
+	/**
+	 * 実行が終了したタスク数
+	 * @return
+	 */
+	public long getCompletedCount() {
+		return mCompleted.get();
+	}
+
+	/**
+	 * ワーカースレッド数
+	 * @return
+	 */
+	public int getWorkerCount() {
+		return mWorkers.length;
+	}
+
+	public int getParallelism() {
+		return mParallelism;
+	}
+
+	/**
+	 * タスク追加時のキューの長さのヒストグラム
+	 * @return
+	 */
+	@NonNull
+	public Histogram getQueueDepthHistogram() {
+		return mQueueDepth;
+	}
+
+	/**
+	 * タスクを追加してから実行を開始するまでの時間[ナノ秒]のヒストグラム
+	 * @return
+	 */
+	@NonNull
+	public Histogram getWaitTimeHistogram() {
+		return mWaitTimeNs;
+	}
+
+	/**
+	 * タスクの実行時間[ナノ秒]のヒストグラム
+	 * @return
+	 */
+	@NonNull
+	public Histogram getRunTimeHistogram() {
+		return mRunTimeNs;
+	}
+
+//--------------------------------------------------------------------------------
+	/**
+	 * タスクをいずれかのワーカースレッドのキューへ追加する
+	 * @param task
+	 * @param internal 終了したワーカースレッドからの移し替えかどうか
+	 */
+	private void push(@NonNull final Task task, final boolean internal) {
+		final Worker current = mCurrentWorker.get();
+		if ((current == null) || !current.offer(task)) {
+			for ( ; ; ) {
+				Worker[] workers = mWorkers;
+				if ((workers.length == 0)
+					|| ((mIdle.get() == 0) && (workers.length < mParallelism))) {
+
+					workers = addWorker(internal);
+				}
+				if (workers.length == 0) {
+					// シャットダウン中でワーカースレッドを追加できなかった
+					mQueued.decrementAndGet();
+					throw new RejectedExecutionException("already shutdown");
+				}
+				final int ix = (mNext.getAndIncrement() & 0x7fffffff) % workers.length;
+				if (workers[ix].offer(task)) {
+					break;
+				}
+			}
+		}
+		signal();
+	}
+
+	/**
+	 * 優先度の高いレーンから順に実行するタスクを探す
+	 * PRIORITY_BULK_IOのタスクは取り出す前に実行枠を確保し、
+	 * 取り出せなかった時は確保した実行枠を戻す
+	 * @param self
+	 * @return
+	 */
+	@Nullable
+	private Task findTask(@NonNull final Worker self) {
+		final Worker[] workers = mWorkers;
+		for (int lane = 0; lane < NUM_LANES; lane++) {
+			final boolean bulk = lane == PRIORITY_BULK_IO;
+			if (bulk && !reserveBulk()) {
+				continue;
+			}
+			final Task task = pollLane(self, workers, lane);
+			if (task != null) {
+				return task;
+			}
+			if (bulk) {
+				// 実行枠を確保している間に追加されたタスクは
+				// mSignalが変わるので自ワーカースレッドが待機せずに再度探す
+				mRunningBulk.decrementAndGet();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * PRIORITY_BULK_IOのタスクの実行枠を確保する
+	 * @return 同時実行数の上限に達していればfalse
+	 */
+	private boolean reserveBulk() {
+		for ( ; ; ) {
+			final int running = mRunningBulk.get();
+			if (running >= mMaxBulk) {
+				return false;
+			}
+			if (mRunningBulk.compareAndSet(running, running + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * 指定したレーンのタスクを自ワーカースレッドのキューから、
+	 * 無ければ他のワーカースレッドのキューから取得(スティール)する
+	 * @param self
+	 * @param workers
+	 * @param lane
+	 * @return
+	 */
+	@Nullable
+	private static Task pollLane(@NonNull final Worker self,
+		@NonNull final Worker[] workers, final int lane) {
+
+		Task task = self.poll(lane);
+		if (task == null) {
+			final int n = workers.length;
+			for (int i = 1; i <= n; i++) {
+				final Worker worker = workers[(self.index + i) % n];
+				if (worker != self) {
+					task = worker.poll(lane);
+					if (task != null) {
+						break;
+					}
+				}
+			}
+		}
+		return task;
+	}
+
+	private void runTask(@NonNull final Task task) {
+		mQueued.decrementAndGet();
+		// PRIORITY_BULK_IOの実行枠は#findTaskで確保済み
+		final boolean bulk = task.priority == PRIORITY_BULK_IO;
+		mActive.incrementAndGet();
+		final long startNs = System.nanoTime();
+		mWaitTimeNs.record(startNs - task.enqueueTimeNs);
+		try {
+			task.command.run();
+		} catch (final RuntimeException e) {
+			// ワーカースレッドは終了させずに例外をUncaughtExceptionHandlerへ渡す
+			final Thread thread = Thread.currentThread();
+			final Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+			if (handler != null) {
+				handler.uncaughtException(thread, e);
+			} else {
+				Log.w(TAG, e);
+			}
+		} finally {
+			mRunTimeNs.record(System.nanoTime() - startNs);
+			mActive.decrementAndGet();
+			mCompleted.incrementAndGet();
+			if (bulk) {
+				mRunningBulk.decrementAndGet();
+			}
+			if (mShutdown) {
+				// 終了待ちのワーカースレッドを起床させる
+				signalAll();
+			} else if (bulk) {
+				// 実行数の制限で待機しているワーカースレッドがあるかもしれない
+				signal();
+			}
+		}
+	}
+
+	/**
+	 * ワーカースレッドを追加する
+	 * @param force シャットダウン中でも追加するかどうか
+	 * @return 追加後のワーカースレッドの配列
+	 */
+	@NonNull
+	private Worker[] addWorker(final boolean force) {
+		synchronized (mSync) {
+			final Worker[] workers = mWorkers;
+			if ((workers.length >= mParallelism) || mTerminating
+				|| (mShutdown && !force)) {
+
+				return workers;
+			}
+			final Worker worker = new Worker(workers.length);
+			final Worker[] result = new Worker[workers.length + 1];
+			System.arraycopy(workers, 0, result, 0, workers.length);
+			result[workers.length] = worker;
+			mWorkers = result;
+			worker.thread = new Thread(worker, mName + "-" + (mWorkerIndex++));
+			worker.thread.start();
+			return result;
+		}
+	}
+
+	/**
+	 * アイドル状態のワーカースレッドを終了させるかどうか
+	 * @param signal
+	 * @return 終了させる時はtrue
+	 */
+	private boolean tryRetire(final int signal) {
+		synchronized (mSync) {
+			return !mPaused && (mSignal.get() == signal) && (mQueued.get() <= 0);
+		}
+	}
+
+	private void removeWorker(@NonNull final Worker worker) {
+		synchronized (mSync) {
+			final Worker[] workers = mWorkers;
+			final int n = workers.length;
+			final List<Worker> result = new ArrayList<Worker>(n);
+			for (final Worker w: workers) {
+				if (w != worker) {
+					result.add(w);
+				}
+			}
+			if (result.size() != n) {
+				mWorkers = result.toArray(new Worker[result.size()]);
+			}
+		}
+	}
+
+	/**
+	 * 一時停止中はresumeされるまで待機する
+	 */
+	private void awaitResume() {
+		synchronized (mSync) {
+			mIdle.incrementAndGet();
+			try {
+				while (mPaused && !mTerminating) {
+					mSync.wait();
+				}
+			} catch (final InterruptedException e) {
+				// ignore
+			} finally {
+				mIdle.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * 待機中のワーカースレッドがあれば1つ起床させる
+	 */
+	private void signal() {
+		mSignal.incrementAndGet();
+		if (mIdle.get() > 0) {
+			synchronized (mSync) {
+				mSync.notify();
+			}
+		}
+	}
+
+	private void signalAll() {
+		mSignal.incrementAndGet();
+		synchronized (mSync) {
+			mSync.notifyAll();
+		}
+	}
+}
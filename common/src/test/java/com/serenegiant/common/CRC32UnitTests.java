@@ -0,0 +1,87 @@
+package com.serenegiant.common;
+
+import com.serenegiant.utils.CRC32;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * com.serenegiant.utils.CRC32用のローカルユニットテストクラス
+ */
+public class CRC32UnitTests {
+
+	/**
+	 * 1バイトずつ計算する以前の実装と同じ結果になるかどうか
+	 */
+	@Test
+	public void bytes_test() throws Exception {
+		final Random random = new Random(0);
+		for (int n = 0; n < 100; n++) {
+			final byte[] data = new byte[n];
+			random.nextBytes(data);
+			assertEquals(reference(data, 0, n, 0), CRC32.crc32(data));
+			assertEquals(reference(data, 0, n, 12345), CRC32.crc32(data, 12345));
+			if (n > 10) {
+				assertEquals(reference(data, 3, n - 7, 0), CRC32.crc32(data, 3, n - 7, 0));
+			}
+		}
+	}
+
+	@Test
+	public void string_test() throws Exception {
+		final String s = "libcommon/crc32";
+		assertEquals(reference(s.getBytes(), 0, s.length(), 0), CRC32.crc32(s));
+		final String t = "日本語";
+		assertEquals(reference(t.getBytes(), 0, t.length(), 0), CRC32.crc32(t));
+	}
+
+	@Test
+	public void byte_buffer_test() throws Exception {
+		final Random random = new Random(1);
+		final byte[] data = new byte[1000];
+		random.nextBytes(data);
+		final int expected = reference(data, 5, 990, 0);
+		final ByteBuffer heap = ByteBuffer.wrap(data);
+		heap.position(5).limit(995);
+		assertEquals(expected, CRC32.crc32(heap, 0));
+		for (final ByteOrder order: new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+			final ByteBuffer direct = ByteBuffer.allocateDirect(data.length).order(order);
+			direct.put(data).flip();
+			direct.position(5).limit(995);
+			assertEquals(expected, CRC32.crc32(direct, 0));
+			assertEquals(5, direct.position());
+			final CRC32 crc = new CRC32();
+			assertEquals(expected, crc.update(direct));
+			assertEquals(995, direct.position());
+		}
+	}
+
+	@Test
+	public void update_test() throws Exception {
+		final byte[] data = new byte[64];
+		new Random(2).nextBytes(data);
+		final CRC32 crc = new CRC32();
+		crc.update(data, 0, 20);
+		crc.update(data, 20, 44);
+		assertEquals(reference(data, 20, 44, reference(data, 0, 20, 0)), crc.getCrc());
+	}
+
+	/**
+	 * 以前の実装と同じく1バイトずつ末尾から計算する
+	 */
+	private static int reference(final byte[] p, final int offset, final int length, final int init) {
+		int crc = init ^ 0xffffffff;
+		for (int i = offset + length - 1; i >= offset; i--) {
+			crc ^= p[i] & 0xff;
+			for (int k = 0; k < 8; k++) {
+				crc = (crc & 1) != 0 ? (crc >>> 1) ^ 0xedb88320 : crc >>> 1;
+			}
+		}
+		return crc ^ 0xffffffff;
+	}
+}
@@ -0,0 +1,182 @@
+package com.serenegiant.common;
+
+import com.serenegiant.utils.CachedPool;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import androidx.annotation.Nullable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * com.serenegiant.utils.CachedPool用のローカルユニットテストクラス
+ */
+public class CachedPoolUnitTests {
+
+	private static class TestPool extends CachedPool<Object> {
+		private TestPool(final int initNum, final int maxNumInPool,
+			final int limitNum, final int magazineSize) {
+
+			super(initNum, maxNumInPool, limitNum, magazineSize);
+		}
+
+		@Nullable
+		@Override
+		protected Object createObject(@Nullable final Object... args) {
+			return new Object();
+		}
+	}
+
+	@Test
+	public void magazine_test() throws Exception {
+		final TestPool pool = new TestPool(2, 4, 4, 2);
+		CachedPool.Stats stats = pool.getStats();
+		assertEquals(2, stats.depotSize);
+		assertEquals(2, stats.created);
+		// デポから取得した時は残りもマガジンへ移る
+		final Object a = pool.obtain();
+		assertNotNull(a);
+		assertEquals(0, pool.getStats().depotSize);
+		final Object b = pool.obtain();
+		assertNotNull(b);
+		pool.recycle(b);
+		// 同じスレッドで返却したオブジェクトはマガジンから取得する
+		assertSame(b, pool.obtain());
+		stats = pool.getStats();
+		assertEquals(2, stats.hits);
+		assertEquals(1, stats.depotHits);
+		assertEquals(0, stats.misses);
+		assertEquals(0, stats.creations);
+	}
+
+	@Test
+	public void limit_test() throws Exception {
+		final TestPool pool = new TestPool(0, 2, 3, 2);
+		final List<Object> objects = new ArrayList<Object>();
+		for (int i = 0; i < 3; i++) {
+			final Object obj = pool.obtain();
+			assertNotNull(obj);
+			objects.add(obj);
+		}
+		// 最大生成数を超えるとnull
+		assertNull(pool.obtain());
+		CachedPool.Stats stats = pool.getStats();
+		assertEquals(4, stats.misses);
+		assertEquals(3, stats.creations);
+		assertEquals(3, stats.created);
+		pool.recycle(objects);
+		pool.flush();
+		// デポは2個までなので1個は破棄される
+		stats = pool.getStats();
+		assertEquals(2, stats.depotSize);
+		assertEquals(1, stats.discards);
+		assertEquals(2, stats.created);
+		pool.clear();
+		stats = pool.getStats();
+		assertEquals(0, stats.depotSize);
+		assertEquals(0, stats.created);
+	}
+
+	@Test
+	public void cross_thread_test() throws Exception {
+		final TestPool pool = new TestPool(0, 16, 16, 4);
+		final Set<Object> recycled = new HashSet<Object>();
+		// 別スレッドで返却してそのまま終了したスレッドのマガジンは回収される
+		final Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 3; i++) {
+					final Object obj = pool.obtain();
+					recycled.add(obj);
+				}
+				for (final Object obj: recycled) {
+					pool.recycle(obj);
+				}
+			}
+		});
+		thread.start();
+		thread.join();
+		assertEquals(3, recycled.size());
+		assertEquals(0, pool.getStats().depotSize);
+		for (int i = 0; i < 3; i++) {
+			assertTrue(recycled.contains(pool.obtain()));
+		}
+		final CachedPool.Stats stats = pool.getStats();
+		assertEquals(3, stats.creations);
+		assertEquals(3, stats.created);
+	}
+
+	@Test
+	public void cross_thread_starvation_test() throws Exception {
+		final TestPool pool = new TestPool(0, 4, 4, CachedPool.DEFAULT_MAGAZINE_SIZE);
+		final List<Object> objects = new ArrayList<Object>();
+		for (int i = 0; i < 4; i++) {
+			objects.add(pool.obtain());
+		}
+		assertNull(pool.obtain());
+		// 生存中の別スレッドで返却してもそのスレッドのマガジンに残ったままにならない
+		final Object sync = new Object();
+		final boolean[] recycled = new boolean[1];
+		final Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				synchronized (sync) {
+					pool.recycle(objects);
+					recycled[0] = true;
+					sync.notifyAll();
+					try {
+						sync.wait();
+					} catch (final InterruptedException e) {
+						// ignore
+					}
+				}
+			}
+		});
+		thread.start();
+		try {
+			synchronized (sync) {
+				while (!recycled[0]) {
+					sync.wait();
+				}
+			}
+			assertTrue(thread.isAlive());
+			for (int i = 0; i < 4; i++) {
+				assertTrue(objects.contains(pool.obtain()));
+			}
+			assertNull(pool.obtain());
+			final CachedPool.Stats stats = pool.getStats();
+			assertEquals(4, stats.creations);
+			assertEquals(4, stats.created);
+		} finally {
+			synchronized (sync) {
+				sync.notifyAll();
+			}
+			thread.join();
+		}
+	}
+
+	@Test
+	public void leak_detection_test()throws Exception {
+		final TestPool pool = new TestPool(0, 4, 4, 2);
+		pool.setLeakDetection(true);
+		final Object a = pool.obtain();
+		final Object b = pool.obtain();
+		assertEquals(2, pool.getOutstandingCount());
+		pool.recycle(a);
+		assertEquals(1, pool.getOutstandingCount());
+		pool.recycle(b);
+		assertEquals(0, pool.getOutstandingCount());
+		pool.setLeakDetection(false);
+		pool.obtain();
+		assertEquals(0, pool.getOutstandingCount());
+	}
+}
@@ -0,0 +1,163 @@
+package com.serenegiant.common;
+
+import com.serenegiant.io.ByteBufferPool;
+import com.serenegiant.io.ChannelHelper;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * com.serenegiant.io.ChannelHelper用のローカルユニットテストクラス
+ */
+public class ChannelHelperUnitTests {
+
+	/**
+	 * 書き込んだデータを1回の読み込みで最大chunkバイトずつ返すByteChannel
+	 * TCPで受信データが分割された時の動作確認用
+	 */
+	private static class FragmentedChannel implements ByteChannel {
+		private final ByteArrayOutputStream mOut = new ByteArrayOutputStream();
+		private final int mChunk;
+		private byte[] mData;
+		private int mPos;
+
+		private FragmentedChannel(final int chunk) {
+			mChunk = chunk;
+		}
+
+		@Override
+		public int read(final ByteBuffer dst) {
+			if (mData == null) {
+				mData = mOut.toByteArray();
+			}
+			if (mPos >= mData.length) {
+				return -1;
+			}
+			final int n = Math.min(Math.min(mChunk, dst.remaining()), mData.length - mPos);
+			dst.put(mData, mPos, n);
+			mPos += n;
+			return n;
+		}
+
+		@Override
+		public int write(final ByteBuffer src) {
+			final int n = Math.min(mChunk, src.remaining());
+			for (int i = 0; i < n; i++) {
+				mOut.write(src.get());
+			}
+			return n;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	@Test
+	public void fragmented_read_write_test() throws Exception {
+		final FragmentedChannel channel = new FragmentedChannel(3);
+		final int[] ints = new int[] {1, -2, Integer.MAX_VALUE, Integer.MIN_VALUE};
+		final double[] doubles = new double[] {0.5, -1.25, Double.MAX_VALUE};
+		final byte[] bytes = new byte[1000];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte)i;
+		}
+		ChannelHelper.write(channel, 12345678);
+		ChannelHelper.write(channel, "ChannelHelper");
+		ChannelHelper.write(channel, ints);
+		ChannelHelper.write(channel, doubles);
+		ChannelHelper.write(channel, bytes);
+		ChannelHelper.write(channel, ByteBuffer.wrap(bytes));
+
+		assertEquals(12345678, ChannelHelper.readInt(channel));
+		assertEquals("ChannelHelper", ChannelHelper.readString(channel));
+		assertArrayEquals(ints, ChannelHelper.readIntArray(channel));
+		assertArrayEquals(doubles, ChannelHelper.readDoubleArray(channel), 0.0);
+		assertArrayEquals(bytes, ChannelHelper.readByteArray(channel));
+		final ByteBufferPool pool = new ByteBufferPool();
+		final ByteBufferPool.Lease lease = ChannelHelper.readByteBuffer(channel, pool);
+		final ByteBuffer buf = lease.buffer();
+		assertEquals(bytes.length, buf.remaining());
+		for (int i = 0; i < bytes.length; i++) {
+			assertEquals(bytes[i], buf.get());
+		}
+		lease.release();
+		try {
+			ChannelHelper.readInt(channel);
+			fail("should throw EOFException");
+		} catch (final EOFException e) {
+			// ok
+		}
+	}
+
+	@Test
+	public void pool_test() throws Exception {
+		final ByteBufferPool pool = new ByteBufferPool(4096, 2);
+		final ByteBuffer b0 = pool.obtain(300);
+		assertEquals(512, b0.capacity());
+		assertEquals(300, b0.limit());
+		pool.recycle(b0);
+		final ByteBuffer b1 = pool.obtain(400);
+		assertSame(b0, b1);
+		assertEquals(400, b1.limit());
+		// 最大サイズクラスより大きい時はそのサイズで確保する
+		assertEquals(5000, pool.obtain(5000).capacity());
+
+		final ByteBufferPool.Lease lease = pool.lease(100);
+		lease.retain();
+		lease.release();
+		lease.release();
+		try {
+			lease.release();
+			fail("should throw IllegalStateException");
+		} catch (final IllegalStateException e) {
+			// ok
+		}
+	}
+
+	@Test
+	public void max_length_test() throws Exception {
+		final FragmentedChannel channel = new FragmentedChannel(3);
+		// 要素数だけ書き込んで大きな配列を確保しようとしないことを確認する
+		ChannelHelper.write(channel, Integer.MAX_VALUE / 8);
+		try {
+			ChannelHelper.readLongArray(channel);
+			fail("should throw IOException");
+		} catch (final EOFException e) {
+			fail("should not try to read elements");
+		} catch (final IOException e) {
+			// ok
+		}
+		final int maxBytes = ChannelHelper.getMaxLengthBytes();
+		try {
+			ChannelHelper.setMaxLengthBytes(4);
+			final FragmentedChannel channel2 = new FragmentedChannel(3);
+			ChannelHelper.write(channel2, "12345");
+			try {
+				ChannelHelper.readString(channel2);
+				fail("should throw IOException");
+			} catch (final EOFException e) {
+				fail("should not try to read string");
+			} catch (final IOException e) {
+				// ok
+			}
+		} finally {
+			ChannelHelper.setMaxLengthBytes(maxBytes);
+		}
+	}
+}
@@ -0,0 +1,183 @@
+package com.serenegiant.common;
+
+import com.serenegiant.collections.LockFreeStack;
+import com.serenegiant.collections.SnapshotList;
+import com.serenegiant.collections.StripedReadWriteMap;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * com.serenegiant.collectionsのStripedReadWriteMap/SnapshotList/LockFreeStack用の
+ * ローカルユニットテストクラス
+ * 1/2/4/8スレッドから同時にアクセスして値の過不足が無いかどうかを確認する
+ */
+public class ConcurrentCollectionsUnitTests {
+
+	private static final int[] THREADS = {1, 2, 4, 8};
+	private static final int NUM_PER_THREAD = 20000;
+
+	@Test
+	public void striped_map_test() throws Exception {
+		final StripedReadWriteMap<Integer, Integer> map
+			= new StripedReadWriteMap<Integer, Integer>(4);
+		assertEquals(4, map.getStripeCount());
+		assertTrue(map.isEmpty());
+		assertNull(map.put(1, 10));
+		assertEquals(10, (int)map.put(1, 11));
+		assertEquals(11, (int)map.putIfAbsent(1, 12));
+		assertNull(map.remove(1, 12));
+		assertEquals(11, (int)map.getOrDefault(1, 0));
+		assertEquals(0, (int)map.getOrDefault(2, 0));
+		assertTrue(map.containsValue(11));
+		assertEquals(11, (int)map.remove(1, 11));
+		assertTrue(map.isEmpty());
+
+		for (final int threads: THREADS) {
+			map.clear();
+			run(threads, new Task() {
+				@Override
+				public void run(final int id) {
+					final int base = id * NUM_PER_THREAD;
+					for (int i = 0; i < NUM_PER_THREAD; i++) {
+						map.put(base + i, i);
+						map.get(i);
+					}
+					for (int i = 0; i < NUM_PER_THREAD; i += 2) {
+						map.remove(base + i);
+					}
+				}
+			});
+			assertEquals(threads * NUM_PER_THREAD / 2, map.size());
+			assertEquals(map.size(), map.keys().size());
+			assertEquals(map.size(), map.values().size());
+			assertEquals(map.size(), map.entrySet().size());
+			for (final Integer key: map.keys()) {
+				assertEquals(1, key % 2);
+				assertEquals(key % NUM_PER_THREAD, (int)map.get(key));
+			}
+			assertEquals(threads * NUM_PER_THREAD / 2, map.removeAll().size());
+			assertTrue(map.isEmpty());
+		}
+	}
+
+	@Test
+	public void snapshot_list_test() throws Exception {
+		final SnapshotList<Integer> list = new SnapshotList<Integer>();
+		assertNull(list.tryGet(0));
+		assertNull(list.removeLast());
+		for (final int threads: THREADS) {
+			list.clear();
+			final AtomicInteger iterated = new AtomicInteger();
+			run(threads, new Task() {
+				@Override
+				public void run(final int id) {
+					final int n = NUM_PER_THREAD / 100;
+					for (int i = 0; i < n; i++) {
+						list.add(id * n + i);
+						// 変更中でもConcurrentModificationExceptionにならない
+						for (final Integer v: list.values()) {
+							if (v == null) {
+								throw new AssertionError();
+							}
+						}
+						iterated.incrementAndGet();
+					}
+				}
+			});
+			assertEquals(threads * (NUM_PER_THREAD / 100), list.size());
+			assertEquals(list.size(), iterated.get());
+			final Set<Integer> values = new HashSet<Integer>(list);
+			assertEquals(list.size(), values.size());
+			// 反復中に要素を削除できる
+			for (final Integer v: list) {
+				list.remove(v);
+			}
+			assertTrue(list.isEmpty());
+		}
+	}
+
+	@Test
+	public void lock_free_stack_test() throws Exception {
+		final LockFreeStack<Integer> stack = new LockFreeStack<Integer>();
+		assertNull(stack.pop());
+		stack.push(1);
+		stack.push(2);
+		assertEquals(2, (int)stack.peek());
+		assertEquals(2, (int)stack.pop());
+		assertEquals(1, (int)stack.pop());
+		assertTrue(stack.isEmpty());
+		assertTrue(stack.offer(1, 1));
+		assertFalse(stack.offer(2, 1));
+		stack.clear();
+
+		for (final int threads: THREADS) {
+			final AtomicInteger popped = new AtomicInteger();
+			run(threads, new Task() {
+				@Override
+				public void run(final int id) {
+					final int base = id * NUM_PER_THREAD;
+					for (int i = 0; i < NUM_PER_THREAD; i++) {
+						stack.push(base + i);
+						if ((i % 2 == 0) && (stack.pop() != null)) {
+							popped.incrementAndGet();
+						}
+					}
+				}
+			});
+			final List<Integer> rest = stack.clear();
+			assertEquals(threads * NUM_PER_THREAD, popped.get() + rest.size());
+			assertEquals(new HashSet<Integer>(rest).size(), rest.size());
+			assertEquals(0, stack.size());
+			assertTrue(stack.isEmpty());
+		}
+	}
+
+	private interface Task {
+		public void run(final int id);
+	}
+
+	/**
+	 * 指定した数のスレッドで同時にTaskを実行して全て終了するまで待機する
+	 * @param threads
+	 * @param task
+	 * @throws Exception
+	 */
+	private static void run(final int threads, final Task task) throws Exception {
+		final CountDownLatch start = new CountDownLatch(1);
+		final Thread[] workers = new Thread[threads];
+		final Throwable[] errors = new Throwable[threads];
+		for (int i = 0; i < threads; i++) {
+			final int id = i;
+			workers[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						task.run(id);
+					} catch (final Throwable t) {
+						errors[id] = t;
+					}
+				}
+			});
+			workers[i].start();
+		}
+		start.countDown();
+		for (int i = 0; i < threads; i++) {
+			workers[i].join();
+			if (errors[i] != null) {
+				throw new AssertionError(errors[i]);
+			}
+		}
+	}
+}
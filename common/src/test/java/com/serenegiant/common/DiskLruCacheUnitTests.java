@@ -0,0 +1,183 @@
+package com.serenegiant.common;
+
+import com.serenegiant.io.DiskLruCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * com.serenegiant.io.DiskLruCache用のローカルユニットテストクラス
+ */
+public class DiskLruCacheUnitTests {
+
+	private File mDir;
+
+	@Before
+	public void setUp() throws Exception {
+		mDir = File.createTempFile("disklrucache", "");
+		assertTrue(mDir.delete());
+		assertTrue(mDir.mkdirs());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		DiskLruCache.deleteContents(mDir);
+		mDir.delete();
+	}
+
+	@Test
+	public void put_get_test() throws Exception {
+		final DiskLruCache cache = DiskLruCache.open(mDir, 1, 2, Long.MAX_VALUE);
+		assertNull(cache.get("k1"));
+		put(cache, "k1", "abc", "de");
+		assertValue(cache, "k1", "abc", "de");
+		assertEquals(5, cache.size());
+		final DiskLruCache.Snapshot snapshot = cache.get("k1");
+		final ByteBuffer mapped = snapshot.getByteBuffer(0);
+		snapshot.close();
+		assertEquals(3, snapshot.getLength(0));
+		assertEquals(3, mapped.remaining());
+		assertEquals('a', mapped.get(0));
+		assertTrue(cache.remove("k1"));
+		assertNull(cache.get("k1"));
+		assertEquals(0, cache.size());
+		cache.close();
+	}
+
+	@Test
+	public void reopen_test() throws Exception {
+		DiskLruCache cache = DiskLruCache.open(mDir, 1, 2, Long.MAX_VALUE);
+		put(cache, "k1", "a", "b");
+		put(cache, "k2", "cc", "dd");
+		put(cache, "k1", "aaa", "bbb");
+		assertTrue(cache.remove("k2"));
+		cache.close();
+		cache = DiskLruCache.open(mDir, 1, 2, Long.MAX_VALUE);
+		assertValue(cache, "k1", "aaa", "bbb");
+		assertNull(cache.get("k2"));
+		assertEquals(6, cache.size());
+		cache.close();
+	}
+
+	@Test
+	public void evict_test() throws Exception {
+		DiskLruCache cache = DiskLruCache.open(mDir, 1, 1, 10);
+		put1(cache, "a", "aaaa");
+		put1(cache, "b", "bbbb");
+		// aを最近使ったことにするとbが先に削除される
+		cache.get("a").close();
+		put1(cache, "c", "cccc");
+		cache.flush();
+		assertNotNull(cache.get("a"));
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("c"));
+		cache.close();
+		// 再オープン後もLRUの順番が保たれているかどうか
+		cache = DiskLruCache.open(mDir, 1, 1, 10);
+		cache.get("c").close();
+		put1(cache, "d", "dddd");
+		cache.flush();
+		assertNull(cache.get("a"));
+		assertNotNull(cache.get("c"));
+		cache.close();
+	}
+
+	@Test
+	public void concurrent_test() throws Exception {
+		final DiskLruCache cache = DiskLruCache.open(mDir, 1, 1, Long.MAX_VALUE);
+		final int numThreads = 4;
+		final int numKeys = 50;
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		final Thread[] threads = new Thread[numThreads];
+		for (int t = 0; t < numThreads; t++) {
+			final int id = t;
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (int round = 0; round < 20; round++) {
+							for (int i = 0; i < numKeys; i++) {
+								final String key = "k" + (i % 10) + "_" + id;
+								final String value = key + "_" + round;
+								put1(cache, key, value);
+								final DiskLruCache.Snapshot snapshot = cache.get(key);
+								assertNotNull(snapshot);
+								try {
+									assertTrue(snapshot.getString(0).startsWith(key));
+								} finally {
+									snapshot.close();
+								}
+							}
+						}
+					} catch (final Throwable e) {
+						error.compareAndSet(null, e);
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (final Thread thread: threads) {
+			thread.join();
+		}
+		if (error.get() != null) {
+			throw new AssertionError(error.get());
+		}
+		cache.close();
+		final DiskLruCache reopened = DiskLruCache.open(mDir, 1, 1, Long.MAX_VALUE);
+		for (int t = 0; t < numThreads; t++) {
+			for (int i = 0; i < 10; i++) {
+				final String key = "k" + i + "_" + t;
+				final DiskLruCache.Snapshot snapshot = reopened.get(key);
+				assertNotNull(snapshot);
+				assertEquals(key + "_19", snapshot.getString(0));
+				snapshot.close();
+			}
+		}
+		assertFalse(reopened.isClosed());
+		reopened.close();
+	}
+
+	private static void put(final DiskLruCache cache, final String key,
+		final String v0, final String v1) throws IOException {
+
+		final DiskLruCache.Editor editor = cache.edit(key);
+		assertNotNull(editor);
+		editor.set(0, v0);
+		editor.set(1, v1);
+		editor.commit();
+	}
+
+	private static void put1(final DiskLruCache cache, final String key,
+		final String v0) throws IOException {
+
+		final DiskLruCache.Editor editor = cache.edit(key);
+		assertNotNull(editor);
+		editor.set(0, v0);
+		editor.commit();
+	}
+
+	private static void assertValue(final DiskLruCache cache, final String key,
+		final String v0, final String v1) throws IOException {
+
+		final DiskLruCache.Snapshot snapshot = cache.get(key);
+		assertNotNull(snapshot);
+		try {
+			assertEquals(v0, snapshot.getString(0));
+			assertEquals(v1, snapshot.getString(1));
+		} finally {
+			snapshot.close();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.serenegiant.common;
+
+import com.serenegiant.io.DiskLruCache;
+import com.serenegiant.io.DiskPackCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * com.serenegiant.io.DiskPackCache用のローカルユニットテストクラス
+ */
+public class DiskPackCacheUnitTests {
+
+	private static final int SEGMENT_SIZE = 1024;
+
+	private File mDir;
+
+	@Before
+	public void setUp() throws Exception {
+		mDir = File.createTempFile("diskpackcache", "");
+		assertTrue(mDir.delete());
+		assertTrue(mDir.mkdirs());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		DiskLruCache.deleteContents(mDir);
+		mDir.delete();
+	}
+
+	@Test
+	public void put_get_test() throws Exception {
+		final DiskPackCache cache = DiskPackCache.open(mDir, SEGMENT_SIZE, SEGMENT_SIZE * 4);
+		assertNull(cache.get("a"));
+		assertTrue(cache.put("a", new byte[] {1, 2, 3}));
+		assertTrue(cache.put("b", new byte[] {4, 5}));
+		assertTrue(cache.put("a", new byte[] {6}));
+		final ByteBuffer a = cache.get("a");
+		assertTrue(a.isReadOnly());
+		assertEquals(1, a.remaining());
+		assertEquals(6, a.get(0));
+		assertArrayEquals(new byte[] {4, 5}, cache.getBytes("b"));
+		assertEquals(3, cache.size());
+		assertTrue(cache.remove("b"));
+		assertFalse(cache.remove("b"));
+		assertNull(cache.get("b"));
+		assertFalse(cache.put("big", new byte[SEGMENT_SIZE]));
+		cache.close();
+	}
+
+	@Test
+	public void reopen_test() throws Exception {
+		DiskPackCache cache = DiskPackCache.open(mDir, SEGMENT_SIZE, SEGMENT_SIZE * 4);
+		cache.put("a", new byte[] {1, 2, 3});
+		cache.put("b", new byte[] {4, 5});
+		cache.put("a", new byte[] {7, 8});
+		cache.remove("b");
+		cache.close();
+		cache = DiskPackCache.open(mDir, SEGMENT_SIZE, SEGMENT_SIZE * 4);
+		assertArrayEquals(new byte[] {7, 8}, cache.getBytes("a"));
+		assertNull(cache.get("b"));
+		assertEquals(2, cache.size());
+		// 再オープン後も続きから追記できるかどうか
+		cache.put("c", new byte[] {9});
+		cache.close();
+		cache = DiskPackCache.open(mDir, SEGMENT_SIZE, SEGMENT_SIZE * 4);
+		assertArrayEquals(new byte[] {7, 8}, cache.getBytes("a"));
+		assertArrayEquals(new byte[] {9}, cache.getBytes("c"));
+		cache.close();
+	}
+
+	@Test
+	public void evict_test() throws Exception {
+		final DiskPackCache cache = DiskPackCache.open(mDir, SEGMENT_SIZE, SEGMENT_SIZE * 2);
+		final byte[] value = new byte[100];
+		for (int i = 0; i < 50; i++) {
+			assertTrue(cache.put("k" + i, value));
+		}
+		// 古いセグメントに保存した値は削除されている
+		assertNull(cache.get("k0"));
+		assertEquals(100, cache.get("k49").remaining());
+		assertTrue(cache.size() <= SEGMENT_SIZE * 2);
+		cache.close();
+	}
+}
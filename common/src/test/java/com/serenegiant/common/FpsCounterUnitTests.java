@@ -0,0 +1,88 @@
+package com.serenegiant.common;
+
+import com.serenegiant.utils.FpsCounter;
+import com.serenegiant.utils.Histogram;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * com.serenegiant.utils.FpsCounterとHistogramの精度指定用のローカルユニットテストクラス
+ */
+public class FpsCounterUnitTests {
+
+	private static final long FRAME_NS = 33333333L;
+
+	@Test
+	public void histogram_precision_test() throws Exception {
+		final Histogram histogram = new Histogram(4);
+		assertEquals(4, histogram.getPrecision());
+		assertEquals(60 << 4, histogram.getNumBuckets());
+		assertEquals(0, histogram.indexOf(-1));
+		assertEquals(15, histogram.indexOf(15));
+		assertEquals(histogram.getNumBuckets() - 1, histogram.indexOf(Long.MAX_VALUE));
+		assertEquals(Long.MAX_VALUE, histogram.upperBoundOf(histogram.getNumBuckets() - 1));
+		// 全てのバケットで上限値と次のバケットの下限値が連続している
+		for (int i = 0; i < histogram.getNumBuckets() - 1; i++) {
+			final long upper = histogram.upperBoundOf(i);
+			assertEquals(i, histogram.indexOf(upper));
+			assertEquals(i + 1, histogram.indexOf(upper + 1));
+		}
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000L);
+		}
+		// 相対誤差は2^-4以内
+		final long p50 = histogram.getPercentile(50);
+		assertTrue(p50 >= 500000L);
+		assertTrue(p50 <= 500000L + 500000L / 16);
+		assertEquals(1000000L, histogram.getPercentile(100));
+	}
+
+	@Test
+	public void frame_time_test() throws Exception {
+		final FpsCounter counter = new FpsCounter(30);
+		long t = 0;
+		for (int i = 0; i < 100; i++) {
+			counter.count(t);
+			t += FRAME_NS;
+		}
+		assertEquals(100, counter.getCount());
+		assertEquals(0, counter.getDroppedFrames());
+		assertEquals(99, counter.getFrameTimeHistogram().getCount());
+		final long p50 = counter.getFrameTimeNs(50);
+		assertTrue(p50 >= FRAME_NS);
+		assertTrue(p50 <= FRAME_NS + FRAME_NS / 16);
+		// 2フレーム分の間隔が空いた時は1フレーム、3フレーム分なら2フレームドロップ
+		t += FRAME_NS;
+		counter.count(t);
+		t += FRAME_NS * 3;
+		counter.count(t);
+		assertEquals(3, counter.getDroppedFrames());
+		assertTrue(counter.getFrameTimeNs(99) >= FRAME_NS * 2);
+		counter.reset();
+		assertEquals(0, counter.getCount());
+		assertEquals(0, counter.getDroppedFrames());
+		assertEquals(0, counter.getFrameTimeNs(50));
+	}
+
+	@Test
+	public void estimate_interval_test() throws Exception {
+		final FpsCounter counter = new FpsCounter();
+		long t = 0;
+		for (int i = 0; i < 10; i++) {
+			counter.count(t);
+			t += FRAME_NS;
+		}
+		// 基準のフレーム間隔が未確定の間はドロップフレームを数えない
+		t += FRAME_NS;
+		counter.count(t);
+		assertEquals(0, counter.getDroppedFrames());
+		counter.update();
+		t += FRAME_NS * 2;
+		counter.count(t);
+		assertEquals(1, counter.getDroppedFrames());
+		assertTrue(counter.getTotalFps() > 0);
+	}
+}
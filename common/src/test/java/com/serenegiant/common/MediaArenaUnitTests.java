@@ -0,0 +1,116 @@
+package com.serenegiant.common;
+
+import com.serenegiant.media.MediaArena;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * com.serenegiant.media.MediaArena用のローカルユニットテストクラス
+ */
+public class MediaArenaUnitTests {
+
+	private static final int SLAB_SIZE = 16 * 1024;
+
+	@Test
+	public void reuse_test() throws Exception {
+		final MediaArena arena = new MediaArena(4 * SLAB_SIZE, SLAB_SIZE);
+		final MediaArena.Lease a = arena.lease(1000);
+		final ByteBuffer buf = a.buffer();
+		buf.putInt(1);
+		a.release();
+		// 同じサイズクラスなら返却したバッファを再利用する
+		final MediaArena.Lease b = arena.lease(800);
+		assertSame(buf, b.buffer());
+		assertEquals(0, b.buffer().position());
+		assertEquals(b.capacity(), b.buffer().limit());
+		// 参照カウントが0になるまでは返却されない
+		b.retain();
+		b.release();
+		assertNotSame(buf, arena.lease(800).buffer());
+		b.release();
+		assertSame(buf, arena.lease(800).buffer());
+		try {
+			b.release();
+			fail("release after recycled should throw");
+		} catch (final IllegalStateException e) {
+			// expected
+		}
+		final MediaArena.Stats stats = arena.getStats();
+		assertEquals(4, stats.allocations);
+		assertEquals(0, stats.fallbacks);
+		assertEquals(1, stats.usedSlabs);
+	}
+
+	@Test
+	public void size_class_test() throws Exception {
+		final MediaArena arena = new MediaArena(4 * SLAB_SIZE, SLAB_SIZE);
+		assertEquals(SLAB_SIZE, arena.slabSize());
+		// 1KB未満は1KB, それ以上は2のべき乗に切り上げる
+		assertEquals(1024, arena.lease(0).capacity());
+		assertEquals(1024, arena.lease(1024).capacity());
+		assertEquals(2048, arena.lease(1025).capacity());
+		assertEquals(SLAB_SIZE, arena.lease(SLAB_SIZE).capacity());
+		final MediaArena.Stats stats = arena.getStats();
+		assertEquals(2, stats.inUse[0]);
+		assertEquals(1, stats.inUse[1]);
+		assertEquals(SLAB_SIZE, MediaArena.Stats.bytesOf(4));
+		assertEquals(1, stats.inUse[4]);
+		// サイズクラス毎に別のスラブを割り当てる
+		assertEquals(3, stats.usedSlabs);
+		assertEquals(1024 * 2 + 2048 + SLAB_SIZE, stats.bytesInUse);
+	}
+
+	@Test
+	public void oversized_test() throws Exception {
+		final MediaArena arena = new MediaArena(4 * SLAB_SIZE, SLAB_SIZE);
+		final MediaArena.Lease a = arena.lease(SLAB_SIZE + 1);
+		assertTrue(a.capacity() >= SLAB_SIZE + 1);
+		final ByteBuffer buf = a.buffer();
+		a.release();
+		// スラブサイズより大きいバッファも返却されたものを再利用する
+		final MediaArena.Lease b = arena.lease(SLAB_SIZE + 1);
+		assertSame(buf, b.buffer());
+		// 保持しているものより大きければ新しく確保する
+		final MediaArena.Lease c = arena.lease(2 * SLAB_SIZE);
+		assertTrue(c.capacity() >= 2 * SLAB_SIZE);
+		b.release();
+		c.release();
+		// 要求されたサイズ以上で一番小さいものを再利用する
+		assertSame(buf, arena.lease(SLAB_SIZE + 1).buffer());
+		final MediaArena.Stats stats = arena.getStats();
+		assertEquals(2, stats.oversized);
+		assertEquals(2, stats.oversizedHits);
+		assertEquals(0, stats.usedSlabs);
+	}
+
+	@Test
+	public void exhaustion_test() throws Exception {
+		final MediaArena arena = new MediaArena(2 * SLAB_SIZE, SLAB_SIZE);
+		final MediaArena.Lease a = arena.lease(SLAB_SIZE);
+		final MediaArena.Lease b = arena.lease(SLAB_SIZE);
+		// アリーナを使い切るとダイレクトByteBufferを確保する
+		final MediaArena.Lease c = arena.lease(SLAB_SIZE);
+		assertEquals(SLAB_SIZE, c.capacity());
+		final ByteBuffer buf = c.buffer();
+		MediaArena.Stats stats = arena.getStats();
+		assertEquals(2, stats.usedSlabs);
+		assertEquals(1, stats.fallbacks);
+		assertEquals(3, stats.highWater[4]);
+		// 確保したバッファも同じサイズクラスで再利用する
+		c.release();
+		assertSame(buf, arena.lease(SLAB_SIZE).buffer());
+		stats = arena.getStats();
+		assertEquals(1, stats.fallbacks);
+		a.release();
+		b.release();
+		assertEquals(SLAB_SIZE, arena.getStats().bytesInUse);
+	}
+}
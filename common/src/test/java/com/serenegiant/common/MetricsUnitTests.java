@@ -0,0 +1,128 @@
+package com.serenegiant.common;
+
+import com.serenegiant.metrics.Metrics;
+import com.serenegiant.metrics.MetricsSink;
+import com.serenegiant.metrics.RingMetricsSink;
+import com.serenegiant.utils.MessageTask;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * com.serenegiant.metrics.Metrics/RingMetricsSink用のローカルユニットテストクラス
+ */
+public class MetricsUnitTests {
+
+	@Test
+	public void no_op_test() throws Exception {
+		Metrics.setSink(null);
+		assertSame(Metrics.NO_OP, Metrics.getSink());
+		assertFalse(Metrics.isEnabled());
+		// 出力先が無い時はタイマーも区間も開始しない
+		assertEquals(0, Metrics.startTimer());
+		assertNull(Metrics.beginSection("test"));
+		Metrics.endSection(null);
+		Metrics.count("test", 1);
+	}
+
+	@Test
+	public void ring_test() throws Exception {
+		final RingMetricsSink sink = new RingMetricsSink(4);
+		Metrics.setSink(sink);
+		try {
+			assertTrue(Metrics.isEnabled());
+			Metrics.count("bytes", 10);
+			Metrics.count("bytes", 20);
+			Metrics.gauge("depth", 3);
+			final long start = Metrics.startTimer();
+			assertTrue(start != 0);
+			Metrics.stopTimer("time", start);
+			assertEquals(4, sink.size());
+			assertEquals(30, sink.getTotal("bytes"));
+			assertEquals(3, sink.getLast("depth", -1));
+			assertTrue(sink.getLast("time", -1) >= 0);
+			// 容量を超えると古いものから上書きする
+			final MetricsSink section = Metrics.beginSection("section");
+			Metrics.endSection(section);
+			assertEquals(4, sink.size());
+			assertEquals(2, sink.getOverwrittenCount());
+			assertEquals(0, sink.getTotal("bytes"));
+			final List<RingMetricsSink.Event> events = sink.getEvents();
+			assertEquals(RingMetricsSink.TYPE_GAUGE, events.get(0).type);
+			assertEquals(RingMetricsSink.TYPE_SECTION_BEGIN, events.get(2).type);
+			assertEquals("section", events.get(2).name);
+			assertEquals(RingMetricsSink.TYPE_SECTION_END, events.get(3).type);
+			sink.clear();
+			assertEquals(0, sink.size());
+		} finally {
+			Metrics.setSink(null);
+		}
+	}
+
+	@Test
+	public void message_task_test() throws Exception {
+		final RingMetricsSink sink = new RingMetricsSink();
+		Metrics.setSink(sink);
+		try {
+			final TestTask task = new TestTask();
+			task.setMetricsName("test");
+			new Thread(task).start();
+			assertTrue(task.waitReady());
+			assertEquals(1, task.offerAndWait(1, 0, 0, null));
+			task.release();
+			assertTrue(sink.getEvents("test.process_time").size() >= 1);
+			assertTrue(sink.getEvents("test.queue_depth").size() >= 1);
+			// 区間は開始と終了が対になる
+			int begin = 0, end = 0;
+			for (final RingMetricsSink.Event event: sink.getEvents()) {
+				if (event.type == RingMetricsSink.TYPE_SECTION_BEGIN) {
+					assertEquals("test", event.name);
+					begin++;
+				} else if (event.type == RingMetricsSink.TYPE_SECTION_END) {
+					end++;
+				}
+			}
+			assertTrue(begin >= 1);
+			assertEquals(begin, end);
+		} finally {
+			Metrics.setSink(null);
+		}
+	}
+
+	private static class TestTask extends MessageTask {
+		private TestTask() {
+			super();
+			init(0, 0, null);
+		}
+
+		@Override
+		protected void onInit(final int arg1, final int arg2, final Object obj) {
+		}
+
+		@Override
+		protected void onStart() {
+		}
+
+		@Override
+		protected void onStop() {
+		}
+
+		@Override
+		protected void onRelease() {
+		}
+
+		@Override
+		protected Object processRequest(final int request,
+			final int arg1, final int arg2, final Object obj) throws TaskBreak {
+
+			return request;
+		}
+	}
+}
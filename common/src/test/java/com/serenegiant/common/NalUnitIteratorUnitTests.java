@@ -0,0 +1,91 @@
+package com.serenegiant.common;
+
+import com.serenegiant.media.NalUnitIterator;
+import com.serenegiant.utils.BufferHelper;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * com.serenegiant.media.NalUnitIteratorとBufferHelper#findStartCode用のローカルユニットテストクラス
+ */
+public class NalUnitIteratorUnitTests {
+
+	private static final byte[] STREAM = {
+		0, 0, 0, 1, 0x67, 1, 2,			// SPS, 4バイトのスタートコード
+		0, 0, 1, 0x68, 3, 0,			// PPS, 3バイトのスタートコード, trailing_zero_8bits
+		0, 0, 0, 1, 0x65, 9, 9, 9,		// IDR
+	};
+
+	@Test
+	public void find_annexb_test() throws Exception {
+		assertEquals(0, BufferHelper.findAnnexB(STREAM, 0));
+		assertEquals(7, BufferHelper.findAnnexB(STREAM, 2));
+		assertEquals(13, BufferHelper.findAnnexB(STREAM, 10));
+		final ByteBuffer direct = ByteBuffer.allocateDirect(STREAM.length);
+		direct.put(STREAM).flip();
+		assertEquals(7, BufferHelper.findAnnexB(direct, 2));
+		assertEquals(0, direct.position());
+	}
+
+	/**
+	 * 1バイトずつ比較した結果と一致するかどうか
+	 */
+	@Test
+	public void find_start_code_test() throws Exception {
+		final Random random = new Random(0);
+		for (int t = 0; t < 10000; t++) {
+			final byte[] data = new byte[random.nextInt(64) + 1];
+			for (int i = 0; i < data.length; i++) {
+				final int r = random.nextInt(8);
+				data[i] = (byte)(r < 3 ? 0 : (r < 5 ? 1 : random.nextInt(256)));
+			}
+			final int from = random.nextInt(data.length);
+			int expected = -1;
+			for (int i = from; i + 2 < data.length; i++) {
+				if ((data[i] == 0) && (data[i + 1] == 0) && (data[i + 2] == 1)) {
+					expected = i;
+					break;
+				}
+			}
+			assertEquals(expected, BufferHelper.findStartCode(data, from, data.length));
+			final ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+			direct.put(data).flip();
+			assertEquals(expected, BufferHelper.findStartCode(direct, from, data.length));
+		}
+	}
+
+	@Test
+	public void iterator_test() throws Exception {
+		final NalUnitIterator it = new NalUnitIterator(NalUnitIterator.CODEC_H264);
+		check(it.reset(STREAM, 0, STREAM.length));
+		final ByteBuffer direct = ByteBuffer.allocateDirect(STREAM.length);
+		direct.put(STREAM).flip();
+		check(it.reset(direct));
+		check(it.reset(ByteBuffer.wrap(STREAM)));
+	}
+
+	private static void check(final NalUnitIterator it) {
+		assertTrue(it.next());
+		assertEquals(4, it.offset());
+		assertEquals(3, it.length());
+		assertEquals(4, it.startCodeLength());
+		assertEquals(7, it.type());
+		assertTrue(it.next());
+		assertEquals(10, it.offset());
+		assertEquals(2, it.length());
+		assertEquals(8, it.type());
+		assertTrue(it.next());
+		assertEquals(17, it.offset());
+		assertEquals(4, it.length());
+		assertEquals(4, it.startCodeLength());
+		assertEquals(5, it.type());
+		assertFalse(it.next());
+	}
+}
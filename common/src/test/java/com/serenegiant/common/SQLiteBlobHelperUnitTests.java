@@ -0,0 +1,110 @@
+package com.serenegiant.common;
+
+import com.serenegiant.db.SQLiteBlobHelper;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * com.serenegiant.db.SQLiteBlobHelperの配列変換用のローカルユニットテストクラス
+ */
+public class SQLiteBlobHelperUnitTests {
+
+	@Test
+	public void float_array_test() throws Exception {
+		final float[] src = {0.0f, 1.5f, -2.25f, Float.MAX_VALUE, Float.MIN_VALUE, 3.0f, 4.0f, 5.0f, 6.0f, 7.0f};
+		final byte[] bytes = SQLiteBlobHelper.floatArrayToByteArray(src, 1, 8);
+		assertEquals(32, bytes.length);
+		// ネイティブバイトオーダーで1要素ずつ書き込んだ時と同じかどうか
+		final ByteBuffer expected = ByteBuffer.allocate(32).order(ByteOrder.nativeOrder());
+		for (int i = 1; i < 9; i++) {
+			expected.putFloat(src[i]);
+		}
+		assertArrayEquals(expected.array(), bytes);
+		final float[] dst = new float[8];
+		assertSame(dst, SQLiteBlobHelper.byteArrayToFloatArray(bytes, dst));
+		for (int i = 0; i < 8; i++) {
+			assertEquals(src[i + 1], dst[i], 0.0f);
+		}
+		assertSame(bytes, SQLiteBlobHelper.floatArrayToByteArray(src, 0, 8, bytes));
+		assertEquals(8, SQLiteBlobHelper.byteArrayToFloatArray(bytes, new float[3]).length);
+		assertNull(SQLiteBlobHelper.byteArrayToFloatArray(new byte[3]));
+	}
+
+	@Test
+	public void primitive_array_test() throws Exception {
+		final long[] longs = {Long.MIN_VALUE, -1, 0, 1, Long.MAX_VALUE};
+		assertArrayEquals(longs, SQLiteBlobHelper.byteArrayToLongArray(
+			SQLiteBlobHelper.longArrayToByteArray(longs, 0, longs.length)));
+		final int[] ints = {Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE};
+		assertArrayEquals(ints, SQLiteBlobHelper.byteArrayToIntArray(
+			SQLiteBlobHelper.intArrayToByteArray(ints, 0, ints.length)));
+		final short[] shorts = {Short.MIN_VALUE, -1, 0, 1, Short.MAX_VALUE};
+		assertArrayEquals(shorts, SQLiteBlobHelper.byteArrayToShortArray(
+			SQLiteBlobHelper.shortArrayToByteArray(shorts, 0, shorts.length)));
+		final double[] doubles = {-1.0, 0.0, Math.PI, Double.MAX_VALUE};
+		assertArrayEquals(doubles, SQLiteBlobHelper.byteArrayToDoubleArray(
+			SQLiteBlobHelper.doubleArrayToByteArray(doubles, 0, doubles.length)), 0.0);
+		// 要素サイズで割り切れない余りは無視する
+		assertEquals(1, SQLiteBlobHelper.byteArrayToIntArray(new byte[7]).length);
+	}
+
+	@Test
+	public void compact_test() throws Exception {
+		final int[] ints = new int[1000];
+		for (int i = 0; i < ints.length; i++) {
+			ints[i] = 100000 + i * 3;
+		}
+		final byte[] compact = SQLiteBlobHelper.intArrayToCompactByteArray(ints, 0, ints.length);
+		assertTrue(compact.length < ints.length * 4 / 2);
+		assertArrayEquals(ints, SQLiteBlobHelper.compactByteArrayToIntArray(compact));
+		final int[] extreme = {Integer.MAX_VALUE, Integer.MIN_VALUE, 0, -1, 1, Integer.MIN_VALUE};
+		assertArrayEquals(extreme, SQLiteBlobHelper.compactByteArrayToIntArray(
+			SQLiteBlobHelper.intArrayToCompactByteArray(extreme, 0, extreme.length)));
+		final long[] longs = {Long.MAX_VALUE, Long.MIN_VALUE, 0, -1, 1, 1234567890123L};
+		assertArrayEquals(longs, SQLiteBlobHelper.compactByteArrayToLongArray(
+			SQLiteBlobHelper.longArrayToCompactByteArray(longs, 0, longs.length)));
+		assertEquals(0, SQLiteBlobHelper.compactByteArrayToIntArray(
+			SQLiteBlobHelper.intArrayToCompactByteArray(ints, 0, 0)).length);
+	}
+
+	@Test
+	public void half_test() throws Exception {
+		final float[] src = {0.0f, -0.0f, 1.0f, -2.5f, 0.1f, 65504.0f, 100000.0f,
+			6.1035156e-5f, 5.9604645e-8f, 1.0e-10f,
+			Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NaN};
+		final byte[] bytes = SQLiteBlobHelper.floatArrayToHalfByteArray(src, 0, src.length);
+		assertEquals(src.length * 2, bytes.length);
+		final float[] dst = SQLiteBlobHelper.halfByteArrayToFloatArray(bytes);
+		assertEquals(0.0f, dst[0], 0.0f);
+		assertEquals(Float.floatToIntBits(-0.0f), Float.floatToIntBits(dst[1]));
+		assertEquals(1.0f, dst[2], 0.0f);
+		assertEquals(-2.5f, dst[3], 0.0f);
+		assertEquals(0.1f, dst[4], 0.0001f);
+		assertEquals(65504.0f, dst[5], 0.0f);
+		assertEquals(Float.POSITIVE_INFINITY, dst[6], 0.0f);
+		assertEquals(6.1035156e-5f, dst[7], 0.0f);	// 正規化数の最小値
+		assertEquals(5.9604645e-8f, dst[8], 0.0f);	// 非正規化数の最小値
+		assertEquals(0.0f, dst[9], 0.0f);
+		assertEquals(Float.POSITIVE_INFINITY, dst[10], 0.0f);
+		assertEquals(Float.NEGATIVE_INFINITY, dst[11], 0.0f);
+		assertTrue(Float.isNaN(dst[12]));
+		// 半精度で表現できる値は全て元に戻るかどうか
+		final float[] all = new float[0x7c00];
+		final byte[] halfs = new byte[all.length * 2];
+		final ByteBuffer buf = ByteBuffer.wrap(halfs).order(ByteOrder.nativeOrder());
+		for (int i = 0; i < all.length; i++) {
+			buf.putShort((short)i);
+		}
+		final float[] decoded = SQLiteBlobHelper.halfByteArrayToFloatArray(halfs);
+		assertArrayEquals(halfs, SQLiteBlobHelper.floatArrayToHalfByteArray(decoded, 0, decoded.length));
+	}
+}
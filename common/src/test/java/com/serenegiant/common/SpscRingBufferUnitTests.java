@@ -0,0 +1,74 @@
+package com.serenegiant.common;
+
+import com.serenegiant.utils.SpscRingBuffer;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * com.serenegiant.utils.SpscRingBuffer用のローカルユニットテストクラス
+ */
+public class SpscRingBufferUnitTests {
+
+	@Test
+	public void capacity_test() throws Exception {
+		final SpscRingBuffer<Integer> ring = new SpscRingBuffer<Integer>(3);
+		assertTrue(ring.offer(1));
+		assertTrue(ring.offer(2));
+		assertTrue(ring.offer(3));
+		assertFalse(ring.offer(4));
+		assertEquals(3, ring.size());
+		assertEquals(1, (int)ring.peek());
+		assertEquals(1, (int)ring.poll());
+		assertTrue(ring.offer(4));
+		assertEquals(2, (int)ring.poll());
+		assertEquals(3, (int)ring.poll());
+		assertEquals(4, (int)ring.poll());
+		assertNull(ring.poll());
+		assertNull(ring.poll(10, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void spin_park_test() throws Exception {
+		transfer(new SpscRingBuffer<Integer>(16, SpscRingBuffer.WAIT_SPIN_PARK));
+	}
+
+	@Test
+	public void blocking_test() throws Exception {
+		transfer(new SpscRingBuffer<Integer>(16, SpscRingBuffer.WAIT_BLOCKING));
+	}
+
+	/**
+	 * 別スレッドから追加した値を順番通りに全て取り出せるかどうか
+	 * @param ring
+	 * @throws Exception
+	 */
+	private static void transfer(final SpscRingBuffer<Integer> ring) throws Exception {
+		final int n = 100000;
+		final Thread producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < n; ) {
+					if (ring.offer(i)) {
+						i++;
+					} else {
+						Thread.yield();
+					}
+				}
+			}
+		});
+		producer.start();
+		for (int i = 0; i < n; i++) {
+			final Integer v = ring.poll(1, TimeUnit.SECONDS);
+			assertEquals(i, (int)v);
+		}
+		producer.join();
+		assertTrue(ring.isEmpty());
+	}
+}
@@ -0,0 +1,31 @@
+package com.serenegiant.common;
+
+import com.serenegiant.usb.USBVendorId;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * com.serenegiant.usb.USBVendorId用のローカルユニットテストクラス
+ */
+public class USBVendorIdUnitTests {
+
+	@Test
+	public void vendor_name_test() throws Exception {
+		// 先頭・末尾・途中のベンダーIDを検索できるかどうか(昇順に並んでいないと見つからない)
+		assertEquals("Atmel Corporation", USBVendorId.vendorName(1003));
+		assertEquals("Intel Corporation", USBVendorId.vendorName(32902));
+		assertEquals("NEC Corporation", USBVendorId.vendorName(1033));
+		assertEquals("Dell Inc.", USBVendorId.vendorName(16700));
+		assertEquals("GoPro", USBVendorId.vendorName(9842));
+		assertEquals("HGST, a Western Digital Company", USBVendorId.vendorName(9999));
+	}
+
+	@Test
+	public void unknown_vendor_test() throws Exception {
+		assertEquals("VendorId00000000", USBVendorId.vendorName(0));
+		assertEquals("VendorId00000001", USBVendorId.vendorName(1));
+		assertEquals("VendorId0000ffff", USBVendorId.vendorName(0xffff));
+	}
+}
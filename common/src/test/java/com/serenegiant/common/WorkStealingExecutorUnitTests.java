@@ -0,0 +1,210 @@
+package com.serenegiant.common;
+
+import com.serenegiant.utils.Histogram;
+import com.serenegiant.utils.WorkStealingExecutor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * com.serenegiant.utils.WorkStealingExecutorとHistogram用のローカルユニットテストクラス
+ */
+public class WorkStealingExecutorUnitTests {
+
+	@Test
+	public void histogram_test() throws Exception {
+		final Histogram histogram = new Histogram();
+		assertEquals(0, histogram.getPercentile(50));
+		assertEquals(0, Histogram.bucketOf(0));
+		assertEquals(1, Histogram.bucketOf(1));
+		assertEquals(2, Histogram.bucketOf(3));
+		assertEquals(3, Histogram.bucketOf(4));
+		assertEquals(Histogram.NUM_BUCKETS - 1, Histogram.bucketOf(Long.MAX_VALUE));
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+		assertEquals(100, histogram.getCount());
+		assertEquals(5050, histogram.getSum());
+		assertEquals(100, histogram.getMax());
+		// 50は[32,64)のバケット
+		assertEquals(63, histogram.getPercentile(50));
+		assertEquals(100, histogram.getPercentile(100));
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+	}
+
+	@Test
+	public void execute_test() throws Exception {
+		final WorkStealingExecutor executor
+			= new WorkStealingExecutor("test", 4, 1, TimeUnit.SECONDS);
+		final int n = 10000;
+		final CountDownLatch latch = new CountDownLatch(n);
+		final AtomicInteger count = new AtomicInteger();
+		for (int i = 0; i < n; i++) {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					count.incrementAndGet();
+					latch.countDown();
+				}
+			}, i % 3, null);
+		}
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals(n, count.get());
+		// 実行時間はタスク終了後に記録するので完了数が揃うまで待つ
+		for (int i = 0; (i < 100) && (executor.getCompletedCount() < n); i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(n, executor.getCompletedCount());
+		assertEquals(n, executor.getRunTimeHistogram().getCount());
+		assertEquals(n, executor.getWaitTimeHistogram().getCount());
+		assertEquals(n, executor.getQueueDepthHistogram().getCount());
+		assertTrue(executor.getWorkerCount() <= 4);
+		executor.shutdown();
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+				}
+			});
+			fail();
+		} catch (final RejectedExecutionException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void priority_and_cancel_test() throws Exception {
+		final WorkStealingExecutor executor
+			= new WorkStealingExecutor("test", 1, 1, TimeUnit.SECONDS);
+		final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+		executor.pause();
+		final Object tag = new Object();
+		for (int i = 0; i < 3; i++) {
+			executor.execute(new Record(order, 20 + i), WorkStealingExecutor.PRIORITY_BULK_IO, null);
+			executor.execute(new Record(order, 10 + i), WorkStealingExecutor.PRIORITY_BACKGROUND, tag);
+			executor.execute(new Record(order, i), WorkStealingExecutor.PRIORITY_INTERACTIVE, null);
+		}
+		final Record removed = new Record(order, 99);
+		executor.execute(removed, WorkStealingExecutor.PRIORITY_INTERACTIVE, null);
+		assertEquals(10, executor.getQueuedCount());
+		assertTrue(executor.remove(removed));
+		// 一時停止中なので実行されない
+		Thread.sleep(50);
+		assertTrue(order.isEmpty());
+		assertEquals(3, executor.cancel(tag));
+		assertEquals(6, executor.getQueuedCount());
+		final CountDownLatch latch = new CountDownLatch(1);
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				latch.countDown();
+			}
+		}, WorkStealingExecutor.PRIORITY_BULK_IO, null);
+		executor.resume();
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		// 優先度の高いレーンから順に実行される
+		final List<Integer> expected = new ArrayList<Integer>();
+		Collections.addAll(expected, 0, 1, 2, 20, 21, 22);
+		assertEquals(expected, order);
+		assertTrue(executor.shutdownNow().isEmpty());
+	}
+
+	@Test
+	public void bulk_limit_test() throws Exception {
+		final WorkStealingExecutor executor
+			= new WorkStealingExecutor("test", 4, 1, TimeUnit.SECONDS);
+		final int n = 40;
+		final CountDownLatch latch = new CountDownLatch(n);
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		for (int i = 0; i < n; i++) {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					final int r = running.incrementAndGet();
+					for ( ; ; ) {
+						final int max = maxRunning.get();
+						if ((r <= max) || maxRunning.compareAndSet(max, r)) break;
+					}
+					try {
+						Thread.sleep(5);
+					} catch (final InterruptedException e) {
+						// ignore
+					}
+					running.decrementAndGet();
+					latch.countDown();
+				}
+			}, WorkStealingExecutor.PRIORITY_BULK_IO, null);
+		}
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		// PRIORITY_BULK_IOは並列数-1までしか同時に実行しない
+		assertTrue(maxRunning.get() <= 3);
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void uncaught_exception_test() throws Exception {
+		final Thread.UncaughtExceptionHandler prev = Thread.getDefaultUncaughtExceptionHandler();
+		final CountDownLatch caught = new CountDownLatch(1);
+		Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+			@Override
+			public void uncaughtException(final Thread t, final Throwable e) {
+				if (e instanceof IllegalStateException) {
+					caught.countDown();
+				}
+			}
+		});
+		try {
+			final WorkStealingExecutor executor
+				= new WorkStealingExecutor("test", 1, 1, TimeUnit.SECONDS);
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					throw new IllegalStateException("test");
+				}
+			});
+			assertTrue(caught.await(5, TimeUnit.SECONDS));
+			// 例外を投げてもワーカースレッドは続けて実行する
+			final CountDownLatch latch = new CountDownLatch(1);
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					latch.countDown();
+				}
+			});
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			assertEquals(1, executor.getWorkerCount());
+			executor.shutdownNow();
+		} finally {
+			Thread.setDefaultUncaughtExceptionHandler(prev);
+		}
+	}
+
+	private static class Record implements Runnable {
+		private final List<Integer> order;
+		private final int value;
+
+		private Record(final List<Integer> order, final int value) {
+			this.order = order;
+			this.value = value;
+		}
+
+		@Override
+		public void run() {
+			order.add(value);
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.serenegiant.system;
+
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * com.serenegiant.system.CpuMonitor用のローカルユニットテストクラス
+ * CpuMonitor#parseCpusPresentはパッケージプライベートなので同じパッケージに置く
+ */
+public class CpuMonitorUnitTests {
+
+	private static int parse(final String value) {
+		final byte[] buf = value.getBytes(Charset.forName("US-ASCII"));
+		return CpuMonitor.parseCpusPresent(buf, buf.length);
+	}
+
+	@Test
+	public void cpus_present_test() throws Exception {
+		assertEquals(8, parse("0-7\n"));
+		assertEquals(8, parse("0-7"));
+		assertEquals(1, parse("0\n"));
+		assertEquals(6, parse("0-3,5\n"));
+		assertEquals(12, parse("0-3,8-11\n"));
+		// 2行目以降は無視する
+		assertEquals(4, parse("0-3\n0-15\n"));
+		assertEquals(0, parse(""));
+	}
+}
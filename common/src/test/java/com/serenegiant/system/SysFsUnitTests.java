@@ -0,0 +1,140 @@
+package com.serenegiant.system;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * com.serenegiant.system.SysFs.Attribute用のローカルユニットテストクラス
+ * sysfsの代わりに一時ファイルを使う
+ * SysFs.Attributeのコンストラクタと#readChangedはパッケージプライベートなので同じパッケージに置く
+ */
+public class SysFsUnitTests {
+
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+
+	private File mFile;
+
+	@Before
+	public void setUp() throws Exception {
+		mFile = File.createTempFile("sysfs", ".txt");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (mFile != null) {
+			mFile.delete();
+		}
+	}
+
+	private void writeFile(final String value) throws IOException {
+		final FileOutputStream out = new FileOutputStream(mFile);
+		try {
+			out.write(value.getBytes(ASCII));
+		} finally {
+			out.close();
+		}
+	}
+
+	@Test
+	public void read_test() throws Exception {
+		writeFile(" 123\n");
+		final SysFs.Attribute attr = new SysFs.Attribute(mFile, false);
+		try {
+			assertEquals(5, attr.read());
+			assertEquals(123, attr.longValue());
+			assertEquals(" 123", attr.stringValue());
+			writeFile("-42\n");
+			assertEquals(-42, attr.readLong());
+			assertEquals(-42, attr.readInt());
+			// 初期バッファより大きい内容も全て読み込む
+			final StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < 100; i++) {
+				sb.append("01");
+			}
+			writeFile(sb.toString());
+			assertEquals(200, attr.read());
+			assertEquals(sb.toString(), attr.stringValue());
+		} finally {
+			attr.close();
+		}
+	}
+
+	@Test
+	public void not_a_number_test() throws Exception {
+		final SysFs.Attribute attr = new SysFs.Attribute(mFile, false);
+		try {
+			writeFile("abc\n");
+			try {
+				attr.readLong();
+				fail("should throw IOException");
+			} catch (final IOException e) {
+				// expected
+			}
+			writeFile("-\n");
+			try {
+				attr.readLong();
+				fail("should throw IOException");
+			} catch (final IOException e) {
+				// expected
+			}
+		} finally {
+			attr.close();
+		}
+	}
+
+	@Test
+	public void write_test() throws Exception {
+		final SysFs.Attribute attr = new SysFs.Attribute(mFile, true);
+		try {
+			attr.write(-9876);
+			assertEquals(-9876, attr.readLong());
+			// 常にオフセット0へ書き込む
+			attr.write(54321);
+			assertEquals(54321, attr.readLong());
+			// 通常のファイルは切り詰めないので先頭行だけを確認する
+			attr.write("1\n".getBytes(ASCII));
+			assertEquals("1", attr.readString());
+		} finally {
+			attr.close();
+		}
+		assertTrue(attr.isClosed());
+		try {
+			attr.read();
+			fail("should throw IOException");
+		} catch (final IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void read_changed_test() throws Exception {
+		writeFile("1\n");
+		final SysFs.Attribute attr = new SysFs.Attribute(mFile, false);
+		try {
+			// 最初は常に変化あり
+			assertTrue(attr.readChanged());
+			assertFalse(attr.readChanged());
+			writeFile("2\n");
+			assertTrue(attr.readChanged());
+			assertEquals(2, attr.longValue());
+			assertFalse(attr.readChanged());
+			// 長さが変わった時も変化あり
+			writeFile("22\n");
+			assertTrue(attr.readChanged());
+			assertFalse(attr.readChanged());
+		} finally {
+			attr.close();
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.serenegiant.usb;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * com.serenegiant.usb.DeviceFilterIndex用のローカルユニットテストクラス
+ * UsbDeviceを使わずに照合するメソッドはパッケージプライベートなので同じパッケージに置く
+ */
+public class DeviceFilterIndexUnitTests {
+
+	private static final int[] NO_INTERFACE = new int[0];
+	private static final int USB_CLASS_MISC = 0xef;
+	private static final int USB_CLASS_VIDEO = 0x0e;
+	private static final int USB_CLASS_AUDIO = 0x01;
+
+	private static DeviceFilter filter(final int vid, final int pid,
+		final int clazz, final boolean isExclude) {
+
+		return new DeviceFilter(vid, pid, clazz, -1, -1,
+			null, null, null, null, null, null, isExclude);
+	}
+
+	private static DeviceFilterIndex index(final DeviceFilter... filters) {
+		final List<DeviceFilter> list = new ArrayList<DeviceFilter>();
+		for (final DeviceFilter filter: filters) {
+			list.add(filter);
+		}
+		return new DeviceFilterIndex(list);
+	}
+
+	private static DeviceFilter findFirst(final DeviceFilterIndex index,
+		final int vid, final int pid, final int deviceClass, final int... intfClasses) {
+
+		final int[] zeros = new int[intfClasses.length];
+		return index.findFirst(vid, pid, deviceClass, 0, 0, intfClasses, zeros, zeros);
+	}
+
+	private static boolean accept(final DeviceFilterIndex index,
+		final int vid, final int pid, final int deviceClass, final int... intfClasses) {
+
+		final int[] zeros = new int[intfClasses.length];
+		return index.accept(vid, pid, deviceClass, 0, 0, intfClasses, zeros, zeros);
+	}
+
+	@Test
+	public void empty_test() throws Exception {
+		final DeviceFilterIndex index = new DeviceFilterIndex(null);
+		assertTrue(index.isEmpty());
+		// フィルターが空なら全て対象
+		assertTrue(accept(index, 0x1234, 0x5678, 0, NO_INTERFACE));
+		assertNull(findFirst(index, 0x1234, 0x5678, 0, NO_INTERFACE));
+	}
+
+	@Test
+	public void vendor_product_test() throws Exception {
+		final DeviceFilter a = filter(0x1234, 0x0001, -1, false);
+		final DeviceFilter b = filter(0x1234, -1, -1, false);
+		final DeviceFilter c = filter(-1, 0x0002, -1, false);
+		final DeviceFilterIndex index = index(a, b, c);
+		assertSame(a, findFirst(index, 0x1234, 0x0001, 0, NO_INTERFACE));
+		assertSame(b, findFirst(index, 0x1234, 0x0002, 0, NO_INTERFACE));
+		assertSame(c, findFirst(index, 0x4321, 0x0002, 0, NO_INTERFACE));
+		assertNull(findFirst(index, 0x4321, 0x0001, 0, NO_INTERFACE));
+		assertFalse(accept(index, 0x4321, 0x0001, 0, NO_INTERFACE));
+	}
+
+	@Test
+	public void order_test() throws Exception {
+		// 振り分け先が異なっていてもリストの先頭に近いフィルターで判定する
+		final DeviceFilter exclude = filter(0x1234, -1, -1, true);
+		final DeviceFilter include = filter(0x1234, 0x0001, -1, false);
+		assertSame(exclude, findFirst(index(exclude, include), 0x1234, 0x0001, 0, NO_INTERFACE));
+		assertFalse(accept(index(exclude, include), 0x1234, 0x0001, 0, NO_INTERFACE));
+		assertSame(include, findFirst(index(include, exclude), 0x1234, 0x0001, 0, NO_INTERFACE));
+		assertTrue(accept(index(include, exclude), 0x1234, 0x0001, 0, NO_INTERFACE));
+	}
+
+	@Test
+	public void class_test() throws Exception {
+		final DeviceFilter video = filter(-1, -1, USB_CLASS_VIDEO, false);
+		final DeviceFilterIndex index = index(video);
+		// デバイスクラスかインターフェースクラスのいずれかが一致すればマッチする
+		assertSame(video, findFirst(index, 0x1234, 0x0001, USB_CLASS_VIDEO, NO_INTERFACE));
+		assertSame(video, findFirst(index, 0x1234, 0x0001, USB_CLASS_MISC,
+			USB_CLASS_AUDIO, USB_CLASS_VIDEO));
+		// インターフェースクラスを指定していないフィルターはインターフェースがあればマッチする
+		assertSame(video, findFirst(index, 0x1234, 0x0001, USB_CLASS_MISC, USB_CLASS_AUDIO));
+		assertNull(findFirst(index, 0x1234, 0x0001, USB_CLASS_MISC, NO_INTERFACE));
+		assertFalse(accept(index, 0x1234, 0x0001, USB_CLASS_MISC, NO_INTERFACE));
+	}
+}